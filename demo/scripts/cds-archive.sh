@@ -0,0 +1,64 @@
+#!/usr/bin/env bash
+#
+# Builds a class-data-sharing (AppCDS) archive for the slim build and a launcher that uses it.
+#
+#   ./mvnw -Pslim -DskipTests package
+#   scripts/cds-archive.sh
+#   target/cds/run.sh
+#
+# CDS cannot read classes from jars nested in the Boot jar or from non-empty directories, so the jar is unpacked
+# into target/cds: application classes are repacked into application.jar and libraries stay as plain jars in
+# the order of classpath.idx. A training run starts the application with the "slim" Spring profile, waits for the
+# first response from /login_page (so the classes used to serve a page are archived as well) and stops it; the
+# JVM writes the archive on exit. The training run needs the same database as a normal start.
+# The archive is only valid for the same JDK and the same classpath; rebuild it after every package.
+
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+PORT=${PORT:-18080}
+JAR=$(ls target/demo-*.jar | head -n 1)
+OUT=target/cds
+
+rm -rf "$OUT"
+mkdir -p "$OUT/unpacked"
+(cd "$OUT/unpacked" && jar -xf "../../../$JAR")
+jar -cf "$OUT/application.jar" -C "$OUT/unpacked/BOOT-INF/classes" .
+
+CLASSPATH="application.jar"
+while read -r entry; do
+    lib=${entry#- \"}
+    lib=${lib%\"}
+    CLASSPATH="$CLASSPATH:${lib#BOOT-INF/}"
+done < "$OUT/unpacked/BOOT-INF/classpath.idx"
+mv "$OUT/unpacked/BOOT-INF/lib" "$OUT/lib"
+rm -rf "$OUT/unpacked"
+
+MAIN=com.example.demo.ResourcesManagerApplication
+JAVA_OPTS="-Dspring.profiles.active=slim"
+
+(
+    cd "$OUT"
+    java -XX:ArchiveClassesAtExit=app.jsa $JAVA_OPTS -cp "$CLASSPATH" "$MAIN" --server.port="$PORT" \
+        > training.log 2>&1 &
+    pid=$!
+    until [[ $(curl -s -o /dev/null -w '%{http_code}' "http://localhost:$PORT/login_page" || true) == 200 ]]; do
+        if ! kill -0 "$pid" 2>/dev/null; then
+            echo "training run failed, see $OUT/training.log" >&2
+            exit 1
+        fi
+        sleep 0.2
+    done
+    kill "$pid"
+    wait "$pid" || true
+)
+
+cat > "$OUT/run.sh" <<EOF
+#!/usr/bin/env bash
+cd "\$(dirname "\$0")"
+exec java -XX:SharedArchiveFile=app.jsa $JAVA_OPTS -cp "$CLASSPATH" $MAIN "\$@"
+EOF
+chmod +x "$OUT/run.sh"
+
+echo "archive: $OUT/app.jsa ($(du -h "$OUT/app.jsa" | cut -f1)), start with $OUT/run.sh"
@@ -0,0 +1,31 @@
+-- Measures how much space resource types take in MariaDB: average row length and data size of the resources
+-- table, the size of each of its indexes and the size of the resource_types dictionary.
+--
+-- Run it against the application database before and after migration V3 (resource type dictionary) and
+-- compare the output:
+--   mariadb jvt < scripts/resource-type-sizes.sql
+-- Before V3 the resource_types rows are simply absent. ANALYZE TABLE refreshes the statistics the numbers
+-- come from; index sizes are counted in InnoDB pages, so tables with only a few rows show one page per index.
+
+analyze table resources;
+analyze table resource_types;
+
+select table_name,
+       table_rows,
+       avg_row_length,
+       round(data_length / 1024, 1)  as data_kib,
+       round(index_length / 1024, 1) as index_kib
+from information_schema.tables
+where table_schema = database()
+  and table_name in ('resources', 'resource_types')
+order by table_name;
+
+select s.table_name,
+       s.index_name,
+       s.stat_value                                        as pages,
+       round(s.stat_value * @@innodb_page_size / 1024, 1) as size_kib
+from mysql.innodb_index_stats s
+where s.database_name = database()
+  and s.table_name in ('resources', 'resource_types')
+  and s.stat_name = 'size'
+order by s.table_name, s.index_name;
@@ -0,0 +1,85 @@
+#!/usr/bin/env bash
+#
+# Compares cold start of the JVM build, the JVM build with AOT-generated initialisation and the native image:
+# time from process start to the first successful response and resident memory (RSS) at that moment.
+#
+# Build both artifacts first (GraalVM 22.3+ with native-image on PATH):
+#   ./mvnw -Pnative -DskipTests package native:compile
+# The jar from this build contains the AOT classes, so it serves both the "jvm" and "jvm-aot" runs.
+# If scripts/cds-archive.sh has been run, the launcher it created is measured as "cds".
+#
+# Usage: scripts/startup-benchmark.sh [runs]
+# Database settings are taken from the environment as usual (SPRING_DATASOURCE_URL etc.).
+# Note that AOT fixes @Profile and @ConditionalOnProperty decisions at build time: runtime switches such as
+# app.diagnostics.enabled or the replica profile must match what the image was built with.
+
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+RUNS=${1:-5}
+PORT=${PORT:-18080}
+URL="http://localhost:${PORT}/login_page"
+JAR=$(ls target/demo-*.jar 2>/dev/null | grep -v original | head -n 1 || true)
+NATIVE=target/resources-manager
+CDS=target/cds/run.sh
+
+# Prints the RSS of a process in MiB.
+rss_mib() {
+    if [[ -r /proc/$1/status ]]; then
+        awk '/^VmRSS:/ { printf "%.1f", $2 / 1024 }' "/proc/$1/status"
+    else
+        ps -o rss= -p "$1" | awk '{ printf "%.1f", $1 / 1024 }'
+    fi
+}
+
+# Prints the median of the numbers on stdin.
+median() {
+    sort -n | awk '{ v[NR] = $1 } END { if (NR % 2) print v[(NR + 1) / 2]; else printf "%.1f\n", (v[NR / 2] + v[NR / 2 + 1]) / 2 }'
+}
+
+# Starts the command, waits for the first 200 response and prints "<startup ms> <rss MiB>".
+measure() {
+    local started pid elapsed rss
+    started=$(date +%s%N)
+    "$@" --server.port="$PORT" > /tmp/startup-benchmark.log 2>&1 &
+    pid=$!
+    until [[ $(curl -s -o /dev/null -w '%{http_code}' "$URL" || true) == 200 ]]; do
+        if ! kill -0 "$pid" 2>/dev/null; then
+            echo "process exited before serving requests, see /tmp/startup-benchmark.log" >&2
+            exit 1
+        fi
+        sleep 0.01
+    done
+    elapsed=$(( ($(date +%s%N) - started) / 1000000 ))
+    rss=$(rss_mib "$pid")
+    kill "$pid"
+    wait "$pid" 2>/dev/null || true
+    echo "$elapsed $rss"
+}
+
+# Runs one variant RUNS times and prints a table row with median values.
+bench() {
+    local name=$1 results
+    shift
+    results=$(for _ in $(seq "$RUNS"); do measure "$@"; done)
+    printf '| %-8s | %10s | %8s |\n' "$name" \
+        "$(cut -d' ' -f1 <<< "$results" | median)" "$(cut -d' ' -f2 <<< "$results" | median)"
+}
+
+printf '| %-8s | %10s | %8s |\n' "build" "startup ms" "RSS MiB"
+printf '|----------|------------|----------|\n'
+if [[ -n "$JAR" ]]; then
+    bench jvm java -jar "$JAR"
+    bench jvm-aot java -Dspring.aot.enabled=true -jar "$JAR"
+else
+    echo "no jar in target/, skipping JVM runs" >&2
+fi
+if [[ -x "$CDS" ]]; then
+    bench cds "$CDS"
+fi
+if [[ -x "$NATIVE" ]]; then
+    bench native "$NATIVE"
+else
+    echo "no native image at $NATIVE, skipping native run" >&2
+fi
@@ -1,13 +1,25 @@
 package com.example.demo;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
 
+import com.example.demo.aggregate.InventoryAggregates;
+import com.example.demo.aggregate.InventoryTotals;
+import com.example.demo.security.TokenService;
 import com.example.demo.security.UserInfo;
+import com.example.demo.live.ChangeFeed;
+import com.example.demo.sorting.SortColumns;
+import com.example.demo.suggest.SuggestionIndex;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import jakarta.servlet.http.HttpSession;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.repository.query.Param;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -15,7 +27,9 @@ import org.springframework.security.web.authentication.logout.SecurityContextLog
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 /**
  * Это класс контроллера, который обрабатывает HTTP-запросы и ответы для веб-приложения управления
@@ -37,6 +51,24 @@ public class AppController {
     @Autowired
     private ResourcesService service;
 
+    /** Итоги по ресурсам в разрезе поставщиков и типов, которые показывает страница сводки. */
+    @Autowired
+    private InventoryAggregates aggregates;
+
+    /** Служба токенов аутентификации; существует только в режиме без сеансов
+    * (`app.security.stateless=true`).
+    */
+    @Autowired(required = false)
+    private TokenService tokens;
+
+    /** Индексы префиксов для подсказок при вводе в полях поиска. */
+    @Autowired
+    private SuggestionIndex suggestions;
+
+    /** Лента изменений ресурсов и поставщиков для открытых страниц. */
+    @Autowired
+    private ChangeFeed changeFeed;
+
     /**
      * Это функция, которая возвращает «about_page», когда к конечной точке «/about» обращаются через
      * запрос GET.
@@ -59,52 +91,38 @@ public class AppController {
     }
 
     /**
-     * Эта функция устанавливает имя пользователя текущего пользователя в качестве атрибута сеанса и
-     * перенаправляет на домашнюю страницу после отправки формы входа.
+     * Эта функция перенаправляет на домашнюю страницу после отправки формы входа. Имя вошедшего
+     * пользователя шаблоны берут из контекста безопасности (`#authentication`), поэтому в сеансе оно не
+     * хранится: это позволяет работать и в режиме без сеансов.
      * 
      * @param username Параметр username — это строка, которая передается в качестве параметра запроса
      * методу loginSubmit. Он используется для идентификации пользователя, пытающегося войти в систему.
-     * @param session Параметр `session` является объектом класса `HttpSession`, который представляет сеанс
-     * пользователя и позволяет сохранять и извлекать данные по нескольким запросам от одного и того же
-     * клиента. В этом методе объект сеанса используется для хранения имени пользователя, вошедшего в
-     * систему, в качестве атрибута, который
      * 
      * @return Метод возвращает строку «redirect:/», которая является перенаправлением на домашнюю
      * страницу.
      */
     @PostMapping("/login_page")
-    public String loginSubmit(@RequestParam String username, HttpSession session){
-
-        final String currentUser = SecurityContextHolder.getContext().getAuthentication().getName();
-        session.setAttribute("username", currentUser);
+    public String loginSubmit(@RequestParam String username){
         return "redirect:/";
     }
 
     /**
-     * Эта функция добавляет в систему нового пользователя и устанавливает атрибуты сеанса для его
-     * имени и ролей.
+     * Эта функция добавляет в систему нового пользователя и перенаправляет на домашнюю страницу.
      * 
      * @param userInfo Объект типа UserInfo, который передается как атрибут модели в метод контроллера.
      * @param name Параметр «имя» — это строка, которая передается в качестве параметра запроса в
-     * HTTP-запросе POST в конечную точку «/reg». Он используется для установки атрибута «имя пользователя»
-     * в объекте HttpSession.
+     * HTTP-запросе POST в конечную точку «/reg».
      * @param roles Параметр «roles» — это строка, представляющая роли, назначенные добавляемому
      * пользователю. Он передается в качестве параметра запроса HTTP POST в конечную точку «/reg». Роли
      * можно использовать для определения уровня доступа пользователя и разрешений в приложении.
-     * @param session Параметр `session` является объектом класса `HttpSession`, который представляет
-     * пользовательский сеанс и позволяет сохранять и извлекать данные по нескольким запросам от одного и
-     * того же клиента. В этом фрагменте кода объект «session» используется для хранения атрибутов «name» и
-     * «roles».
      * 
      * @return Метод возвращает строку «redirect:/», которая используется для перенаправления пользователя
-     * на домашнюю страницу после добавления нового пользователя и настройки атрибутов сеанса.
+     * на домашнюю страницу после добавления нового пользователя.
      */
     @PostMapping("/reg")
-    public String addNewUser(@ModelAttribute UserInfo userInfo, @RequestParam String name, @RequestParam String roles, HttpSession session) {
+    public String addNewUser(@ModelAttribute UserInfo userInfo, @RequestParam String name, @RequestParam String roles) {
 
         service.addUser(userInfo);
-        session.setAttribute("username", name);
-        session.setAttribute("roles", roles);
         return "redirect:/";
     }
 
@@ -125,12 +143,14 @@ public class AppController {
     public String register(HttpServletRequest request, HttpServletResponse response) {
 
         new SecurityContextLogoutHandler().logout(request, response, SecurityContextHolder.getContext().getAuthentication());
+        if (tokens != null) {
+            tokens.clear(response);
+        }
         return "reg_page";
     }
 
     /**
-     * Эта функция добавляет нового пользователя с ролью администратора и устанавливает атрибуты
-     * сеанса для имени пользователя и ролей.
+     * Эта функция добавляет нового пользователя от имени администратора.
      * 
      * @param userInfo Объект типа UserInfo, содержащий информацию о добавляемом пользователе.
      * @param name Параметр name имеет тип String и используется для передачи имени пользователя,
@@ -140,21 +160,15 @@ public class AppController {
      * В данном случае он используется для назначения пользователю полномочий "ROLE_ADMIN". Это делается с
      * помощью аннотации Spring Security `@PreAuthorize`, которая проверяет, есть ли у текущего
      * пользователя «
-     * @param session Параметр сеанса — это объект класса HttpSession в Java. Он представляет сеанс
-     * пользователя и позволяет хранить и извлекать данные, связанные с этим сеансом. В этом фрагменте кода
-     * объект сеанса используется для установки атрибутов «имя пользователя» и «роли», которые можно
-     * использовать для идентификации
      * 
      * @return Метод возвращает строку "redirect:/". Это используется для перенаправления пользователя на
      * домашнюю страницу после добавления нового пользователя с ролью администратора.
      */
     @PreAuthorize("hasAuthority('ROLE_ADMIN')")
     @PostMapping("/reg_admin")
-    public String addNewUserAdmin(@ModelAttribute UserInfo userInfo, @RequestParam String name, @RequestParam String roles, HttpSession session) {
+    public String addNewUserAdmin(@ModelAttribute UserInfo userInfo, @RequestParam String name, @RequestParam String roles) {
 
         service.addUser(userInfo);
-        session.setAttribute("username", name);
-        session.setAttribute("roles", roles);
         return "redirect:/";
     }
 
@@ -179,20 +193,82 @@ public class AppController {
      * затем может обращаться представление для отображения данных.
      * @param keyword Строковый параметр, используемый для поиска ресурсов по ключевому слову. Он
      * передается как параметр запроса в URL-адресе.
+     * @param sort Столбец, по которому упорядочиваются ресурсы: name, type, quantity, cost, acdate или
+     * supplier.
+     * @param dir Направление сортировки: asc или desc.
      * 
      * @return Метод возвращает строку "index" - название соответсвующей html-страницы, которая будет загружена.
      */
     @RequestMapping("/")
-    public String viewHomePage(Model model, @Param("keyword") String keyword){
+    public String viewHomePage(Model model, @Param("keyword") String keyword,
+                               @RequestParam(required = false) String sort,
+                               @RequestParam(required = false) String dir){
 
-        List<Resource> listRes = service.listAllRes(keyword);
-        List<String> listSups = service.getResSupplier();
+        List<Resource> listRes = service.listAllRes(keyword, sortOrder(model, SortColumns.resources(sort, dir), sort, dir));
         model.addAttribute("listRes", listRes);
         model.addAttribute("keyword", keyword);
-        model.addAttribute("listSups", listSups);
+        model.addAttribute("supplierNames", service.getSupplierNamesById());
         return "index";
     }
 
+    /**
+     * Эта функция возвращает страницу сводки с итогами по ресурсам (число позиций, суммарное количество и
+     * суммарная стоимость) в разрезе поставщиков и типов. Итоги берутся из памяти, без сканирования
+     * таблицы ресурсов.
+     * 
+     * @param model Модель, в которую добавляются итоги по поставщикам, по типам и общие итоги.
+     * 
+     * @return Метод возвращает строку «dashboard» - название соответсвующей html-страницы, которая будет загружена.
+     */
+    @GetMapping("/dashboard")
+    public String viewDashboard(Model model) {
+
+        Map<Long, String> supplierNames = new LinkedHashMap<>();
+        service.listAllSups().forEach(supplier -> supplierNames.put(supplier.getSupid(), supplier.getName()));
+        Map<String, InventoryTotals> bySupplier = new TreeMap<>();
+        aggregates.getBySupplier().forEach((supid, totals) ->
+                bySupplier.merge(supplierNames.getOrDefault(supid, "#" + supid), totals, InventoryTotals::plus));
+        model.addAttribute("bySupplier", bySupplier);
+        model.addAttribute("byType", aggregates.getByType());
+        model.addAttribute("overall", aggregates.getOverall());
+        return "dashboard";
+    }
+
+    /**
+     * Эта функция возвращает подсказки для поля поиска по введенному префиксу. Подсказки выдаются из
+     * индекса в памяти без обращения к базе данных, поэтому страница запрашивает их при каждом нажатии
+     * клавиши.
+     * 
+     * @param field Поле, по которому выдаются подсказки: supplier, name или type.
+     * @param q Введенный пользователем префикс.
+     * @param limit Наибольшее число подсказок.
+     * 
+     * @return Список подсказок в формате JSON.
+     */
+    @GetMapping("/suggest")
+    @ResponseBody
+    public List<String> suggest(@RequestParam String field, @RequestParam String q,
+                                @RequestParam(defaultValue = "10") int limit) {
+
+        SuggestionIndex.Field indexField = SuggestionIndex.field(field);
+        if (indexField == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown suggestion field: " + field);
+        }
+        return suggestions.suggest(indexField, q, limit);
+    }
+
+    /**
+     * Эта функция открывает ленту изменений ресурсов и поставщиков (Server-Sent Events). Главная
+     * страница подписывается на нее и обновляет строки таблицы на месте без перезагрузки.
+     * 
+     * @return Объект SseEmitter долгого соединения.
+     */
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @ResponseBody
+    public SseEmitter events() {
+        return changeFeed.subscribe();
+    }
+
     /**
      * Эта функция возвращает представление для страницы поставщика со списком поставщиков и функцией
      * поиска.
@@ -204,14 +280,18 @@ public class AppController {
      * поставщиков, возвращаемого методом службы. Он передается в качестве параметра в метод и используется
      * для поиска поставщиков, имя или другие атрибуты которых содержат ключевое слово. Затем
      * отфильтрованный список поставщиков добавляется в модель и возвращается
+     * @param sort Столбец, по которому упорядочиваются поставщики: id, name, phone или email.
+     * @param dir Направление сортировки: asc или desc.
      * 
      * @return Метод возвращает строку «sup», которая является именем представления, которое будет
      * отображаться платформой Spring MVC.
      */
     @RequestMapping("/sup")
-    public String viewSupPage(Model model, @Param("keyword") String keyword) {
+    public String viewSupPage(Model model, @Param("keyword") String keyword,
+                              @RequestParam(required = false) String sort,
+                              @RequestParam(required = false) String dir) {
 
-        List<Supplier> listSup = service.listAllSup(keyword);
+        List<Supplier> listSup = service.listAllSup(keyword, sortOrder(model, SortColumns.suppliers(sort, dir), sort, dir));
         model.addAttribute("listSup", listSup);
         model.addAttribute("keyword", keyword);
         return "sup";
@@ -237,6 +317,11 @@ public class AppController {
      * поиска ресурсов по дате получения. Он используется в методе для фильтрации списка ресурсов на основе
      * даты приобретения.
      * @param keywordSupplier Строковый параметр, используемый для поиска ресурсов по имени/названии поставщика.
+     * @param fuzzy Признак нечеткого поиска по названию: при true ресурсы ищутся по сходству названия
+     * с учетом опечаток.
+     * @param sort Столбец, по которому при обычном поиске упорядочиваются ресурсы: name, type, quantity, cost, acdate или
+     * supplier.
+     * @param dir Направление сортировки: asc или desc.
      * 
      * @return Метод возвращает строку "index" - название соответсвующей html-страницы, которая будет загружена.
      */
@@ -246,14 +331,22 @@ public class AppController {
                               @Param("keywordQuantity") String keywordQuantity,
                               @Param("keywordCost") String keywordCost,
                               @Param("keywordAcdate") String keywordAcdate,
-                              @Param("keywordSupplier") String keywordSupplier){
-
-        List<Resource> listResByCriteria = service.listByResCriteria(keywordName, keywordType,
-                keywordQuantity, keywordCost, keywordAcdate, keywordSupplier);
+                              @Param("keywordSupplier") String keywordSupplier,
+                              @RequestParam(defaultValue = "false") boolean fuzzy,
+                              @RequestParam(required = false) String sort,
+                              @RequestParam(required = false) String dir){
+
+        Sort order = sortOrder(model, SortColumns.resources(sort, dir), sort, dir);
+        List<Resource> listResByCriteria = fuzzy && keywordName != null && !keywordName.isBlank()
+                ? service.searchResFuzzy(keywordName)
+                : service.listByResCriteria(keywordName, keywordType,
+                        keywordQuantity, keywordCost, keywordAcdate, keywordSupplier, order);
         model.addAttribute("listRes", listResByCriteria);
-        model.addAttribute(service.getResKeywordName(),service.getResKeyword());
-        List<String> listSups = service.getSupplierNames(keywordSupplier);
-        model.addAttribute("listSups", listSups);
+        model.addAttribute("fuzzy", fuzzy);
+        addUsedKeyword(model, "keywordName", keywordName, "keywordType", keywordType,
+                "keywordQuantity", keywordQuantity, "keywordCost", keywordCost,
+                "keywordAcdate", keywordAcdate, "keywordSupplier", keywordSupplier);
+        model.addAttribute("supplierNames", service.getSupplierNamesById());
         return "index";
     }
 
@@ -272,6 +365,11 @@ public class AppController {
      * поставщиков по их адресу электронной почты.
      * @param keywordId Строковый параметр, представляющий ключевое слово для поиска поставщика по его
      * идентификатору.
+     * @param fuzzy Признак нечеткого поиска по названию: при true поставщики ищутся по сходству
+     * названия с учетом опечаток.
+     * @param sort Столбец, по которому при обычном поиске упорядочиваются поставщики: id, name, phone или
+     * email.
+     * @param dir Направление сортировки: asc или desc.
      * 
      * @return Метод возвращает строку «sup».
      */
@@ -279,14 +377,66 @@ public class AppController {
     public String searchSup(Model model, @Param("keywordName") String keywordName,
                                @Param("keywordPhone") String keywordPhone,
                                @Param("keywordEmail") String keywordEmail,
-                               @Param("keywordId") String keywordId){
-
-        List<Supplier> listSupByCriteria = service.listBySupCriteria(keywordId, keywordName, keywordPhone, keywordEmail);
+                               @Param("keywordId") String keywordId,
+                               @RequestParam(defaultValue = "false") boolean fuzzy,
+                               @RequestParam(required = false) String sort,
+                               @RequestParam(required = false) String dir){
+
+        Sort order = sortOrder(model, SortColumns.suppliers(sort, dir), sort, dir);
+        List<Supplier> listSupByCriteria = fuzzy && keywordName != null && !keywordName.isBlank()
+                ? service.searchSupFuzzy(keywordName)
+                : service.listBySupCriteria(keywordId, keywordName, keywordPhone, keywordEmail, order);
         model.addAttribute("listSup", listSupByCriteria);
-        model.addAttribute(service.getSupKeywordName(), service.getSupKeyword());
+        model.addAttribute("fuzzy", fuzzy);
+        addUsedKeyword(model, "keywordName", keywordName, "keywordPhone", keywordPhone,
+                "keywordEmail", keywordEmail, "keywordId", keywordId);
         return "sup";
     }
 
+    /**
+     * Эта функция проверяет параметры сортировки и добавляет их в модель, чтобы страница отметила
+     * упорядоченный столбец. Нечеткий поиск сортировку не использует: его результаты упорядочены по
+     * сходству с ключевым словом.
+     * 
+     * @param model Модель представления.
+     * @param order Порядок сортировки из `SortColumns` или null, если параметры не распознаны.
+     * @param sort Столбец из запроса.
+     * @param dir Направление из запроса.
+     * 
+     * @return Порядок сортировки для метода сервиса.
+     * 
+     * @throws ResponseStatusException с кодом 400, если столбец или направление не распознаны.
+     */
+    private static Sort sortOrder(Model model, Sort order, String sort, String dir) {
+        if (order == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown sort: " + sort + " " + dir);
+        }
+        if (order.isSorted()) {
+            model.addAttribute("sort", sort.toLowerCase(Locale.ROOT));
+            model.addAttribute("dir", order.iterator().next().isDescending() ? "desc" : "asc");
+        }
+        return order;
+    }
+
+    /**
+     * Эта функция добавляет в модель ключевое слово, по которому выполнен поиск, чтобы страница
+     * показала его в поле поиска. Поиск по критериям использует первое непустое ключевое слово, поэтому
+     * в модель попадает только оно. Ключевое слово берется из параметров запроса, а не из состояния
+     * сервиса: результат поиска может быть получен из кэша без вызова метода сервиса.
+     * 
+     * @param model Модель представления.
+     * @param namesAndValues Пары «имя атрибута, значение» в порядке приоритета критериев.
+     */
+    private static void addUsedKeyword(Model model, String... namesAndValues) {
+        for (int i = 0; i + 1 < namesAndValues.length; i += 2) {
+            String value = namesAndValues[i + 1];
+            if (value != null && !value.isEmpty()) {
+                model.addAttribute(namesAndValues[i], value);
+                return;
+            }
+        }
+    }
+
     /**
      * Эта функция Java показывает форму для создания нового ресурса и передает в представление модель с
      * объектом ресурса и списком поставщиков.
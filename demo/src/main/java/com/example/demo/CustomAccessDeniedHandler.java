@@ -1,10 +1,10 @@
 package com.example.demo;
 
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 
 import org.apache.commons.io.IOUtils;
+import org.springframework.core.io.ClassPathResource;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.web.access.AccessDeniedHandler;
 
@@ -15,9 +15,18 @@ import jakarta.servlet.http.HttpServletResponse;
 /**
  * Класс CustomAccessDeniedHandler, применяющий интерфейс `AccessDeniedHandler`, обрабатывает исключения, связанные с отказом в доступе, записывая
  * содержимое указанного HTML-файла в ответ.
+ * Страница читается из classpath, а не по пути относительно рабочего каталога: так она находится и при
+ * запуске из архива jar, и в native-образе, где ресурс `templates/**` подключается через
+ * `ApplicationRuntimeHints`. Содержимое читается при первом отказе и дальше берется из памяти.
  */
 public class CustomAccessDeniedHandler implements AccessDeniedHandler {
 
+    /** Путь к странице отказа в доступе в classpath. */
+    static final String PAGE = "templates/error/403.html";
+
+    /** Содержимое страницы; null, пока страница не прочитана. */
+    private volatile String htmlContent;
+
     /**
      * Эта функция обрабатывает исключение отказа в доступе, записывая содержимое HTML-файла в ответ.
      * 
@@ -34,13 +43,26 @@ public class CustomAccessDeniedHandler implements AccessDeniedHandler {
         if (!response.isCommitted()) {
             response.setContentType("text/html;charset=UTF-8");
 
-            // read the contents of the HTML file
-            InputStream inputStream = new FileInputStream("demo/src/main/resources/templates/error/403.html");
-            String htmlContent = IOUtils.toString(inputStream, "UTF-8");
-            inputStream.close();
-
             // write the HTML content to the response
-            response.getWriter().write(htmlContent);
+            response.getWriter().write(page());
+        }
+    }
+
+    /**
+     * Эта функция возвращает содержимое страницы отказа в доступе, при первом вызове читая его из classpath.
+     *
+     * @return Содержимое HTML-файла.
+     *
+     * @throws IOException Если страница не найдена или не читается.
+     */
+    private String page() throws IOException {
+        String content = htmlContent;
+        if (content == null) {
+            try (InputStream inputStream = new ClassPathResource(PAGE).getInputStream()) {
+                content = IOUtils.toString(inputStream, "UTF-8");
+            }
+            htmlContent = content;
         }
+        return content;
     }
 }
\ No newline at end of file
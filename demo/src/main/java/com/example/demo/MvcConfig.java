@@ -1,15 +1,45 @@
 package com.example.demo;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.ViewControllerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import com.example.demo.admission.AdmissionControlInterceptor;
+import com.example.demo.diagnostics.ServerTimingInterceptor;
+import com.example.demo.resilience.StaleDataInterceptor;
+
 /**
  * Это класс конфигурации Java, который реализует интерфейс WebMvcConfigurer и переопределяет метод
  * addViewControllers.
  */
 @Configuration
 public class MvcConfig implements WebMvcConfigurer{
+
+    /** Перехватчик, измеряющий отрисовку представлений для заголовка `Server-Timing`; существует только
+    * при `app.diagnostics.server-timing.enabled=true`.
+    */
+    @Autowired(required = false)
+    private ServerTimingInterceptor serverTimingInterceptor;
+
+    /** Перехватчик адаптивного ограничения числа одновременных запросов; существует только при
+    * `app.admission.enabled=true`.
+    */
+    @Autowired(required = false)
+    private AdmissionControlInterceptor admissionControlInterceptor;
+
+    /** Перехватчик, который помечает страницы с сохраненными данными; существует только при
+    * `app.resilience.enabled=true`.
+    */
+    @Autowired(required = false)
+    private StaleDataInterceptor staleDataInterceptor;
+
+    /** Пути страниц, к которым применяется адаптивное ограничение. */
+    @Value("${app.admission.paths:/,/findRes,/findSup,/sup,/dashboard}")
+    private String[] admissionPaths;
+
     /**
      * Это пустой метод, который переопределяет метод addViewControllers в классе
      * ViewControllerRegistry в Java.
@@ -21,4 +51,23 @@ public class MvcConfig implements WebMvcConfigurer{
      */
     @Override
     public void addViewControllers(ViewControllerRegistry registry){}
+
+    /**
+     * Эта функция регистрирует перехватчики, если они включены. Ограничение одновременных запросов
+     * регистрируется первым, чтобы отклоненный запрос не проходил через остальные перехватчики.
+     * 
+     * @param registry Реестр перехватчиков Spring MVC.
+     */
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        if (admissionControlInterceptor != null) {
+            registry.addInterceptor(admissionControlInterceptor).addPathPatterns(admissionPaths);
+        }
+        if (staleDataInterceptor != null) {
+            registry.addInterceptor(staleDataInterceptor);
+        }
+        if (serverTimingInterceptor != null) {
+            registry.addInterceptor(serverTimingInterceptor);
+        }
+    }
 }
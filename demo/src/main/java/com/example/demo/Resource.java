@@ -4,6 +4,8 @@ import org.hibernate.annotations.Fetch;
 import org.hibernate.annotations.FetchMode;
 import org.hibernate.annotations.OnDelete;
 import org.hibernate.annotations.OnDeleteAction;
+import java.util.Objects;
+
 import org.springframework.format.annotation.DateTimeFormat;
 
 import jakarta.persistence.CascadeType;
@@ -13,9 +15,11 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
 
 /**
  * Это класс, представляющий сущность ресурса с различными атрибутами и отношением «многие к
@@ -23,9 +27,22 @@ import jakarta.persistence.Table;
  * `@Entity` — это аннотация JPA, которая помечает класс как постоянную сущность, что означает, что он
  * будет сопоставлен с таблицей базы данных. `@Table(name = "resources")` указывает имя таблицы базы
  * данных, с которой будет сопоставлен этот объект.
+ * Индексы `indexes` соответствуют столбцам, по которым страницы упорядочивают ресурсы: каждый индекс
+ * составной (столбец, resid), так как идентификатор служит вторым ключом сортировки, и база данных
+ * читает строки в нужном порядке по индексу, не сортируя результат целиком. Схемой владеют миграции
+ * Flyway (`db/migration`): индексы создаются миграцией V2, а при запуске Hibernate только проверяет схему.
+ * Тип ресурса хранится в словаре `resource_types` (миграция V3): строка ресурса содержит только
+ * идентификатор типа `type_id`, а название типа, которое видят формы и страницы, берется из записи словаря.
  */
 @Entity
-@Table(name = "resources")
+@Table(name = "resources", indexes = {
+        @Index(name = "idx_resources_name", columnList = "name, resid"),
+        @Index(name = "idx_resources_type", columnList = "type_id, resid"),
+        @Index(name = "idx_resources_quantity", columnList = "quantity, resid"),
+        @Index(name = "idx_resources_cost", columnList = "cost, resid"),
+        @Index(name = "idx_resources_acdate", columnList = "acdate, resid"),
+        @Index(name = "idx_resources_supplier", columnList = "supplier, resid")
+})
 public class Resource {
     
     /** `@Column(name = "resid")` — это аннотация, указывающая сопоставление поля объекта с соответствующим
@@ -46,16 +63,20 @@ public class Resource {
     @Column(name = "name")
     private String name;
 
-    /** `@Column(name = "type")` — это аннотация, которая сопоставляет поле `type` в классе Java со
-    * столбцом с именем `type` в соответствующей таблице базы данных. Это означает, что когда
-    * экземпляр этого класса сохраняется в базе данных, значение поля «тип» будет сохранено в столбце
-    * «тип» таблицы «ресурсы». `private String type` объявляет частное поле с именем `type` типа `String` в классе `Resource`.
-    * Это поле представляет тип ресурса и сопоставляется со столбцом «тип» в соответствующей таблице
-    * базы данных.
+    /** `private String type` объявляет частное поле с именем `type` типа `String` в классе `Resource`.
+    * Это поле хранит название типа, введенное в форме ресурса, пока оно еще не сопоставлено записи
+    * словаря `resourceType`. Поле не сохраняется в базе данных: при сохранении ресурса
+    * `ResourcesService` находит по названию запись словаря, и в базе данных остается только ее
+    * идентификатор.
     */
-    @Column(name = "type")
     private String type;
 
+    /** Запись словаря типов, на которую ссылается столбец `type_id`. Загрузка ресурсов получает ее из
+    * кэша второго уровня, и ресурсы одного типа, загруженные вместе, ссылаются на один и тот же объект
+    * с одной строкой названия.
+    */
+    private ResourceType resourceType;
+
     /** `@Column(name = «quantity»)` — это аннотация, которая сопоставляет поле «количество» в классе Java
     * со столбцом с именем «количество» в соответствующей таблице базы данных. Это означает, что когда
     * экземпляр этого класса сохраняется в базе данных, значение поля «количество» будет сохранено в
@@ -156,21 +177,51 @@ public class Resource {
     }
 
     /**
-     * Функция возвращает тип объекта в виде строки.
+     * Функция возвращает тип объекта в виде строки: название записи словаря или название, введенное в
+     * форме, если запись словаря еще не найдена. Аннотация `@Transient` исключает свойство из
+     * сопоставления: в базе данных хранится только `resourceType`.
      * 
      * @return Тип ресурса в виде строки. 
      */
+    @Transient
     public String getType() {
-        return type;
+        return resourceType != null ? resourceType.getName() : type;
     }
 
     /**
-     * Функция устанавливает тип ресурса.
+     * Функция устанавливает тип ресурса. Если новое название отличается от названия записи словаря,
+     * ссылка на запись сбрасывается, и при сохранении ресурса запись находится заново.
      * 
      * @param type Тип ресурса в виде строки.
      */
     public void setType(String type) {
         this.type = type;
+        if (resourceType != null && !Objects.equals(resourceType.getName(), type)) {
+            resourceType = null;
+        }
+    }
+
+    /**
+     * Функция возвращает запись словаря типов. Аннотации `@ManyToOne` и `@JoinColumn` сопоставляют ее со
+     * столбцом `type_id`; запись загружается вместе с ресурсом (`FetchType.EAGER`), так как название типа
+     * выводится на каждой странице со списком ресурсов.
+     * 
+     * @return Запись словаря или null, если тип не задан.
+     */
+    @ManyToOne(fetch = FetchType.EAGER)
+    @JoinColumn(name = "type_id")
+    public ResourceType getResourceType() {
+        return resourceType;
+    }
+
+    /**
+     * Функция устанавливает запись словаря типов; название типа берется из нее.
+     * 
+     * @param resourceType Запись словаря или null.
+     */
+    public void setResourceType(ResourceType resourceType) {
+        this.resourceType = resourceType;
+        this.type = null;
     }
 
     /**
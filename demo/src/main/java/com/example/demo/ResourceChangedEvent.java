@@ -0,0 +1,12 @@
+package com.example.demo;
+
+/**
+ * Это событие, которое `ResourcesService` публикует при сохранении или удалении ресурса внутри
+ * транзакции. Слушатели должны применять изменение только после фиксации транзакции, а при откате — не
+ * применять его вовсе.
+ * 
+ * @param before Состояние ресурса до изменения или null, если ресурс был создан.
+ * @param after Состояние ресурса после изменения или null, если ресурс был удален.
+ */
+public record ResourceChangedEvent(ResourceSnapshot before, ResourceSnapshot after) {
+}
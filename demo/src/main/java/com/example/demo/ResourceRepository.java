@@ -1,19 +1,56 @@
 package com.example.demo;
 
+import java.util.Collection;
 import java.util.List;
 
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import jakarta.persistence.QueryHint;
 
 
 /** Это интерфейс, расширяющий интерфейс JpaRepository и определяющий несколько методов поиска и
 * извлечения данных из базы данных ресурсов и поставщиков. Каждый метод помечен аннотацией @Query,
 * которая указывает пользовательский SQL-запрос для выполнения. Методы позволяют искать ресурсы по
-* имени, типу, количеству, стоимости, дате приобретения и имени поставщика, а также извлекать список
-* имен поставщиков и список ресурсов, упорядоченных по их идентификатору.
+* имени, типу, количеству, стоимости, дате приобретения и имени поставщика. Методы списков и поиска
+* принимают порядок сортировки `Sort`, который Spring Data добавляет к запросу в виде ORDER BY.
+*
+* Тип ресурса хранится в словаре типов, поэтому запросы списков и поиска присоединяют запись словаря
+* с псевдонимом `t`: по ее названию ищут и упорядочивают ресурсы по типу.
+* Поставщик присоединяется по внешнему ключу (`LEFT JOIN Supplier s ON s.supid = r.supplier`) с
+* псевдонимом `s`: по его названию упорядочиваются ресурсы, а ресурсы без поставщика тоже попадают в
+* результат.
+*
+* Запросы списков и поиска помечены подсказкой `HINT_READ_ONLY`: загруженные ими сущности не попадают
+* в проверку изменений Hibernate, и для них не хранятся снимки состояния.
 */
 public interface ResourceRepository extends JpaRepository<Resource, Long>{
 
+    /**
+     * Эта функция возвращает список всех ресурсов в режиме только для чтения.
+     * 
+     * @return Список всех ресурсов.
+     */
+    @Override
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    List<Resource> findAll();
+
+    /**
+     * Эта функция возвращает все ресурсы в заданном порядке. Поставщик присоединяется к ресурсу, чтобы
+     * список можно было упорядочить по названию поставщика; ресурсы без поставщика тоже попадают в список.
+     * 
+     * @param sort Порядок сортировки; название поставщика задается через псевдоним `s`, название типа —
+     * через псевдоним `t`.
+     * 
+     * @return Список всех ресурсов.
+     */
+    @Query("SELECT r FROM Resource r LEFT JOIN r.resourceType t LEFT JOIN Supplier s ON s.supid = r.supplier")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    List<Resource> findAllSorted(Sort sort);
+
     /**
      * Эта функция ищет ресурсы на основе ключевого слова, которое соответствует объединенной строке
      * различных атрибутов ресурса и его поставщика.
@@ -21,12 +58,15 @@ public interface ResourceRepository extends JpaRepository<Resource, Long>{
      * @param keyword Параметр ключевого слова — это строка, которая используется для поиска ресурсов по их
      * названию, типу, количеству, стоимости, дате приобретения и имени поставщика. Поиск выполняется путем
      * объединения этих полей и проверки того, содержит ли результирующая строка ключевое слово. Синтаксис
-     * %?1% указывает на переданный пользователем параметр
+     * %?1% указывает на переданный пользователем параметр. Название отсутствующего поставщика заменяется
+     * пустой строкой, чтобы ресурс без поставщика находился по остальным полям.
+     * @param sort Порядок сортировки; название поставщика задается через псевдоним `s`.
      * 
      * @return Список ресурсов, соответствующих ключевому слову поиска.
      */
-    @Query("SELECT r FROM Resource r JOIN Supplier s WHERE CONCAT(r.name, '', r.type, '', r.quantity, '', r.cost, '', r.acdate, '', s.name) LIKE %?1%")
-    List<Resource> search(String keyword);
+    @Query("SELECT r FROM Resource r LEFT JOIN r.resourceType t LEFT JOIN Supplier s ON s.supid = r.supplier WHERE CONCAT(r.name, '', t.name, '', r.quantity, '', r.cost, '', r.acdate, '', COALESCE(s.name, '')) LIKE %?1%")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    List<Resource> search(String keyword, Sort sort);
 
 
     /**
@@ -37,13 +77,15 @@ public interface ResourceRepository extends JpaRepository<Resource, Long>{
      * слово, которое будет использоваться для поиска ресурсов в базе данных. Запрос вернет список
      * ресурсов, имена которых содержат указанное ключевое слово. Символ «%» — это подстановочный знак,
      * который допускает частичное совпадение.
+     * @param sort Порядок сортировки; название поставщика задается через псевдоним `s`.
      * 
      * @return Метод `searchByName` возвращает список объектов `Resource`, которые соответствуют критериям
      * поиска, указанным в запросе JPQL. В частности, он возвращает все ресурсы, имя которых содержит
      * указанный параметр «ключевое слово», путем выполнения соединения с сущностью «Поставщик».
      */
-    @Query("SELECT r FROM Resource r JOIN Supplier s WHERE r.name LIKE %?1%")
-    List<Resource> searchByName(String keyword);
+    @Query("SELECT r FROM Resource r LEFT JOIN r.resourceType t LEFT JOIN Supplier s ON s.supid = r.supplier WHERE r.name LIKE %?1%")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    List<Resource> searchByName(String keyword, Sort sort);
 
 
     /**
@@ -53,13 +95,15 @@ public interface ResourceRepository extends JpaRepository<Resource, Long>{
      * @param keyword Параметр «ключевое слово» — это строка, представляющая условие поиска или ключевое
      * слово, которое будет использоваться для поиска ресурсов в базе данных. Запрос будет искать ресурсы,
      * тип которых содержит ключевое слово.
+     * @param sort Порядок сортировки; название поставщика задается через псевдоним `s`.
      * 
      * @return Метод searchByType возвращает список объектов Resource, которые соответствуют критериям
      * поиска, указанным в запросе JPQL. В частности, он возвращает все ресурсы, тип которых содержит
      * указанное ключевое слово.
      */
-    @Query("SELECT r FROM Resource r JOIN Supplier s WHERE r.type LIKE %?1%")
-    List<Resource> searchByType(String keyword);
+    @Query("SELECT r FROM Resource r LEFT JOIN r.resourceType t LEFT JOIN Supplier s ON s.supid = r.supplier WHERE t.name LIKE %?1%")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    List<Resource> searchByType(String keyword, Sort sort);
 
 
     /**
@@ -69,11 +113,28 @@ public interface ResourceRepository extends JpaRepository<Resource, Long>{
      * по их количеству. Это строковый параметр, который используется для указания значения количества,
      * которому должны соответствовать ресурсы. Оператор LIKE используется для выполнения частичного
      * совпадения значения количества, что обеспечивает более гибкий поиск.
+     * @param sort Порядок сортировки; название поставщика задается через псевдоним `s`.
      * 
      * @return Список объектов ресурсов, которые соответствуют заданному ключевому слову количества.
      */
-    @Query("SELECT r FROM Resource r JOIN Supplier s WHERE r.quantity LIKE ?1")
-    List<Resource> searchByQuantity(String keyword);
+    @Query("SELECT r FROM Resource r LEFT JOIN r.resourceType t LEFT JOIN Supplier s ON s.supid = r.supplier WHERE CAST(r.quantity AS String) LIKE ?1")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    List<Resource> searchByQuantity(String keyword, Sort sort);
+
+
+    /**
+     * Эта функция ищет ресурсы, количество которых попадает в диапазон. В отличие от `searchByQuantity`
+     * сравнение выполняется над числами, поэтому база данных может использовать индекс.
+     * 
+     * @param min Нижняя граница количества включительно.
+     * @param max Верхняя граница количества включительно.
+     * @param sort Порядок сортировки; название поставщика задается через псевдоним `s`.
+     * 
+     * @return Список ресурсов с количеством от min до max.
+     */
+    @Query("SELECT r FROM Resource r LEFT JOIN r.resourceType t LEFT JOIN Supplier s ON s.supid = r.supplier WHERE r.quantity BETWEEN ?1 AND ?2")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    List<Resource> searchByQuantityBetween(int min, int max, Sort sort);
 
 
     /**
@@ -83,11 +144,28 @@ public interface ResourceRepository extends JpaRepository<Resource, Long>{
      * @param keyword Параметр ключевого слова — это строка, представляющая значение стоимости, которое мы
      * хотим найти в базе данных. Запрос вернет список ресурсов, стоимость которых соответствует указанному
      * ключевому слову.
+     * @param sort Порядок сортировки; название поставщика задается через псевдоним `s`.
      * 
      * @return Список ресурсов, стоимость которых аналогична указанному ключевому слову.
      */
-    @Query("SELECT r FROM Resource r JOIN Supplier s WHERE r.cost LIKE ?1")
-    List<Resource> searchByCost(String keyword);
+    @Query("SELECT r FROM Resource r LEFT JOIN r.resourceType t LEFT JOIN Supplier s ON s.supid = r.supplier WHERE CAST(r.cost AS String) LIKE ?1")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    List<Resource> searchByCost(String keyword, Sort sort);
+
+
+    /**
+     * Эта функция ищет ресурсы, стоимость которых попадает в диапазон. В отличие от `searchByCost`
+     * сравнение выполняется над числами, поэтому база данных может использовать индекс.
+     * 
+     * @param min Нижняя граница стоимости включительно.
+     * @param max Верхняя граница стоимости включительно.
+     * @param sort Порядок сортировки; название поставщика задается через псевдоним `s`.
+     * 
+     * @return Список ресурсов со стоимостью от min до max.
+     */
+    @Query("SELECT r FROM Resource r LEFT JOIN r.resourceType t LEFT JOIN Supplier s ON s.supid = r.supplier WHERE r.cost BETWEEN ?1 AND ?2")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    List<Resource> searchByCostBetween(int min, int max, Sort sort);
 
 
     /**
@@ -97,44 +175,66 @@ public interface ResourceRepository extends JpaRepository<Resource, Long>{
      * основе их атрибута acdate. Символ % — это подстановочный знак, который допускает частичное
      * совпадение. Таким образом, если ключевое слово «2021-05», запрос вернет все ресурсы, атрибут acdate
      * которых содержит «2021-05».
+     * @param sort Порядок сортировки; название поставщика задается через псевдоним `s`.
      * 
      * @return Список объектов ресурсов, имеющих атрибут "acdate", содержащий указанное ключевое слово.
      * Запрос объединяет таблицы ресурсов и поставщиков и фильтрует результаты на основе атрибута "acdate"
      * таблицы ресурсов.
      */
-    @Query("SELECT r FROM Resource r JOIN Supplier s WHERE r.acdate LIKE %?1%")
-    List<Resource> searchByAcdate(String keyword);
+    @Query("SELECT r FROM Resource r LEFT JOIN r.resourceType t LEFT JOIN Supplier s ON s.supid = r.supplier WHERE r.acdate LIKE %?1%")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    List<Resource> searchByAcdate(String keyword, Sort sort);
 
     /**
      * Эта функция ищет ресурсы по ключевому слову, совпадающему с именем поставщика.
      * 
      * @param keyword Параметр ключевого слова — это строка, которая используется для поиска ресурсов по
      * имени их поставщика. Запрос вернет список ресурсов, имя поставщика которых содержит ключевое слово.
+     * @param sort Порядок сортировки; название поставщика задается через псевдоним `s`.
      * 
      * @return Список ресурсов, поставляемых поставщиком, имя которого содержит указанное ключевое слово.
      */
-    @Query("SELECT r FROM Supplier s, Resource r WHERE r.supplier = s.supid AND s.name LIKE %?1%")
-    List<Resource> searchBySupplier(String keyword);
+    @Query("SELECT r FROM Resource r LEFT JOIN r.resourceType t JOIN Supplier s ON s.supid = r.supplier WHERE s.name LIKE %?1%")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    List<Resource> searchBySupplier(String keyword, Sort sort);
 
     /**
-     * Эта функция ищет имена поставщиков, которые соответствуют заданному ключевому слову и имеют
-     * связанные с ними ресурсы.
+     * Эта функция возвращает все ресурсы указанного поставщика.
      * 
-     * @param keyword Параметр «ключевое слово» — это строка, которая используется для поиска имен
-     * поставщиков, содержащих указанное ключевое слово. Символ «%» — это подстановочный знак, который
-     * допускает частичное совпадение.
+     * @param supplier Идентификатор поставщика.
+     * 
+     * @return Список ресурсов поставщика.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    List<Resource> findBySupplier(Long supplier);
+
+    /**
+     * Эта функция возвращает ресурсы с указанными идентификаторами, например найденные нечетким
+     * поиском.
+     * 
+     * @param ids Идентификаторы ресурсов.
+     * 
+     * @return Список ресурсов в произвольном порядке.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    List<Resource> findByResidIn(Collection<Long> ids);
+
+    /**
+     * Эта функция считает итоги по каждому поставщику: число позиций, суммарное количество и суммарную
+     * стоимость (количество, умноженное на стоимость).
      * 
-     * @return Список имен поставщиков, соответствующих заданному ключевому слову.
+     * @return Список строк вида [идентификатор поставщика, число позиций, сумма количества, сумма
+     * стоимости].
      */
-    @Query("SELECT s.name FROM Supplier s, Resource r WHERE r.supplier = s.supid AND s.name LIKE %?1%")
-    List<String> searchSupplierNames(String keyword);
+    @Query("SELECT r.supplier, COUNT(r), SUM(r.quantity), SUM(CAST(r.quantity AS Long) * r.cost) FROM Resource r GROUP BY r.supplier")
+    List<Object[]> totalsBySupplier();
 
     /**
-     * Эта функция извлекает имена поставщиков из таблицы базы данных и упорядочивает их по идентификатору
-     * ресурса.
+     * Эта функция считает итоги по каждому типу ресурсов: число позиций, суммарное количество и
+     * суммарную стоимость.
      * 
-     * @return Список имен поставщиков, отсортированный по идентификатору ресурса.
+     * @return Список строк вида [название типа, число позиций, сумма количества, сумма стоимости].
      */
-    @Query("SELECT s.name FROM Supplier s, Resource r WHERE r.supplier = s.supid ORDER BY r.resid")
-    List<String> extractSupplier();
+    @Query("SELECT t.name, COUNT(r), SUM(r.quantity), SUM(CAST(r.quantity AS Long) * r.cost) FROM Resource r LEFT JOIN r.resourceType t GROUP BY t.name")
+    List<Object[]> totalsByType();
 }
@@ -0,0 +1,51 @@
+package com.example.demo;
+
+/**
+ * Это неизменяемый снимок полей ресурса в момент изменения. Снимки передаются в событиях
+ * `ResourceChangedEvent` и `SupplierChangedEvent`, поэтому слушатели не зависят от управляемых
+ * Hibernate сущностей, которые могут измениться после слияния.
+ * 
+ * @param resid Идентификатор ресурса.
+ * @param name Название ресурса.
+ * @param type Тип ресурса.
+ * @param quantity Количество ресурса.
+ * @param cost Стоимость ресурса.
+ * @param acdate Дата покупки ресурса в формате yyyy-MM-dd.
+ * @param supplier Идентификатор поставщика ресурса.
+ */
+public record ResourceSnapshot(Long resid, String name, String type, int quantity, int cost,
+                               String acdate, Long supplier) {
+
+    /**
+     * Эта функция создает снимок текущего состояния ресурса.
+     * 
+     * @param resource Ресурс, состояние которого копируется.
+     * 
+     * @return Снимок ресурса или null, если ресурс не передан.
+     */
+    public static ResourceSnapshot of(Resource resource) {
+        if (resource == null) {
+            return null;
+        }
+        return new ResourceSnapshot(resource.getResid(), resource.getName(), resource.getType(),
+                resource.getQuantity(), resource.getCost(), resource.getAcdate(), resource.getSupplier());
+    }
+
+    /**
+     * Эта функция создает несвязанный с Hibernate ресурс с полями снимка. Используется, когда ресурсы
+     * возвращаются из снимков в памяти, а не из базы данных.
+     * 
+     * @return Новый объект ресурса.
+     */
+    public Resource toResource() {
+        Resource resource = new Resource();
+        resource.setResid(resid);
+        resource.setName(name);
+        resource.setType(type);
+        resource.setQuantity(quantity);
+        resource.setCost(cost);
+        resource.setAcdate(acdate);
+        resource.setSupplier(supplier);
+        return resource;
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.demo;
+
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Immutable;
+
+import jakarta.persistence.Cacheable;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Это класс, представляющий запись словаря типов ресурсов: название типа и его короткий идентификатор.
+ * Строка ресурса хранит только идентификатор (столбец `type_id`), поэтому название, повторявшееся в каждой
+ * строке, хранится в базе данных один раз.
+ * Запись неизменяема: новый тип добавляется новой записью, а существующая никогда не переименовывается,
+ * поэтому сущность помещается в регион «resourceTypes» кэша второго уровня со стратегией READ_ONLY, и
+ * загрузка ресурсов берет типы из кэша без запросов к базе данных.
+ * Таблица создается миграцией Flyway V3.
+ */
+@Entity
+@Table(name = "resource_types")
+@Immutable
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_ONLY, region = "resourceTypes")
+public class ResourceType {
+
+    /** Идентификатор типа; тип SMALLINT занимает в строке ресурса и в индексе два байта. */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Short id;
+
+    /** Название типа в том виде, в каком его ввел пользователь. */
+    @Column(name = "name", nullable = false, unique = true)
+    private String name;
+
+    /**
+     * Конструктор по умолчанию для Hibernate.
+     */
+    protected ResourceType() {
+    }
+
+    /**
+     * Конструктор создает новый тип с заданным названием; идентификатор назначает база данных.
+     *
+     * @param name Название типа.
+     */
+    public ResourceType(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Функция возвращает идентификатор типа.
+     *
+     * @return Идентификатор типа или null, если тип еще не сохранен.
+     */
+    public Short getId() {
+        return id;
+    }
+
+    /**
+     * Функция возвращает название типа.
+     *
+     * @return Название типа.
+     */
+    public String getName() {
+        return name;
+    }
+}
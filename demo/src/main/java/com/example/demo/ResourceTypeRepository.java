@@ -0,0 +1,21 @@
+package com.example.demo;
+
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+/**
+ * Это интерфейс репозитория словаря типов ресурсов. Он расширяет интерфейс `JpaRepository`, который
+ * обеспечивает основные операции CRUD; типы ищет и добавляет `ResourceTypes`.
+ */
+public interface ResourceTypeRepository extends JpaRepository<ResourceType, Short> {
+
+    /**
+     * Эта функция ищет тип по точному названию с учетом регистра.
+     *
+     * @param name Название типа.
+     *
+     * @return Тип или пустое значение, если такого типа в словаре нет.
+     */
+    Optional<ResourceType> findByName(String name);
+}
@@ -0,0 +1,99 @@
+package com.example.demo;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Это класс словаря типов ресурсов в памяти: он сопоставляет название типа, введенное в форме ресурса,
+ * записи таблицы `resource_types`. Каждое название хранится в одном экземпляре `ResourceType`, поэтому
+ * при сохранении ресурса тип находится без обращения к базе данных, а ресурсы одного типа ссылаются на
+ * одну и ту же запись.
+ * Тип, которого еще нет в словаре, ищется в базе данных и при необходимости добавляется в отдельной
+ * транзакции (REQUIRES_NEW): запись словаря не откатывается вместе с неудачным сохранением ресурса и
+ * сразу видна другим экземплярам приложения. Отдельная транзакция берет свое соединение пула, поэтому
+ * тип нужно получать до того, как вызывающий код откроет свою транзакцию (так делает
+ * `ResourcesService.saveRes`), иначе один вызов удерживал бы два соединения. Если два экземпляра добавляют
+ * один тип одновременно, уникальный ключ названия пропускает только одну вставку, а другой экземпляр
+ * читает сохраненную запись.
+ */
+@Component
+public class ResourceTypes {
+
+    /** Репозиторий словаря типов. */
+    @Autowired
+    private ResourceTypeRepository repository;
+
+    /** Типы по названиям. */
+    private final Map<String, ResourceType> byName = new ConcurrentHashMap<>();
+
+    /** Шаблон отдельной транзакции для поиска и добавления типа на основной базе данных. */
+    private final TransactionTemplate requiresNew;
+
+    /**
+     * Конструктор создает шаблон транзакции и регистрирует метрику размера словаря.
+     *
+     * @param transactionManager Менеджер транзакций приложения.
+     * @param registry Реестр метрик Micrometer.
+     */
+    public ResourceTypes(PlatformTransactionManager transactionManager, MeterRegistry registry) {
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        Gauge.builder("resource.types", byName, Map::size)
+                .description("Resource types held in the in-memory dictionary").register(registry);
+    }
+
+    /**
+     * Эта функция возвращает запись словаря для названия типа и добавляет тип в словарь, если его там нет.
+     * Названия сравниваются точно, с учетом регистра и пробелов.
+     *
+     * @param name Название типа.
+     *
+     * @return Тип или null, если название не задано.
+     */
+    public ResourceType resolve(String name) {
+        if (name == null) {
+            return null;
+        }
+        ResourceType type = byName.get(name);
+        if (type != null) {
+            return type;
+        }
+        type = findOrInsert(name);
+        ResourceType previous = byName.putIfAbsent(name, type);
+        return previous != null ? previous : type;
+    }
+
+    /**
+     * Эта функция забывает все типы; следующее обращение к каждому типу прочитает его из базы данных. Нужна
+     * после восстановления базы из снимка, где у типов могут быть другие идентификаторы.
+     */
+    public void clear() {
+        byName.clear();
+    }
+
+    /**
+     * Эта функция ищет тип в базе данных и добавляет его, если его там нет.
+     *
+     * @param name Название типа.
+     *
+     * @return Сохраненный тип.
+     */
+    private ResourceType findOrInsert(String name) {
+        try {
+            return requiresNew.execute(status -> repository.findByName(name)
+                    .orElseGet(() -> repository.saveAndFlush(new ResourceType(name))));
+        } catch (DataIntegrityViolationException e) {
+            return requiresNew.execute(status -> repository.findByName(name).orElseThrow(() -> e));
+        }
+    }
+}
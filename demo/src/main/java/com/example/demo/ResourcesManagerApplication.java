@@ -4,14 +4,21 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.web.servlet.support.SpringBootServletInitializer;
 import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import com.example.demo.nativeimage.ApplicationRuntimeHints;
 
 
 /**
  * Это основной класс для приложения Spring Boot, которое сканирует пакет «com.example.demo» на наличие
- * компонентов.
+ * компонентов. Аннотация `@EnableScheduling` включает выполнение периодических задач `@Scheduled`, а
+ * `@ImportRuntimeHints` подключает подсказки для сборки native-образа.
  */
 @SpringBootApplication
 @ComponentScan("com.example.demo")
+@EnableScheduling
+@ImportRuntimeHints(ApplicationRuntimeHints.class)
 public class ResourcesManagerApplication extends SpringBootServletInitializer{
     
     /**
@@ -1,13 +1,30 @@
 package com.example.demo;
 
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
-
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+import com.example.demo.cache.CachedResult;
+import com.example.demo.cache.DataTable;
+import com.example.demo.columnar.ColumnarResourceIndex;
+import com.example.demo.columnar.IntRange;
+import com.example.demo.fuzzy.FuzzySearch;
+import com.example.demo.resilience.StaleOnFailure;
 import com.example.demo.security.UserInfo;
 import com.example.demo.security.UserInfoRepository;
-import io.netty.util.internal.StringUtil;
+import com.example.demo.singleflight.Coalesced;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
 
 /**
  * Класс ResourcesService предоставляет методы для управления ресурсами и поставщиками, а также
@@ -17,6 +34,20 @@ import org.springframework.stereotype.Service;
  * компонентом в приложении Spring. Она позволяет Spring
  * автоматически обнаруживать и настраивать класс как сервисный компонент, делая его доступным для
  * использования во всем приложении.
+ * 
+ * Методы чтения помечены `@Transactional(readOnly = true)`, а методы записи — `@Transactional`: при
+ * настроенной реплике (`app.datasource.replica.url`) чтение выполняется на реплике, а запись — на
+ * основной базе данных. Списки возвращаются как неизменяемые представления: сущности в них загружены
+ * запросами только для чтения и не отслеживаются Hibernate.
+ * 
+ * Одинаковые одновременные вызовы методов поиска, помеченных `@Coalesced`, объединяются в один запрос
+ * к базе данных (`SingleFlightAspect`), а их результаты, помеченные `@CachedResult`, сохраняются в кэше
+ * с версиями данных таблиц (`ResultCacheAspect`): запись увеличивает версию, и старые результаты больше
+ * не выдаются.
+ * 
+ * Для методов списков, помеченных `@StaleOnFailure`, запоминается последний удачный результат: если база
+ * данных недоступна или не отвечает, страница строится по нему и помечается как устаревшая
+ * (`StaleFallbackAspect`).
  */
 @Service
 public class ResourcesService {
@@ -35,6 +66,14 @@ public class ResourcesService {
     @Autowired
     private SupplierRepository repoSup;
 
+    /** Словарь типов ресурсов, который сопоставляет название типа из формы записи таблицы `resource_types`. */
+    @Autowired
+    private ResourceTypes resourceTypes;
+
+    /** Менеджер транзакций для записи ресурса, которая открывается после поиска его типа. */
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
     /** `@Autowired` — это аннотация в Spring, позволяющая автоматически внедрять зависимости. В этом случае
     * он внедряет экземпляр UserInfoRepository в класс ResourcesService, позволяя службе получать доступ и
     * использовать методы, предоставляемые репозиторием. Обычно это используется для доступа и управления
@@ -52,6 +91,23 @@ public class ResourcesService {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    /** Публикатор событий приложения. Через него методы записи сообщают об изменениях ресурсов и
+    * поставщиков событиями `ResourceChangedEvent` и `SupplierChangedEvent`.
+    */
+    @Autowired
+    private ApplicationEventPublisher publisher;
+
+    /** Колоночный снимок ресурсов в памяти, по которому выполняется поиск по количеству и стоимости.
+    * Компонент существует только при `app.columnar.enabled=true`; иначе поле остается null и поиск
+    * выполняется запросом к базе данных.
+    */
+    @Autowired(required = false)
+    private ColumnarResourceIndex columnar;
+
+    /** Индексы триграмм для нечеткого поиска ресурсов и поставщиков по названию. */
+    @Autowired
+    private FuzzySearch fuzzy;
+
     /**
      * Эта функция возвращает список ресурсов либо путем поиска по ключевому слову, либо возвращая все
      * ресурсы, если ключевое слово не указано.
@@ -60,16 +116,21 @@ public class ResourcesService {
      * репозитории repoRes. Если ключевое слово не пустое, вызывается метод поиска репозитория с ключевым
      * словом в качестве параметра и возвращаются результаты. Если ключевое слово равно null, все ресурсы
      * возвращаются путем вызова метода findAll.
+     * @param sort Порядок сортировки (`SortColumns`); `Sort.unsorted()` оставляет порядок базе данных.
      * 
      * @return Возвращается список объектов ресурсов. Если указано непустое ключевое слово, метод вернет
      * отфильтрованный список ресурсов, соответствующих этому ключевому слову. В противном случае он вернет
      * все ресурсы в хранилище.
      */
-    public List<Resource> listAllRes(String keyword) {
+    @StaleOnFailure
+    @CachedResult(tables = {DataTable.RESOURCES, DataTable.SUPPLIERS})
+    @Coalesced
+    @Transactional(readOnly = true)
+    public List<Resource> listAllRes(String keyword, Sort sort) {
         if (keyword != null) {
-            return repoRes.search(keyword);
+            return readOnlyView(repoRes.search(keyword, sort));
         }
-        return repoRes.findAll();
+        return readOnlyView(repoRes.findAllSorted(sort));
     }
 
 
@@ -82,17 +143,21 @@ public class ResourcesService {
      * репозитории. Если ключевое слово не равно null, метод вызовет метод поиска объекта repoSup и вернет
      * список поставщиков, соответствующих ключевому слову. Если ключевое слово равно null, метод вернет
      * список
+     * @param sort Порядок сортировки (`SortColumns`); `Sort.unsorted()` оставляет порядок базе данных.
      * 
      * @return Метод listAllSup возвращает список объектов Supplier. Если параметр `keyword` не равен нулю,
      * он возвращает список объектов `Supplier`, которые соответствуют ключевому слову, используя метод
      * `search` объекта `repoSup`. Если параметр `keyword` равен нулю, он возвращает все объекты
      * `Supplier`, используя метод `findAll` из `repoSup.
      */
-    public List<Supplier> listAllSup(String keyword) {
+    @StaleOnFailure
+    @CachedResult(tables = DataTable.SUPPLIERS)
+    @Transactional(readOnly = true)
+    public List<Supplier> listAllSup(String keyword, Sort sort) {
         if (keyword != null) {
-            return repoSup.search(keyword);
+            return readOnlyView(repoSup.search(keyword, sort));
         }
-        return repoSup.findAll();
+        return readOnlyView(repoSup.findAll(sort));
     }
 
 
@@ -101,77 +166,10 @@ public class ResourcesService {
      * 
      * @return Список всех поставщиков из репозитория.
      */
+    @StaleOnFailure
+    @Transactional(readOnly = true)
     public List<Supplier> listAllSups() {
-        return repoSup.findAll();
-    }
-
-    /** `private String resKeywordName` объявляет частную переменную экземпляра `resKeywordName` типа
-    * `String` в классе `ResourcesService`. Эта переменная используется для хранения имени ключевого
-    * слова, используемого в методе `listByResCriteria` для поиска ресурсов. Доступ к нему можно
-    * получить через метод получения `getResKeywordName()`.
-    */
-    private String resKeywordName;
-
-
-    /** `private String supKeywordName` объявляет частную переменную экземпляра `supKeywordName` типа
-    * `String` в классе `ResourcesService`. Эта переменная используется для хранения имени ключевого
-    * слова, используемого в методе `listBySupCriteria` для поиска поставщиков. Доступ к нему можно
-    * получить через геттер-метод getSupKeywordName().
-    */
-    private String supKeywordName;
-
-
-    /** `private String resKeyword` объявляет частную переменную экземпляра `resKeyword` типа `String` в
-    * классе `ResourcesService`. Эта переменная используется для хранения ключевого слова,
-    * используемого в методе `listByResCriteria` для поиска ресурсов. Доступ к нему можно получить
-    * через геттер-метод getResKeyword().
-    */
-    private String resKeyword;
-
-
-    /** `private String supKeyword` объявляет частную переменную экземпляра `supKeyword` типа `String` в
-    * классе `ResourcesService`. Эта переменная используется для хранения ключевого слова,
-    * используемого в методе `listBySupCriteria` для поиска поставщиков. Доступ к нему можно получить
-    * через геттер-метод getSupKeyword().
-    */
-    private String supKeyword;
-
-    /**
-     * Эта функция возвращает значение переменной «resKeywordName».
-     * 
-     * @return Метод возвращает значение переменной `resKeywordName`, которая является строкой.
-     */
-    public String getResKeywordName() {
-        return resKeywordName;
-    }
-
-    /**
-     * Функция возвращает значение переменной «resKeyword».
-     * 
-     * @return Метод `getResKeyword()` возвращает значение `String`, которое является значением переменной
-     * `resKeyword`.
-     */
-    public String getResKeyword() {
-        return resKeyword;
-    }
-
-    /**
-     * Эта функция возвращает имя ключевого слова «супер» в Java.
-     * 
-     * @return Метод возвращает значение переменной `supKeywordName`, которая является строкой.
-     */
-    public String getSupKeywordName() {
-        return supKeywordName;
-    }
-
-
-    /**
-     * Эта функция возвращает значение переменной «supKeyword» в виде строки.
-     * 
-     * @return Метод `getSupKeyword()` возвращает переменную `String` с именем `supKeyword`.
-     */
-    public String getSupKeyword() {
-        return supKeyword;
+        return readOnlyView(repoSup.findAll());
     }
 
     /**
@@ -180,7 +178,8 @@ public class ResourcesService {
      * 
      * @param keywordName Строка, представляющая имя ресурса для поиска.
      * @param keywordType Ключевое слово, используемое для поиска ресурсов по их типу.
-     * @param keywordQuantity Ключевое слово, используемое для поиска ресурсов по количеству.
+     * @param keywordQuantity Ключевое слово, используемое для поиска ресурсов по количеству: число
+     * («10»), диапазон («10..20») или шаблон LIKE.
      * @param keywordCost Это строковый параметр, используемый в качестве ключевого слова для поиска
      * ресурсов по стоимости. Он используется в методе для вызова метода «searchByCost» из репозитория
      * «repoRes» для получения списка ресурсов, соответствующих заданному ключевому слову стоимости.
@@ -188,49 +187,57 @@ public class ResourcesService {
      * строка, представляющая дату в определенном формате.
      * @param keywordSupplier Строковый параметр, используемый для поиска ресурсов по поставщику.
      * Используется в методе searchBySupplier объекта repoRes.
+     * @param sort Порядок сортировки (`SortColumns`); `Sort.unsorted()` оставляет порядок базе данных.
      * 
      * @return Список ресурсов на основе предоставленных критериев поиска. Если критерии поиска не указаны,
      * возвращаются все ресурсы.
      */
+    @StaleOnFailure(firstNonEmpty = true)
+    @CachedResult(tables = {DataTable.RESOURCES, DataTable.SUPPLIERS}, firstNonEmpty = true)
+    @Coalesced(firstNonEmpty = true)
+    @Transactional(readOnly = true)
     public List<Resource> listByResCriteria(
             String keywordName,
             String keywordType,
             String keywordQuantity,
             String keywordCost,
             String keywordAcdate,
-            String keywordSupplier){
+            String keywordSupplier,
+            Sort sort){
                 
-        if (!StringUtil.isNullOrEmpty(keywordName)){
-            this.resKeywordName = "keywordName";
-            this.resKeyword = keywordName;
-            return repoRes.searchByName(keywordName);
+        if (StringUtils.hasLength(keywordName)){
+            return readOnlyView(repoRes.searchByName(keywordName, sort));
         }
-        else if (!StringUtil.isNullOrEmpty(keywordType)){
-            this.resKeywordName = "keywordType";
-            this.resKeyword = keywordType;
-            return repoRes.searchByType(keywordType);
+        else if (StringUtils.hasLength(keywordType)){
+            return readOnlyView(repoRes.searchByType(keywordType, sort));
         }
-        else if (!StringUtil.isNullOrEmpty(keywordQuantity)){
-            this.resKeywordName = "keywordShipmentCity";
-            this.resKeyword = keywordQuantity;
-            return repoRes.searchByQuantity(keywordQuantity);
+        else if (StringUtils.hasLength(keywordQuantity)){
+            IntRange range = IntRange.parse(keywordQuantity);
+            if (range == null) {
+                return readOnlyView(repoRes.searchByQuantity(keywordQuantity, sort));
+            }
+            if (columnar != null && columnar.isReady() && sort.isUnsorted()) {
+                return fromSnapshots(columnar.findByQuantity(range));
+            }
+            return readOnlyView(repoRes.searchByQuantityBetween(range.min(), range.max(), sort));
         }
-        else if (!StringUtil.isNullOrEmpty(keywordCost)){
-            this.resKeywordName = "keywordShipmentDate";
-            this.resKeyword = keywordCost;
-            return repoRes.searchByCost(keywordCost);
+        else if (StringUtils.hasLength(keywordCost)){
+            IntRange range = IntRange.parse(keywordCost);
+            if (range == null) {
+                return readOnlyView(repoRes.searchByCost(keywordCost, sort));
+            }
+            if (columnar != null && columnar.isReady() && sort.isUnsorted()) {
+                return fromSnapshots(columnar.findByCost(range));
+            }
+            return readOnlyView(repoRes.searchByCostBetween(range.min(), range.max(), sort));
         }
-        else if (!StringUtil.isNullOrEmpty(keywordAcdate)){
-            this.resKeywordName = "keywordAcDate";
-            this.resKeyword = keywordAcdate;
-            return repoRes.searchByAcdate(keywordAcdate);
+        else if (StringUtils.hasLength(keywordAcdate)){
+            return readOnlyView(repoRes.searchByAcdate(keywordAcdate, sort));
         }
-        else if (!StringUtil.isNullOrEmpty(keywordSupplier)){
-            this.resKeywordName = "keywordSupplier";
-            this.resKeyword = keywordSupplier;
-            return repoRes.searchBySupplier(keywordSupplier);
+        else if (StringUtils.hasLength(keywordSupplier)){
+            return readOnlyView(repoRes.searchBySupplier(keywordSupplier, sort));
         }
-        else return repoRes.findAll();
+        else return readOnlyView(repoRes.findAllSorted(sort));
     }
 
     /**
@@ -242,36 +249,61 @@ public class ResourcesService {
      * @param keywordPhone Строка, представляющая номер телефона для поиска в списке поставщиков.
      * @param keywordEmail Строковый параметр, используемый для поиска поставщиков по их адресу электронной
      * почты.
+     * @param sort Порядок сортировки (`SortColumns`); `Sort.unsorted()` оставляет порядок базе данных.
      * 
      * @return Список объектов поставщиков на основе предоставленных критериев поиска. Если критерии не
      * указаны, возвращаются все объекты Supplier.
      */
+    @StaleOnFailure
+    @CachedResult(tables = DataTable.SUPPLIERS)
+    @Coalesced
+    @Transactional(readOnly = true)
     public List<Supplier> listBySupCriteria(
             String keywordId,
             String keywordName,
             String keywordPhone,
-            String keywordEmail){
-        if (!StringUtil.isNullOrEmpty(keywordName)){
-            this.supKeywordName = "keywordName";
-            this.supKeyword = keywordName;
-            return repoSup.searchByName(keywordName);
+            String keywordEmail,
+            Sort sort){
+        if (StringUtils.hasLength(keywordName)){
+            return readOnlyView(repoSup.searchByName(keywordName, sort));
         }
-        else if (!StringUtil.isNullOrEmpty(keywordPhone)){
-            this.supKeywordName = "keywordDate";
-            this.supKeyword = keywordPhone;
-            return repoSup.searchByPhone(keywordPhone);
+        else if (StringUtils.hasLength(keywordPhone)){
+            return readOnlyView(repoSup.searchByPhone(keywordPhone, sort));
         }
-        else if (!StringUtil.isNullOrEmpty(keywordEmail)){
-            this.supKeywordName = "keywordAuthor";
-            this.supKeyword = keywordEmail;
-            return repoSup.searchByEmail(keywordEmail);
+        else if (StringUtils.hasLength(keywordEmail)){
+            return readOnlyView(repoSup.searchByEmail(keywordEmail, sort));
         }
-        else if (!StringUtil.isNullOrEmpty(keywordId)){
-            this.supKeywordName = "keywordId";
-            this.supKeyword = keywordId;
-            return repoSup.searchById(keywordId);
+        else if (StringUtils.hasLength(keywordId)){
+            return readOnlyView(repoSup.searchById(keywordId, sort));
         }
-        else return repoSup.findAll();
+        else return readOnlyView(repoSup.findAll(sort));
+    }
+
+    /**
+     * Эта функция выполняет нечеткий поиск ресурсов по названию: находит ресурсы, названия которых
+     * похожи на ключевое слово даже при опечатках, по индексу триграмм в памяти.
+     * 
+     * @param keywordName Название ресурса, возможно с опечатками.
+     * 
+     * @return Неизменяемый список ресурсов по убыванию сходства названия с ключевым словом.
+     */
+    @Transactional(readOnly = true)
+    public List<Resource> searchResFuzzy(String keywordName) {
+        List<Long> ids = fuzzy.matchResources(keywordName);
+        return ids.isEmpty() ? List.of() : inOrder(ids, repoRes.findByResidIn(ids), Resource::getResid);
+    }
+
+    /**
+     * Эта функция выполняет нечеткий поиск поставщиков по названию по индексу триграмм в памяти.
+     * 
+     * @param keywordName Название поставщика, возможно с опечатками.
+     * 
+     * @return Неизменяемый список поставщиков по убыванию сходства названия с ключевым словом.
+     */
+    @Transactional(readOnly = true)
+    public List<Supplier> searchSupFuzzy(String keywordName) {
+        List<Long> ids = fuzzy.matchSuppliers(keywordName);
+        return ids.isEmpty() ? List.of() : inOrder(ids, repoSup.findBySupidIn(ids), Supplier::getSupid);
     }
 
     /**
@@ -283,32 +315,50 @@ public class ResourcesService {
      * UserInfo в качестве параметра для добавления пользователя в систему.
      * 
      * @return Метод возвращает строковое сообщение «Пользователь добавлен в систему!» после добавления
-     * нового пользователя в систему.
+     * нового пользователя в систему. После сохранения публикуется событие `UserAddedEvent`.
      */
+    @Transactional
     public String addUser(UserInfo userInfo){
         userInfo.setPassword(passwordEncoder.encode(userInfo.getPassword()));
-        userRepo.save(userInfo);
+        UserInfo saved = userRepo.save(userInfo);
+        publisher.publishEvent(new UserAddedEvent(UserSnapshot.of(saved)));
         return "User added to system!";
     }
 
     /**
-     * Эта функция сохраняет объект ресурса, используя репозиторий.
+     * Эта функция сохраняет объект ресурса, используя репозиторий, и публикует событие
+     * `ResourceChangedEvent` с состоянием ресурса до и после сохранения. Перед сохранением название типа
+     * из формы заменяется ссылкой на запись словаря типов `ResourceTypes`. Тип ищется и при необходимости
+     * добавляется до того, как открывается транзакция сохранения: иначе отдельная транзакция словаря
+     * заняла бы второе соединение пула, пока первое удерживается сохранением, и при малом пуле
+     * одновременные сохранения новых типов могли бы ждать друг друга до истечения тайм-аута пула.
      * 
      * @param res Параметр «res» — это объект типа «Ресурс», который передается в качестве аргумента
      * методу «saveRes». Этот объект сохраняется в репозиторий с помощью объекта «repoRes».
      */
     public void saveRes(Resource res) {
-        repoRes.save(res);
+        res.setResourceType(resourceTypes.resolve(res.getType()));
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            ResourceSnapshot before = res.getResid() == null ? null
+                    : repoRes.findById(res.getResid()).map(ResourceSnapshot::of).orElse(null);
+            Resource saved = repoRes.save(res);
+            publisher.publishEvent(new ResourceChangedEvent(before, ResourceSnapshot.of(saved)));
+        });
     }
 
     /**
      * Эта функция сохраняет объект поставщика, используя репозиторий.
      * 
      * @param sup Параметр «sup» — это объект класса «Supplier», который содержит информацию о поставщике.
-     * Этот метод сохраняет объект поставщика в хранилище с помощью объекта «repoSup».
+     * Этот метод сохраняет объект поставщика в хранилище с помощью объекта «repoSup». После сохранения
+     * публикуется событие `SupplierChangedEvent`.
      */
+    @Transactional
     public void saveSup(Supplier sup) {
-        repoSup.save(sup);
+        SupplierSnapshot before = sup.getSupid() == null ? null
+                : repoSup.findById(sup.getSupid()).map(SupplierSnapshot::of).orElse(null);
+        Supplier saved = repoSup.save(sup);
+        publisher.publishEvent(new SupplierChangedEvent(before, SupplierSnapshot.of(saved), List.of()));
     }
 
     /**
@@ -320,6 +370,7 @@ public class ResourcesService {
      * @return Метод getRes возвращает объект Resource с указанным идентификатором. Он извлекает объект
      * «Ресурс» из репозитория с помощью метода «findById» и возвращает его с помощью метода «get».
      */
+    @Transactional(readOnly = true)
     public Resource getRes(Long id) {
         return repoRes.findById(id).get();
     }
@@ -334,6 +385,7 @@ public class ResourcesService {
      * @return Метод getSup возвращает объект Supplier с указанным идентификатором, полученным из
      * репозитория repoSup.
      */
+    @Transactional(readOnly = true)
     public Supplier getSup(Long id) {
         return repoSup.findById(id).get();
     }
@@ -344,10 +396,14 @@ public class ResourcesService {
      * 
      * @param id Параметр «id» представляет собой тип данных Long, представляющий уникальный идентификатор
      * ресурса, который необходимо удалить из базы данных. Метод «deleteRes» принимает этот параметр и
-     * использует его для удаления соответствующего ресурса из репозитория.
+     * использует его для удаления соответствующего ресурса из репозитория. После удаления публикуется
+     * событие `ResourceChangedEvent` с состоянием удаленного ресурса.
      */
+    @Transactional
     public void deleteRes(Long id) {
+        ResourceSnapshot before = repoRes.findById(id).map(ResourceSnapshot::of).orElse(null);
         repoRes.deleteById(id);
+        publisher.publishEvent(new ResourceChangedEvent(before, null));
     }
 
     /**
@@ -356,44 +412,68 @@ public class ResourcesService {
      * @param id Параметр "id" представляет собой тип данных Long, представляющий собой уникальный
      * идентификатор поставщика, который необходимо удалить из базы данных. Метод «deleteSup» принимает
      * этот параметр и использует его для удаления соответствующей записи поставщика из базы данных с
-     * помощью метода «deleteById», предоставляемого репозиторием.
+     * помощью метода «deleteById», предоставляемого репозиторием. После удаления публикуется событие
+     * `SupplierChangedEvent`, в котором перечислены ресурсы поставщика, удаляемые каскадно.
      */
+    @Transactional
     public void deleteSup(Long id) {
+        SupplierSnapshot before = repoSup.findById(id).map(SupplierSnapshot::of).orElse(null);
+        List<ResourceSnapshot> removed = repoRes.findBySupplier(id).stream().map(ResourceSnapshot::of).toList();
         repoSup.deleteById(id);
+        publisher.publishEvent(new SupplierChangedEvent(before, null, removed));
     }
 
     /**
-     * Эта функция возвращает список строк, представляющих поставщиков, извлеченных из репозитория.
+     * Эта функция возвращает названия поставщиков по их идентификаторам. Страница ресурсов берет из нее
+     * название поставщика каждой строки по идентификатору, поэтому строки можно выводить в любом порядке.
+     * Поставщики загружаются запросом `findAll`, результат которого хранится в кэше запросов Hibernate.
      * 
-     * @return Список строк, содержащих имена поставщиков, извлеченных из репозитория.
+     * @return Отображение идентификатора поставщика в его название.
      */
-    public List<String> getResSupplier(){
-        return repoRes.extractSupplier();
+    @StaleOnFailure
+    @Transactional(readOnly = true)
+    public Map<Long, String> getSupplierNamesById(){
+        Map<Long, String> names = new HashMap<>();
+        repoSup.findAll().forEach(supplier -> names.put(supplier.getSupid(), supplier.getName()));
+        return Collections.unmodifiableMap(names);
     }
 
     /**
-     * Эта функция возвращает список имен поставщиков на основе поиска по ключевому слову или всех имен
-     * поставщиков, если ключевое слово не указано.
+     * Эта функция оборачивает результат запроса в неизменяемое представление списка.
      * 
-     * @param keywordSup Параметр keywordSup представляет собой строку, представляющую ключевое слово,
-     * используемое для поиска имен поставщиков. Если параметр не нулевой или пустой, метод будет искать
-     * имена поставщиков, соответствующие ключевому слову. В противном случае он вернет список всех
-     * доступных имен поставщиков.
+     * @param list Список, полученный из репозитория.
      * 
-     * @return Метод getSupplierNames возвращает список объектов String. Содержимое списка зависит от
-     * входного параметра `keywordSup`. Если `keywordSup` не является нулевым или пустым, метод ищет имена
-     * поставщиков, которые соответствуют ключевому слову, и возвращает список этих имен. Если `keywordSup`
-     * имеет значение null или пусто, метод возвращает список всех имен поставщиков.
+     * @return Неизменяемое представление того же списка без копирования элементов.
      */
-    public List<String> getSupplierNames(String keywordSup){
-        if (!StringUtil.isNullOrEmpty(keywordSup)){
-            this.resKeywordName = "keywordSup";
-            this.resKeyword = keywordSup;
-            return repoRes.searchSupplierNames(keywordSup);
-        }
-        else{
-            return repoRes.extractSupplier();
-        }
+    private static <T> List<T> readOnlyView(List<T> list) {
+        return Collections.unmodifiableList(list);
+    }
+
+    /**
+     * Эта функция превращает снимки ресурсов из памяти в неизменяемый список ресурсов.
+     * 
+     * @param snapshots Снимки найденных ресурсов.
+     * 
+     * @return Неизменяемый список ресурсов, не связанных с Hibernate.
+     */
+    private static List<Resource> fromSnapshots(List<ResourceSnapshot> snapshots) {
+        return snapshots.stream().map(ResourceSnapshot::toResource).toList();
+    }
+
+    /**
+     * Эта функция упорядочивает сущности в порядке списка идентификаторов, например по убыванию
+     * сходства при нечетком поиске.
+     * 
+     * @param ids Идентификаторы в нужном порядке.
+     * @param entities Сущности, загруженные из базы данных в произвольном порядке.
+     * @param idOf Функция, возвращающая идентификатор сущности.
+     * 
+     * @return Неизменяемый список сущностей в порядке идентификаторов; отсутствующие в базе пропускаются.
+     */
+    private static <T> List<T> inOrder(List<Long> ids, List<T> entities, Function<T, Long> idOf) {
+        Map<Long, T> byId = new HashMap<>();
+        entities.forEach(entity -> byId.put(idOf.apply(entity), entity));
+        return ids.stream().map(byId::get).filter(Objects::nonNull).toList();
     }
 
 }
@@ -2,12 +2,17 @@ package com.example.demo;
 
 import java.util.Set;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.Table;
 
@@ -15,10 +20,21 @@ import jakarta.persistence.Table;
 /** Этот класс, который представляет сущность в базе
 * данных. Аннотация `@Entity` указывает, что этот класс является сущностью, а аннотация `@Table(name =
 * "suppliers")` указывает имя таблицы базы данных, которая соответствует этой сущности. Кроме того, существует аннотация `@OneToMany`,
-* которая указывает отношение «один ко многим» между этим классом и реусрсом
+* которая указывает отношение «один ко многим» между этим классом и реусрсом.
+* Аннотации `@Cacheable` и `@Cache` помещают сущность в регион «suppliers» кэша второго уровня
+* со стратегией READ_WRITE: таблица поставщиков меняется редко, а читается на каждой странице.
+* Составные индексы (столбец, supid) позволяют упорядочивать поставщиков по названию, телефону и почте
+* чтением индекса; индекс по названию используется и при сортировке ресурсов по названию поставщика.
+* Таблица и индексы создаются миграциями Flyway (`db/migration`).
 */
 @Entity
-@Table(name = "suppliers")
+@Table(name = "suppliers", indexes = {
+        @Index(name = "idx_suppliers_name", columnList = "name, supid"),
+        @Index(name = "idx_suppliers_phone", columnList = "phone, supid"),
+        @Index(name = "idx_suppliers_email", columnList = "email, supid")
+})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "suppliers")
 public class Supplier {
 
     /** `@Column(name = "suid")` — это аннотация, определяющая сопоставление между столбцом базы данных и
@@ -0,0 +1,17 @@
+package com.example.demo;
+
+import java.util.List;
+
+/**
+ * Это событие, которое `ResourcesService` публикует при сохранении или удалении поставщика внутри
+ * транзакции. Слушатели должны применять изменение только после фиксации транзакции, а при откате — не
+ * применять его вовсе.
+ * 
+ * @param before Состояние поставщика до изменения или null, если поставщик был создан.
+ * @param after Состояние поставщика после изменения или null, если поставщик был удален.
+ * @param removedResources Ресурсы удаленного поставщика, которые удаляются вместе с ним каскадно
+ * (ON DELETE CASCADE). Для сохранения поставщика список пуст.
+ */
+public record SupplierChangedEvent(SupplierSnapshot before, SupplierSnapshot after,
+                                   List<ResourceSnapshot> removedResources) {
+}
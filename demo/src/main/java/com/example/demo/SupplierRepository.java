@@ -1,16 +1,64 @@
 package com.example.demo;
 
+import java.util.Collection;
 import java.util.List;
 
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import jakarta.persistence.QueryHint;
 
 /** Это интерфейс, определяющий репозиторий для сущности «Поставщик». Он расширяет интерфейс
 * `JpaRepository`, который обеспечивает основные операции CRUD для сущности. Каждый метод помечен аннотацией `@Query`,
 // которая указывает пользовательский SQL-запрос для выполнения.
+* Запросы списков и поиска помечены подсказкой `HINT_READ_ONLY`: загруженные ими сущности не попадают
+* в проверку изменений Hibernate, и для них не хранятся снимки состояния.
 */
 public interface SupplierRepository extends JpaRepository<Supplier, Long>{
 
+    /**
+     * Эта функция возвращает список всех поставщиков. Переопределение нужно только для подсказки
+     * `HINT_CACHEABLE`: результат запроса сохраняется в кэше запросов Hibernate и сбрасывается при
+     * любом изменении таблицы поставщиков.
+     * 
+     * @return Список всех поставщиков.
+     */
+    @Override
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    List<Supplier> findAll();
+
+    /**
+     * Эта функция возвращает список всех поставщиков в заданном порядке. Результат, как и у `findAll()`,
+     * сохраняется в кэше запросов Hibernate.
+     * 
+     * @param sort Порядок сортировки.
+     * 
+     * @return Список всех поставщиков.
+     */
+    @Override
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    List<Supplier> findAll(Sort sort);
+
+    /**
+     * Эта функция возвращает поставщиков с указанными идентификаторами, например найденных нечетким
+     * поиском.
+     * 
+     * @param ids Идентификаторы поставщиков.
+     * 
+     * @return Список поставщиков в произвольном порядке.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    List<Supplier> findBySupidIn(Collection<Long> ids);
+
     /**
      * Это функция, которая ищет поставщиков по ключевому слову, совпадающему с их именем, номером
      * телефона или адресом электронной почты.
@@ -19,13 +67,15 @@ public interface SupplierRepository extends JpaRepository<Supplier, Long>{
      * их имени, номеру телефона или адресу электронной почты. Поиск выполняется с помощью SQL-запроса,
      * который ищет поставщиков, чье имя, номер телефона или адрес электронной почты пост содержат ключевое
      * слово. Синтаксис %?1% используется для обозначения  передаваемого ключевого слова
+     * @param sort Порядок сортировки.
      * 
      * @return Список объектов Supplier, соответствующих критериям поиска, указанным в запросе. Поиск
      * выполняется на основе имени, номера телефона и адреса электронной почты поставщиков, а параметр
      * ключевого слова используется для фильтрации результатов.
      */
     @Query("SELECT s from Supplier s WHERE CONCAT(s.name, ' ', s.phone, ' ', s.email) LIKE %?1%")
-    List<Supplier> search(String keyword);
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    List<Supplier> search(String keyword, Sort sort);
 
     /**
      * Эта функция ищет поставщика по его идентификатору с помощью ключевого слова.
@@ -33,12 +83,14 @@ public interface SupplierRepository extends JpaRepository<Supplier, Long>{
      * @param keyword Параметр ключевого слова представляет собой строку, представляющую поисковый запрос,
      * используемый для поиска поставщиков по их идентификатору. Запрос ищет поставщиков, у которых supid
      * (идентификатор поставщика) соответствует указанному ключевому слову.
+     * @param sort Порядок сортировки.
      * @return Метод searchById возвращает список объектов Supplier, соответствующих критериям поиска,
      * указанным в запросе. Поиск основан на атрибуте `suid` сущности `Supplier`, а ключевое слово поиска
      * передается методу в качестве параметра.
      */
     @Query("SELECT s from Supplier s WHERE s.supid LIKE ?1")
-    List<Supplier> searchById(String keyword);
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    List<Supplier> searchById(String keyword, Sort sort);
 
     /**
      * Эта функция ищет поставщиков, имя которых содержит заданное ключевое слово.
@@ -46,10 +98,12 @@ public interface SupplierRepository extends JpaRepository<Supplier, Long>{
      * @param keyword Параметр ключевого слова — это строка, представляющая условие поиска, используемое
      * для поиска поставщиков по имени. Запрос ищет поставщиков, чье имя содержит ключевое слово, используя
      * оператор LIKE с подстановочным знаком (%) до и после ключевого слова.
+     * @param sort Порядок сортировки.
      * @return Список объектов Supplier, имя которых содержит указанное ключевое слово.
      */
     @Query("SELECT s from Supplier s WHERE s.name LIKE %?1%")
-    List<Supplier> searchByName(String keyword);
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    List<Supplier> searchByName(String keyword, Sort sort);
 
     /**
      * Эта функция ищет поставщиков, номер телефона которых содержит заданное ключевое слово.
@@ -58,11 +112,13 @@ public interface SupplierRepository extends JpaRepository<Supplier, Long>{
      * телефона, которую мы хотим найти в базе данных. Запрос вернет список объектов поставщиков, номер
      * телефона которых соответствует заданному ключевому слову. Символ % — это подстановочный знак,
      * который позволяет нам искать телефонные номера,
+     * @param sort Порядок сортировки.
      * @return Список объектов Supplier, которые соответствуют критериям поиска наличия номера телефона,
      * содержащего указанное ключевое слово.
      */
     @Query("SELECT s from Supplier s WHERE s.phone LIKE %?1%")
-    List<Supplier> searchByPhone(String keyword);
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    List<Supplier> searchByPhone(String keyword, Sort sort);
 
     /**
      * Эта функция ищет поставщиков, электронная почта которых содержит определенное ключевое слово.
@@ -71,10 +127,12 @@ public interface SupplierRepository extends JpaRepository<Supplier, Long>{
      * часть адреса электронной почты, которую мы хотим найти в таблице «Поставщик». Символ «%»
      * используется в качестве подстановочного знака для соответствия любым символам до или после ключевого
      * слова.
+     * @param sort Порядок сортировки.
      * @return Список объектов Supplier, адрес электронной почты которых содержит указанное ключевое слово.
      */
     @Query("SELECT s from Supplier s WHERE s.email LIKE %?1%")
-    List<Supplier> searchByEmail(String keyword);
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    List<Supplier> searchByEmail(String keyword, Sort sort);
 
     /**
      * Эта функция извлекает список всех поставщиков, кроме поставщика с указанным идентификатором.
@@ -85,5 +143,6 @@ public interface SupplierRepository extends JpaRepository<Supplier, Long>{
      * @return Список всех поставщиков, кроме одного с указанным ID.
      */
     @Query("SELECT s from Supplier s WHERE s.id != ?1")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
     List<Supplier> listAllExceptChosen(Long supid);
 }
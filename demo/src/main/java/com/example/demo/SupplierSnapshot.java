@@ -0,0 +1,27 @@
+package com.example.demo;
+
+/**
+ * Это неизменяемый снимок полей поставщика в момент изменения, передаваемый в событии
+ * `SupplierChangedEvent`.
+ * 
+ * @param supid Идентификатор поставщика.
+ * @param name Имя/название поставщика.
+ * @param phone Номер телефона поставщика.
+ * @param email Адрес электронной почты поставщика.
+ */
+public record SupplierSnapshot(Long supid, String name, String phone, String email) {
+
+    /**
+     * Эта функция создает снимок текущего состояния поставщика.
+     * 
+     * @param supplier Поставщик, состояние которого копируется.
+     * 
+     * @return Снимок поставщика или null, если поставщик не передан.
+     */
+    public static SupplierSnapshot of(Supplier supplier) {
+        if (supplier == null) {
+            return null;
+        }
+        return new SupplierSnapshot(supplier.getSupid(), supplier.getName(), supplier.getPhone(), supplier.getEmail());
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.demo;
+
+/**
+ * Это событие, которое `ResourcesService` публикует при добавлении пользователя внутри транзакции.
+ * Слушатели должны реагировать на него только после фиксации транзакции, а при откате — не реагировать
+ * вовсе.
+ * 
+ * @param user Состояние добавленного пользователя.
+ */
+public record UserAddedEvent(UserSnapshot user) {
+}
@@ -0,0 +1,28 @@
+package com.example.demo;
+
+import com.example.demo.security.UserInfo;
+
+/**
+ * Это неизменяемый снимок полей пользователя, передаваемый в событии `UserAddedEvent`. Пароль в снимок
+ * не попадает.
+ * 
+ * @param id Идентификатор пользователя.
+ * @param name Имя пользователя.
+ * @param roles Роли пользователя.
+ */
+public record UserSnapshot(Long id, String name, String roles) {
+
+    /**
+     * Эта функция создает снимок текущего состояния пользователя.
+     * 
+     * @param user Пользователь, состояние которого копируется.
+     * 
+     * @return Снимок пользователя или null, если пользователь не передан.
+     */
+    public static UserSnapshot of(UserInfo user) {
+        if (user == null) {
+            return null;
+        }
+        return new UserSnapshot(user.getId(), user.getName(), user.getRoles());
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.demo.admission;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Это адаптивный предел числа одновременно выполняемых запросов по схеме AIMD (additive increase,
+ * multiplicative decrease). Запрос, завершившийся быстрее порога задержки, увеличивает предел на единицу,
+ * но только если запросов действительно было много — не меньше половины предела, иначе предел рос бы без
+ * нагрузки. Медленный или завершившийся ошибкой запрос уменьшает предел в `backoffRatio` раз. Так при
+ * замедлении базы данных предел быстро опускается до числа запросов, которое она успевает обслужить, а
+ * после восстановления постепенно поднимается обратно.
+ *
+ * Проверка и занятие места выполняются без блокировок; блокировка берется только при пересчете предела
+ * после завершения запроса.
+ */
+final class AdaptiveConcurrencyLimit {
+
+    /** Наименьший предел. */
+    private final int minLimit;
+
+    /** Наибольший предел. */
+    private final int maxLimit;
+
+    /** Порог задержки в наносекундах, выше которого запрос считается медленным. */
+    private final long latencyThreshold;
+
+    /** Множитель уменьшения предела. */
+    private final double backoffRatio;
+
+    /** Число выполняемых запросов. */
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    /** Точное значение предела; меняется под блокировкой объекта. */
+    private double exactLimit;
+
+    /** Текущий предел — целая часть `exactLimit`. */
+    private volatile int limit;
+
+    /**
+     * Конструктор создает предел.
+     *
+     * @param initialLimit Начальный предел.
+     * @param minLimit Наименьший предел.
+     * @param maxLimit Наибольший предел.
+     * @param latencyThreshold Порог задержки в наносекундах.
+     * @param backoffRatio Множитель уменьшения предела, от 0 до 1.
+     */
+    AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, long latencyThreshold,
+                             double backoffRatio) {
+        this.minLimit = Math.max(minLimit, 1);
+        this.maxLimit = Math.max(maxLimit, this.minLimit);
+        this.latencyThreshold = latencyThreshold;
+        this.backoffRatio = backoffRatio;
+        this.exactLimit = Math.min(Math.max(initialLimit, this.minLimit), this.maxLimit);
+        this.limit = (int) exactLimit;
+    }
+
+    /**
+     * Эта функция занимает место для запроса, если число выполняемых запросов меньше предела.
+     *
+     * @return Число выполняемых запросов до этого, или -1, если места нет и запрос нужно отклонить.
+     */
+    int tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                return -1;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return current;
+            }
+        }
+    }
+
+    /**
+     * Эта функция освобождает место запроса и пересчитывает предел по его результату.
+     *
+     * @param inFlightBefore Число выполнявшихся запросов, которое вернула `tryAcquire`.
+     * @param latency Время выполнения запроса в наносекундах.
+     * @param failed true, если запрос завершился ошибкой.
+     */
+    void release(int inFlightBefore, long latency, boolean failed) {
+        inFlight.decrementAndGet();
+        synchronized (this) {
+            if (failed || latency > latencyThreshold) {
+                exactLimit = Math.max(minLimit, exactLimit * backoffRatio);
+            } else if ((inFlightBefore + 1) * 2 >= exactLimit) {
+                exactLimit = Math.min(maxLimit, exactLimit + 1);
+            }
+            limit = (int) exactLimit;
+        }
+    }
+
+    /**
+     * Эта функция возвращает текущий предел.
+     *
+     * @return Предел числа одновременных запросов.
+     */
+    int limit() {
+        return limit;
+    }
+
+    /**
+     * Эта функция возвращает число выполняемых запросов.
+     *
+     * @return Число запросов.
+     */
+    int inFlight() {
+        return inFlight.get();
+    }
+}
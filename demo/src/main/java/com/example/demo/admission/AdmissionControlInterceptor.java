@@ -0,0 +1,136 @@
+package com.example.demo.admission;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+
+import org.apache.commons.io.IOUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Это перехватчик Spring MVC, который ограничивает число одновременно выполняемых запросов к страницам
+ * списков и поиска (`app.admission.paths`) адаптивным пределом `AdaptiveConcurrencyLimit`. Когда база
+ * данных замедляется, предел снижается, и лишние запросы сразу получают ответ 503 со страницей
+ * error/503.html и заголовком Retry-After, а не ждут в очереди потоков Tomcat. Поэтому дешевые страницы,
+ * например /about, и уже принятые запросы продолжают обслуживаться быстро.
+ *
+ * Метрики: `admission.limit` — текущий предел, `admission.inflight` — выполняемые запросы,
+ * `admission.rejected` — отклоненные запросы.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.admission", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class AdmissionControlInterceptor implements HandlerInterceptor {
+
+    /** Путь к странице перегрузки в classpath. */
+    static final String PAGE = "templates/error/503.html";
+
+    /** Атрибут запроса со временем начала и числом выполнявшихся запросов. */
+    private static final String ADMITTED = AdmissionControlInterceptor.class.getName() + ".admitted";
+
+    /**
+     * Это отметка принятого запроса.
+     *
+     * @param started Время начала `System.nanoTime()`.
+     * @param inFlightBefore Число запросов, выполнявшихся до этого.
+     */
+    private record Admitted(long started, int inFlightBefore) {
+    }
+
+    /** Адаптивный предел. */
+    private final AdaptiveConcurrencyLimit limit;
+
+    /** Счетчик отклоненных запросов. */
+    private final Counter rejected;
+
+    /** Содержимое страницы перегрузки. */
+    private final byte[] page;
+
+    /**
+     * Конструктор создает предел, читает страницу перегрузки и регистрирует метрики.
+     *
+     * @param initialLimit Начальный предел.
+     * @param minLimit Наименьший предел.
+     * @param maxLimit Наибольший предел.
+     * @param latencyThreshold Время ответа, выше которого запрос считается медленным.
+     * @param backoffRatio Множитель уменьшения предела после медленного запроса.
+     * @param registry Реестр метрик Micrometer.
+     *
+     * @throws IOException Если страница перегрузки не найдена.
+     */
+    public AdmissionControlInterceptor(@Value("${app.admission.initial-limit:20}") int initialLimit,
+                                       @Value("${app.admission.min-limit:2}") int minLimit,
+                                       @Value("${app.admission.max-limit:200}") int maxLimit,
+                                       @Value("${app.admission.latency-threshold:PT0.5S}") Duration latencyThreshold,
+                                       @Value("${app.admission.backoff-ratio:0.9}") double backoffRatio,
+                                       MeterRegistry registry) throws IOException {
+        this.limit = new AdaptiveConcurrencyLimit(initialLimit, minLimit, maxLimit, latencyThreshold.toNanos(),
+                backoffRatio);
+        this.rejected = Counter.builder("admission.rejected")
+                .description("Requests shed by the adaptive concurrency limit").register(registry);
+        Gauge.builder("admission.limit", limit, AdaptiveConcurrencyLimit::limit)
+                .description("Current adaptive concurrency limit").register(registry);
+        Gauge.builder("admission.inflight", limit, AdaptiveConcurrencyLimit::inFlight)
+                .description("Requests currently admitted").register(registry);
+        try (InputStream inputStream = new ClassPathResource(PAGE).getInputStream()) {
+            this.page = IOUtils.toByteArray(inputStream);
+        }
+    }
+
+    /**
+     * Эта функция принимает запрос, если предел не достигнут, и иначе сразу отвечает 503.
+     *
+     * @param request HTTP-запрос.
+     * @param response HTTP-ответ.
+     * @param handler Обработчик запроса.
+     *
+     * @return true, если запрос принят.
+     *
+     * @throws IOException Если ответ не удалось записать.
+     */
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws IOException {
+        int inFlightBefore = limit.tryAcquire();
+        if (inFlightBefore < 0) {
+            rejected.increment();
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.setContentType("text/html;charset=UTF-8");
+            response.setContentLength(page.length);
+            response.getOutputStream().write(page);
+            return false;
+        }
+        request.setAttribute(ADMITTED, new Admitted(System.nanoTime(), inFlightBefore));
+        return true;
+    }
+
+    /**
+     * Эта функция освобождает место запроса и передает пределу время ответа.
+     *
+     * @param request HTTP-запрос.
+     * @param response HTTP-ответ.
+     * @param handler Обработчик запроса.
+     * @param ex Исключение обработки или null.
+     */
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        if (request.getAttribute(ADMITTED) instanceof Admitted admitted) {
+            request.removeAttribute(ADMITTED);
+            limit.release(admitted.inFlightBefore(), System.nanoTime() - admitted.started(),
+                    ex != null || response.getStatus() >= 500);
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package com.example.demo.aggregate;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.demo.ResourceChangedEvent;
+import com.example.demo.ResourceRepository;
+import com.example.demo.ResourceSnapshot;
+import com.example.demo.SupplierChangedEvent;
+import com.example.demo.support.CommitGate;
+
+/**
+ * Это класс, который хранит в памяти итоги по ресурсам (число позиций, суммарное количество и
+ * суммарную стоимость) в разрезе поставщиков и типов и поддерживает их инкрементально: после фиксации
+ * каждой транзакции `saveRes`, `deleteRes` и `deleteSup` применяется только разница между состоянием
+ * до и после изменения, без сканирования таблицы ресурсов.
+ * 
+ * Периодическая сверка (`app.aggregates.reconcile-interval`, по умолчанию раз в 5 минут)
+ * пересчитывает итоги запросами GROUP BY и исправляет расхождения, например после изменений в обход
+ * приложения.
+ * 
+ * Разница применяется, а сверка читает и заменяет итоги через защелку фиксаций `CommitGate`: во время
+ * сверки не фиксируется ни одно изменение ресурсов, поэтому разница, зафиксированная во время чтения, не
+ * теряется и не применяется дважды. Цена — сохранения ресурсов ждут окончания запросов сверки.
+ */
+@Component
+public class InventoryAggregates {
+
+    /** Логгер для сообщений о сверке итогов. */
+    private static final Logger log = LoggerFactory.getLogger(InventoryAggregates.class);
+
+    /** Репозиторий ресурсов, из которого сверка читает итоги. */
+    @Autowired
+    private ResourceRepository repoRes;
+
+    /** Итоги по идентификатору поставщика. */
+    private final Map<Long, InventoryTotals> bySupplier = new ConcurrentHashMap<>();
+
+    /** Итоги по типу ресурса. */
+    private final Map<String, InventoryTotals> byType = new ConcurrentHashMap<>();
+
+    /** Защелка, которая не дает фиксировать изменения ресурсов, пока сверка читает и заменяет итоги. */
+    private final CommitGate gate = new CommitGate();
+
+    /**
+     * Эта функция применяет изменение ресурса к итогам после фиксации транзакции.
+     * 
+     * @param event Событие с состоянием ресурса до и после изменения.
+     */
+    @EventListener
+    public void onResourceChanged(ResourceChangedEvent event) {
+        gate.afterCommit(() -> {
+            if (event.before() != null) {
+                apply(event.before(), -1);
+            }
+            if (event.after() != null) {
+                apply(event.after(), 1);
+            }
+        });
+    }
+
+    /**
+     * Эта функция убирает из итогов удаленного поставщика и его каскадно удаленные ресурсы после
+     * фиксации транзакции.
+     * 
+     * @param event Событие изменения поставщика.
+     */
+    @EventListener
+    public void onSupplierChanged(SupplierChangedEvent event) {
+        if (event.after() != null || event.before() == null) {
+            return;
+        }
+        gate.afterCommit(() -> {
+            event.removedResources().forEach(resource -> apply(resource, -1));
+            bySupplier.remove(event.before().supid());
+        });
+    }
+
+    /**
+     * Эта функция заполняет итоги при запуске приложения.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void initialize() {
+        reconcile();
+    }
+
+    /**
+     * Эта функция пересчитывает итоги по базе данных, сравнивает их с итогами в памяти и заменяет
+     * расходящиеся значения. Сверка читает основную базу данных, а не реплику: иначе отставание реплики
+     * принималось бы за расхождение и «исправляло» верные итоги. Запросы выполняются под защелкой
+     * фиксаций, которая не дает зафиксировать изменения ресурсов, пока итоги читаются и заменяются.
+     * 
+     * @return Число групп (поставщиков и типов), итоги которых пришлось исправить.
+     */
+    @Scheduled(fixedDelayString = "${app.aggregates.reconcile-interval:PT5M}",
+            initialDelayString = "${app.aggregates.reconcile-interval:PT5M}")
+    @Transactional
+    public int reconcile() {
+        return gate.exclusive(this::reconcileLocked);
+    }
+
+    /**
+     * Эта функция читает итоги из базы данных и заменяет ими итоги в памяти; вызывается под защелкой
+     * фиксаций.
+     * 
+     * @return Число групп, итоги которых пришлось исправить.
+     */
+    private int reconcileLocked() {
+        Map<Long, InventoryTotals> actualBySupplier = new HashMap<>();
+        for (Object[] row : repoRes.totalsBySupplier()) {
+            if (row[0] != null) {
+                actualBySupplier.put((Long) row[0], totals(row));
+            }
+        }
+        Map<String, InventoryTotals> actualByType = new HashMap<>();
+        for (Object[] row : repoRes.totalsByType()) {
+            if (row[0] != null) {
+                actualByType.put((String) row[0], totals(row));
+            }
+        }
+
+        int drift = replace(bySupplier, actualBySupplier) + replace(byType, actualByType);
+        if (drift > 0) {
+            log.info("Inventory aggregates reconciled, {} group(s) repaired", drift);
+        }
+        return drift;
+    }
+
+    /**
+     * Эта функция возвращает итоги по поставщикам.
+     * 
+     * @return Неизменяемый словарь «идентификатор поставщика — итоги».
+     */
+    public Map<Long, InventoryTotals> getBySupplier() {
+        return Collections.unmodifiableMap(new HashMap<>(bySupplier));
+    }
+
+    /**
+     * Эта функция возвращает итоги по типам ресурсов, упорядоченные по названию типа.
+     * 
+     * @return Неизменяемый словарь «тип — итоги».
+     */
+    public Map<String, InventoryTotals> getByType() {
+        return Collections.unmodifiableMap(new TreeMap<>(byType));
+    }
+
+    /**
+     * Эта функция возвращает общие итоги по всем ресурсам.
+     * 
+     * @return Сумма итогов всех поставщиков.
+     */
+    public InventoryTotals getOverall() {
+        return byType.values().stream().reduce(InventoryTotals.ZERO, InventoryTotals::plus);
+    }
+
+    /**
+     * Эта функция прибавляет или вычитает одну позицию ресурса из итогов поставщика и типа.
+     * 
+     * @param resource Снимок ресурса.
+     * @param sign 1 для добавления позиции, -1 для удаления.
+     */
+    private void apply(ResourceSnapshot resource, int sign) {
+        InventoryTotals delta = InventoryTotals.of(resource.quantity(), resource.cost());
+        if (resource.supplier() != null) {
+            merge(bySupplier, resource.supplier(), delta, sign);
+        }
+        if (resource.type() != null) {
+            merge(byType, resource.type(), delta, sign);
+        }
+    }
+
+    /**
+     * Эта функция атомарно изменяет итоги одной группы и удаляет группу, если в ней не осталось позиций.
+     * 
+     * @param map Словарь итогов.
+     * @param key Ключ группы.
+     * @param delta Итоги одной позиции.
+     * @param sign 1 для добавления позиции, -1 для удаления.
+     */
+    private static <K> void merge(Map<K, InventoryTotals> map, K key, InventoryTotals delta, int sign) {
+        map.compute(key, (k, current) -> {
+            InventoryTotals base = current == null ? InventoryTotals.ZERO : current;
+            InventoryTotals updated = sign > 0 ? base.plus(delta) : base.minus(delta);
+            return updated.isEmpty() ? null : updated;
+        });
+    }
+
+    /**
+     * Эта функция заменяет содержимое словаря итогов актуальными значениями.
+     * 
+     * @param current Словарь итогов в памяти.
+     * @param actual Итоги, посчитанные по базе данных.
+     * 
+     * @return Число групп, значения которых отличались.
+     */
+    private static <K> int replace(Map<K, InventoryTotals> current, Map<K, InventoryTotals> actual) {
+        int drift = 0;
+        for (Map.Entry<K, InventoryTotals> entry : actual.entrySet()) {
+            if (!Objects.equals(current.get(entry.getKey()), entry.getValue())) {
+                drift++;
+            }
+        }
+        for (K key : List.copyOf(current.keySet())) {
+            if (!actual.containsKey(key)) {
+                drift++;
+            }
+        }
+        current.keySet().retainAll(actual.keySet());
+        current.putAll(actual);
+        return drift;
+    }
+
+    /**
+     * Эта функция преобразует строку результата запроса GROUP BY в итоги.
+     * 
+     * @param row Строка вида [ключ, число позиций, сумма количества, сумма стоимости].
+     * 
+     * @return Итоги группы.
+     */
+    private static InventoryTotals totals(Object[] row) {
+        return new InventoryTotals(toLong(row[1]), toLong(row[2]), toLong(row[3]));
+    }
+
+    /**
+     * Эта функция приводит числовое значение агрегатной функции к long.
+     * 
+     * @param value Значение COUNT или SUM, возможно null.
+     * 
+     * @return Значение типа long или 0 для null.
+     */
+    private static long toLong(Object value) {
+        return value == null ? 0 : ((Number) value).longValue();
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.demo.aggregate;
+
+/**
+ * Это неизменяемые итоги по группе ресурсов: число позиций, суммарное количество и суммарная
+ * стоимость (количество, умноженное на стоимость).
+ * 
+ * @param items Число позиций (строк таблицы ресурсов).
+ * @param quantity Суммарное количество.
+ * @param value Суммарная стоимость.
+ */
+public record InventoryTotals(long items, long quantity, long value) {
+
+    /** Пустые итоги. */
+    public static final InventoryTotals ZERO = new InventoryTotals(0, 0, 0);
+
+    /**
+     * Эта функция возвращает итоги одной позиции ресурса.
+     * 
+     * @param quantity Количество ресурса.
+     * @param cost Стоимость единицы ресурса.
+     * 
+     * @return Итоги, содержащие одну позицию.
+     */
+    public static InventoryTotals of(int quantity, int cost) {
+        return new InventoryTotals(1, quantity, (long) quantity * cost);
+    }
+
+    /**
+     * Эта функция складывает итоги.
+     * 
+     * @param other Прибавляемые итоги.
+     * 
+     * @return Сумма итогов.
+     */
+    public InventoryTotals plus(InventoryTotals other) {
+        return new InventoryTotals(items + other.items, quantity + other.quantity, value + other.value);
+    }
+
+    /**
+     * Эта функция вычитает итоги.
+     * 
+     * @param other Вычитаемые итоги.
+     * 
+     * @return Разность итогов.
+     */
+    public InventoryTotals minus(InventoryTotals other) {
+        return new InventoryTotals(items - other.items, quantity - other.quantity, value - other.value);
+    }
+
+    /**
+     * Эта функция проверяет, что в группе не осталось ни одной позиции.
+     * 
+     * @return true, если число позиций не больше нуля.
+     */
+    public boolean isEmpty() {
+        return items <= 0;
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.demo.audit;
+
+/**
+ * Это перечисление действий, которые записываются в журнал аудита. Код действия хранится в записи одним
+ * байтом, поэтому коды существующих действий нельзя менять, а новые действия добавляются с новыми кодами.
+ */
+public enum AuditAction {
+
+    /** Ресурс создан или изменен. */
+    RESOURCE_SAVED(1),
+
+    /** Ресурс удален, в том числе каскадно вместе с поставщиком. */
+    RESOURCE_DELETED(2),
+
+    /** Поставщик создан или изменен. */
+    SUPPLIER_SAVED(3),
+
+    /** Поставщик удален. */
+    SUPPLIER_DELETED(4),
+
+    /** Пользователь добавлен. */
+    USER_ADDED(5);
+
+    /** Код действия в записи. */
+    private final byte code;
+
+    AuditAction(int code) {
+        this.code = (byte) code;
+    }
+
+    /**
+     * Эта функция возвращает код действия.
+     *
+     * @return Код действия в записи.
+     */
+    byte code() {
+        return code;
+    }
+
+    /**
+     * Эта функция находит действие по коду.
+     *
+     * @param code Код действия из записи.
+     *
+     * @return Действие.
+     *
+     * @throws IllegalArgumentException Если код неизвестен.
+     */
+    static AuditAction of(byte code) {
+        for (AuditAction action : values()) {
+            if (action.code == code) {
+                return action;
+            }
+        }
+        throw new IllegalArgumentException("Unknown audit action code " + code);
+    }
+}
@@ -0,0 +1,185 @@
+package com.example.demo.audit;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+import com.example.demo.ResourceSnapshot;
+import com.example.demo.SupplierSnapshot;
+import com.example.demo.UserSnapshot;
+
+/**
+ * Это класс, который переводит запись аудита в двоичный вид и обратно. Тело записи состоит из полей
+ * фиксированной длины (номер, время в миллисекундах, код действия, идентификаторы) и строк в UTF-8 с
+ * длиной перед ними; снимок объекта начинается с байта вида (нет, ресурс, поставщик, пользователь).
+ * Отсутствующий идентификатор хранится как `Long.MIN_VALUE`, отсутствующая строка — как длина -1.
+ */
+final class AuditCodec {
+
+    /** Вид снимка: снимка нет. */
+    private static final byte NONE = 0;
+
+    /** Вид снимка: ресурс. */
+    private static final byte RESOURCE = 1;
+
+    /** Вид снимка: поставщик. */
+    private static final byte SUPPLIER = 2;
+
+    /** Вид снимка: пользователь. */
+    private static final byte USER = 3;
+
+    /** Значение отсутствующего идентификатора. */
+    private static final long NO_ID = Long.MIN_VALUE;
+
+    private AuditCodec() {
+    }
+
+    /**
+     * Эта функция записывает тело записи в буфер с его текущей позиции.
+     *
+     * @param record Запись аудита.
+     * @param out Буфер.
+     *
+     * @throws java.nio.BufferOverflowException Если запись не помещается в буфер.
+     */
+    static void encode(AuditRecord record, ByteBuffer out) {
+        out.putLong(record.sequence());
+        out.putLong(record.time().toEpochMilli());
+        out.put(record.action().code());
+        putId(out, record.resid());
+        putId(out, record.supid());
+        putString(out, record.user());
+        putSnapshot(out, record.before());
+        putSnapshot(out, record.after());
+    }
+
+    /**
+     * Эта функция читает тело записи из буфера с его текущей позиции.
+     *
+     * @param in Буфер.
+     *
+     * @return Запись аудита.
+     *
+     * @throws java.nio.BufferUnderflowException Если тело записи обрывается.
+     * @throws IllegalArgumentException Если код действия или вид снимка неизвестен.
+     */
+    static AuditRecord decode(ByteBuffer in) {
+        long sequence = in.getLong();
+        Instant time = Instant.ofEpochMilli(in.getLong());
+        AuditAction action = AuditAction.of(in.get());
+        Long resid = getId(in);
+        Long supid = getId(in);
+        String user = getString(in);
+        Record before = getSnapshot(in);
+        Record after = getSnapshot(in);
+        return new AuditRecord(sequence, time, action, user, resid, supid, before, after);
+    }
+
+    /**
+     * Эта функция записывает снимок объекта.
+     *
+     * @param out Буфер.
+     * @param snapshot Снимок или null.
+     */
+    private static void putSnapshot(ByteBuffer out, Record snapshot) {
+        if (snapshot == null) {
+            out.put(NONE);
+        } else if (snapshot instanceof ResourceSnapshot r) {
+            out.put(RESOURCE);
+            putId(out, r.resid());
+            putString(out, r.name());
+            putString(out, r.type());
+            out.putInt(r.quantity());
+            out.putInt(r.cost());
+            putString(out, r.acdate());
+            putId(out, r.supplier());
+        } else if (snapshot instanceof SupplierSnapshot s) {
+            out.put(SUPPLIER);
+            putId(out, s.supid());
+            putString(out, s.name());
+            putString(out, s.phone());
+            putString(out, s.email());
+        } else if (snapshot instanceof UserSnapshot u) {
+            out.put(USER);
+            putId(out, u.id());
+            putString(out, u.name());
+            putString(out, u.roles());
+        } else {
+            throw new IllegalArgumentException("Unsupported audit snapshot " + snapshot.getClass().getName());
+        }
+    }
+
+    /**
+     * Эта функция читает снимок объекта.
+     *
+     * @param in Буфер.
+     *
+     * @return Снимок или null.
+     */
+    private static Record getSnapshot(ByteBuffer in) {
+        byte kind = in.get();
+        return switch (kind) {
+            case NONE -> null;
+            case RESOURCE -> new ResourceSnapshot(getId(in), getString(in), getString(in), in.getInt(), in.getInt(),
+                    getString(in), getId(in));
+            case SUPPLIER -> new SupplierSnapshot(getId(in), getString(in), getString(in), getString(in));
+            case USER -> new UserSnapshot(getId(in), getString(in), getString(in));
+            default -> throw new IllegalArgumentException("Unknown audit snapshot kind " + kind);
+        };
+    }
+
+    /**
+     * Эта функция записывает идентификатор, который может отсутствовать.
+     *
+     * @param out Буфер.
+     * @param id Идентификатор или null.
+     */
+    private static void putId(ByteBuffer out, Long id) {
+        out.putLong(id == null ? NO_ID : id);
+    }
+
+    /**
+     * Эта функция читает идентификатор, который может отсутствовать.
+     *
+     * @param in Буфер.
+     *
+     * @return Идентификатор или null.
+     */
+    private static Long getId(ByteBuffer in) {
+        long id = in.getLong();
+        return id == NO_ID ? null : id;
+    }
+
+    /**
+     * Эта функция записывает строку в UTF-8 с длиной в байтах перед ней.
+     *
+     * @param out Буфер.
+     * @param value Строка или null.
+     */
+    private static void putString(ByteBuffer out, String value) {
+        if (value == null) {
+            out.putInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.putInt(bytes.length);
+        out.put(bytes);
+    }
+
+    /**
+     * Эта функция читает строку, записанную `putString`.
+     *
+     * @param in Буфер.
+     *
+     * @return Строка или null.
+     */
+    private static String getString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,426 @@
+package com.example.demo.audit;
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.demo.ResourceChangedEvent;
+import com.example.demo.ResourceSnapshot;
+import com.example.demo.SupplierChangedEvent;
+import com.example.demo.SupplierSnapshot;
+import com.example.demo.UserAddedEvent;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Это класс журнала аудита: он записывает каждое зафиксированное изменение ресурсов и поставщиков и каждое
+ * добавление пользователя — кто, когда, состояние до и после — в файлы сегментов `AuditSegment` в каталоге
+ * `app.audit.directory`. База данных для этого не используется.
+ *
+ * Изменения приходят в событиях `ResourceChangedEvent`, `SupplierChangedEvent` и `UserAddedEvent` после
+ * фиксации транзакции; поток запроса только кладет запись в ограниченный буфер. Единственный поток
+ * «audit-log» присваивает записям номера, пишет их в отображенный в память сегмент и после каждой пачки
+ * сбрасывает ее на диск. Ошибка записи или сброса на диск учитывается в `audit.records.failed` и не
+ * останавливает поток журнала. Если буфер заполнен, поток запроса ждет не дольше
+ * `app.audit.submit-timeout`, а затем учитывает запись как потерянную, чтобы остановившийся или
+ * зависший журнал не задержал все запросы на запись.
+ *
+ * Когда запись не помещается в сегмент (`app.audit.segment-bytes`), создается следующий сегмент. Старые
+ * сегменты удаляются, если их больше `app.audit.max-segments` или если все их записи старше
+ * `app.audit.retention`. Каталог блокируется файлом audit.lock, чтобы в него не писали два процесса.
+ * Записи читает `AuditLogReader`.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.audit", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class AuditLog {
+
+    /** Журнал сообщений о работе журнала аудита. */
+    private static final Logger log = LoggerFactory.getLogger(AuditLog.class);
+
+    /** Имя пользователя для изменений вне HTTP-запроса. */
+    static final String SYSTEM_USER = "system";
+
+    /** Как часто поток журнала проверяет срок хранения сегментов без смены сегмента. */
+    private static final Duration RETENTION_CHECK_INTERVAL = Duration.ofHours(1);
+
+    /** Каталог журнала. */
+    private final Path directory;
+
+    /** Размер файла сегмента в байтах. */
+    private final int segmentBytes;
+
+    /** Срок хранения записей. */
+    private final Duration retention;
+
+    /** Наибольшее число хранимых сегментов. */
+    private final int maxSegments;
+
+    /** Кольцевой буфер записей между потоками запросов и потоком журнала; номер записи еще не присвоен. */
+    private final BlockingQueue<AuditRecord> buffer;
+
+    /** Наибольшее время ожидания места в буфере. */
+    private final Duration submitTimeout;
+
+    /** Канал файла блокировки каталога. */
+    private final FileChannel lockChannel;
+
+    /** Блокировка каталога. */
+    private final FileLock lock;
+
+    /** Счетчик записей, которые не удалось записать. */
+    private final Counter failed;
+
+    /** Поток, который пишет записи из буфера в сегменты. */
+    private final Thread writer;
+
+    /** Признак работы потока журнала; сбрасывается при остановке приложения или завершении потока. */
+    private volatile boolean running = true;
+
+    /** Текущий сегмент; используется только потоком журнала после запуска. */
+    private AuditSegment segment;
+
+    /** Буфер для кодирования тела записи; используется только потоком журнала. */
+    private ByteBuffer scratch = ByteBuffer.allocate(4096);
+
+    /** Время последней проверки срока хранения сегментов. */
+    private long retentionChecked;
+
+    /**
+     * Конструктор блокирует каталог журнала, открывает последний сегмент или создает первый и запускает
+     * поток журнала.
+     *
+     * @param directory Каталог журнала.
+     * @param segmentBytes Размер файла сегмента в байтах.
+     * @param retention Срок хранения записей.
+     * @param maxSegments Наибольшее число хранимых сегментов.
+     * @param bufferSize Емкость буфера в записях.
+     * @param submitTimeout Наибольшее время ожидания места в буфере.
+     * @param registry Реестр метрик Micrometer.
+     *
+     * @throws IOException Если каталог или сегмент недоступен.
+     * @throws IllegalStateException Если каталог уже используется другим процессом.
+     */
+    public AuditLog(@Value("${app.audit.directory:audit}") String directory,
+                    @Value("${app.audit.segment-bytes:16777216}") int segmentBytes,
+                    @Value("${app.audit.retention:P90D}") Duration retention,
+                    @Value("${app.audit.max-segments:64}") int maxSegments,
+                    @Value("${app.audit.buffer-size:4096}") int bufferSize,
+                    @Value("${app.audit.submit-timeout:PT5S}") Duration submitTimeout,
+                    MeterRegistry registry) throws IOException {
+        this.directory = Paths.get(directory).toAbsolutePath();
+        this.segmentBytes = segmentBytes;
+        this.retention = retention;
+        this.maxSegments = Math.max(maxSegments, 1);
+        this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        this.submitTimeout = submitTimeout;
+        this.failed = Counter.builder("audit.records.failed")
+                .description("Audit records that could not be written").register(registry);
+
+        Files.createDirectories(this.directory);
+        this.lockChannel = FileChannel.open(this.directory.resolve("audit.lock"), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE);
+        FileLock acquired;
+        try {
+            acquired = lockChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            acquired = null;
+        }
+        if (acquired == null) {
+            lockChannel.close();
+            throw new IllegalStateException("Audit directory is used by another process: " + this.directory);
+        }
+        this.lock = acquired;
+        this.segment = openLastSegment();
+        applyRetention();
+
+        this.writer = new Thread(this::drain, "audit-log");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Эта функция записывает в журнал сохранение или удаление ресурса.
+     *
+     * @param event Событие изменения ресурса.
+     */
+    @TransactionalEventListener
+    public void resourceChanged(ResourceChangedEvent event) {
+        ResourceSnapshot state = event.after() != null ? event.after() : event.before();
+        if (state != null) {
+            submit(event.after() != null ? AuditAction.RESOURCE_SAVED : AuditAction.RESOURCE_DELETED,
+                    state.resid(), state.supplier(), event.before(), event.after());
+        }
+    }
+
+    /**
+     * Эта функция записывает в журнал сохранение или удаление поставщика. При удалении поставщика каждый
+     * удаленный вместе с ним ресурс записывается отдельной записью, чтобы его можно было найти по
+     * идентификатору ресурса.
+     *
+     * @param event Событие изменения поставщика.
+     */
+    @TransactionalEventListener
+    public void supplierChanged(SupplierChangedEvent event) {
+        SupplierSnapshot state = event.after() != null ? event.after() : event.before();
+        if (state == null) {
+            return;
+        }
+        submit(event.after() != null ? AuditAction.SUPPLIER_SAVED : AuditAction.SUPPLIER_DELETED,
+                null, state.supid(), event.before(), event.after());
+        for (ResourceSnapshot removed : event.removedResources()) {
+            submit(AuditAction.RESOURCE_DELETED, removed.resid(), removed.supplier(), removed, null);
+        }
+    }
+
+    /**
+     * Эта функция записывает в журнал добавление пользователя.
+     *
+     * @param event Событие добавления пользователя.
+     */
+    @TransactionalEventListener
+    public void userAdded(UserAddedEvent event) {
+        submit(AuditAction.USER_ADDED, null, null, null, event.user());
+    }
+
+    /**
+     * Эта функция кладет запись в буфер от имени текущего пользователя. Если буфер заполнен, поток ждет,
+     * пока поток журнала не освободит место, но не дольше `app.audit.submit-timeout`.
+     *
+     * @param action Действие.
+     * @param resid Идентификатор ресурса или null.
+     * @param supid Идентификатор поставщика или null.
+     * @param before Снимок до изменения или null.
+     * @param after Снимок после изменения или null.
+     */
+    private void submit(AuditAction action, Long resid, Long supid, Record before, Record after) {
+        AuditRecord record = new AuditRecord(0, Instant.now(), action, currentUser(), resid, supid, before, after);
+        if (!running) {
+            failed.increment();
+            log.error("Audit log is stopped, record lost: {}", record);
+            return;
+        }
+        try {
+            if (!buffer.offer(record, submitTimeout.toNanos(), TimeUnit.NANOSECONDS)) {
+                failed.increment();
+                log.error("Audit buffer is full, record lost: {}", record);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failed.increment();
+            log.error("Interrupted while queueing audit record: {}", record);
+        }
+    }
+
+    /**
+     * Эта функция возвращает имя пользователя текущего запроса.
+     *
+     * @return Имя пользователя или «system» вне запроса.
+     */
+    private static String currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication == null ? SYSTEM_USER : authentication.getName();
+    }
+
+    /**
+     * Эта функция выполняется в потоке журнала: забирает записи из буфера пачками, пишет их и сбрасывает
+     * пачку на диск. Ошибка обработки пачки учитывается, и поток продолжает работу. После остановки
+     * записываются оставшиеся записи и закрывается сегмент. Если поток все же завершается непредвиденной
+     * ошибкой, журнал помечается остановленным, и новые записи сразу учитываются как потерянные.
+     */
+    private void drain() {
+        List<AuditRecord> batch = new ArrayList<>();
+        try {
+            while (running) {
+                AuditRecord first = buffer.poll(1, TimeUnit.SECONDS);
+                try {
+                    if (first != null) {
+                        batch.add(first);
+                        buffer.drainTo(batch);
+                        writeBatch(batch);
+                    }
+                    if (System.currentTimeMillis() - retentionChecked > RETENTION_CHECK_INTERVAL.toMillis()) {
+                        applyRetention();
+                    }
+                } catch (RuntimeException e) {
+                    failed.increment(batch.size());
+                    log.error("Audit log failed to process {} records", batch.size(), e);
+                    batch.clear();
+                }
+            }
+            buffer.drainTo(batch);
+            writeBatch(batch);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            running = false;
+            try {
+                segment.close();
+            } catch (IOException | RuntimeException e) {
+                log.warn("Failed to close audit segment {}", segment.path(), e);
+            }
+        }
+    }
+
+    /**
+     * Эта функция пишет пачку записей и сбрасывает ее на диск. Если сброс не удался, записи пачки
+     * учитываются как несохраненные: они остались в отображенной памяти и попадут на диск позже, но
+     * гарантии сохранности у них нет.
+     *
+     * @param batch Пачка записей; очищается.
+     */
+    private void writeBatch(List<AuditRecord> batch) {
+        for (AuditRecord record : batch) {
+            try {
+                write(record);
+            } catch (IOException | RuntimeException e) {
+                failed.increment();
+                log.error("Failed to write audit record {}", record, e);
+            }
+        }
+        try {
+            segment.force();
+        } catch (RuntimeException e) {
+            failed.increment(batch.size());
+            log.error("Failed to flush {} audit records to {}", batch.size(), segment.path(), e);
+        }
+        batch.clear();
+    }
+
+    /**
+     * Эта функция присваивает записи номер и добавляет ее в текущий сегмент, при необходимости создавая
+     * следующий.
+     *
+     * @param record Запись без номера.
+     *
+     * @throws IOException Если не удалось создать следующий сегмент.
+     */
+    private void write(AuditRecord record) throws IOException {
+        AuditRecord numbered = new AuditRecord(segment.nextSequence(), record.time(), record.action(),
+                record.user(), record.resid(), record.supid(), record.before(), record.after());
+        ByteBuffer body = encode(numbered);
+        if (body.remaining() > segment.maxBodySize()) {
+            throw new IOException("Audit record of " + body.remaining() + " bytes does not fit in a segment");
+        }
+        if (!segment.append(body)) {
+            segment.close();
+            segment = AuditSegment.create(directory, numbered.sequence(), segmentBytes);
+            segment.append(body);
+            applyRetention();
+        }
+    }
+
+    /**
+     * Эта функция кодирует запись в буфер потока журнала, увеличивая его, если запись не помещается.
+     *
+     * @param record Запись.
+     *
+     * @return Буфер с телом записи от позиции до предела.
+     */
+    private ByteBuffer encode(AuditRecord record) {
+        while (true) {
+            scratch.clear();
+            try {
+                AuditCodec.encode(record, scratch);
+                return scratch.flip();
+            } catch (BufferOverflowException e) {
+                scratch = ByteBuffer.allocate(scratch.capacity() * 2);
+            }
+        }
+    }
+
+    /**
+     * Эта функция открывает последний сегмент каталога для продолжения записи или создает первый. Если
+     * заголовок последнего сегмента поврежден, файл переименовывается с расширением .corrupt, а запись
+     * продолжается в новом сегменте с номера из имени файла.
+     *
+     * @return Сегмент для записи.
+     *
+     * @throws IOException Если каталог или сегмент недоступен.
+     */
+    private AuditSegment openLastSegment() throws IOException {
+        List<Path> segments = AuditSegment.list(directory);
+        if (segments.isEmpty()) {
+            return AuditSegment.create(directory, 1, segmentBytes);
+        }
+        Path last = segments.get(segments.size() - 1);
+        try {
+            AuditSegment opened = AuditSegment.open(last);
+            log.info("Audit log continues in {} at record {}", last.getFileName(), opened.nextSequence());
+            return opened;
+        } catch (IOException e) {
+            String name = last.getFileName().toString();
+            long base = Long.parseLong(name.replaceAll("\\D", ""));
+            Files.move(last, last.resolveSibling(name + ".corrupt"), StandardCopyOption.REPLACE_EXISTING);
+            log.error("Audit segment {} is corrupt and was moved aside", last, e);
+            return AuditSegment.create(directory, base, segmentBytes);
+        }
+    }
+
+    /**
+     * Эта функция удаляет сегменты сверх `app.audit.max-segments` и сегменты, все записи которых старше
+     * срока хранения. Записи сегмента не новее времени создания следующего сегмента, поэтому текущий
+     * сегмент никогда не удаляется.
+     */
+    private void applyRetention() {
+        retentionChecked = System.currentTimeMillis();
+        long cutoff = retentionChecked - retention.toMillis();
+        try {
+            List<Path> segments = AuditSegment.list(directory);
+            for (int i = 0; i < segments.size() - 1; i++) {
+                boolean excess = segments.size() - i > maxSegments;
+                if (excess || AuditSegment.header(segments.get(i + 1)).created() < cutoff) {
+                    Files.deleteIfExists(segments.get(i));
+                    log.info("Audit segment {} removed by retention", segments.get(i).getFileName());
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Failed to apply audit retention in {}", directory, e);
+        }
+    }
+
+    /**
+     * Эта функция останавливает поток журнала при остановке приложения, дав ему записать оставшиеся
+     * записи, и освобождает каталог.
+     */
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            lock.release();
+            lockChannel.close();
+        } catch (IOException e) {
+            log.warn("Failed to release audit directory lock {}", directory, e);
+        }
+    }
+}
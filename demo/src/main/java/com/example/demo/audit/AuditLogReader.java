@@ -0,0 +1,160 @@
+package com.example.demo.audit;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Это класс чтения журнала аудита и утилита командной строки для поиска записей по ресурсу, поставщику и
+ * интервалу времени. Сегменты читаются через отображение в память; каждая запись проверяется по CRC, а
+ * чтение сегмента останавливается на первой поврежденной записи. Сегменты, все записи которых старше
+ * начала интервала, пропускаются по заголовку следующего сегмента, не читаясь. Журнал можно читать во время
+ * работы приложения: запись, которую поток журнала еще не дописал, просто не видна.
+ *
+ * Запуск из собранного архива приложения:
+ * <pre>
+ * java -cp demo.jar -Dloader.main=com.example.demo.audit.AuditLogReader \
+ *     org.springframework.boot.loader.PropertiesLauncher --dir=audit --resid=42 --from=2026-10-01T00:00:00Z
+ * </pre>
+ * Параметры: `--dir` (каталог журнала, по умолчанию audit), `--resid`, `--supid`, `--from`, `--to` (время в
+ * формате ISO-8601, включительно). Без фильтров выводятся все записи.
+ */
+public final class AuditLogReader {
+
+    /**
+     * Условия поиска записей; отсутствующее условие не ограничивает поиск.
+     *
+     * @param resid Идентификатор ресурса или null.
+     * @param supid Идентификатор поставщика или null. Находятся записи о самом поставщике и о его ресурсах.
+     * @param from Начало интервала времени или null.
+     * @param to Конец интервала времени или null.
+     */
+    public record Query(Long resid, Long supid, Instant from, Instant to) {
+
+        /**
+         * Эта функция проверяет, подходит ли запись под условия.
+         *
+         * @param record Запись журнала.
+         *
+         * @return true, если запись подходит.
+         */
+        public boolean matches(AuditRecord record) {
+            return (resid == null || resid.equals(record.resid()))
+                    && (supid == null || supid.equals(record.supid()))
+                    && (from == null || !record.time().isBefore(from))
+                    && (to == null || !record.time().isAfter(to));
+        }
+    }
+
+    private AuditLogReader() {
+    }
+
+    /**
+     * Эта функция читает записи журнала по порядку и передает подходящие под условия.
+     *
+     * @param directory Каталог журнала.
+     * @param query Условия поиска.
+     * @param consumer Получатель записей.
+     * @param warnings Получатель сообщений о поврежденных сегментах и записях.
+     *
+     * @throws IOException Если каталог или сегмент не читается.
+     */
+    public static void scan(Path directory, Query query, Consumer<AuditRecord> consumer, Consumer<String> warnings)
+            throws IOException {
+        List<Path> segments = AuditSegment.list(directory);
+        for (int i = 0; i < segments.size(); i++) {
+            Path path = segments.get(i);
+            if (query.from() != null && i + 1 < segments.size()
+                    && endsBefore(segments.get(i + 1), query.from().toEpochMilli())) {
+                continue;
+            }
+            ByteBuffer data = AuditSegment.map(path);
+            try {
+                AuditSegment.header(data, path);
+            } catch (IOException e) {
+                warnings.accept(e.getMessage());
+                continue;
+            }
+            AuditSegment.Cursor cursor = new AuditSegment.Cursor(data);
+            for (ByteBuffer body = cursor.next(); body != null; body = cursor.next()) {
+                AuditRecord record = AuditCodec.decode(body);
+                if (query.matches(record)) {
+                    consumer.accept(record);
+                }
+            }
+            if (cursor.corrupt()) {
+                warnings.accept("Corrupt audit record in " + path + " at offset " + cursor.position()
+                        + ", rest of the segment skipped");
+            }
+        }
+    }
+
+    /**
+     * Эта функция проверяет по заголовку следующего сегмента, что все записи предыдущего сегмента старше
+     * заданного времени.
+     *
+     * @param next Следующий сегмент.
+     * @param time Время в миллисекундах.
+     *
+     * @return true, если следующий сегмент создан раньше заданного времени.
+     */
+    private static boolean endsBefore(Path next, long time) {
+        try {
+            return AuditSegment.header(next).created() < time;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Это основная функция утилиты: выводит найденные записи по одной на строку.
+     *
+     * @param args Параметры вида --имя=значение.
+     *
+     * @throws IOException Если журнал не читается.
+     */
+    public static void main(String[] args) throws IOException {
+        Path directory = Paths.get("audit");
+        Long resid = null;
+        Long supid = null;
+        Instant from = null;
+        Instant to = null;
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            String name = eq < 0 ? arg : arg.substring(0, eq);
+            String value = eq < 0 ? "" : arg.substring(eq + 1);
+            switch (name) {
+                case "--dir" -> directory = Paths.get(value);
+                case "--resid" -> resid = Long.valueOf(value);
+                case "--supid" -> supid = Long.valueOf(value);
+                case "--from" -> from = Instant.parse(value);
+                case "--to" -> to = Instant.parse(value);
+                default -> {
+                    System.err.println("Usage: AuditLogReader [--dir=audit] [--resid=N] [--supid=N] "
+                            + "[--from=ISO-8601] [--to=ISO-8601]");
+                    System.exit(2);
+                }
+            }
+        }
+        scan(directory, new Query(resid, supid, from, to), record -> System.out.println(format(record)),
+                System.err::println);
+    }
+
+    /**
+     * Эта функция описывает запись одной строкой.
+     *
+     * @param record Запись журнала.
+     *
+     * @return Строка вида «номер время пользователь действие resid=.. supid=.. before=.. after=..».
+     */
+    static String format(AuditRecord record) {
+        return record.sequence() + " " + record.time() + " " + record.user() + " " + record.action()
+                + " resid=" + (record.resid() == null ? "-" : record.resid())
+                + " supid=" + (record.supid() == null ? "-" : record.supid())
+                + " before=" + record.before() + " after=" + record.after();
+    }
+}
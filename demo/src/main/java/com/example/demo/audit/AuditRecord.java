@@ -0,0 +1,22 @@
+package com.example.demo.audit;
+
+import java.time.Instant;
+
+/**
+ * Это запись журнала аудита: кто, когда и что изменил, с состоянием объекта до и после изменения.
+ *
+ * @param sequence Порядковый номер записи, возрастающий без пропусков в пределах журнала.
+ * @param time Время изменения (фиксации транзакции).
+ * @param action Действие.
+ * @param user Имя пользователя, выполнившего действие.
+ * @param resid Идентификатор ресурса или null, если изменение не касается ресурса.
+ * @param supid Идентификатор поставщика: измененного поставщика или поставщика измененного ресурса; null
+ * для действий с пользователями.
+ * @param before Снимок объекта до изменения (`ResourceSnapshot`, `SupplierSnapshot`) или null, если объект
+ * создан.
+ * @param after Снимок объекта после изменения (`ResourceSnapshot`, `SupplierSnapshot`, `UserSnapshot`) или
+ * null, если объект удален.
+ */
+public record AuditRecord(long sequence, Instant time, AuditAction action, String user, Long resid, Long supid,
+                          Record before, Record after) {
+}
@@ -0,0 +1,392 @@
+package com.example.demo.audit;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Это класс одного сегмента журнала аудита — файла фиксированного размера, отображенного в память.
+ *
+ * Сегмент начинается с заголовка ({@value #HEADER_SIZE} байта): сигнатура, версия формата, номер первой
+ * записи сегмента, время создания сегмента и CRC32C этих полей. За ним подряд идут записи: длина тела
+ * (4 байта), CRC32C тела (4 байта) и само тело (`AuditCodec`). Файл создается заполненным нулями, поэтому
+ * нулевая длина означает конец записанных данных. Длина записывается последней, так что запись,
+ * оборванная остановкой процесса, либо не видна, либо не проходит проверку CRC; чтение сегмента
+ * останавливается на первой такой записи.
+ *
+ * Имя файла — номер первой записи, дополненный нулями, поэтому сортировка имен совпадает с порядком
+ * сегментов.
+ */
+final class AuditSegment implements Closeable {
+
+    /** Сигнатура сегмента: «AUD1». */
+    static final int MAGIC = 0x41554431;
+
+    /** Версия формата. */
+    static final int VERSION = 1;
+
+    /** Размер заголовка. */
+    static final int HEADER_SIZE = 32;
+
+    /** Размер длины и CRC перед телом записи. */
+    static final int RECORD_OVERHEAD = 8;
+
+    /** Начало имени файла сегмента. */
+    private static final String PREFIX = "audit-";
+
+    /** Расширение файла сегмента. */
+    private static final String SUFFIX = ".seg";
+
+    /**
+     * Заголовок сегмента.
+     *
+     * @param baseSequence Номер первой записи сегмента.
+     * @param created Время создания сегмента в миллисекундах.
+     */
+    record Header(long baseSequence, long created) {
+    }
+
+    /** Файл сегмента. */
+    private final Path path;
+
+    /** Заголовок сегмента. */
+    private final Header header;
+
+    /** Канал файла; закрывается вместе с сегментом. */
+    private final FileChannel channel;
+
+    /** Отображение файла в память. */
+    private final MappedByteBuffer buffer;
+
+    /** Позиция, с которой пишется следующая запись. */
+    private int position;
+
+    /** Позиция, до которой записи сброшены на диск. */
+    private int forced;
+
+    /** Номер следующей записи. */
+    private long nextSequence;
+
+    private AuditSegment(Path path, Header header, FileChannel channel, MappedByteBuffer buffer, int position,
+                         long nextSequence) {
+        this.path = path;
+        this.header = header;
+        this.channel = channel;
+        this.buffer = buffer;
+        this.position = position;
+        this.forced = position;
+        this.nextSequence = nextSequence;
+    }
+
+    /**
+     * Эта функция создает новый сегмент и записывает его заголовок.
+     *
+     * @param directory Каталог журнала.
+     * @param baseSequence Номер первой записи сегмента.
+     * @param size Размер файла сегмента в байтах.
+     *
+     * @return Сегмент, открытый для записи.
+     *
+     * @throws IOException Если файл не удалось создать.
+     */
+    static AuditSegment create(Path directory, long baseSequence, int size) throws IOException {
+        Path path = directory.resolve(String.format("%s%020d%s", PREFIX, baseSequence, SUFFIX));
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            Header header = new Header(baseSequence, System.currentTimeMillis());
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.putLong(8, header.baseSequence());
+            buffer.putLong(16, header.created());
+            buffer.putInt(24, headerChecksum(buffer));
+            buffer.force(0, HEADER_SIZE);
+            return new AuditSegment(path, header, channel, buffer, HEADER_SIZE, baseSequence);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Эта функция открывает существующий сегмент для продолжения записи: находит конец последней целой
+     * записи и номер следующей записи. Если после нее есть поврежденные данные, они стираются, чтобы новые
+     * записи не оказались за ними.
+     *
+     * @param path Файл сегмента.
+     *
+     * @return Сегмент, открытый для записи.
+     *
+     * @throws IOException Если файл не читается или заголовок поврежден.
+     */
+    static AuditSegment open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+            Header header = header(buffer, path);
+            Cursor cursor = new Cursor(buffer);
+            long next = header.baseSequence();
+            while (cursor.next() != null) {
+                next++;
+            }
+            if (cursor.corrupt()) {
+                for (int i = cursor.position(); i < buffer.capacity(); i++) {
+                    buffer.put(i, (byte) 0);
+                }
+                buffer.force();
+            }
+            return new AuditSegment(path, header, channel, buffer, cursor.position(), next);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Эта функция отображает сегмент в память только для чтения.
+     *
+     * @param path Файл сегмента.
+     *
+     * @return Содержимое сегмента.
+     *
+     * @throws IOException Если файл не читается.
+     */
+    static ByteBuffer map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    /**
+     * Эта функция читает и проверяет заголовок сегмента.
+     *
+     * @param data Содержимое сегмента.
+     * @param path Файл сегмента для сообщения об ошибке.
+     *
+     * @return Заголовок.
+     *
+     * @throws IOException Если заголовок поврежден или версия формата не поддерживается.
+     */
+    static Header header(ByteBuffer data, Path path) throws IOException {
+        if (data.capacity() < HEADER_SIZE || data.getInt(0) != MAGIC || data.getInt(4) != VERSION
+                || data.getInt(24) != headerChecksum(data)) {
+            throw new IOException("Corrupt audit segment header: " + path);
+        }
+        return new Header(data.getLong(8), data.getLong(16));
+    }
+
+    /**
+     * Эта функция читает и проверяет заголовок сегмента, не отображая файл в память.
+     *
+     * @param path Файл сегмента.
+     *
+     * @return Заголовок.
+     *
+     * @throws IOException Если файл не читается или заголовок поврежден.
+     */
+    static Header header(Path path) throws IOException {
+        ByteBuffer data = ByteBuffer.allocate(HEADER_SIZE);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            while (data.hasRemaining() && channel.read(data) >= 0) {
+                // read the whole header
+            }
+        }
+        if (data.hasRemaining()) {
+            throw new IOException("Corrupt audit segment header: " + path);
+        }
+        return header(data, path);
+    }
+
+    /**
+     * Эта функция возвращает файлы сегментов каталога в порядке записи.
+     *
+     * @param directory Каталог журнала.
+     *
+     * @return Файлы сегментов; пустой список, если каталога нет.
+     *
+     * @throws IOException Если каталог не читается.
+     */
+    static List<Path> list(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> {
+                String name = file.getFileName().toString();
+                return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+            }).sorted().toList();
+        }
+    }
+
+    /**
+     * Эта функция добавляет запись в сегмент. Запись видна читателям сразу, на диск она попадает при
+     * вызове `force`.
+     *
+     * @param body Тело записи от позиции до предела буфера.
+     *
+     * @return true, если запись добавлена; false, если в сегменте не осталось места.
+     */
+    boolean append(ByteBuffer body) {
+        int length = body.remaining();
+        if (position + RECORD_OVERHEAD + length > buffer.capacity()) {
+            return false;
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(body.duplicate());
+        buffer.put(position + RECORD_OVERHEAD, body, body.position(), length);
+        buffer.putInt(position + 4, (int) crc.getValue());
+        buffer.putInt(position, length);
+        position += RECORD_OVERHEAD + length;
+        nextSequence++;
+        return true;
+    }
+
+    /**
+     * Эта функция сбрасывает на диск записи, добавленные после предыдущего вызова.
+     */
+    void force() {
+        if (forced < position) {
+            buffer.force(forced, position - forced);
+            forced = position;
+        }
+    }
+
+    /**
+     * Эта функция возвращает наибольший размер тела записи, который помещается в пустой сегмент.
+     *
+     * @return Размер в байтах.
+     */
+    int maxBodySize() {
+        return buffer.capacity() - HEADER_SIZE - RECORD_OVERHEAD;
+    }
+
+    /**
+     * Эта функция возвращает номер следующей записи.
+     *
+     * @return Номер записи.
+     */
+    long nextSequence() {
+        return nextSequence;
+    }
+
+    /**
+     * Эта функция возвращает файл сегмента.
+     *
+     * @return Путь к файлу.
+     */
+    Path path() {
+        return path;
+    }
+
+    /**
+     * Эта функция возвращает заголовок сегмента.
+     *
+     * @return Заголовок.
+     */
+    Header header() {
+        return header;
+    }
+
+    /**
+     * Эта функция сбрасывает записи на диск и закрывает файл. Отображение освобождается сборщиком мусора.
+     *
+     * @throws IOException Если файл не удалось закрыть.
+     */
+    @Override
+    public void close() throws IOException {
+        force();
+        channel.close();
+    }
+
+    /**
+     * Эта функция считает CRC32C полей заголовка.
+     *
+     * @param data Содержимое сегмента.
+     *
+     * @return Контрольная сумма.
+     */
+    private static int headerChecksum(ByteBuffer data) {
+        CRC32C crc = new CRC32C();
+        crc.update(data.slice(0, 24));
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Это класс последовательного чтения записей сегмента с проверкой CRC.
+     */
+    static final class Cursor {
+
+        /** Содержимое сегмента. */
+        private final ByteBuffer data;
+
+        /** Позиция следующей записи. */
+        private int position = HEADER_SIZE;
+
+        /** Признак того, что чтение остановилось на поврежденной записи. */
+        private boolean corrupt;
+
+        /**
+         * Конструктор создает курсор, стоящий на первой записи сегмента.
+         *
+         * @param data Содержимое сегмента.
+         */
+        Cursor(ByteBuffer data) {
+            this.data = data;
+        }
+
+        /**
+         * Эта функция возвращает тело следующей записи.
+         *
+         * @return Тело записи или null в конце данных или на поврежденной записи.
+         */
+        ByteBuffer next() {
+            if (corrupt || position + RECORD_OVERHEAD > data.capacity()) {
+                return null;
+            }
+            int length = data.getInt(position);
+            if (length == 0) {
+                return null;
+            }
+            if (length < 0 || length > data.capacity() - position - RECORD_OVERHEAD) {
+                corrupt = true;
+                return null;
+            }
+            ByteBuffer body = data.slice(position + RECORD_OVERHEAD, length);
+            CRC32C crc = new CRC32C();
+            crc.update(body.duplicate());
+            if ((int) crc.getValue() != data.getInt(position + 4)) {
+                corrupt = true;
+                return null;
+            }
+            position += RECORD_OVERHEAD + length;
+            return body;
+        }
+
+        /**
+         * Эта функция возвращает позицию после последней прочитанной записи.
+         *
+         * @return Позиция в сегменте.
+         */
+        int position() {
+            return position;
+        }
+
+        /**
+         * Эта функция сообщает, остановилось ли чтение на поврежденной записи.
+         *
+         * @return true, если после прочитанных записей есть поврежденные данные.
+         */
+        boolean corrupt() {
+            return corrupt;
+        }
+    }
+}
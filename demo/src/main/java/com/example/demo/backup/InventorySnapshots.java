@@ -0,0 +1,476 @@
+package com.example.demo.backup;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import javax.sql.DataSource;
+
+import org.hibernate.SessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.demo.ResourceTypes;
+import com.example.demo.aggregate.InventoryAggregates;
+import com.example.demo.cache.DataVersions;
+import com.example.demo.cache.ResultCacheAspect;
+import com.example.demo.columnar.ColumnarResourceIndex;
+import com.example.demo.fuzzy.FuzzySearch;
+import com.example.demo.suggest.SuggestionIndex;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Это класс снимков базы данных: он записывает таблицы поставщиков, ресурсов и пользователей в файл
+ * снимка (`SnapshotFormat`) в каталоге `app.backup.directory` и восстанавливает базу данных из такого
+ * файла. В отличие от построчного SQL-дампа, снимок хранит строки блоками по столбцам, сжат и проверяется по
+ * контрольным суммам, поэтому и запись, и восстановление упираются в базу данных, а не в разбор текста.
+ *
+ * Снимок читается в одной транзакции только для чтения с уровнем REPEATABLE READ, так что три таблицы
+ * согласованы между собой; строки идут потоком (`app.backup.fetch-size` строк за обращение к базе), а не
+ * загружаются в память целиком. Файл пишется через канал во временный файл и переименовывается только после
+ * записи последнего блока, поэтому оборванный снимок не выдается за целый.
+ *
+ * Восстановление заменяет все строки трех таблиц в одной транзакции: удаление, затем пакетные вставки
+ * по блоку файла с исходными идентификаторами. На MariaDB на время загрузки отключаются проверки внешних
+ * ключей и уникальности для соединения. Если файл поврежден, транзакция откатывается и база не меняется.
+ * После фиксации сбрасываются кэш второго уровня Hibernate и кэш результатов и заново заполняются данные в
+ * памяти — индексы и итоги, так как события изменений при загрузке не публикуются. Восстановление рассчитано
+ * на время обслуживания: изменения, сделанные другими пользователями во время загрузки, будут потеряны, а
+ * в журнал аудита загрузка не попадает.
+ */
+@Service
+public class InventorySnapshots {
+
+    /** Журнал сообщений о снимках. */
+    private static final Logger log = LoggerFactory.getLogger(InventorySnapshots.class);
+
+    /** Допустимое имя файла снимка; защищает от выхода за пределы каталога. */
+    private static final Pattern FILE_NAME = Pattern.compile("[A-Za-z0-9._-]+\\.snap");
+
+    /** Формат времени в имени файла снимка. */
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+
+    /** Размер буферов потока файла. */
+    private static final int STREAM_BUFFER = 1 << 16;
+
+    /** Каталог снимков. */
+    private final Path directory;
+
+    /** Число строк в блоке файла. */
+    private final int blockRows;
+
+    /** Шаблон JDBC с размером выборки для потокового чтения. */
+    private final JdbcTemplate jdbc;
+
+    /** Шаблон транзакции восстановления. */
+    private final TransactionTemplate restoreTransaction;
+
+    /** Фабрика EntityManager для сброса кэша второго уровня. */
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    /** Версии данных кэша результатов. */
+    @Autowired
+    private DataVersions versions;
+
+    /** Кэш результатов поиска. */
+    @Autowired
+    private ResultCacheAspect resultCache;
+
+    /** Итоги по складу в памяти. */
+    @Autowired
+    private InventoryAggregates aggregates;
+
+    /** Индекс подсказок. */
+    @Autowired
+    private SuggestionIndex suggestions;
+
+    /** Словарь типов ресурсов в памяти. */
+    @Autowired
+    private ResourceTypes resourceTypes;
+
+    /** Индекс нечеткого поиска. */
+    @Autowired
+    private FuzzySearch fuzzySearch;
+
+    /** Столбцовый индекс ресурсов; есть, только если включен `app.columnar.enabled`. */
+    @Autowired(required = false)
+    private ColumnarResourceIndex columnarIndex;
+
+    /**
+     * Конструктор задает каталог снимков и параметры чтения и загрузки.
+     *
+     * @param directory Каталог снимков.
+     * @param fetchSize Число строк, которые драйвер получает за одно обращение при чтении снимка.
+     * @param blockRows Число строк в блоке файла и в пакете вставок при восстановлении.
+     * @param dataSource Источник данных приложения.
+     * @param transactionManager Менеджер транзакций приложения.
+     */
+    public InventorySnapshots(@Value("${app.backup.directory:backups}") String directory,
+                              @Value("${app.backup.fetch-size:10000}") int fetchSize,
+                              @Value("${app.backup.block-rows:8192}") int blockRows,
+                              DataSource dataSource, PlatformTransactionManager transactionManager) {
+        this.directory = Paths.get(directory).toAbsolutePath();
+        this.blockRows = Math.max(blockRows, 1);
+        this.jdbc = new JdbcTemplate(dataSource);
+        this.jdbc.setFetchSize(fetchSize);
+        this.restoreTransaction = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Эта функция записывает снимок базы данных в новый файл каталога снимков.
+     *
+     * @return Отчет с именем файла, числом строк и скоростью записи.
+     *
+     * @throws IOException Если файл не удалось записать.
+     */
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public SnapshotReport snapshot() throws IOException {
+        long started = System.nanoTime();
+        Files.createDirectories(directory);
+        String name = "inventory-" + LocalDateTime.now().format(FILE_TIME) + ".snap";
+        Path file = directory.resolve(name);
+        Path partial = directory.resolve(name + ".part");
+        Map<String, Long> counts = new LinkedHashMap<>();
+        try {
+            try (FileChannel channel = FileChannel.open(partial, StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.WRITE)) {
+                FastGzipOutputStream gzip = new FastGzipOutputStream(Channels.newOutputStream(channel));
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(gzip, STREAM_BUFFER));
+                out.writeLong(SnapshotFormat.MAGIC);
+                out.writeInt(SnapshotFormat.VERSION);
+                out.writeLong(System.currentTimeMillis());
+                out.writeInt(SnapshotFormat.TABLES.size());
+                ByteBuffer buffer = ByteBuffer.allocate(STREAM_BUFFER);
+                for (SnapshotFormat.Table table : SnapshotFormat.TABLES) {
+                    TableWriter writer = new TableWriter(table, out, buffer);
+                    jdbc.query(table.selectSql(), writer::add);
+                    buffer = writer.finish();
+                    counts.put(table.name(), writer.rows);
+                }
+                out.flush();
+                gzip.finish();
+                channel.force(false);
+            }
+            Files.move(partial, file, StandardCopyOption.ATOMIC_MOVE);
+        } catch (UncheckedSnapshotException e) {
+            throw e.getCause();
+        } finally {
+            Files.deleteIfExists(partial);
+        }
+        SnapshotReport report = SnapshotReport.of(name, counts, Files.size(file), System.nanoTime() - started);
+        log.info("Snapshot {} written: {} row(s) {}, {} bytes in {} ms ({} rows/s, {} MB/s)", name, report.rows(),
+                counts, report.bytes(), report.millis(), report.rowsPerSecond(), report.megabytesPerSecond());
+        return report;
+    }
+
+    /**
+     * Эта функция заменяет содержимое базы данных содержимым файла снимка и обновляет данные в памяти.
+     *
+     * @param name Имя файла в каталоге снимков.
+     *
+     * @return Отчет с числом загруженных строк и скоростью загрузки; время обновления данных в памяти в
+     * отчет не входит и пишется в журнал отдельно.
+     *
+     * @throws NoSuchFileException Если файла нет.
+     * @throws SnapshotFormatException Если файл поврежден или записан другой версией формата.
+     * @throws IOException Если файл не удалось прочитать.
+     * @throws IllegalArgumentException Если имя файла недопустимо.
+     */
+    public SnapshotReport restore(String name) throws IOException {
+        if (name == null || !FILE_NAME.matcher(name).matches()) {
+            throw new IllegalArgumentException("Invalid snapshot file name: " + name);
+        }
+        Path file = directory.resolve(name);
+        long started = System.nanoTime();
+        Map<String, Long> counts;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(
+                     new GZIPInputStream(Channels.newInputStream(channel), STREAM_BUFFER), STREAM_BUFFER))) {
+            counts = restoreTransaction.execute(status -> load(in));
+        } catch (UncheckedSnapshotException e) {
+            throw e.getCause();
+        }
+        SnapshotReport report = SnapshotReport.of(name, counts, Files.size(file), System.nanoTime() - started);
+        log.info("Snapshot {} restored: {} row(s) {} in {} ms ({} rows/s, {} MB/s)", name, report.rows(), counts,
+                report.millis(), report.rowsPerSecond(), report.megabytesPerSecond());
+        long refreshStarted = System.nanoTime();
+        refresh();
+        log.info("In-memory data refreshed after restore in {} ms", (System.nanoTime() - refreshStarted) / 1_000_000);
+        return report;
+    }
+
+    /**
+     * Эта функция загружает таблицы из файла в текущей транзакции. Таблицы очищаются в порядке, обратном
+     * порядку загрузки, чтобы ресурсы удалялись раньше словаря типов, на который они ссылаются.
+     *
+     * @param in Поток файла.
+     *
+     * @return Число загруженных строк по таблицам.
+     *
+     * @throws UncheckedSnapshotException Если файл поврежден или не читается; транзакция откатывается.
+     */
+    private Map<String, Long> load(DataInputStream in) {
+        try {
+            if (in.readLong() != SnapshotFormat.MAGIC) {
+                throw new SnapshotFormatException("Not an inventory snapshot");
+            }
+            int version = in.readInt();
+            if (version != SnapshotFormat.VERSION) {
+                throw new SnapshotFormatException("Unsupported snapshot version " + version);
+            }
+            in.readLong();
+            if (in.readInt() != SnapshotFormat.TABLES.size()) {
+                throw new SnapshotFormatException("Snapshot does not contain the tables of this version");
+            }
+            boolean mariaDb = jdbc.execute((ConnectionCallback<Boolean>) connection -> {
+                String product = connection.getMetaData().getDatabaseProductName();
+                return "MariaDB".equalsIgnoreCase(product) || "MySQL".equalsIgnoreCase(product);
+            });
+            if (mariaDb) {
+                jdbc.execute("set foreign_key_checks = 0, unique_checks = 0");
+            }
+            try {
+                for (int i = SnapshotFormat.TABLES.size() - 1; i >= 0; i--) {
+                    jdbc.update("delete from " + SnapshotFormat.TABLES.get(i).name());
+                }
+                Map<String, Long> counts = new LinkedHashMap<>();
+                for (SnapshotFormat.Table table : SnapshotFormat.TABLES) {
+                    counts.put(table.name(), loadTable(in, table));
+                }
+                if (in.read() != -1) {
+                    throw new SnapshotFormatException("Unexpected data after the last table");
+                }
+                return counts;
+            } finally {
+                if (mariaDb) {
+                    jdbc.execute("set foreign_key_checks = 1, unique_checks = 1");
+                }
+            }
+        } catch (EOFException e) {
+            throw new UncheckedSnapshotException(new SnapshotFormatException("Snapshot file is truncated", e));
+        } catch (IOException e) {
+            throw new UncheckedSnapshotException(e);
+        }
+    }
+
+    /**
+     * Эта функция загружает одну таблицу: каждый блок файла вставляется одним пакетом.
+     *
+     * @param in Поток файла.
+     * @param table Таблица.
+     *
+     * @return Число загруженных строк.
+     *
+     * @throws IOException Если файл поврежден или не читается.
+     */
+    private long loadTable(DataInputStream in, SnapshotFormat.Table table) throws IOException {
+        SnapshotFormat.readTableHeader(in, table);
+        SnapshotFormat.Block block = new SnapshotFormat.Block(table, blockRows);
+        String sql = table.insertSql();
+        long rows = 0;
+        while (block.read(in)) {
+            jdbc.batchUpdate(sql, new BatchPreparedStatementSetter() {
+
+                @Override
+                public void setValues(PreparedStatement statement, int row) throws SQLException {
+                    for (int c = 0; c < table.columns().size(); c++) {
+                        switch (table.columns().get(c).type()) {
+                            case LONG -> setNumber(statement, c + 1, block.getNumber(row, c), Types.BIGINT);
+                            case INT -> setNumber(statement, c + 1, block.getNumber(row, c), Types.INTEGER);
+                            case STRING -> statement.setString(c + 1, block.getString(row, c));
+                        }
+                    }
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return block.rows();
+                }
+            });
+            rows += block.rows();
+        }
+        return rows;
+    }
+
+    /**
+     * Эта функция задает числовой параметр запроса вставки.
+     *
+     * @param statement Запрос.
+     * @param index Номер параметра.
+     * @param value Значение или null.
+     * @param sqlType Тип столбца.
+     *
+     * @throws SQLException Если параметр не удалось задать.
+     */
+    private static void setNumber(PreparedStatement statement, int index, Long value, int sqlType)
+            throws SQLException {
+        if (value == null) {
+            statement.setNull(index, sqlType);
+        } else if (sqlType == Types.INTEGER) {
+            statement.setInt(index, value.intValue());
+        } else {
+            statement.setLong(index, value);
+        }
+    }
+
+    /**
+     * Эта функция обновляет все, что держит копию данных базы после восстановления: сбрасывает кэш второго
+     * уровня Hibernate вместе с кэшем запросов, кэш результатов и словарь типов, заново заполняет индексы и
+     * пересчитывает итоги.
+     */
+    private void refresh() {
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+        resourceTypes.clear();
+        versions.bumpAll();
+        resultCache.invalidateAll();
+        suggestions.reload();
+        fuzzySearch.reload();
+        if (columnarIndex != null) {
+            columnarIndex.reload();
+        }
+        aggregates.reconcile();
+    }
+
+    /**
+     * Это класс записи строк одной таблицы из результата запроса в блоки файла.
+     */
+    private final class TableWriter {
+
+        /** Таблица. */
+        private final SnapshotFormat.Table table;
+
+        /** Поток файла. */
+        private final DataOutputStream out;
+
+        /** Текущий блок. */
+        private final SnapshotFormat.Block block;
+
+        /** Буфер для тела блока. */
+        private ByteBuffer buffer;
+
+        /** Число записанных строк. */
+        private long rows;
+
+        TableWriter(SnapshotFormat.Table table, DataOutputStream out, ByteBuffer buffer) throws IOException {
+            this.table = table;
+            this.out = out;
+            this.buffer = buffer;
+            this.block = new SnapshotFormat.Block(table, blockRows);
+            SnapshotFormat.writeTableHeader(out, table);
+        }
+
+        /**
+         * Эта функция добавляет текущую строку результата в блок и записывает заполненный блок.
+         *
+         * @param resultSet Результат запроса, стоящий на строке.
+         *
+         * @throws SQLException Если строку не удалось прочитать.
+         */
+        void add(ResultSet resultSet) throws SQLException {
+            int row = block.addRow();
+            for (int c = 0; c < table.columns().size(); c++) {
+                if (table.columns().get(c).type() == SnapshotFormat.ColumnType.STRING) {
+                    block.setString(row, c, resultSet.getString(c + 1));
+                } else {
+                    long value = resultSet.getLong(c + 1);
+                    block.setNumber(row, c, resultSet.wasNull() ? null : value);
+                }
+            }
+            rows++;
+            if (block.full()) {
+                try {
+                    flush();
+                } catch (IOException e) {
+                    throw new UncheckedSnapshotException(e);
+                }
+            }
+        }
+
+        /**
+         * Эта функция записывает последний блок и конец раздела таблицы.
+         *
+         * @return Буфер для следующей таблицы.
+         *
+         * @throws IOException Если запись не удалась.
+         */
+        ByteBuffer finish() throws IOException {
+            if (block.rows() > 0) {
+                flush();
+            }
+            out.writeInt(0);
+            return buffer;
+        }
+
+        private void flush() throws IOException {
+            buffer = block.write(out, buffer);
+            block.clear();
+        }
+    }
+
+    /**
+     * Это поток GZIP с наименьшим сжатием: снимок пишется со скоростью чтения из базы, а хранение по
+     * столбцам уже убрало большую часть избыточности.
+     */
+    private static final class FastGzipOutputStream extends GZIPOutputStream {
+
+        FastGzipOutputStream(OutputStream out) throws IOException {
+            super(out, STREAM_BUFFER);
+            def.setLevel(Deflater.BEST_SPEED);
+        }
+    }
+
+    /**
+     * Это исключение переносит ошибку ввода-вывода через обратные вызовы JDBC и транзакции, которые не
+     * объявляют IOException.
+     */
+    private static final class UncheckedSnapshotException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        UncheckedSnapshotException(IOException cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized IOException getCause() {
+            return (IOException) super.getCause();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.demo.backup;
+
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Это контроллер снимков базы данных для администратора: запись снимка и восстановление из него. Оба
+ * запроса возвращают отчет `SnapshotReport` в формате JSON, в том числе скорость в строках в секунду.
+ */
+@RestController
+@PreAuthorize("hasAuthority('ROLE_ADMIN')")
+public class SnapshotController {
+
+    /** Сервис снимков. */
+    @Autowired
+    private InventorySnapshots snapshots;
+
+    /**
+     * Эта функция записывает снимок базы данных в каталог снимков.
+     *
+     * @return Отчет с именем файла снимка.
+     *
+     * @throws IOException Если файл не удалось записать.
+     */
+    @PostMapping("/admin/snapshot")
+    public SnapshotReport snapshot() throws IOException {
+        return snapshots.snapshot();
+    }
+
+    /**
+     * Эта функция восстанавливает базу данных из файла снимка.
+     *
+     * @param file Имя файла в каталоге снимков.
+     *
+     * @return Отчет о восстановлении.
+     *
+     * @throws IOException Если файл не удалось прочитать.
+     * @throws ResponseStatusException с кодом 404, если файла нет, и с кодом 400, если имя недопустимо или
+     * файл поврежден.
+     */
+    @PostMapping("/admin/restore")
+    public SnapshotReport restore(@RequestParam String file) throws IOException {
+        try {
+            return snapshots.restore(file);
+        } catch (NoSuchFileException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Snapshot not found: " + file);
+        } catch (IllegalArgumentException | SnapshotFormatException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+}
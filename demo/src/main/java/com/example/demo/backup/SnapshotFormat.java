@@ -0,0 +1,500 @@
+package com.example.demo.backup;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+/**
+ * Это класс формата файла снимка базы данных. Файл сжат GZIP (с контрольной суммой CRC32 всего потока) и
+ * состоит из заголовка и разделов таблиц.
+ * <ul>
+ * <li>Заголовок: сигнатура «INVSNAP1», версия формата, время создания и число таблиц.</li>
+ * <li>Раздел таблицы: имя, число столбцов, имя и тип каждого столбца, затем блоки строк и блок нулевой
+ * длины в конце раздела.</li>
+ * <li>Блок: длина, тело и CRC32C тела. Тело хранит до `app.backup.block-rows` строк по столбцам: число
+ * строк, затем для каждого столбца все его значения. Числа записываются разностью с предыдущим значением
+ * столбца в виде varint с зигзаг-кодированием, перед ними — битовая карта null; строки — длиной плюс один
+ * (0 для null) и байтами UTF-8.</li>
+ * </ul>
+ * Хранение по столбцам и разности идентификаторов, идущих по возрастанию, делают блоки короткими, а GZIP
+ * сжимает их дальше. Поврежденный блок обнаруживается по своей CRC до того, как его строки попадут в базу.
+ */
+final class SnapshotFormat {
+
+    /** Сигнатура файла: «INVSNAP1». */
+    static final long MAGIC = 0x494E56534E415031L;
+
+    /** Версия формата. */
+    static final int VERSION = 2;
+
+    /** Тип столбца. */
+    enum ColumnType {
+
+        /** Целое число BIGINT, может быть null. */
+        LONG,
+
+        /** Целое число INTEGER или SMALLINT, может быть null. */
+        INT,
+
+        /** Строка, может быть null. */
+        STRING
+    }
+
+    /**
+     * Столбец таблицы.
+     *
+     * @param name Имя столбца.
+     * @param type Тип столбца.
+     */
+    record Column(String name, ColumnType type) {
+    }
+
+    /**
+     * Таблица снимка.
+     *
+     * @param name Имя таблицы.
+     * @param columns Столбцы; первый — первичный ключ.
+     */
+    record Table(String name, List<Column> columns) {
+
+        /**
+         * Эта функция возвращает запрос чтения всех строк таблицы по порядку первичного ключа.
+         *
+         * @return Текст запроса.
+         */
+        String selectSql() {
+            return "select " + String.join(", ", columns.stream().map(Column::name).toList()) + " from " + name
+                    + " order by " + columns.get(0).name();
+        }
+
+        /**
+         * Эта функция возвращает запрос вставки одной строки.
+         *
+         * @return Текст запроса.
+         */
+        String insertSql() {
+            return "insert into " + name + " (" + String.join(", ", columns.stream().map(Column::name).toList())
+                    + ") values (" + "?, ".repeat(columns.size() - 1) + "?)";
+        }
+    }
+
+    /**
+     * Таблицы снимка в порядке записи и восстановления; схема совпадает с миграцией V3. Словарь типов
+     * идет раньше ресурсов, которые ссылаются на него. Версия 2 формата отличается от версии 1 словарем
+     * типов: снимки версии 1 хранили название типа в строке ресурса.
+     */
+    static final List<Table> TABLES = List.of(
+            new Table("suppliers", List.of(
+                    new Column("supid", ColumnType.LONG),
+                    new Column("name", ColumnType.STRING),
+                    new Column("phone", ColumnType.STRING),
+                    new Column("email", ColumnType.STRING))),
+            new Table("resource_types", List.of(
+                    new Column("id", ColumnType.INT),
+                    new Column("name", ColumnType.STRING))),
+            new Table("resources", List.of(
+                    new Column("resid", ColumnType.LONG),
+                    new Column("name", ColumnType.STRING),
+                    new Column("type_id", ColumnType.INT),
+                    new Column("quantity", ColumnType.INT),
+                    new Column("cost", ColumnType.INT),
+                    new Column("acdate", ColumnType.STRING),
+                    new Column("supplier", ColumnType.LONG))),
+            new Table("user_info", List.of(
+                    new Column("id", ColumnType.LONG),
+                    new Column("name", ColumnType.STRING),
+                    new Column("password", ColumnType.STRING),
+                    new Column("roles", ColumnType.STRING))));
+
+    private SnapshotFormat() {
+    }
+
+    /**
+     * Это блок строк одной таблицы в памяти: значения хранятся по столбцам. Числовые столбцы хранятся в
+     * массивах long с отметками null, строковые — в массивах строк.
+     */
+    static final class Block {
+
+        /** Таблица блока. */
+        private final Table table;
+
+        /** Значения числовых столбцов; null для строковых. */
+        private final long[][] numbers;
+
+        /** Отметки null числовых столбцов; null для строковых. */
+        private final boolean[][] nulls;
+
+        /** Значения строковых столбцов; null для числовых. */
+        private final String[][] strings;
+
+        /** Наибольшее число строк в блоке. */
+        private final int capacity;
+
+        /** Число строк в блоке. */
+        private int rows;
+
+        /**
+         * Конструктор создает пустой блок.
+         *
+         * @param table Таблица.
+         * @param capacity Наибольшее число строк.
+         */
+        Block(Table table, int capacity) {
+            this.table = table;
+            this.capacity = capacity;
+            int count = table.columns().size();
+            this.numbers = new long[count][];
+            this.nulls = new boolean[count][];
+            this.strings = new String[count][];
+            for (int c = 0; c < count; c++) {
+                if (table.columns().get(c).type() == ColumnType.STRING) {
+                    strings[c] = new String[capacity];
+                } else {
+                    numbers[c] = new long[capacity];
+                    nulls[c] = new boolean[capacity];
+                }
+            }
+        }
+
+        /**
+         * Эта функция возвращает число строк в блоке.
+         *
+         * @return Число строк.
+         */
+        int rows() {
+            return rows;
+        }
+
+        /**
+         * Эта функция сообщает, заполнен ли блок.
+         *
+         * @return true, если строк больше не поместится.
+         */
+        boolean full() {
+            return rows == capacity;
+        }
+
+        /**
+         * Эта функция начинает новую строку; значения строки задаются `setNumber` и `setString`.
+         *
+         * @return Номер строки в блоке.
+         */
+        int addRow() {
+            return rows++;
+        }
+
+        /**
+         * Эта функция очищает блок для следующих строк.
+         */
+        void clear() {
+            for (String[] column : strings) {
+                if (column != null) {
+                    Arrays.fill(column, 0, rows, null);
+                }
+            }
+            rows = 0;
+        }
+
+        /**
+         * Эта функция задает значение числового столбца.
+         *
+         * @param row Номер строки.
+         * @param column Номер столбца.
+         * @param value Значение или null.
+         */
+        void setNumber(int row, int column, Long value) {
+            nulls[column][row] = value == null;
+            numbers[column][row] = value == null ? 0 : value;
+        }
+
+        /**
+         * Эта функция возвращает значение числового столбца.
+         *
+         * @param row Номер строки.
+         * @param column Номер столбца.
+         *
+         * @return Значение или null.
+         */
+        Long getNumber(int row, int column) {
+            return nulls[column][row] ? null : numbers[column][row];
+        }
+
+        /**
+         * Эта функция задает значение строкового столбца.
+         *
+         * @param row Номер строки.
+         * @param column Номер столбца.
+         * @param value Значение или null.
+         */
+        void setString(int row, int column, String value) {
+            strings[column][row] = value;
+        }
+
+        /**
+         * Эта функция возвращает значение строкового столбца.
+         *
+         * @param row Номер строки.
+         * @param column Номер столбца.
+         *
+         * @return Значение или null.
+         */
+        String getString(int row, int column) {
+            return strings[column][row];
+        }
+
+        /**
+         * Эта функция кодирует блок и записывает его в поток вместе с длиной и CRC32C.
+         *
+         * @param out Поток файла.
+         * @param buffer Буфер для тела блока; возвращается увеличенный буфер, если тело не поместилось.
+         *
+         * @return Буфер для следующих блоков.
+         *
+         * @throws IOException Если запись в поток не удалась.
+         */
+        ByteBuffer write(DataOutputStream out, ByteBuffer buffer) throws IOException {
+            Encoder encoder = new Encoder(buffer);
+            encoder.putVarLong(rows);
+            for (int c = 0; c < table.columns().size(); c++) {
+                if (strings[c] != null) {
+                    for (int r = 0; r < rows; r++) {
+                        encoder.putString(strings[c][r]);
+                    }
+                } else {
+                    for (int r = 0; r < rows; r += 8) {
+                        int bits = 0;
+                        for (int i = 0; i < 8 && r + i < rows; i++) {
+                            bits |= nulls[c][r + i] ? 1 << i : 0;
+                        }
+                        encoder.putByte(bits);
+                    }
+                    long previous = 0;
+                    for (int r = 0; r < rows; r++) {
+                        if (!nulls[c][r]) {
+                            encoder.putVarLong(zigzag(numbers[c][r] - previous));
+                            previous = numbers[c][r];
+                        }
+                    }
+                }
+            }
+            ByteBuffer body = encoder.buffer.flip();
+            CRC32C crc = new CRC32C();
+            crc.update(body.duplicate());
+            out.writeInt(body.remaining());
+            out.write(body.array(), body.arrayOffset() + body.position(), body.remaining());
+            out.writeInt((int) crc.getValue());
+            return encoder.buffer.clear();
+        }
+
+        /**
+         * Эта функция читает следующий блок таблицы из потока и проверяет его CRC32C.
+         *
+         * @param in Поток файла.
+         *
+         * @return true, если блок прочитан; false в конце раздела таблицы.
+         *
+         * @throws IOException Если поток оборвался или блок поврежден.
+         */
+        boolean read(DataInputStream in) throws IOException {
+            int length = in.readInt();
+            if (length == 0) {
+                rows = 0;
+                return false;
+            }
+            if (length < 0) {
+                throw new SnapshotFormatException("Invalid block length " + length + " in table " + table.name());
+            }
+            byte[] body = new byte[length];
+            in.readFully(body);
+            CRC32C crc = new CRC32C();
+            crc.update(body);
+            if ((int) crc.getValue() != in.readInt()) {
+                throw new SnapshotFormatException("Checksum mismatch in a block of table " + table.name());
+            }
+            try {
+                decode(ByteBuffer.wrap(body));
+            } catch (RuntimeException e) {
+                throw new SnapshotFormatException("Malformed block in table " + table.name(), e);
+            }
+            return true;
+        }
+
+        /**
+         * Эта функция раскодирует тело блока.
+         *
+         * @param body Тело блока.
+         *
+         * @throws SnapshotFormatException Если строк больше, чем помещается в блок.
+         */
+        private void decode(ByteBuffer body) throws SnapshotFormatException {
+            clear();
+            long count = getVarLong(body);
+            if (count < 0 || count > capacity) {
+                throw new SnapshotFormatException("Block of " + count + " rows exceeds the block size "
+                        + capacity + " in table " + table.name());
+            }
+            rows = (int) count;
+            for (int c = 0; c < table.columns().size(); c++) {
+                if (strings[c] != null) {
+                    for (int r = 0; r < rows; r++) {
+                        int length = (int) getVarLong(body);
+                        if (length == 0) {
+                            strings[c][r] = null;
+                        } else {
+                            strings[c][r] = new String(body.array(), body.position(), length - 1,
+                                    StandardCharsets.UTF_8);
+                            body.position(body.position() + length - 1);
+                        }
+                    }
+                } else {
+                    for (int r = 0; r < rows; r += 8) {
+                        int bits = body.get();
+                        for (int i = 0; i < 8 && r + i < rows; i++) {
+                            nulls[c][r + i] = (bits & 1 << i) != 0;
+                        }
+                    }
+                    long previous = 0;
+                    for (int r = 0; r < rows; r++) {
+                        if (!nulls[c][r]) {
+                            previous += unzigzag(getVarLong(body));
+                            numbers[c][r] = previous;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Эта функция записывает заголовок раздела таблицы.
+     *
+     * @param out Поток файла.
+     * @param table Таблица.
+     *
+     * @throws IOException Если запись в поток не удалась.
+     */
+    static void writeTableHeader(DataOutputStream out, Table table) throws IOException {
+        out.writeUTF(table.name());
+        out.writeShort(table.columns().size());
+        for (Column column : table.columns()) {
+            out.writeUTF(column.name());
+            out.writeByte(column.type().ordinal());
+        }
+    }
+
+    /**
+     * Эта функция читает заголовок раздела таблицы и проверяет, что он совпадает с ожидаемой схемой.
+     *
+     * @param in Поток файла.
+     * @param expected Ожидаемая таблица.
+     *
+     * @throws IOException Если поток оборвался или схема таблицы другая.
+     */
+    static void readTableHeader(DataInputStream in, Table expected) throws IOException {
+        String name = in.readUTF();
+        int count = in.readShort();
+        boolean matches = name.equals(expected.name()) && count == expected.columns().size();
+        for (int c = 0; c < count; c++) {
+            String column = in.readUTF();
+            int type = in.readByte();
+            matches &= c < expected.columns().size() && column.equals(expected.columns().get(c).name())
+                    && type == expected.columns().get(c).type().ordinal();
+        }
+        if (!matches) {
+            throw new SnapshotFormatException("Snapshot table " + name + " does not match table "
+                    + expected.name() + " of this version");
+        }
+    }
+
+    /**
+     * Это класс записи тела блока в буфер, который увеличивается по мере надобности.
+     */
+    private static final class Encoder {
+
+        /** Буфер тела блока. */
+        private ByteBuffer buffer;
+
+        Encoder(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        void putByte(int value) {
+            ensure(1);
+            buffer.put((byte) value);
+        }
+
+        void putVarLong(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer.put((byte) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            buffer.put((byte) value);
+        }
+
+        void putString(String value) {
+            if (value == null) {
+                putVarLong(0);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            putVarLong(bytes.length + 1L);
+            ensure(bytes.length);
+            buffer.put(bytes);
+        }
+
+        private void ensure(int bytes) {
+            if (buffer.remaining() < bytes) {
+                ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+                larger.put(buffer.flip());
+                buffer = larger;
+            }
+        }
+    }
+
+    /**
+     * Эта функция читает число varint.
+     *
+     * @param in Буфер.
+     *
+     * @return Число.
+     */
+    private static long getVarLong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+
+    /**
+     * Эта функция переводит число со знаком в число без знака так, чтобы малые по модулю числа были малыми.
+     *
+     * @param value Число со знаком.
+     *
+     * @return Число для varint.
+     */
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    /**
+     * Эта функция выполняет обратное к `zigzag` преобразование.
+     *
+     * @param value Число из varint.
+     *
+     * @return Число со знаком.
+     */
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.demo.backup;
+
+import java.io.IOException;
+
+/**
+ * Это исключение сообщает, что файл снимка поврежден или записан другой версией формата.
+ */
+public class SnapshotFormatException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Конструктор создает исключение с сообщением.
+     *
+     * @param message Сообщение.
+     */
+    public SnapshotFormatException(String message) {
+        super(message);
+    }
+
+    /**
+     * Конструктор создает исключение с сообщением и причиной.
+     *
+     * @param message Сообщение.
+     * @param cause Причина.
+     */
+    public SnapshotFormatException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.demo.backup;
+
+import java.util.Map;
+
+/**
+ * Это отчет о записи или восстановлении снимка базы данных.
+ *
+ * @param file Имя файла снимка.
+ * @param tables Число строк по таблицам.
+ * @param rows Общее число строк.
+ * @param bytes Размер файла снимка в байтах.
+ * @param millis Время работы в миллисекундах.
+ * @param rowsPerSecond Скорость в строках в секунду.
+ * @param megabytesPerSecond Скорость в мегабайтах файла в секунду.
+ */
+public record SnapshotReport(String file, Map<String, Long> tables, long rows, long bytes, long millis,
+                             long rowsPerSecond, double megabytesPerSecond) {
+
+    /**
+     * Эта функция создает отчет и вычисляет скорость.
+     *
+     * @param file Имя файла снимка.
+     * @param tables Число строк по таблицам.
+     * @param bytes Размер файла снимка в байтах.
+     * @param nanos Время работы в наносекундах.
+     *
+     * @return Отчет.
+     */
+    static SnapshotReport of(String file, Map<String, Long> tables, long bytes, long nanos) {
+        long rows = tables.values().stream().mapToLong(Long::longValue).sum();
+        double seconds = Math.max(nanos, 1) / 1e9;
+        return new SnapshotReport(file, tables, rows, bytes, nanos / 1_000_000, Math.round(rows / seconds),
+                Math.round(bytes / seconds / (1 << 20) * 10) / 10.0);
+    }
+}
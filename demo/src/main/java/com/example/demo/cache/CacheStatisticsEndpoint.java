@@ -0,0 +1,92 @@
+package com.example.demo.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Это конечная точка Actuator (`/actuator/cachestats`), которая показывает статистику регионов кэша
+ * второго уровня Hibernate: попадания, промахи, записи и число элементов в каждом регионе, а также
+ * общую статистику кэша запросов.
+ */
+@Component
+@Endpoint(id = "cachestats")
+public class CacheStatisticsEndpoint {
+
+    /** Фабрика EntityManager, из которой извлекается SessionFactory Hibernate и его статистика. */
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    /**
+     * Эта функция возвращает статистику всех регионов кэша второго уровня и кэша запросов.
+     * 
+     * @return Словарь, где ключ «regions» содержит статистику по каждому региону, а ключ «queryCache» —
+     * общие счетчики кэша запросов.
+     */
+    @ReadOperation
+    public Map<String, Object> regions() {
+        Statistics statistics = statistics();
+        Map<String, Object> regions = new LinkedHashMap<>();
+        for (String regionName : statistics.getSecondLevelCacheRegionNames()) {
+            regions.put(regionName, describe(statistics.getCacheRegionStatistics(regionName)));
+        }
+        Map<String, Object> queryCache = new LinkedHashMap<>();
+        queryCache.put("hitCount", statistics.getQueryCacheHitCount());
+        queryCache.put("missCount", statistics.getQueryCacheMissCount());
+        queryCache.put("putCount", statistics.getQueryCachePutCount());
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("statisticsEnabled", statistics.isStatisticsEnabled());
+        result.put("regions", regions);
+        result.put("queryCache", queryCache);
+        return result;
+    }
+
+    /**
+     * Эта функция возвращает статистику одного региона кэша.
+     * 
+     * @param region Имя региона, например «suppliers» или «users».
+     * 
+     * @return Словарь со счетчиками региона или null, если регион с таким именем не существует.
+     */
+    @ReadOperation
+    public Map<String, Object> region(@Selector String region) {
+        CacheRegionStatistics regionStatistics = statistics().getCacheRegionStatistics(region);
+        return regionStatistics == null ? null : describe(regionStatistics);
+    }
+
+    /**
+     * Эта функция получает объект статистики Hibernate из фабрики EntityManager.
+     * 
+     * @return Статистика SessionFactory.
+     */
+    private Statistics statistics() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    /**
+     * Эта функция преобразует статистику региона в словарь для сериализации в JSON.
+     * 
+     * @param regionStatistics Статистика региона кэша.
+     * 
+     * @return Словарь со счетчиками попаданий, промахов, записей и числом элементов в памяти.
+     */
+    private Map<String, Object> describe(CacheRegionStatistics regionStatistics) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("hitCount", regionStatistics.getHitCount());
+        result.put("missCount", regionStatistics.getMissCount());
+        result.put("putCount", regionStatistics.getPutCount());
+        result.put("elementCountInMemory", regionStatistics.getElementCountInMemory());
+        return result;
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.demo.cache;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Эта аннотация помечает метод чтения, результаты которого сохраняет `ResultCacheAspect`. Ключ
+ * результата включает нормализованные аргументы и текущие версии данных перечисленных таблиц, поэтому
+ * после записи в любую из них старые результаты больше не выдаются.
+ * 
+ * Метод должен возвращать неизменяемый результат, который можно отдать нескольким потокам.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface CachedResult {
+
+    /**
+     * Таблицы, от данных которых зависит результат метода.
+     * 
+     * @return Список таблиц.
+     */
+    DataTable[] tables();
+
+    /**
+     * Признак того, что метод использует только первый непустой аргумент (см. `Coalesced`).
+     * 
+     * @return true, если учитывается только первый непустой аргумент.
+     */
+    boolean firstNonEmpty() default false;
+}
@@ -0,0 +1,13 @@
+package com.example.demo.cache;
+
+/**
+ * Это перечисление таблиц, версии данных которых отслеживает `DataVersions`.
+ */
+public enum DataTable {
+
+    /** Таблица ресурсов. */
+    RESOURCES,
+
+    /** Таблица поставщиков. */
+    SUPPLIERS
+}
@@ -0,0 +1,107 @@
+package com.example.demo.cache;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.demo.ResourceChangedEvent;
+import com.example.demo.SupplierChangedEvent;
+
+/**
+ * Это класс, который хранит номер версии данных каждой таблицы. Версия увеличивается после фиксации
+ * каждой транзакции записи через `ResourcesService`; результаты поиска, сохраненные под прежней
+ * версией, после этого больше не находятся в кэше.
+ * 
+ * Версия увеличивается именно после фиксации: результат, вычисленный до нее, мог прочитать еще
+ * старые данные и не должен попасть под новую версию.
+ */
+@Component
+public class DataVersions {
+
+    /**
+     * Это версия данных таблицы и время ее последнего увеличения.
+     * 
+     * @param number Номер версии.
+     * @param changedAtNanos Значение `System.nanoTime()` в момент увеличения версии.
+     */
+    public record Version(long number, long changedAtNanos) {
+    }
+
+    /** Текущие версии по таблицам. */
+    private final Map<DataTable, Version> versions = new EnumMap<>(DataTable.class);
+
+    /**
+     * Конструктор задает начальные версии всех таблиц.
+     */
+    public DataVersions() {
+        long now = System.nanoTime();
+        for (DataTable table : DataTable.values()) {
+            versions.put(table, new Version(0, now));
+        }
+    }
+
+    /**
+     * Эта функция возвращает текущую версию таблицы.
+     * 
+     * @param table Таблица.
+     * 
+     * @return Версия данных таблицы.
+     */
+    public synchronized Version get(DataTable table) {
+        return versions.get(table);
+    }
+
+    /**
+     * Эта функция возвращает номера текущих версий всех таблиц в порядке `DataTable`.
+     * 
+     * @return Номера версий таблиц.
+     */
+    public synchronized List<Long> numbers() {
+        return versions.values().stream().map(Version::number).toList();
+    }
+
+    /**
+     * Эта функция увеличивает версию таблицы.
+     * 
+     * @param table Таблица, данные которой изменились.
+     */
+    public synchronized void bump(DataTable table) {
+        versions.put(table, new Version(versions.get(table).number() + 1, System.nanoTime()));
+    }
+
+    /**
+     * Эта функция увеличивает версии всех таблиц, например после загрузки данных в обход сервиса.
+     */
+    public synchronized void bumpAll() {
+        for (DataTable table : DataTable.values()) {
+            bump(table);
+        }
+    }
+
+    /**
+     * Эта функция увеличивает версию таблицы ресурсов после фиксации изменения ресурса.
+     * 
+     * @param event Событие изменения ресурса.
+     */
+    @TransactionalEventListener
+    public void onResourceChanged(ResourceChangedEvent event) {
+        bump(DataTable.RESOURCES);
+    }
+
+    /**
+     * Эта функция увеличивает версию таблицы поставщиков, а при каскадном удалении ресурсов — и версию
+     * таблицы ресурсов после фиксации изменения поставщика.
+     * 
+     * @param event Событие изменения поставщика.
+     */
+    @TransactionalEventListener
+    public void onSupplierChanged(SupplierChangedEvent event) {
+        bump(DataTable.SUPPLIERS);
+        if (!event.removedResources().isEmpty()) {
+            bump(DataTable.RESOURCES);
+        }
+    }
+}
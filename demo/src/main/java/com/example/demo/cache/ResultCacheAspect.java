@@ -0,0 +1,167 @@
+package com.example.demo.cache;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import com.example.demo.Resource;
+import com.example.demo.Supplier;
+import com.example.demo.routing.ReplicaStickiness;
+import com.example.demo.support.CallArguments;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Это аспект, который сохраняет результаты методов, помеченных `@CachedResult`, в кэше Caffeine.
+ * Ключ результата — метод, нормализованные аргументы и версии данных таблиц, от которых зависит метод
+ * (`DataVersions`). Запись через `ResourcesService` увеличивает версию таблицы после фиксации, поэтому
+ * устаревшие результаты не выдаются, а вытесняются из кэша со временем.
+ * 
+ * Размер кэша ограничен приблизительным объемом памяти результатов (`app.result-cache.max-bytes`, по
+ * умолчанию 32 МБ). Caffeine принимает новые записи по политике W-TinyLFU: результат разового поиска не
+ * вытесняет часто запрашиваемые результаты.
+ * 
+ * Аспект выполняется раньше объединения одинаковых вызовов (`@Order(10)`), так что в базу данных
+ * уходят только промахи кэша. При настроенной реплике результат не сохраняется, если он вычислен в
+ * пределах окна закрепления после увеличения версии: реплика могла еще не получить изменения.
+ * 
+ * Метрики кэша публикуются под именем `cache.*` с тегом `cache=search.results`.
+ */
+@Aspect
+@Component
+@Order(10)
+public class ResultCacheAspect {
+
+    /**
+     * Это ключ результата.
+     * 
+     * @param method Сигнатура метода.
+     * @param args Нормализованные аргументы.
+     * @param versions Номера версий таблиц, от которых зависит метод.
+     */
+    record ResultKey(String method, List<Object> args, List<Long> versions) {
+    }
+
+    /** Версии данных таблиц. */
+    @Autowired
+    private DataVersions dataVersions;
+
+    /** Закрепление пользователей за основной базой; существует только при настроенной реплике. */
+    @Autowired(required = false)
+    private ReplicaStickiness stickiness;
+
+    /** Кэш результатов. */
+    private final Cache<ResultKey, Object> cache;
+
+    /**
+     * Конструктор создает кэш и регистрирует его метрики.
+     * 
+     * @param maxBytes Приблизительный наибольший объем результатов в кэше.
+     * @param registry Реестр метрик Micrometer.
+     */
+    public ResultCacheAspect(@Value("${app.result-cache.max-bytes:33554432}") long maxBytes,
+                             MeterRegistry registry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((ResultKey key, Object value) -> (int) Math.min(Integer.MAX_VALUE, estimateBytes(value)))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, cache, "search.results");
+    }
+
+    /**
+     * Эта функция возвращает результат из кэша или вызывает метод и сохраняет его результат.
+     * 
+     * @param joinPoint Перехваченный вызов.
+     * @param cachedResult Аннотация метода.
+     * 
+     * @return Результат вызова.
+     */
+    @Around("@annotation(cachedResult)")
+    public Object cached(ProceedingJoinPoint joinPoint, CachedResult cachedResult) throws Throwable {
+        DataTable[] tables = cachedResult.tables();
+        Long[] numbers = new Long[tables.length];
+        long latestChange = Long.MIN_VALUE;
+        for (int i = 0; i < tables.length; i++) {
+            DataVersions.Version version = dataVersions.get(tables[i]);
+            numbers[i] = version.number();
+            latestChange = Math.max(latestChange, version.changedAtNanos());
+        }
+        ResultKey key = new ResultKey(joinPoint.getSignature().toLongString(),
+                CallArguments.normalize(joinPoint.getArgs(), cachedResult.firstNonEmpty()), List.of(numbers));
+        Object cachedValue = cache.getIfPresent(key);
+        if (cachedValue != null) {
+            return cachedValue;
+        }
+        Object result = joinPoint.proceed();
+        boolean replicaMayLag = stickiness != null
+                && System.nanoTime() - latestChange < stickiness.getWindowNanos();
+        if (result != null && !replicaMayLag) {
+            cache.put(key, result);
+        }
+        return result;
+    }
+
+    /**
+     * Эта функция очищает кэш.
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * Эта функция приблизительно оценивает объем памяти результата: заголовки объектов, поля и строки.
+     * Название типа ресурса не учитывается: оно принадлежит записи словаря типов, общей для всех ресурсов
+     * этого типа.
+     * 
+     * @param value Результат метода.
+     * 
+     * @return Оценка объема в байтах.
+     */
+    public static long estimateBytes(Object value) {
+        if (value instanceof Collection<?> collection) {
+            long bytes = 64 + 8L * collection.size();
+            for (Object element : collection) {
+                bytes += estimateBytes(element);
+            }
+            return bytes;
+        }
+        if (value instanceof Resource resource) {
+            return 64 + 16 + strings(resource.getName(), resource.getAcdate());
+        }
+        if (value instanceof Supplier supplier) {
+            return 48 + 16 + strings(supplier.getName(), supplier.getPhone(), supplier.getEmail());
+        }
+        if (value instanceof String string) {
+            return strings(string);
+        }
+        return 64;
+    }
+
+    /**
+     * Эта функция оценивает объем памяти строк.
+     * 
+     * @param values Строки; null не учитываются.
+     * 
+     * @return Оценка объема в байтах.
+     */
+    private static long strings(String... values) {
+        long bytes = 0;
+        for (String value : values) {
+            if (value != null) {
+                bytes += 40 + 2L * value.length();
+            }
+        }
+        return bytes;
+    }
+}
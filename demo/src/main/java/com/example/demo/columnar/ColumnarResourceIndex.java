@@ -0,0 +1,143 @@
+package com.example.demo.columnar;
+
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.demo.ResourceChangedEvent;
+import com.example.demo.ResourceRepository;
+import com.example.demo.ResourceSnapshot;
+import com.example.demo.SupplierChangedEvent;
+import com.example.demo.support.CommitGate;
+
+/**
+ * Это класс, который держит колоночный снимок таблицы ресурсов в памяти и отвечает по нему на поиск
+ * по количеству и стоимости. Снимок загружается при запуске приложения и поддерживается событиями
+ * изменения ресурсов и поставщиков после фиксации транзакций, поэтому поиск не обращается к базе
+ * данных. Перезагрузка читает таблицу и заменяет снимок под защелкой фиксаций (`CommitGate`), поэтому
+ * изменение, зафиксированное во время чтения, не затирается старыми данными: его фиксация ждет
+ * окончания перезагрузки. Перезагрузка выполняется и при каждом запуске, когда приложение уже принимает
+ * запросы.
+ *
+ * Компонент создается только при `app.columnar.enabled=true`. Пока снимок не загружен, `isReady()`
+ * возвращает false и `ResourcesService` выполняет поиск запросом к базе данных.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.columnar", name = "enabled", havingValue = "true")
+public class ColumnarResourceIndex {
+
+    /** Логгер для сообщений о загрузке снимка. */
+    private static final Logger log = LoggerFactory.getLogger(ColumnarResourceIndex.class);
+
+    /** Репозиторий ресурсов, из которого загружается снимок. */
+    @Autowired
+    private ResourceRepository repoRes;
+
+    /** Колоночное хранилище ресурсов. */
+    private final ResourceColumns columns;
+
+    /** Защелка, которая не дает фиксировать изменения ресурсов, пока снимок перезагружается. */
+    private final CommitGate gate = new CommitGate();
+
+    /** Признак того, что снимок загружен. */
+    private volatile boolean ready;
+
+    /**
+     * Конструктор создает пустой снимок.
+     *
+     * @param parallelThreshold Число строк, начиная с которого сканирование выполняется параллельно
+     * (`app.columnar.parallel-threshold`).
+     */
+    public ColumnarResourceIndex(@Value("${app.columnar.parallel-threshold:65536}") int parallelThreshold) {
+        this.columns = new ResourceColumns(parallelThreshold);
+    }
+
+    /**
+     * Эта функция загружает снимок при запуске приложения.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void initialize() {
+        reload();
+    }
+
+    /**
+     * Эта функция заново загружает снимок из таблицы ресурсов.
+     * Чтение выполняется на основной базе данных (см. `ReadWriteRoutingDataSource`).
+     */
+    @Transactional
+    public void reload() {
+        int rows = gate.exclusive(() -> {
+            List<ResourceSnapshot> resources = repoRes.findAll().stream().map(ResourceSnapshot::of).toList();
+            columns.load(resources);
+            return resources.size();
+        });
+        ready = true;
+        log.info("Columnar resource snapshot loaded, {} row(s)", rows);
+    }
+
+    /**
+     * Эта функция применяет изменение ресурса к снимку после фиксации транзакции.
+     *
+     * @param event Событие с состоянием ресурса до и после изменения.
+     */
+    @EventListener
+    public void onResourceChanged(ResourceChangedEvent event) {
+        gate.afterCommit(() -> {
+            if (event.after() != null) {
+                columns.upsert(event.after());
+            } else if (event.before() != null) {
+                columns.remove(event.before().resid());
+            }
+        });
+    }
+
+    /**
+     * Эта функция убирает из снимка ресурсы, каскадно удаленные вместе с поставщиком.
+     *
+     * @param event Событие изменения поставщика.
+     */
+    @EventListener
+    public void onSupplierChanged(SupplierChangedEvent event) {
+        gate.afterCommit(() -> event.removedResources().forEach(resource -> columns.remove(resource.resid())));
+    }
+
+    /**
+     * Эта функция сообщает, загружен ли снимок.
+     *
+     * @return true, если по снимку можно выполнять поиск.
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Эта функция находит ресурсы, количество которых попадает в диапазон.
+     *
+     * @param range Диапазон количества.
+     *
+     * @return Снимки найденных ресурсов.
+     */
+    public List<ResourceSnapshot> findByQuantity(IntRange range) {
+        return columns.filter(ResourceColumns.Column.QUANTITY, range);
+    }
+
+    /**
+     * Эта функция находит ресурсы, стоимость которых попадает в диапазон.
+     *
+     * @param range Диапазон стоимости.
+     *
+     * @return Снимки найденных ресурсов.
+     */
+    public List<ResourceSnapshot> findByCost(IntRange range) {
+        return columns.filter(ResourceColumns.Column.COST, range);
+    }
+}
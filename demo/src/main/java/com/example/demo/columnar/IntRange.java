@@ -0,0 +1,49 @@
+package com.example.demo.columnar;
+
+/**
+ * Это неизменяемый замкнутый диапазон целых чисел [min, max], по которому фильтруются числовые
+ * столбцы ресурсов (количество, стоимость).
+ * 
+ * @param min Нижняя граница диапазона включительно.
+ * @param max Верхняя граница диапазона включительно.
+ */
+public record IntRange(int min, int max) {
+
+    /**
+     * Эта функция разбирает строку поиска как число («10») или диапазон («10..20»).
+     * 
+     * @param keyword Строка, введенная пользователем в поле поиска.
+     * 
+     * @return Диапазон или null, если строка не является числом или диапазоном чисел, например содержит
+     * подстановочные знаки LIKE.
+     */
+    public static IntRange parse(String keyword) {
+        if (keyword == null) {
+            return null;
+        }
+        String value = keyword.trim();
+        int separator = value.indexOf("..");
+        try {
+            if (separator < 0) {
+                int exact = Integer.parseInt(value);
+                return new IntRange(exact, exact);
+            }
+            int min = Integer.parseInt(value.substring(0, separator).trim());
+            int max = Integer.parseInt(value.substring(separator + 2).trim());
+            return min <= max ? new IntRange(min, max) : new IntRange(max, min);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Эта функция проверяет, попадает ли значение в диапазон.
+     * 
+     * @param value Проверяемое значение.
+     * 
+     * @return true, если min <= value <= max.
+     */
+    public boolean contains(int value) {
+        return value >= min && value <= max;
+    }
+}
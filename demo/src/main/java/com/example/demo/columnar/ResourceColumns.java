@@ -0,0 +1,407 @@
+package com.example.demo.columnar;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.example.demo.ResourceSnapshot;
+
+/**
+ * Это колоночное хранилище ресурсов в памяти. Каждый атрибут ресурса хранится в отдельном массиве
+ * примитивов (`long[]` для идентификаторов, `int[]` для количества, стоимости и даты покупки в днях от
+ * эпохи), а название и тип — в виде кодов словаря. Строка таблицы — это индекс во всех массивах.
+ *
+ * Фильтрация по диапазону проходит по одному массиву простым циклом без ветвлений, который JIT
+ * векторизует; большие таблицы делятся на части и сканируются параллельно в `ForkJoinPool`.
+ * Удаленные строки помечаются и пропускаются при сканировании, а при накоплении пропусков таблица
+ * уплотняется.
+ */
+public class ResourceColumns {
+
+    /** Значение столбца даты для пустой или нераспознанной даты покупки. */
+    static final int NO_DATE = Integer.MIN_VALUE;
+
+    /** Столбец, по которому выполняется фильтрация. */
+    public enum Column { QUANTITY, COST, ACDATE }
+
+    /** Блокировка: сканирование идет под блокировкой чтения, изменения — под блокировкой записи. */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /** Число строк, начиная с которого сканирование выполняется параллельно. */
+    private final int parallelThreshold;
+
+    /** Столбец идентификаторов ресурсов. */
+    private long[] resid = new long[0];
+
+    /** Столбец количества. */
+    private int[] quantity = new int[0];
+
+    /** Столбец стоимости. */
+    private int[] cost = new int[0];
+
+    /** Столбец идентификаторов поставщиков; 0 означает отсутствие поставщика. */
+    private long[] supplier = new long[0];
+
+    /** Столбец даты покупки в днях от эпохи; `NO_DATE` для пустой даты. */
+    private int[] acdate = new int[0];
+
+    /** Столбец кодов названий в словаре `names`. */
+    private int[] name = new int[0];
+
+    /** Столбец кодов типов в словаре `types`. */
+    private int[] type = new int[0];
+
+    /** Признак живой строки: 1 — строка действительна, 0 — строка удалена. */
+    private byte[] live = new byte[0];
+
+    /** Словарь названий ресурсов. */
+    private StringDictionary names = new StringDictionary();
+
+    /** Словарь типов ресурсов. */
+    private StringDictionary types = new StringDictionary();
+
+    /** Даты покупки, которые не удалось представить днем от эпохи, по номеру строки. */
+    private Map<Integer, String> rawDates = new HashMap<>();
+
+    /** Номер строки по идентификатору ресурса. */
+    private Map<Long, Integer> rowByResid = new HashMap<>();
+
+    /** Число занятых строк, включая удаленные. */
+    private int size;
+
+    /** Число удаленных строк. */
+    private int deleted;
+
+    /**
+     * Конструктор создает пустое хранилище.
+     *
+     * @param parallelThreshold Число строк, начиная с которого сканирование выполняется параллельно.
+     */
+    public ResourceColumns(int parallelThreshold) {
+        this.parallelThreshold = Math.max(1024, parallelThreshold);
+    }
+
+    /**
+     * Эта функция заменяет содержимое хранилища указанными ресурсами.
+     *
+     * @param resources Все ресурсы таблицы.
+     */
+    public void load(Collection<ResourceSnapshot> resources) {
+        lock.writeLock().lock();
+        try {
+            int capacity = Math.max(16, resources.size());
+            resid = new long[capacity];
+            quantity = new int[capacity];
+            cost = new int[capacity];
+            supplier = new long[capacity];
+            acdate = new int[capacity];
+            name = new int[capacity];
+            type = new int[capacity];
+            live = new byte[capacity];
+            names = new StringDictionary();
+            types = new StringDictionary();
+            rawDates = new HashMap<>();
+            rowByResid = new HashMap<>(capacity * 2);
+            size = 0;
+            deleted = 0;
+            resources.forEach(this::upsertLocked);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Эта функция добавляет ресурс или заменяет существующую строку с тем же идентификатором.
+     *
+     * @param resource Снимок ресурса после изменения.
+     */
+    public void upsert(ResourceSnapshot resource) {
+        lock.writeLock().lock();
+        try {
+            upsertLocked(resource);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Эта функция удаляет строку ресурса.
+     *
+     * @param id Идентификатор ресурса.
+     */
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+            if (deleted > 1024 && deleted > size / 4) {
+                compact();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Эта функция возвращает число живых строк.
+     *
+     * @return Число ресурсов в хранилище.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size - deleted;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Эта функция находит ресурсы, значение столбца которых попадает в диапазон.
+     *
+     * @param column Столбец фильтрации.
+     * @param range Замкнутый диапазон значений.
+     *
+     * @return Снимки найденных ресурсов в порядке их строк.
+     */
+    public List<ResourceSnapshot> filter(Column column, IntRange range) {
+        lock.readLock().lock();
+        try {
+            int[] values = switch (column) {
+                case QUANTITY -> quantity;
+                case COST -> cost;
+                case ACDATE -> acdate;
+            };
+            int[] rows = size < parallelThreshold
+                    ? scan(values, live, range.min(), range.max(), 0, size)
+                    : ForkJoinPool.commonPool().invoke(new RangeScan(values, live, range, 0, size,
+                            parallelThreshold / 4));
+            List<ResourceSnapshot> result = new ArrayList<>(rows.length);
+            for (int row : rows) {
+                result.add(snapshot(row));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Эта функция сканирует часть столбца и возвращает номера живых строк со значениями в диапазоне.
+     * Первый проход вычисляет маску совпадений без ветвлений, второй собирает номера строк.
+     *
+     * @param values Столбец значений.
+     * @param live Признаки живых строк.
+     * @param min Нижняя граница диапазона.
+     * @param max Верхняя граница диапазона.
+     * @param from Первая строка части включительно.
+     * @param to Последняя строка части исключительно.
+     *
+     * @return Номера найденных строк по возрастанию.
+     */
+    static int[] scan(int[] values, byte[] live, int min, int max, int from, int to) {
+        byte[] mask = new byte[to - from];
+        int count = 0;
+        for (int i = 0; i < mask.length; i++) {
+            int v = values[from + i];
+            int hit = ((v >= min) & (v <= max)) ? live[from + i] : 0;
+            mask[i] = (byte) hit;
+            count += hit;
+        }
+        int[] rows = new int[count];
+        int n = 0;
+        for (int i = 0; i < mask.length && n < count; i++) {
+            rows[n] = from + i;
+            n += mask[i];
+        }
+        return rows;
+    }
+
+    /**
+     * Это задача fork/join, которая делит диапазон строк пополам до порога и сканирует части
+     * параллельно, сохраняя порядок строк при объединении результатов.
+     */
+    private static class RangeScan extends RecursiveTask<int[]> {
+
+        /** Столбец значений. */
+        private final int[] values;
+
+        /** Признаки живых строк. */
+        private final byte[] live;
+
+        /** Диапазон значений. */
+        private final IntRange range;
+
+        /** Первая строка части включительно. */
+        private final int from;
+
+        /** Последняя строка части исключительно. */
+        private final int to;
+
+        /** Размер части, которая сканируется без деления. */
+        private final int chunk;
+
+        RangeScan(int[] values, byte[] live, IntRange range, int from, int to, int chunk) {
+            this.values = values;
+            this.live = live;
+            this.range = range;
+            this.from = from;
+            this.to = to;
+            this.chunk = chunk;
+        }
+
+        @Override
+        protected int[] compute() {
+            if (to - from <= chunk) {
+                return scan(values, live, range.min(), range.max(), from, to);
+            }
+            int middle = (from + to) >>> 1;
+            RangeScan left = new RangeScan(values, live, range, from, middle, chunk);
+            left.fork();
+            int[] right = new RangeScan(values, live, range, middle, to, chunk).compute();
+            int[] head = left.join();
+            int[] rows = Arrays.copyOf(head, head.length + right.length);
+            System.arraycopy(right, 0, rows, head.length, right.length);
+            return rows;
+        }
+    }
+
+    /**
+     * Эта функция собирает снимок ресурса из столбцов строки.
+     *
+     * @param row Номер строки.
+     *
+     * @return Снимок ресурса.
+     */
+    private ResourceSnapshot snapshot(int row) {
+        String date = acdate[row] == NO_DATE
+                ? rawDates.get(row)
+                : LocalDate.ofEpochDay(acdate[row]).toString();
+        return new ResourceSnapshot(resid[row], names.decode(name[row]), types.decode(type[row]),
+                quantity[row], cost[row], date, supplier[row] == 0 ? null : supplier[row]);
+    }
+
+    /**
+     * Эта функция добавляет или заменяет строку ресурса; вызывается под блокировкой записи.
+     *
+     * @param resource Снимок ресурса.
+     */
+    private void upsertLocked(ResourceSnapshot resource) {
+        if (resource == null || resource.resid() == null) {
+            return;
+        }
+        Integer existing = rowByResid.get(resource.resid());
+        int row;
+        if (existing != null) {
+            row = existing;
+            rawDates.remove(row);
+        } else {
+            ensureCapacity(size + 1);
+            row = size++;
+            rowByResid.put(resource.resid(), row);
+        }
+        resid[row] = resource.resid();
+        quantity[row] = resource.quantity();
+        cost[row] = resource.cost();
+        supplier[row] = resource.supplier() == null ? 0 : resource.supplier();
+        name[row] = names.encode(resource.name());
+        type[row] = types.encode(resource.type());
+        acdate[row] = epochDay(resource.acdate());
+        if (acdate[row] == NO_DATE && resource.acdate() != null) {
+            rawDates.put(row, resource.acdate());
+        }
+        live[row] = 1;
+    }
+
+    /**
+     * Эта функция помечает строку ресурса удаленной; вызывается под блокировкой записи.
+     *
+     * @param id Идентификатор ресурса.
+     */
+    private void removeLocked(Long id) {
+        Integer row = id == null ? null : rowByResid.remove(id);
+        if (row != null) {
+            live[row] = 0;
+            rawDates.remove(row);
+            deleted++;
+        }
+    }
+
+    /**
+     * Эта функция переносит живые строки в начало массивов и освобождает место удаленных строк;
+     * вызывается под блокировкой записи.
+     */
+    private void compact() {
+        Map<Integer, String> movedDates = new HashMap<>();
+        int target = 0;
+        for (int row = 0; row < size; row++) {
+            if (live[row] == 0) {
+                continue;
+            }
+            resid[target] = resid[row];
+            quantity[target] = quantity[row];
+            cost[target] = cost[row];
+            supplier[target] = supplier[row];
+            acdate[target] = acdate[row];
+            name[target] = name[row];
+            type[target] = type[row];
+            live[target] = 1;
+            String raw = rawDates.get(row);
+            if (raw != null) {
+                movedDates.put(target, raw);
+            }
+            rowByResid.put(resid[target], target);
+            target++;
+        }
+        Arrays.fill(live, target, size, (byte) 0);
+        rawDates = movedDates;
+        size = target;
+        deleted = 0;
+    }
+
+    /**
+     * Эта функция увеличивает массивы столбцов, если в них не хватает места.
+     *
+     * @param required Требуемое число строк.
+     */
+    private void ensureCapacity(int required) {
+        if (required <= resid.length) {
+            return;
+        }
+        int capacity = Math.max(required, Math.max(16, resid.length * 2));
+        resid = Arrays.copyOf(resid, capacity);
+        quantity = Arrays.copyOf(quantity, capacity);
+        cost = Arrays.copyOf(cost, capacity);
+        supplier = Arrays.copyOf(supplier, capacity);
+        acdate = Arrays.copyOf(acdate, capacity);
+        name = Arrays.copyOf(name, capacity);
+        type = Arrays.copyOf(type, capacity);
+        live = Arrays.copyOf(live, capacity);
+    }
+
+    /**
+     * Эта функция переводит дату в формате yyyy-MM-dd в число дней от эпохи.
+     *
+     * @param date Дата покупки ресурса.
+     *
+     * @return Число дней от эпохи или `NO_DATE`, если дата пуста или не распознана.
+     */
+    static int epochDay(String date) {
+        if (date == null || date.isBlank()) {
+            return NO_DATE;
+        }
+        try {
+            return Math.toIntExact(LocalDate.parse(date).toEpochDay());
+        } catch (DateTimeParseException | ArithmeticException e) {
+            return NO_DATE;
+        }
+    }
+}
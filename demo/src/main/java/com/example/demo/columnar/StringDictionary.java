@@ -0,0 +1,66 @@
+package com.example.demo.columnar;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Это словарь строк для словарного кодирования столбцов: каждая различная строка хранится один раз и
+ * получает небольшой целочисленный код. Код 0 зарезервирован за значением null.
+ * 
+ * Класс не потокобезопасен: доступ к нему синхронизирует `ResourceColumns`.
+ */
+class StringDictionary {
+
+    /** Строки по коду; элемент с индексом 0 соответствует null. */
+    private String[] values = new String[16];
+
+    /** Коды по строке. */
+    private final Map<String, Integer> codes = new HashMap<>();
+
+    /** Число выданных кодов, включая код null. */
+    private int size = 1;
+
+    /**
+     * Эта функция возвращает код строки, добавляя строку в словарь при первом появлении.
+     * 
+     * @param value Кодируемая строка.
+     * 
+     * @return Код строки; 0 для null.
+     */
+    int encode(String value) {
+        if (value == null) {
+            return 0;
+        }
+        Integer code = codes.get(value);
+        if (code != null) {
+            return code;
+        }
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size] = value;
+        codes.put(value, size);
+        return size++;
+    }
+
+    /**
+     * Эта функция возвращает строку по коду.
+     * 
+     * @param code Код строки.
+     * 
+     * @return Строка или null для кода 0.
+     */
+    String decode(int code) {
+        return values[code];
+    }
+
+    /**
+     * Эта функция возвращает число различных строк в словаре.
+     * 
+     * @return Число строк без учета null.
+     */
+    int size() {
+        return size - 1;
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.demo.deadline;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Это срок выполнения HTTP-запроса. Срок создается `DeadlineFilter` в начале запроса и хранится в потоке
+ * запроса; вне запроса `current()` возвращает null, и SQL-запросы выполняются без ограничения времени.
+ *
+ * `DeadlineDataSource` передает оставшееся время каждому SQL-запросу как тайм-аут и запоминает
+ * выполняемые запросы в сроке, чтобы `DeadlineFilter` мог отменить их из другого потока, когда срок
+ * истек: тайм-аут JDBC ограничивает только выполнение запроса, а не чтение его результата.
+ */
+public final class Deadline {
+
+    /** Срок текущего запроса. */
+    private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<>();
+
+    /** Момент истечения срока `System.nanoTime()`. */
+    private final long expiresAt;
+
+    /** Открытые SQL-запросы, созданные в пределах срока. */
+    private final Set<Statement> statements = ConcurrentHashMap.newKeySet();
+
+    private Deadline(long expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    /**
+     * Эта функция задает срок текущему потоку.
+     *
+     * @param budget Время, отведенное на выполнение.
+     *
+     * @return Срок.
+     */
+    public static Deadline start(Duration budget) {
+        Deadline deadline = new Deadline(System.nanoTime() + budget.toNanos());
+        CURRENT.set(deadline);
+        return deadline;
+    }
+
+    /**
+     * Эта функция снимает срок с текущего потока.
+     */
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Эта функция возвращает срок текущего потока.
+     *
+     * @return Срок или null, если поток выполняется без срока.
+     */
+    public static Deadline current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Эта функция возвращает оставшееся время.
+     *
+     * @return Время в наносекундах; 0 или меньше, если срок истек.
+     */
+    public long remainingNanos() {
+        return expiresAt - System.nanoTime();
+    }
+
+    /**
+     * Эта функция сообщает, истек ли срок.
+     *
+     * @return true, если срок истек.
+     */
+    public boolean expired() {
+        return remainingNanos() <= 0;
+    }
+
+    /**
+     * Эта функция запоминает открытый SQL-запрос.
+     *
+     * @param statement Запрос.
+     */
+    void register(Statement statement) {
+        statements.add(statement);
+    }
+
+    /**
+     * Эта функция забывает закрытый SQL-запрос.
+     *
+     * @param statement Запрос.
+     */
+    void unregister(Statement statement) {
+        statements.remove(statement);
+    }
+
+    /**
+     * Эта функция отменяет открытые SQL-запросы. Отмененный запрос завершается в своем потоке с
+     * исключением, и транзакция откатывается как при тайм-ауте.
+     *
+     * @return Число отмененных запросов.
+     */
+    int cancelStatements() {
+        int cancelled = 0;
+        for (Statement statement : statements) {
+            try {
+                statement.cancel();
+                cancelled++;
+            } catch (SQLException e) {
+                // the statement has already completed or been closed
+            }
+            statements.remove(statement);
+        }
+        return cancelled;
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.demo.deadline;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * Это источник данных, который ограничивает SQL-запросы сроком текущего HTTP-запроса (`Deadline`). Каждому
+ * запросу, созданному при действующем сроке, задается тайм-аут JDBC, равный оставшемуся времени (не меньше
+ * секунды — это точность `setQueryTimeout`); драйвер MariaDB передает его серверу как max_statement_time.
+ * Если срок уже истек, запрос не отправляется в базу данных, а сразу завершается `SQLTimeoutException`.
+ * Открытые запросы запоминаются в сроке до закрытия, чтобы их можно было отменить.
+ *
+ * Запросы вне HTTP-запроса (задачи по расписанию, загрузка индексов) не оборачиваются и выполняются без
+ * ограничения.
+ */
+public class DeadlineDataSource extends DelegatingDataSource {
+
+    /**
+     * Конструктор создает источник данных поверх исходного.
+     *
+     * @param target Исходный источник данных.
+     */
+    public DeadlineDataSource(DataSource target) {
+        super(target);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(super.getConnection(username, password));
+    }
+
+    /**
+     * Эта функция оборачивает соединение так, чтобы созданные через него запросы получали срок.
+     *
+     * @param connection Исходное соединение.
+     *
+     * @return Соединение-прокси.
+     */
+    private static Connection wrap(Connection connection) {
+        return proxy(Connection.class, connection, (method, args) -> {
+            Object result = invoke(connection, method, args);
+            Deadline deadline = Deadline.current();
+            if (deadline != null && result instanceof Statement statement) {
+                Class<? extends Statement> type = result instanceof CallableStatement ? CallableStatement.class
+                        : result instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+                return limit(type, statement, deadline);
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Эта функция задает запросу тайм-аут по оставшемуся времени и запоминает его в сроке до закрытия.
+     *
+     * @param type Интерфейс запроса.
+     * @param statement Исходный запрос.
+     * @param deadline Срок.
+     *
+     * @return Запрос-прокси.
+     *
+     * @throws SQLTimeoutException Если срок уже истек; запрос закрывается.
+     * @throws SQLException Если тайм-аут не удалось задать.
+     */
+    private static <T extends Statement> T limit(Class<T> type, Statement statement, Deadline deadline)
+            throws SQLException {
+        long remaining = deadline.remainingNanos();
+        if (remaining <= 0) {
+            statement.close();
+            throw new SQLTimeoutException("Request deadline exceeded before the statement was executed");
+        }
+        statement.setQueryTimeout((int) Math.max(TimeUnit.NANOSECONDS.toSeconds(remaining), 1));
+        deadline.register(statement);
+        return proxy(type, statement, (method, args) -> {
+            if (method.getName().equals("close")) {
+                deadline.unregister(statement);
+            }
+            return invoke(statement, method, args);
+        });
+    }
+
+    /**
+     * Это обработчик вызовов прокси без ссылки на сам прокси.
+     */
+    @FunctionalInterface
+    private interface Handler {
+
+        Object invoke(Method method, Object[] args) throws Throwable;
+    }
+
+    /**
+     * Эта функция создает динамический прокси интерфейса. Методы `equals` и `hashCode` сравнивают сами
+     * прокси, а `unwrap` и `isWrapperFor` передаются исходному объекту.
+     *
+     * @param type Интерфейс.
+     * @param target Исходный объект.
+     * @param handler Обработчик остальных вызовов.
+     *
+     * @return Прокси.
+     */
+    private static <T> T proxy(Class<T> type, Object target, Handler handler) {
+        Object proxy = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, (self, method, args) ->
+                switch (method.getName()) {
+                    case "equals" -> self == args[0];
+                    case "hashCode" -> System.identityHashCode(self);
+                    case "toString" -> "Deadline" + target;
+                    default -> handler.invoke(method, args);
+                });
+        return type.cast(proxy);
+    }
+
+    /**
+     * Эта функция вызывает метод исходного объекта и передает дальше исключение, брошенное самим методом.
+     *
+     * @param target Исходный объект.
+     * @param method Метод.
+     * @param args Аргументы.
+     *
+     * @return Результат метода.
+     *
+     * @throws Throwable Исключение метода.
+     */
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.demo.deadline;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.servlet.ModelAndView;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Это обработчик исключений контроллеров, который показывает страницу error/504.html, когда SQL-запрос
+ * прерван по сроку HTTP-запроса или по тайм-ауту, вместо общей страницы ошибки 500. Транзакция к этому
+ * моменту уже откатилась, и соединение вернулось в пул.
+ */
+@ControllerAdvice
+public class DeadlineExceededHandler {
+
+    /** Журнал сообщений о прерванных запросах. */
+    private static final Logger log = LoggerFactory.getLogger(DeadlineExceededHandler.class);
+
+    /**
+     * Эта функция показывает страницу превышения срока.
+     *
+     * @param request HTTP-запрос.
+     * @param exception Исключение тайм-аута.
+     *
+     * @return Представление error/504 с кодом 504.
+     */
+    @ExceptionHandler({QueryTimeoutException.class, jakarta.persistence.QueryTimeoutException.class})
+    public ModelAndView deadlineExceeded(HttpServletRequest request, RuntimeException exception) {
+        log.warn("Request {} {} stopped by its deadline: {}", request.getMethod(), request.getRequestURI(),
+                exception.getMessage());
+        ModelAndView view = new ModelAndView("error/504");
+        view.setStatus(HttpStatus.GATEWAY_TIMEOUT);
+        return view;
+    }
+}
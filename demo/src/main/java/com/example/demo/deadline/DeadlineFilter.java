@@ -0,0 +1,113 @@
+package com.example.demo.deadline;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Это фильтр, который задает каждому HTTP-запросу срок выполнения `app.deadline.request-timeout`.
+ * Срок отсчитывается от прихода запроса и действует на все SQL-запросы, сделанные при его обработке
+ * (`DeadlineDataSource`). Пути из `app.deadline.exclude` — поток событий и снимки базы данных —
+ * выполняются без срока.
+ *
+ * Раз в `app.deadline.check-interval` фильтр отменяет SQL-запросы, срок которых истек, но которые еще
+ * открыты, например потому, что медленно читается их результат. Так поиск, который пользователь уже не ждет,
+ * не держит соединение дольше своего срока. Отмена по разрыву соединения клиентом не делается: блокирующий
+ * API сервлетов узнает о разрыве только при записи ответа, то есть уже после запросов к базе данных.
+ *
+ * Метрика `deadline.cancelled` — число отмененных SQL-запросов.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 2)
+@ConditionalOnProperty(prefix = "app.deadline", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class DeadlineFilter extends OncePerRequestFilter {
+
+    /** Журнал сообщений об отмене запросов. */
+    private static final Logger log = LoggerFactory.getLogger(DeadlineFilter.class);
+
+    /** Время, отведенное на запрос. */
+    private final Duration timeout;
+
+    /** Пути, которые выполняются без срока. */
+    private final Set<String> excluded;
+
+    /** Сроки выполняемых запросов. */
+    private final Set<Deadline> active = ConcurrentHashMap.newKeySet();
+
+    /** Счетчик отмененных SQL-запросов. */
+    private final Counter cancelled;
+
+    /**
+     * Конструктор создает фильтр.
+     *
+     * @param timeout Время, отведенное на запрос.
+     * @param excluded Пути, которые выполняются без срока.
+     * @param registry Реестр метрик Micrometer.
+     */
+    public DeadlineFilter(@Value("${app.deadline.request-timeout:PT10S}") Duration timeout,
+                          @Value("${app.deadline.exclude:/events,/admin/snapshot,/admin/restore}") String[] excluded,
+                          MeterRegistry registry) {
+        this.timeout = timeout;
+        this.excluded = Set.of(excluded);
+        this.cancelled = Counter.builder("deadline.cancelled")
+                .description("SQL statements cancelled after their request deadline").register(registry);
+    }
+
+    /**
+     * Эта функция задает срок запросу на время его обработки.
+     *
+     * @param request HTTP-запрос.
+     * @param response HTTP-ответ.
+     * @param chain Цепочка фильтров.
+     */
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (excluded.contains(request.getRequestURI().substring(request.getContextPath().length()))) {
+            chain.doFilter(request, response);
+            return;
+        }
+        Deadline deadline = Deadline.start(timeout);
+        active.add(deadline);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            active.remove(deadline);
+            Deadline.clear();
+        }
+    }
+
+    /**
+     * Эта функция отменяет SQL-запросы с истекшим сроком.
+     */
+    @Scheduled(fixedDelayString = "${app.deadline.check-interval:PT1S}")
+    public void cancelExpired() {
+        for (Deadline deadline : active) {
+            if (deadline.expired()) {
+                int count = deadline.cancelStatements();
+                if (count > 0) {
+                    cancelled.increment(count);
+                    log.warn("Cancelled {} SQL statement(s) past their request deadline", count);
+                }
+            }
+        }
+    }
+}
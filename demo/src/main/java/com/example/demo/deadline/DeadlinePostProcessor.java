@@ -0,0 +1,34 @@
+package com.example.demo.deadline;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Это постпроцессор, который оборачивает источники данных приложения в `DeadlineDataSource`, чтобы срок
+ * HTTP-запроса ограничивал все его SQL-запросы — и запросы репозиториев через Hibernate, и запросы через
+ * JDBC. Обертка ставится поверх маршрутизации на реплику, поэтому срок действует на обе базы данных.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.deadline", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class DeadlinePostProcessor implements BeanPostProcessor {
+
+    /**
+     * Эта функция оборачивает источник данных после его инициализации; остальные компоненты
+     * возвращаются без изменений.
+     *
+     * @param bean Компонент.
+     * @param beanName Имя компонента.
+     *
+     * @return Обернутый источник данных или исходный компонент.
+     */
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource && !(bean instanceof DeadlineDataSource)) {
+            return new DeadlineDataSource(dataSource);
+        }
+        return bean;
+    }
+}
@@ -0,0 +1,230 @@
+package com.example.demo.diagnostics;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Это класс, который записывает в журнал SQL-запросы и HTTP-запросы в отдельном потоке. Поток запроса
+ * только решает, нужна ли запись, и кладет ее в ограниченный кольцевой буфер; форматирование и вывод
+ * выполняет поток «diagnostic-log». Если буфер заполнен, запись отбрасывается и учитывается в счетчике
+ * `diagnostics.log.dropped`: журнал никогда не задерживает обработку запроса.
+ *
+ * В журнал попадают медленные операции (дольше `app.diagnostics.sql.slow-threshold` для SQL и
+ * `app.diagnostics.request.slow-threshold` для HTTP) и каждая N-я операция при
+ * `app.diagnostics.sample-every=N` (0 отключает выборку). SQL пишется в журнал «diagnostics.sql» без
+ * значений параметров, HTTP-запросы — в журнал «diagnostics.request».
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.diagnostics", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class DiagnosticLog {
+
+    /** Журнал SQL-запросов. */
+    private static final Logger sqlLog = LoggerFactory.getLogger("diagnostics.sql");
+
+    /** Журнал HTTP-запросов. */
+    private static final Logger requestLog = LoggerFactory.getLogger("diagnostics.request");
+
+    /** Журнал сообщений о работе самого класса. */
+    private static final Logger log = LoggerFactory.getLogger(DiagnosticLog.class);
+
+    /**
+     * Запись журнала.
+     *
+     * @param request true для HTTP-запроса, false для SQL-запроса.
+     * @param text Текст SQL-запроса или метод и адрес HTTP-запроса.
+     * @param nanos Длительность в наносекундах.
+     * @param count Число строк SQL-запроса или число SQL-запросов HTTP-запроса; -1, если неизвестно.
+     * @param status Код ответа HTTP-запроса; 0 для SQL-запроса.
+     * @param slow true, если запись сделана из-за длительности, false — по выборке.
+     * @param thread Имя потока, выполнившего операцию.
+     */
+    private record Entry(boolean request, String text, long nanos, long count, int status, boolean slow,
+                         String thread) {
+    }
+
+    /** Кольцевой буфер записей между потоками запросов и потоком журнала. */
+    private final BlockingQueue<Entry> buffer;
+
+    /** Порог медленного SQL-запроса в наносекундах. */
+    private final long slowStatementNanos;
+
+    /** Порог медленного HTTP-запроса в наносекундах. */
+    private final long slowRequestNanos;
+
+    /** Каждая какая операция записывается по выборке; 0 отключает выборку. */
+    private final int sampleEvery;
+
+    /** Номер операции для выборки. */
+    private final AtomicLong sequence = new AtomicLong();
+
+    /** Число SQL-запросов, выполненных текущим потоком с начала HTTP-запроса. */
+    private final ThreadLocal<long[]> statementsOnThread = ThreadLocal.withInitial(() -> new long[1]);
+
+    /** Счетчик записей, отброшенных из-за заполненного буфера. */
+    private final Counter dropped;
+
+    /** Поток, который выводит записи из буфера в журнал. */
+    private final Thread writer;
+
+    /**
+     * Конструктор создает буфер и запускает поток журнала.
+     *
+     * @param bufferSize Емкость буфера в записях.
+     * @param slowStatement Порог медленного SQL-запроса.
+     * @param slowRequest Порог медленного HTTP-запроса.
+     * @param sampleEvery Каждая какая операция записывается по выборке; 0 отключает выборку.
+     * @param registry Реестр метрик Micrometer.
+     */
+    public DiagnosticLog(@Value("${app.diagnostics.buffer-size:8192}") int bufferSize,
+                         @Value("${app.diagnostics.sql.slow-threshold:PT0.2S}") Duration slowStatement,
+                         @Value("${app.diagnostics.request.slow-threshold:PT1S}") Duration slowRequest,
+                         @Value("${app.diagnostics.sample-every:0}") int sampleEvery,
+                         MeterRegistry registry) {
+        this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        this.slowStatementNanos = slowStatement.toNanos();
+        this.slowRequestNanos = slowRequest.toNanos();
+        this.sampleEvery = sampleEvery;
+        this.dropped = Counter.builder("diagnostics.log.dropped")
+                .description("Diagnostic log entries dropped because the buffer was full").register(registry);
+        this.writer = new Thread(this::drain, "diagnostic-log");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Эта функция учитывает выполненный SQL-запрос и, если он медленный или попал в выборку, передает его
+     * в журнал.
+     *
+     * @param sql Текст запроса.
+     * @param nanos Время выполнения в наносекундах.
+     * @param rows Число прочитанных или измененных строк; -1, если неизвестно.
+     */
+    public void statementExecuted(String sql, long nanos, long rows) {
+        statementsOnThread.get()[0]++;
+        boolean slow = nanos >= slowStatementNanos;
+        if (slow || sampled()) {
+            submit(new Entry(false, sql, nanos, rows, 0, slow, Thread.currentThread().getName()));
+        }
+    }
+
+    /**
+     * Эта функция отмечает начало HTTP-запроса в текущем потоке: с этого момента считаются его
+     * SQL-запросы.
+     */
+    public void requestStarted() {
+        statementsOnThread.get()[0] = 0;
+    }
+
+    /**
+     * Эта функция учитывает завершенный HTTP-запрос и, если он медленный или попал в выборку, передает
+     * его в журнал вместе с числом выполненных SQL-запросов.
+     *
+     * @param method Метод HTTP.
+     * @param uri Адрес запроса без параметров.
+     * @param status Код ответа.
+     * @param nanos Время обработки в наносекундах.
+     */
+    public void requestCompleted(String method, String uri, int status, long nanos) {
+        long statements = statementsOnThread.get()[0];
+        boolean slow = nanos >= slowRequestNanos;
+        if (slow || sampled()) {
+            submit(new Entry(true, method + " " + uri, nanos, statements, status, slow,
+                    Thread.currentThread().getName()));
+        }
+    }
+
+    /**
+     * Эта функция решает, попадает ли очередная операция в выборку.
+     *
+     * @return true для каждой N-й операции.
+     */
+    private boolean sampled() {
+        return sampleEvery > 0 && sequence.incrementAndGet() % sampleEvery == 0;
+    }
+
+    /**
+     * Эта функция кладет запись в буфер без ожидания; при заполненном буфере запись отбрасывается.
+     *
+     * @param entry Запись журнала.
+     */
+    private void submit(Entry entry) {
+        if (!buffer.offer(entry)) {
+            dropped.increment();
+        }
+    }
+
+    /**
+     * Эта функция выполняется в потоке журнала: забирает записи из буфера пачками и выводит их. После
+     * прерывания потока выводятся оставшиеся записи.
+     */
+    private void drain() {
+        List<Entry> batch = new ArrayList<>();
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                Entry first = buffer.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                buffer.drainTo(batch);
+                batch.forEach(this::write);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        buffer.drainTo(batch);
+        batch.forEach(this::write);
+    }
+
+    /**
+     * Эта функция форматирует и выводит одну запись.
+     *
+     * @param entry Запись журнала.
+     */
+    private void write(Entry entry) {
+        try {
+            String reason = entry.slow() ? "slow" : "sampled";
+            double millis = entry.nanos() / 1_000_000.0;
+            if (entry.request()) {
+                requestLog.info("{} {} -> {} in {} ms, {} statements [{}]", reason, entry.text(), entry.status(),
+                        String.format("%.1f", millis), entry.count(), entry.thread());
+            } else {
+                sqlLog.info("{} {} ms, {} rows [{}]: {}", reason, String.format("%.1f", millis),
+                        entry.count() < 0 ? "?" : entry.count(), entry.thread(),
+                        entry.text().replaceAll("\\s+", " ").trim());
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to write diagnostic log entry", e);
+        }
+    }
+
+    /**
+     * Эта функция останавливает поток журнала при остановке приложения, дав ему вывести оставшиеся
+     * записи.
+     */
+    @PreDestroy
+    public void shutdown() {
+        writer.interrupt();
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(2));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.demo.diagnostics;
+
+import java.io.IOException;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Это фильтр, который измеряет время обработки HTTP-запросов и передает его в `DiagnosticLog` вместе с
+ * кодом ответа и числом выполненных SQL-запросов. Подписка на ленту изменений (`/events`) не измеряется:
+ * соединение держится открытым долго и всегда выглядело бы медленным запросом. Фильтр стоит первым в
+ * цепочке, чтобы в измерение вошли и фильтры безопасности.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnProperty(prefix = "app.diagnostics", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class RequestTimingFilter extends OncePerRequestFilter {
+
+    /** Журнал, в который передаются измерения. */
+    @Autowired
+    private DiagnosticLog diagnostics;
+
+    /**
+     * Эта функция пропускает подписку на ленту изменений.
+     *
+     * @param request HTTP-запрос.
+     *
+     * @return true для запросов, которые не измеряются.
+     */
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return "/events".equals(request.getRequestURI().substring(request.getContextPath().length()));
+    }
+
+    /**
+     * Эта функция измеряет обработку запроса остальными фильтрами и контроллером.
+     *
+     * @param request HTTP-запрос.
+     * @param response HTTP-ответ.
+     * @param chain Цепочка фильтров.
+     */
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        diagnostics.requestStarted();
+        long started = System.nanoTime();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            diagnostics.requestCompleted(request.getMethod(), request.getRequestURI(), response.getStatus(),
+                    System.nanoTime() - started);
+        }
+    }
+}
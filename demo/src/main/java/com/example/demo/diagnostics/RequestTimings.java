@@ -0,0 +1,198 @@
+package com.example.demo.diagnostics;
+
+import java.util.Locale;
+
+/**
+ * Это класс, который накапливает время обработки одного HTTP-запроса по этапам: фильтры безопасности,
+ * логика сервиса, вызовы репозиториев, выполнение SQL-запросов и отрисовка представления. Объект
+ * создается `ServerTimingFilter` и хранится в потоке запроса, поэтому синхронизация не нужна; вне
+ * запроса `current()` возвращает null, и замеры не делаются.
+ *
+ * Вложенные вызовы сервиса и репозиториев учитываются один раз, по внешнему вызову. Время репозитория
+ * без времени SQL-запросов — это в основном создание сущностей из строк результата и работа Hibernate.
+ */
+public final class RequestTimings {
+
+    /** Замеры текущего запроса. */
+    private static final ThreadLocal<RequestTimings> CURRENT = new ThreadLocal<>();
+
+    /** Начало запроса. */
+    private final long started = System.nanoTime();
+
+    /** Время прохождения фильтров безопасности; -1, пока запрос не дошел до приложения. */
+    private long securityNanos = -1;
+
+    /** Глубина вложенности вызовов сервиса. */
+    private int serviceDepth;
+
+    /** Начало внешнего вызова сервиса. */
+    private long serviceStarted;
+
+    /** Суммарное время вызовов сервиса. */
+    private long serviceNanos;
+
+    /** Глубина вложенности вызовов репозиториев. */
+    private int repositoryDepth;
+
+    /** Начало внешнего вызова репозитория. */
+    private long repositoryStarted;
+
+    /** Суммарное время вызовов репозиториев. */
+    private long repositoryNanos;
+
+    /** Число внешних вызовов репозиториев. */
+    private int repositoryCalls;
+
+    /** Суммарное время выполнения SQL-запросов. */
+    private long statementNanos;
+
+    /** Число SQL-запросов. */
+    private int statements;
+
+    /** Начало отрисовки представления; 0, если отрисовка не идет. */
+    private long renderStarted;
+
+    /** Суммарное время отрисовки представления. */
+    private long renderNanos;
+
+    private RequestTimings() {
+    }
+
+    /**
+     * Эта функция начинает замеры запроса в текущем потоке.
+     *
+     * @return Замеры запроса.
+     */
+    static RequestTimings start() {
+        RequestTimings timings = new RequestTimings();
+        CURRENT.set(timings);
+        return timings;
+    }
+
+    /**
+     * Эта функция завершает замеры запроса в текущем потоке.
+     */
+    static void finish() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Эта функция возвращает замеры текущего запроса.
+     *
+     * @return Замеры или null вне HTTP-запроса.
+     */
+    public static RequestTimings current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Эта функция отмечает, что запрос прошел фильтры безопасности.
+     */
+    void securityPassed() {
+        securityNanos = System.nanoTime() - started;
+    }
+
+    /**
+     * Эта функция отмечает начало вызова сервиса.
+     */
+    void serviceEntered() {
+        if (serviceDepth++ == 0) {
+            serviceStarted = System.nanoTime();
+        }
+    }
+
+    /**
+     * Эта функция отмечает конец вызова сервиса.
+     */
+    void serviceExited() {
+        if (--serviceDepth == 0) {
+            serviceNanos += System.nanoTime() - serviceStarted;
+        }
+    }
+
+    /**
+     * Эта функция отмечает начало вызова репозитория.
+     */
+    void repositoryEntered() {
+        if (repositoryDepth++ == 0) {
+            repositoryStarted = System.nanoTime();
+            repositoryCalls++;
+        }
+    }
+
+    /**
+     * Эта функция отмечает конец вызова репозитория.
+     */
+    void repositoryExited() {
+        if (--repositoryDepth == 0) {
+            repositoryNanos += System.nanoTime() - repositoryStarted;
+        }
+    }
+
+    /**
+     * Эта функция учитывает выполненный SQL-запрос.
+     *
+     * @param nanos Время выполнения.
+     */
+    void statementExecuted(long nanos) {
+        statements++;
+        statementNanos += nanos;
+    }
+
+    /**
+     * Эта функция отмечает начало отрисовки представления.
+     */
+    void renderStarted() {
+        renderStarted = System.nanoTime();
+    }
+
+    /**
+     * Эта функция отмечает конец отрисовки представления.
+     */
+    void renderFinished() {
+        if (renderStarted != 0) {
+            renderNanos += System.nanoTime() - renderStarted;
+            renderStarted = 0;
+        }
+    }
+
+    /**
+     * Эта функция формирует значение заголовка `Server-Timing`. Время сервиса указывается без времени
+     * репозиториев, а время репозиториев делится на выполнение SQL (`db`) и остальную работу (`hydrate`).
+     *
+     * @return Значение заголовка.
+     */
+    String toHeader() {
+        long total = System.nanoTime() - started;
+        StringBuilder header = new StringBuilder();
+        append(header, "security", null, securityNanos < 0 ? total : securityNanos);
+        append(header, "service", null, Math.max(serviceNanos - repositoryNanos, 0));
+        append(header, "repo", repositoryCalls + " calls", repositoryNanos);
+        if (statements > 0) {
+            append(header, "db", statements + " statements", statementNanos);
+            append(header, "hydrate", null, Math.max(repositoryNanos - statementNanos, 0));
+        }
+        append(header, "render", null, renderNanos);
+        append(header, "total", null, total);
+        return header.toString();
+    }
+
+    /**
+     * Эта функция добавляет к заголовку одну метрику.
+     *
+     * @param header Заголовок.
+     * @param name Имя метрики.
+     * @param description Описание или null.
+     * @param nanos Длительность в наносекундах.
+     */
+    private static void append(StringBuilder header, String name, String description, long nanos) {
+        if (header.length() > 0) {
+            header.append(", ");
+        }
+        header.append(name);
+        if (description != null) {
+            header.append(";desc=\"").append(description).append('"');
+        }
+        header.append(";dur=").append(String.format(Locale.ROOT, "%.2f", nanos / 1_000_000.0));
+    }
+}
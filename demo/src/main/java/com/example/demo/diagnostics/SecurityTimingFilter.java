@@ -0,0 +1,43 @@
+package com.example.demo.diagnostics;
+
+import java.io.IOException;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Это фильтр, который стоит сразу после цепочки фильтров Spring Security и отмечает в `RequestTimings`
+ * момент, когда запрос прошел проверки безопасности. Если цепочка безопасности сама ответила на запрос
+ * (например, перенаправила на страницу входа), фильтр не вызывается, и все время запроса считается
+ * временем безопасности.
+ */
+@Component
+@Order(SecurityProperties.DEFAULT_FILTER_ORDER + 1)
+@ConditionalOnProperty(prefix = "app.diagnostics.server-timing", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class SecurityTimingFilter extends OncePerRequestFilter {
+
+    /**
+     * Эта функция отмечает прохождение фильтров безопасности и передает запрос дальше.
+     *
+     * @param request HTTP-запрос.
+     * @param response HTTP-ответ.
+     * @param chain Цепочка фильтров.
+     */
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        RequestTimings timings = RequestTimings.current();
+        if (timings != null) {
+            timings.securityPassed();
+        }
+        chain.doFilter(request, response);
+    }
+}
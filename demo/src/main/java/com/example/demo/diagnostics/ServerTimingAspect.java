@@ -0,0 +1,62 @@
+package com.example.demo.diagnostics;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Это аспект, который измеряет вызовы сервиса `ResourcesService` и репозиториев Spring Data для
+ * `RequestTimings`. Аспект выполняется раньше кэша результатов (`@Order(0)`), так что время сервиса
+ * включает и ответы из кэша. Вне HTTP-запроса вызовы не измеряются.
+ */
+@Aspect
+@Component
+@Order(0)
+@ConditionalOnProperty(prefix = "app.diagnostics.server-timing", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class ServerTimingAspect {
+
+    /**
+     * Эта функция измеряет вызов публичного метода сервиса.
+     *
+     * @param joinPoint Перехваченный вызов.
+     *
+     * @return Результат вызова.
+     */
+    @Around("execution(public * com.example.demo.ResourcesService.*(..))")
+    public Object timeService(ProceedingJoinPoint joinPoint) throws Throwable {
+        RequestTimings timings = RequestTimings.current();
+        if (timings == null) {
+            return joinPoint.proceed();
+        }
+        timings.serviceEntered();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            timings.serviceExited();
+        }
+    }
+
+    /**
+     * Эта функция измеряет вызов метода репозитория.
+     *
+     * @param joinPoint Перехваченный вызов.
+     *
+     * @return Результат вызова.
+     */
+    @Around("this(org.springframework.data.repository.Repository)")
+    public Object timeRepository(ProceedingJoinPoint joinPoint) throws Throwable {
+        RequestTimings timings = RequestTimings.current();
+        if (timings == null) {
+            return joinPoint.proceed();
+        }
+        timings.repositoryEntered();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            timings.repositoryExited();
+        }
+    }
+}
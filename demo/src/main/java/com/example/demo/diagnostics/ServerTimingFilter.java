@@ -0,0 +1,67 @@
+package com.example.demo.diagnostics;
+
+import java.io.IOException;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Это фильтр, который добавляет к ответу заголовок `Server-Timing` с разбивкой времени обработки запроса
+ * по этапам (`RequestTimings`): фильтры безопасности, сервис, репозитории, SQL, создание сущностей,
+ * отрисовка и общее время. Инструменты разработчика браузера показывают эти этапы на вкладке сети.
+ *
+ * Заголовок можно добавить только до отправки тела, а тело пишется при отрисовке представления, поэтому
+ * фильтр накапливает тело ответа в памяти и отправляет его вместе с заголовком после обработки. Лента
+ * изменений (`/events`) и точки actuator пропускаются: первая держит соединение открытым, вторые
+ * измерять незачем.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+@ConditionalOnProperty(prefix = "app.diagnostics.server-timing", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class ServerTimingFilter extends OncePerRequestFilter {
+
+    /**
+     * Эта функция пропускает ленту изменений и точки actuator.
+     *
+     * @param request HTTP-запрос.
+     *
+     * @return true для запросов, которые не измеряются.
+     */
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return "/events".equals(path) || path.startsWith("/actuator");
+    }
+
+    /**
+     * Эта функция измеряет обработку запроса и добавляет заголовок `Server-Timing` перед отправкой тела.
+     *
+     * @param request HTTP-запрос.
+     * @param response HTTP-ответ.
+     * @param chain Цепочка фильтров.
+     */
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        RequestTimings timings = RequestTimings.start();
+        ContentCachingResponseWrapper buffered = new ContentCachingResponseWrapper(response);
+        try {
+            chain.doFilter(request, buffered);
+        } finally {
+            RequestTimings.finish();
+            if (!response.isCommitted()) {
+                response.setHeader("Server-Timing", timings.toHeader());
+            }
+            buffered.copyBodyToResponse();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.demo.diagnostics;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.ModelAndView;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Это перехватчик Spring MVC, который измеряет отрисовку представления: от выхода из метода контроллера
+ * до завершения обработки запроса.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.diagnostics.server-timing", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class ServerTimingInterceptor implements HandlerInterceptor {
+
+    /**
+     * Эта функция отмечает начало отрисовки.
+     *
+     * @param request HTTP-запрос.
+     * @param response HTTP-ответ.
+     * @param handler Обработчик запроса.
+     * @param modelAndView Модель и представление.
+     */
+    @Override
+    public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler,
+                           ModelAndView modelAndView) {
+        RequestTimings timings = RequestTimings.current();
+        if (timings != null) {
+            timings.renderStarted();
+        }
+    }
+
+    /**
+     * Эта функция отмечает конец отрисовки.
+     *
+     * @param request HTTP-запрос.
+     * @param response HTTP-ответ.
+     * @param handler Обработчик запроса.
+     * @param ex Исключение обработки или null.
+     */
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        RequestTimings timings = RequestTimings.current();
+        if (timings != null) {
+            timings.renderFinished();
+        }
+    }
+}
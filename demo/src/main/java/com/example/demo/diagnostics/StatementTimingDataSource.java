@@ -0,0 +1,228 @@
+package com.example.demo.diagnostics;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * Это источник данных, который измеряет время выполнения SQL-запросов и число их строк и передает их в
+ * `DiagnosticLog`. Соединения, запросы и результаты оборачиваются динамическими прокси JDK; текст
+ * запроса известен при подготовке запроса, значения параметров не запоминаются. Время измеряется от
+ * начала до конца выполнения запроса, а число строк запроса SELECT — по вызовам `ResultSet.next()`,
+ * поэтому запись о нем делается при закрытии результата.
+ */
+public class StatementTimingDataSource extends DelegatingDataSource {
+
+    /** Поставщик журнала; журнал получается при первом запросе, а не при создании источника данных. */
+    private final ObjectProvider<DiagnosticLog> diagnosticsProvider;
+
+    /** Журнал, полученный от поставщика. */
+    private volatile DiagnosticLog diagnostics;
+
+    /**
+     * Конструктор создает источник данных поверх исходного.
+     *
+     * @param target Исходный источник данных.
+     * @param diagnosticsProvider Поставщик журнала.
+     */
+    public StatementTimingDataSource(DataSource target, ObjectProvider<DiagnosticLog> diagnosticsProvider) {
+        super(target);
+        this.diagnosticsProvider = diagnosticsProvider;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(super.getConnection(username, password));
+    }
+
+    /**
+     * Эта функция оборачивает соединение так, чтобы созданные через него запросы измерялись.
+     *
+     * @param connection Исходное соединение.
+     *
+     * @return Соединение-прокси.
+     */
+    private Connection wrap(Connection connection) {
+        return proxy(Connection.class, connection, (proxy, method, args) -> {
+            Object result = invoke(connection, method, args);
+            if (result instanceof Statement statement) {
+                String sql = args != null && args.length > 0 && args[0] instanceof String text ? text : null;
+                Class<? extends Statement> type = result instanceof CallableStatement ? CallableStatement.class
+                        : result instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+                return wrap(type, statement, sql);
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Эта функция оборачивает запрос: методы выполнения измеряются, а их результат передается в журнал.
+     *
+     * @param type Интерфейс запроса.
+     * @param statement Исходный запрос.
+     * @param preparedSql Текст подготовленного запроса или null для `Statement`.
+     *
+     * @return Запрос-прокси.
+     */
+    private <T extends Statement> T wrap(Class<T> type, Statement statement, String preparedSql) {
+        long[] lastExecution = new long[1];
+        return proxy(type, statement, (proxy, method, args) -> {
+            String name = method.getName();
+            if (!name.startsWith("execute") && !name.equals("getResultSet")) {
+                return invoke(statement, method, args);
+            }
+            String sql = args != null && args.length > 0 && args[0] instanceof String text ? text : preparedSql;
+            if (name.equals("getResultSet")) {
+                Object resultSet = invoke(statement, method, args);
+                return resultSet instanceof ResultSet rs ? wrap(rs, sql, lastExecution[0]) : resultSet;
+            }
+            long started = System.nanoTime();
+            Object result = invoke(statement, method, args);
+            long nanos = System.nanoTime() - started;
+            lastExecution[0] = nanos;
+            if (result instanceof ResultSet rs) {
+                return wrap(rs, sql, nanos);
+            }
+            if (result instanceof Boolean isResultSet) {
+                if (!isResultSet) {
+                    record(sql, nanos, statement.getUpdateCount());
+                }
+            } else {
+                record(sql, nanos, rows(result));
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Эта функция оборачивает результат запроса: строки считаются при чтении, а запись в журнал делается
+     * при закрытии результата.
+     *
+     * @param resultSet Исходный результат.
+     * @param sql Текст запроса.
+     * @param nanos Время выполнения запроса.
+     *
+     * @return Результат-прокси.
+     */
+    private ResultSet wrap(ResultSet resultSet, String sql, long nanos) {
+        long[] rows = new long[1];
+        boolean[] closed = new boolean[1];
+        return proxy(ResultSet.class, resultSet, (proxy, method, args) -> {
+            Object result = invoke(resultSet, method, args);
+            if (method.getName().equals("next") && Boolean.TRUE.equals(result)) {
+                rows[0]++;
+            } else if (method.getName().equals("close") && !closed[0]) {
+                closed[0] = true;
+                record(sql, nanos, rows[0]);
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Эта функция считает строки по результату `executeUpdate` или `executeBatch`.
+     *
+     * @param result Результат метода выполнения.
+     *
+     * @return Число строк или -1, если оно неизвестно.
+     */
+    private static long rows(Object result) {
+        if (result instanceof Number count) {
+            return count.longValue();
+        }
+        long total = 0;
+        if (result instanceof int[] counts) {
+            for (int count : counts) {
+                total += Math.max(count, 0);
+            }
+            return total;
+        }
+        if (result instanceof long[] counts) {
+            for (long count : counts) {
+                total += Math.max(count, 0);
+            }
+            return total;
+        }
+        return -1;
+    }
+
+    /**
+     * Эта функция передает выполненный запрос в журнал и в замеры текущего HTTP-запроса.
+     *
+     * @param sql Текст запроса.
+     * @param nanos Время выполнения.
+     * @param rows Число строк.
+     */
+    private void record(String sql, long nanos, long rows) {
+        RequestTimings timings = RequestTimings.current();
+        if (timings != null) {
+            timings.statementExecuted(nanos);
+        }
+        DiagnosticLog log = diagnostics;
+        if (log == null) {
+            log = diagnosticsProvider.getIfAvailable();
+            if (log == null) {
+                return;
+            }
+            diagnostics = log;
+        }
+        log.statementExecuted(sql == null ? "<batch>" : sql, nanos, rows);
+    }
+
+    /**
+     * Эта функция создает динамический прокси интерфейса. Методы `equals` и `hashCode` сравнивают сами
+     * прокси, чтобы прокси можно было хранить в коллекциях.
+     *
+     * @param type Интерфейс.
+     * @param target Исходный объект.
+     * @param handler Обработчик вызовов.
+     *
+     * @return Прокси.
+     */
+    private static <T> T proxy(Class<T> type, Object target, InvocationHandler handler) {
+        Object proxy = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, (self, method, args) ->
+                switch (method.getName()) {
+                    case "equals" -> self == args[0];
+                    case "hashCode" -> System.identityHashCode(self);
+                    case "toString" -> "Timed" + target;
+                    default -> handler.invoke(self, method, args);
+                });
+        return type.cast(proxy);
+    }
+
+    /**
+     * Эта функция вызывает метод исходного объекта и передает дальше исключение, брошенное самим методом.
+     *
+     * @param target Исходный объект.
+     * @param method Метод.
+     * @param args Аргументы.
+     *
+     * @return Результат метода.
+     *
+     * @throws Throwable Исключение метода.
+     */
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.demo.diagnostics;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Это постпроцессор, который оборачивает источники данных приложения в `StatementTimingDataSource`,
+ * чтобы время выполнения SQL-запросов попадало в `DiagnosticLog`. Обертка ставится поверх готового
+ * источника данных, в том числе поверх маршрутизации на реплику, поэтому измеряются запросы и к основной
+ * базе данных, и к реплике. Журнал получается лениво: постпроцессоры создаются раньше остальных
+ * компонентов, и прямое внедрение заставило бы создать журнал и реестр метрик слишком рано.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.diagnostics", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class StatementTimingPostProcessor implements BeanPostProcessor {
+
+    /** Поставщик журнала. */
+    private final ObjectProvider<DiagnosticLog> diagnostics;
+
+    /**
+     * Конструктор создает постпроцессор.
+     *
+     * @param diagnostics Поставщик журнала.
+     */
+    public StatementTimingPostProcessor(ObjectProvider<DiagnosticLog> diagnostics) {
+        this.diagnostics = diagnostics;
+    }
+
+    /**
+     * Эта функция оборачивает источник данных после его инициализации; остальные компоненты
+     * возвращаются без изменений.
+     *
+     * @param bean Компонент.
+     * @param beanName Имя компонента.
+     *
+     * @return Обернутый источник данных или исходный компонент.
+     */
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource && !(bean instanceof StatementTimingDataSource)) {
+            return new StatementTimingDataSource(dataSource, diagnostics);
+        }
+        return bean;
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.demo.fuzzy;
+
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.demo.Resource;
+import com.example.demo.ResourceChangedEvent;
+import com.example.demo.ResourceRepository;
+import com.example.demo.Supplier;
+import com.example.demo.SupplierChangedEvent;
+import com.example.demo.SupplierRepository;
+import com.example.demo.support.CommitGate;
+
+/**
+ * Это класс, который держит индексы триграмм по названиям ресурсов и поставщиков для нечеткого поиска
+ * (`/findRes` и `/findSup` с параметром `fuzzy=true`). Индексы загружаются при запуске приложения и
+ * обновляются событиями изменения ресурсов и поставщиков после фиксации транзакций.
+ * 
+ * Перезагрузка строит новые индексы в стороне и подменяет ими старые, поэтому поиск во время
+ * перезагрузки идет по старым индексам, а не по пустым или заполненным наполовину. Чтение таблиц и
+ * подмена выполняются под защелкой фиксаций (`CommitGate`), как у индекса подсказок.
+ * 
+ * Порог сходства задается свойством `app.fuzzy.threshold` (по умолчанию 0.3), наибольшее число
+ * результатов — `app.fuzzy.limit` (по умолчанию 50).
+ */
+@Component
+public class FuzzySearch {
+
+    /** Логгер для сообщений о загрузке индексов. */
+    private static final Logger log = LoggerFactory.getLogger(FuzzySearch.class);
+
+    /** Репозиторий ресурсов, из которого загружаются названия ресурсов. */
+    @Autowired
+    private ResourceRepository repoRes;
+
+    /** Репозиторий поставщиков, из которого загружаются названия поставщиков. */
+    @Autowired
+    private SupplierRepository repoSup;
+
+    /** Наименьшее сходство, при котором строка попадает в результат. */
+    @Value("${app.fuzzy.threshold:0.3}")
+    private double threshold;
+
+    /** Наибольшее число результатов нечеткого поиска. */
+    @Value("${app.fuzzy.limit:50}")
+    private int limit;
+
+    /** Индекс триграмм названий ресурсов по идентификатору ресурса. */
+    private volatile TrigramIndex resources = new TrigramIndex();
+
+    /** Индекс триграмм названий поставщиков по идентификатору поставщика. */
+    private volatile TrigramIndex suppliers = new TrigramIndex();
+
+    /** Защелка, которая не дает фиксировать изменения ресурсов и поставщиков, пока индексы перезагружаются. */
+    private final CommitGate gate = new CommitGate();
+
+    /**
+     * Эта функция загружает индексы при запуске приложения.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void initialize() {
+        reload();
+    }
+
+    /**
+     * Эта функция заново заполняет индексы из базы данных.
+     * Чтение выполняется на основной базе данных (см. `ReadWriteRoutingDataSource`).
+     */
+    @Transactional
+    public void reload() {
+        gate.exclusive(() -> {
+            TrigramIndex freshResources = new TrigramIndex();
+            TrigramIndex freshSuppliers = new TrigramIndex();
+            repoRes.findAll().forEach(resource -> freshResources.put(resource.getResid(), resource.getName()));
+            repoSup.findAll().forEach(supplier -> freshSuppliers.put(supplier.getSupid(), supplier.getName()));
+            resources = freshResources;
+            suppliers = freshSuppliers;
+            return null;
+        });
+        log.info("Trigram indexes loaded, {} resource(s), {} supplier(s)", resources.size(), suppliers.size());
+    }
+
+    /**
+     * Эта функция применяет изменение ресурса к индексу после фиксации транзакции.
+     * 
+     * @param event Событие с состоянием ресурса до и после изменения.
+     */
+    @EventListener
+    public void onResourceChanged(ResourceChangedEvent event) {
+        gate.afterCommit(() -> {
+            if (event.after() != null) {
+                resources.put(event.after().resid(), event.after().name());
+            } else if (event.before() != null) {
+                resources.remove(event.before().resid());
+            }
+        });
+    }
+
+    /**
+     * Эта функция применяет изменение поставщика и каскадное удаление его ресурсов к индексам после
+     * фиксации транзакции.
+     * 
+     * @param event Событие изменения поставщика.
+     */
+    @EventListener
+    public void onSupplierChanged(SupplierChangedEvent event) {
+        gate.afterCommit(() -> {
+            if (event.after() != null) {
+                suppliers.put(event.after().supid(), event.after().name());
+            } else if (event.before() != null) {
+                suppliers.remove(event.before().supid());
+            }
+            event.removedResources().forEach(resource -> resources.remove(resource.resid()));
+        });
+    }
+
+    /**
+     * Эта функция находит ресурсы, названия которых похожи на запрос.
+     * 
+     * @param query Текст запроса, возможно с опечатками.
+     * 
+     * @return Идентификаторы ресурсов по убыванию сходства.
+     */
+    public List<Long> matchResources(String query) {
+        return resources.search(query, threshold, limit).stream().map(TrigramIndex.Match::id).toList();
+    }
+
+    /**
+     * Эта функция находит поставщиков, названия которых похожи на запрос.
+     * 
+     * @param query Текст запроса, возможно с опечатками.
+     * 
+     * @return Идентификаторы поставщиков по убыванию сходства.
+     */
+    public List<Long> matchSuppliers(String query) {
+        return suppliers.search(query, threshold, limit).stream().map(TrigramIndex.Match::id).toList();
+    }
+}
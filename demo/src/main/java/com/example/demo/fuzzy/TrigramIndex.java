@@ -0,0 +1,196 @@
+package com.example.demo.fuzzy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Это инвертированный индекс триграмм для нечеткого поиска с опечатками. Каждая строка разбивается на
+ * триграммы (тройки соседних символов каждого слова, дополненного пробелами, как в pg_trgm), и для
+ * каждой триграммы хранится множество идентификаторов строк, в которых она встречается.
+ * 
+ * Кандидаты для запроса собираются только из списков триграмм запроса, поэтому поиск просматривает
+ * строки, имеющие с запросом хотя бы одну общую триграмму, а не всю таблицу. Сходство — это отношение
+ * числа общих триграмм к числу триграмм в объединении (коэффициент Жаккара).
+ */
+public class TrigramIndex {
+
+    /**
+     * Это найденная строка с оценкой сходства.
+     * 
+     * @param id Идентификатор строки.
+     * @param score Сходство с запросом от 0 до 1.
+     */
+    public record Match(Long id, double score) {
+    }
+
+    /** Триграммы каждой строки по ее идентификатору. */
+    private final Map<Long, long[]> documents = new HashMap<>();
+
+    /** Идентификаторы строк по коду триграммы. */
+    private final Map<Long, Set<Long>> postings = new HashMap<>();
+
+    /** Блокировка: поиск идет под блокировкой чтения, изменения — под блокировкой записи. */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Эта функция добавляет строку в индекс или заменяет ранее добавленную строку с тем же
+     * идентификатором.
+     * 
+     * @param id Идентификатор строки.
+     * @param text Текст строки.
+     */
+    public void put(Long id, String text) {
+        if (id == null) {
+            return;
+        }
+        long[] trigrams = trigrams(text);
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+            if (trigrams.length == 0) {
+                return;
+            }
+            documents.put(id, trigrams);
+            for (long trigram : trigrams) {
+                postings.computeIfAbsent(trigram, k -> new HashSet<>()).add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Эта функция удаляет строку из индекса.
+     * 
+     * @param id Идентификатор строки.
+     */
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Эта функция удаляет из индекса все строки.
+     */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            documents.clear();
+            postings.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Эта функция находит строки, похожие на запрос.
+     * 
+     * @param query Текст запроса.
+     * @param threshold Наименьшее сходство, при котором строка попадает в результат.
+     * @param limit Наибольшее число результатов.
+     * 
+     * @return Найденные строки по убыванию сходства.
+     */
+    public List<Match> search(String query, double threshold, int limit) {
+        long[] queryTrigrams = trigrams(query);
+        if (queryTrigrams.length == 0 || limit <= 0) {
+            return List.of();
+        }
+        List<Match> matches = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            Map<Long, Integer> shared = new HashMap<>();
+            for (long trigram : queryTrigrams) {
+                Set<Long> ids = postings.get(trigram);
+                if (ids != null) {
+                    ids.forEach(id -> shared.merge(id, 1, Integer::sum));
+                }
+            }
+            for (Map.Entry<Long, Integer> candidate : shared.entrySet()) {
+                int common = candidate.getValue();
+                int union = queryTrigrams.length + documents.get(candidate.getKey()).length - common;
+                double score = (double) common / union;
+                if (score >= threshold) {
+                    matches.add(new Match(candidate.getKey(), score));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        matches.sort(Comparator.comparingDouble(Match::score).reversed().thenComparing(Match::id));
+        return matches.size() > limit ? matches.subList(0, limit) : matches;
+    }
+
+    /**
+     * Эта функция возвращает число строк в индексе.
+     * 
+     * @return Число строк.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Эта функция удаляет строку из индекса; вызывается под блокировкой записи.
+     * 
+     * @param id Идентификатор строки.
+     */
+    private void removeLocked(Long id) {
+        long[] trigrams = documents.remove(id);
+        if (trigrams == null) {
+            return;
+        }
+        for (long trigram : trigrams) {
+            Set<Long> ids = postings.get(trigram);
+            if (ids != null && ids.remove(id) && ids.isEmpty()) {
+                postings.remove(trigram);
+            }
+        }
+    }
+
+    /**
+     * Эта функция разбивает строку на различные триграммы. Каждое слово в нижнем регистре дополняется
+     * двумя пробелами слева и одним справа, так что короткие слова и начала слов тоже дают триграммы.
+     * Триграмма кодируется числом: три 16-битных символа в одном `long`.
+     * 
+     * @param text Исходная строка.
+     * 
+     * @return Отсортированные коды различных триграмм.
+     */
+    static long[] trigrams(String text) {
+        if (text == null) {
+            return new long[0];
+        }
+        Set<Long> result = new HashSet<>();
+        for (String word : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            String padded = "  " + word + " ";
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                result.add(((long) padded.charAt(i) << 32) | ((long) padded.charAt(i + 1) << 16) | padded.charAt(i + 2));
+            }
+        }
+        long[] codes = result.stream().mapToLong(Long::longValue).toArray();
+        Arrays.sort(codes);
+        return codes;
+    }
+}
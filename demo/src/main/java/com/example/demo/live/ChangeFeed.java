@@ -0,0 +1,189 @@
+package com.example.demo.live;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.example.demo.ResourceChangedEvent;
+import com.example.demo.ResourceSnapshot;
+import com.example.demo.Supplier;
+import com.example.demo.SupplierChangedEvent;
+import com.example.demo.SupplierRepository;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Это класс, который рассылает изменения ресурсов и поставщиков открытым страницам через Server-Sent
+ * Events. Каждая страница держит одно долгое соединение (`/events`) и обновляет строки таблицы на месте,
+ * вместо того чтобы периодически перезагружать всю таблицу.
+ * 
+ * Сообщения отправляются только после фиксации транзакции `saveRes`, `deleteRes`, `saveSup` или
+ * `deleteSup`. Рассылка выполняется отдельным потоком, чтобы медленный клиент не задерживал запрос,
+ * который изменил данные. Периодический комментарий-пульс (`app.live.heartbeat`) не дает прокси закрыть
+ * простаивающее соединение и находит отключившихся клиентов.
+ */
+@Component
+public class ChangeFeed {
+
+    /** Логгер для сообщений о рассылке. */
+    private static final Logger log = LoggerFactory.getLogger(ChangeFeed.class);
+
+    /** Имя события SSE для изменений ресурсов. */
+    static final String RESOURCE_EVENT = "resource";
+
+    /** Имя события SSE для изменений поставщиков. */
+    static final String SUPPLIER_EVENT = "supplier";
+
+    /** Репозиторий поставщиков, из которого берется название поставщика ресурса (из кэша второго уровня). */
+    @Autowired
+    private SupplierRepository repoSup;
+
+    /** Время жизни соединения, после которого браузер переподключается сам. */
+    @Value("${app.live.timeout:PT30M}")
+    private Duration timeout;
+
+    /** Открытые соединения. */
+    private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+
+    /** Поток рассылки сообщений. */
+    private final ExecutorService sender = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "change-feed");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Эта функция открывает новое соединение ленты изменений.
+     * 
+     * @return Объект SseEmitter, через который клиенту отправляются сообщения.
+     */
+    public SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        emitter.onCompletion(() -> emitters.remove(emitter));
+        emitter.onTimeout(() -> emitters.remove(emitter));
+        emitter.onError(error -> emitters.remove(emitter));
+        emitters.add(emitter);
+        return emitter;
+    }
+
+    /**
+     * Эта функция рассылает изменение ресурса после фиксации транзакции.
+     * 
+     * @param event Событие с состоянием ресурса до и после изменения.
+     */
+    @TransactionalEventListener
+    public void onResourceChanged(ResourceChangedEvent event) {
+        if (emitters.isEmpty()) {
+            return;
+        }
+        if (event.after() != null) {
+            ResourceSnapshot r = event.after();
+            String supplierName = r.supplier() == null ? null
+                    : repoSup.findById(r.supplier()).map(Supplier::getName).orElse(null);
+            broadcast(RESOURCE_EVENT, new ChangeMessage("saved", r.resid(), r.name(), r.type(), r.quantity(),
+                    r.cost(), r.acdate(), r.supplier(), supplierName));
+        } else if (event.before() != null) {
+            broadcast(RESOURCE_EVENT, deleted(event.before().resid(), event.before().supplier()));
+        }
+    }
+
+    /**
+     * Эта функция рассылает изменение поставщика после фиксации транзакции. При удалении поставщика
+     * страницы убирают и строки его ресурсов.
+     * 
+     * @param event Событие изменения поставщика.
+     */
+    @TransactionalEventListener
+    public void onSupplierChanged(SupplierChangedEvent event) {
+        if (emitters.isEmpty()) {
+            return;
+        }
+        if (event.after() != null) {
+            broadcast(SUPPLIER_EVENT, new ChangeMessage("saved", null, event.after().name(), null, null,
+                    null, null, event.after().supid(), event.after().name()));
+        } else if (event.before() != null) {
+            broadcast(SUPPLIER_EVENT, deleted(null, event.before().supid()));
+        }
+    }
+
+    /**
+     * Эта функция отправляет всем клиентам комментарий-пульс.
+     */
+    @Scheduled(fixedDelayString = "${app.live.heartbeat:PT25S}")
+    public void heartbeat() {
+        if (!emitters.isEmpty()) {
+            sender.execute(() -> emitters.forEach(emitter -> send(emitter, SseEmitter.event().comment("ping"))));
+        }
+    }
+
+    /**
+     * Эта функция возвращает число открытых соединений.
+     * 
+     * @return Число подписчиков ленты.
+     */
+    public int getSubscriberCount() {
+        return emitters.size();
+    }
+
+    /**
+     * Эта функция закрывает соединения и останавливает поток рассылки при остановке приложения.
+     */
+    @PreDestroy
+    public void shutdown() {
+        sender.shutdownNow();
+        emitters.forEach(SseEmitter::complete);
+        emitters.clear();
+    }
+
+    /**
+     * Эта функция ставит сообщение в очередь рассылки всем клиентам.
+     * 
+     * @param name Имя события SSE.
+     * @param message Сообщение.
+     */
+    private void broadcast(String name, ChangeMessage message) {
+        sender.execute(() -> emitters.forEach(emitter ->
+                send(emitter, SseEmitter.event().name(name).data(message, MediaType.APPLICATION_JSON))));
+    }
+
+    /**
+     * Эта функция отправляет событие одному клиенту и убирает клиента из рассылки, если отправка не
+     * удалась; само соединение закрывает контейнер сервлетов.
+     * 
+     * @param emitter Соединение клиента.
+     * @param event Событие SSE.
+     */
+    private void send(SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        try {
+            emitter.send(event);
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Dropping change feed subscriber: {}", e.getMessage());
+            emitters.remove(emitter);
+        }
+    }
+
+    /**
+     * Эта функция создает сообщение об удалении.
+     * 
+     * @param resid Идентификатор удаленного ресурса или null.
+     * @param supid Идентификатор поставщика.
+     * 
+     * @return Сообщение с действием deleted.
+     */
+    private static ChangeMessage deleted(Long resid, Long supid) {
+        return new ChangeMessage("deleted", resid, null, null, null, null, null, supid, null);
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.demo.live;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Это сообщение ленты изменений, которое отправляется открытым страницам через Server-Sent Events и
+ * сериализуется в JSON. Пустые поля в JSON не попадают.
+ * 
+ * @param action Действие: saved — ресурс или поставщик создан или изменен, deleted — удален.
+ * @param resid Идентификатор ресурса или null для сообщений о поставщике.
+ * @param name Название ресурса или поставщика.
+ * @param type Тип ресурса.
+ * @param quantity Количество ресурса.
+ * @param cost Стоимость ресурса.
+ * @param acdate Дата покупки ресурса.
+ * @param supid Идентификатор поставщика.
+ * @param supplierName Название поставщика ресурса.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ChangeMessage(String action, Long resid, String name, String type, Integer quantity,
+                            Integer cost, String acdate, Long supid, String supplierName) {
+}
@@ -0,0 +1,75 @@
+package com.example.demo.nativeimage;
+
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.web.access.expression.WebSecurityExpressionRoot;
+
+import com.example.demo.Resource;
+import com.example.demo.ResourceType;
+import com.example.demo.Supplier;
+import com.example.demo.aggregate.InventoryTotals;
+import com.example.demo.live.ChangeMessage;
+import com.example.demo.security.UserInfo;
+
+/**
+ * Это класс, который описывает для native-образа GraalVM то, что приложение использует через отражение,
+ * динамические прокси и ресурсы classpath, и что сборка AOT не находит сама:
+ * <ul>
+ * <li>шаблоны Thymeleaf, включая страницы ошибок, которые `CustomAccessDeniedHandler` читает напрямую,
+ * миграции Flyway и настройки Ehcache;</li>
+ * <li>сущности `Resource`, `Supplier` и `UserInfo`: их поля и конструкторы нужны Hibernate, а методы
+ * доступа, созданные Lombok, — привязке полей форм и выражениям шаблонов;</li>
+ * <li>объекты, которые читаются выражениями шаблонов или сериализуются в JSON: итоги панели, сообщения
+ * ленты изменений, объект аутентификации и корневой объект выражений `sec:authorize`;</li>
+ * <li>интерфейсы JDBC, для которых `StatementTimingDataSource` создает динамические прокси.</li>
+ * </ul>
+ * Подсказки подключаются аннотацией `@ImportRuntimeHints` основного класса приложения и учитываются
+ * только при сборке профилем `native`; в обычной JVM они ни на что не влияют.
+ */
+public class ApplicationRuntimeHints implements RuntimeHintsRegistrar {
+
+    /**
+     * Класс окружения веб-приложения, к которому обращается выражение `${@environment.getProperty(...)}`
+     * в index.html. Класс не публичный, поэтому указывается по имени.
+     */
+    private static final String SERVLET_ENVIRONMENT =
+            "org.springframework.boot.web.servlet.context.ApplicationServletEnvironment";
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        hints.resources()
+                .registerPattern("templates/**")
+                .registerPattern("db/migration/*.sql")
+                .registerPattern("ehcache.xml");
+
+        for (Class<?> entity : new Class<?>[] {Resource.class, ResourceType.class, Supplier.class, UserInfo.class}) {
+            hints.reflection().registerType(entity,
+                    MemberCategory.DECLARED_FIELDS,
+                    MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+                    MemberCategory.INVOKE_PUBLIC_METHODS);
+        }
+        new BindingReflectionHintsRegistrar().registerReflectionHints(hints.reflection(),
+                InventoryTotals.class, ChangeMessage.class);
+        hints.reflection()
+                .registerType(UsernamePasswordAuthenticationToken.class, MemberCategory.INVOKE_PUBLIC_METHODS)
+                .registerType(WebSecurityExpressionRoot.class, MemberCategory.INVOKE_PUBLIC_METHODS)
+                .registerType(TypeReference.of(SERVLET_ENVIRONMENT), MemberCategory.INVOKE_PUBLIC_METHODS);
+
+        hints.proxies()
+                .registerJdkProxy(Connection.class)
+                .registerJdkProxy(Statement.class)
+                .registerJdkProxy(PreparedStatement.class)
+                .registerJdkProxy(CallableStatement.class)
+                .registerJdkProxy(ResultSet.class);
+    }
+}
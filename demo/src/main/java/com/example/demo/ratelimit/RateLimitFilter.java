@@ -0,0 +1,82 @@
+package com.example.demo.ratelimit;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Это фильтр цепочки Spring Security, который ограничивает частоту запросов через `RateLimiter`. Он стоит
+ * после восстановления контекста безопасности (сеанса или токена), но перед обработкой формы входа, поэтому
+ * вошедший пользователь ограничивается по имени, а попытки входа — по IP-адресу. Отклоненный запрос получает
+ * ответ 429 с заголовком Retry-After и не доходит ни до проверки пароля, ни до базы данных.
+ *
+ * IP-адрес берется из `getRemoteAddr()`: за балансировщиком нужно включить
+ * `server.forward-headers-strategy`, иначе все клиенты будут выглядеть одним адресом.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    /** Ограничитель частоты. */
+    private final RateLimiter limiter;
+
+    /**
+     * Конструктор создает фильтр.
+     *
+     * @param limiter Ограничитель частоты.
+     */
+    public RateLimitFilter(RateLimiter limiter) {
+        this.limiter = limiter;
+    }
+
+    /**
+     * Эта функция пропускает запрос, если у клиента есть токен, и иначе отвечает 429.
+     *
+     * @param request HTTP-запрос.
+     * @param response HTTP-ответ.
+     * @param chain Цепочка фильтров.
+     */
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        long wait = limiter.acquire(path, client(request));
+        if (wait > 0) {
+            long seconds = Math.max(TimeUnit.NANOSECONDS.toSeconds(wait + TimeUnit.SECONDS.toNanos(1) - 1), 1);
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(seconds));
+            response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+            response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+            response.getWriter().write("Too many requests, retry in " + seconds + " s");
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+
+    /**
+     * Эта функция определяет клиента запроса.
+     *
+     * @param request HTTP-запрос.
+     *
+     * @return «user:имя» для вошедшего пользователя, иначе «ip:адрес».
+     */
+    private static String client(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated()
+                && !(authentication instanceof AnonymousAuthenticationToken)) {
+            return "user:" + authentication.getName();
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.demo.ratelimit;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Это класс ограничения частоты запросов к конечным точкам: у каждого клиента на каждую ограниченную
+ * конечную точку своя корзина токенов `TokenBucket`. Клиент — это вошедший пользователь, а до входа
+ * (страница входа, регистрация) — IP-адрес.
+ *
+ * Правила задаются списком `app.rate-limit.rules` в виде `путь:емкость:токенов_в_секунду`, например
+ * `/findRes:30:5` — не больше 30 запросов подряд и в среднем 5 запросов в секунду. Путь сравнивается
+ * целиком, без шаблонов. Корзины, которые успели наполниться, периодически удаляются, поэтому память
+ * занимают только клиенты, недавно упиравшиеся в ограничение или активно работающие.
+ *
+ * Метрики: `ratelimit.throttled` с тегом `endpoint` — отклоненные запросы и `ratelimit.buckets` — число
+ * корзин в памяти.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.rate-limit", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class RateLimiter {
+
+    /**
+     * Это правило ограничения одной конечной точки.
+     *
+     * @param path Путь конечной точки.
+     * @param capacity Емкость корзины.
+     * @param perSecond Скорость пополнения корзины в токенах в секунду.
+     * @param throttled Счетчик отклоненных запросов.
+     */
+    record Rule(String path, int capacity, double perSecond, Counter throttled) {
+    }
+
+    /**
+     * Это ключ корзины: конечная точка и клиент.
+     *
+     * @param path Путь конечной точки.
+     * @param client Клиент: «user:имя» или «ip:адрес».
+     */
+    private record BucketKey(String path, String client) {
+    }
+
+    /** Правила по пути конечной точки. */
+    private final Map<String, Rule> rules = new HashMap<>();
+
+    /** Корзины клиентов. */
+    private final ConcurrentMap<BucketKey, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    /**
+     * Конструктор разбирает правила и регистрирует метрики.
+     *
+     * @param rules Правила в виде `путь:емкость:токенов_в_секунду`.
+     * @param registry Реестр метрик Micrometer.
+     *
+     * @throws IllegalArgumentException Если правило записано неверно.
+     */
+    public RateLimiter(@Value("${app.rate-limit.rules:}") String[] rules, MeterRegistry registry) {
+        for (String spec : rules) {
+            String[] parts = spec.trim().split(":");
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("Invalid rate limit rule '" + spec
+                        + "', expected path:capacity:perSecond");
+            }
+            int capacity = Integer.parseInt(parts[1]);
+            double perSecond = Double.parseDouble(parts[2]);
+            if (capacity < 1 || !(perSecond > 0)) {
+                throw new IllegalArgumentException("Invalid rate limit rule '" + spec
+                        + "', capacity and rate must be positive");
+            }
+            Counter throttled = Counter.builder("ratelimit.throttled").tag("endpoint", parts[0])
+                    .description("Requests rejected by the rate limiter").register(registry);
+            this.rules.put(parts[0], new Rule(parts[0], capacity, perSecond, throttled));
+        }
+        Gauge.builder("ratelimit.buckets", buckets, Map::size)
+                .description("Token buckets held in memory").register(registry);
+    }
+
+    /**
+     * Эта функция забирает токен клиента для конечной точки.
+     *
+     * @param path Путь запроса.
+     * @param client Клиент: «user:имя» или «ip:адрес».
+     *
+     * @return 0, если запрос разрешен или конечная точка не ограничена; иначе время в наносекундах, через
+     * которое клиент может повторить запрос.
+     */
+    public long acquire(String path, String client) {
+        Rule rule = rules.get(path);
+        if (rule == null) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        TokenBucket bucket = buckets.computeIfAbsent(new BucketKey(path, client),
+                key -> new TokenBucket(rule.capacity(), rule.perSecond(), now));
+        long wait = bucket.tryAcquire(now);
+        if (wait > 0) {
+            rule.throttled().increment();
+        }
+        return wait;
+    }
+
+    /**
+     * Эта функция удаляет полные корзины: клиент с полной корзиной получит такую же новую при следующем
+     * запросе.
+     */
+    @Scheduled(fixedDelayString = "${app.rate-limit.cleanup-interval:PT1M}")
+    public void evictIdle() {
+        long now = System.nanoTime();
+        buckets.values().removeIf(bucket -> bucket.idle(now));
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.demo.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Это корзина токенов одного клиента для одной конечной точки. Корзина вмещает `capacity` токенов и
+ * пополняется со скоростью `perSecond` токенов в секунду; каждый запрос забирает один токен.
+ *
+ * Состояние хранится в одном `AtomicLong` — времени, когда корзина снова будет полной (алгоритм GCRA, который
+ * эквивалентен корзине токенов). Поэтому проверка не берет блокировок и не выделяет памяти: одна
+ * операция compareAndSet, которая повторяется только при одновременном запросе того же клиента.
+ */
+final class TokenBucket {
+
+    /** Время в наносекундах, за которое пополняется один токен. */
+    private final long interval;
+
+    /** Время в наносекундах, за которое пополняется вся корзина. */
+    private final long tolerance;
+
+    /** Время `System.nanoTime()`, когда корзина станет полной; в прошлом — корзина уже полна. */
+    private final AtomicLong full;
+
+    /**
+     * Конструктор создает полную корзину.
+     *
+     * @param capacity Емкость корзины в токенах.
+     * @param perSecond Скорость пополнения в токенах в секунду.
+     * @param now Текущее время `System.nanoTime()`.
+     */
+    TokenBucket(int capacity, double perSecond, long now) {
+        this.interval = Math.max(Math.round(1e9 / perSecond), 1);
+        this.tolerance = interval * capacity;
+        this.full = new AtomicLong(now);
+    }
+
+    /**
+     * Эта функция забирает токен, если он есть.
+     *
+     * @param now Текущее время `System.nanoTime()`.
+     *
+     * @return 0, если токен получен; иначе время в наносекундах, через которое появится следующий токен.
+     */
+    long tryAcquire(long now) {
+        while (true) {
+            long current = full.get();
+            long next = Math.max(current - now, 0) + now + interval;
+            long wait = next - now - tolerance;
+            if (wait > 0) {
+                return wait;
+            }
+            if (full.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Эта функция сообщает, что корзина полна, то есть клиент давно не обращался и корзину можно забыть.
+     *
+     * @param now Текущее время `System.nanoTime()`.
+     *
+     * @return true, если корзина полна.
+     */
+    boolean idle(long now) {
+        return full.get() - now <= 0;
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.demo.resilience;
+
+/**
+ * Это автоматический выключатель обращений к базе данных.
+ * <ul>
+ * <li>Замкнут: вызовы выполняются; после `failureThreshold` сбоев подряд выключатель размыкается.</li>
+ * <li>Разомкнут: вызовы не выполняются в течение `openNanos`, чтобы не нагружать базу данных, которая и так
+ * не справляется.</li>
+ * <li>Полуразомкнут: по истечении этого времени выполняется один пробный вызов. Удача замыкает
+ * выключатель, сбой снова размыкает его. Если пробный вызов не завершился за `openNanos`, разрешается
+ * следующий.</li>
+ * </ul>
+ */
+final class CircuitBreaker {
+
+    /** Состояние выключателя. */
+    enum State {
+
+        /** Вызовы выполняются. */
+        CLOSED,
+
+        /** Вызовы не выполняются. */
+        OPEN,
+
+        /** Выполняется пробный вызов. */
+        HALF_OPEN
+    }
+
+    /** Число сбоев подряд, после которого выключатель размыкается. */
+    private final int failureThreshold;
+
+    /** Время в наносекундах, на которое выключатель размыкается. */
+    private final long openNanos;
+
+    /** Текущее состояние. */
+    private volatile State state = State.CLOSED;
+
+    /** Число сбоев подряд в замкнутом состоянии. */
+    private int failures;
+
+    /** Момент размыкания или начала пробного вызова `System.nanoTime()`. */
+    private long changedAt;
+
+    /**
+     * Конструктор создает замкнутый выключатель.
+     *
+     * @param failureThreshold Число сбоев подряд, после которого выключатель размыкается.
+     * @param openNanos Время в наносекундах, на которое выключатель размыкается.
+     */
+    CircuitBreaker(int failureThreshold, long openNanos) {
+        this.failureThreshold = Math.max(failureThreshold, 1);
+        this.openNanos = openNanos;
+    }
+
+    /**
+     * Эта функция возвращает текущее состояние.
+     *
+     * @return Состояние выключателя.
+     */
+    State state() {
+        return state;
+    }
+
+    /**
+     * Эта функция сообщает, что вызовы выполняются обычным образом.
+     *
+     * @return true, если выключатель замкнут.
+     */
+    boolean closed() {
+        return state == State.CLOSED;
+    }
+
+    /**
+     * Эта функция разрешает пробный вызов, если выключатель разомкнут достаточно долго.
+     *
+     * @return true, если вызывающий должен выполнить пробный вызов.
+     */
+    synchronized boolean tryTrial() {
+        long now = System.nanoTime();
+        if (state != State.CLOSED && now - changedAt >= openNanos) {
+            state = State.HALF_OPEN;
+            changedAt = now;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Эта функция отмечает удачный вызов: выключатель замыкается.
+     */
+    synchronized void onSuccess() {
+        failures = 0;
+        state = State.CLOSED;
+    }
+
+    /**
+     * Эта функция отмечает сбой обращения к базе данных. Сбои вызовов, начатых до размыкания, не
+     * продлевают время размыкания.
+     */
+    synchronized void onFailure() {
+        if (state == State.OPEN) {
+            return;
+        }
+        if (state == State.HALF_OPEN || ++failures >= failureThreshold) {
+            state = State.OPEN;
+            changedAt = System.nanoTime();
+            failures = 0;
+        }
+    }
+}
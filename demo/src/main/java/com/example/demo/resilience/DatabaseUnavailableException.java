@@ -0,0 +1,23 @@
+package com.example.demo.resilience;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Это исключение сообщает, что автоматический выключатель разомкнут, а сохраненного результата для
+ * запроса нет. Пользователь получает страницу error/503.html.
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class DatabaseUnavailableException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Конструктор создает исключение с сообщением.
+     *
+     * @param message Сообщение.
+     */
+    public DatabaseUnavailableException(String message) {
+        super(message);
+    }
+}
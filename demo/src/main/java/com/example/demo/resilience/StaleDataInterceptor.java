@@ -0,0 +1,40 @@
+package com.example.demo.resilience;
+
+import java.time.LocalDateTime;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.ModelAndView;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Это перехватчик Spring MVC, который помечает страницу, построенную по сохраненным результатам
+ * `StaleFallbackAspect`: добавляет в модель атрибут `staleSince` — время самого старого из них, по
+ * которому страница показывает предупреждение, и заголовок ответа `Warning: 110`.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.resilience", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class StaleDataInterceptor implements HandlerInterceptor {
+
+    /**
+     * Эта функция передает в модель время сохраненных данных, если они использовались.
+     *
+     * @param request HTTP-запрос.
+     * @param response HTTP-ответ.
+     * @param handler Обработчик запроса.
+     * @param modelAndView Модель и представление.
+     */
+    @Override
+    public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler,
+                           ModelAndView modelAndView) {
+        if (request.getAttribute(StaleFallbackAspect.STALE_SINCE) instanceof LocalDateTime since) {
+            response.setHeader("Warning", "110 - \"Response is Stale\"");
+            if (modelAndView != null) {
+                modelAndView.addObject("staleSince", since);
+            }
+        }
+    }
+}
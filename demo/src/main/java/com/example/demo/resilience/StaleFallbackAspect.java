@@ -0,0 +1,316 @@
+package com.example.demo.resilience;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import com.example.demo.cache.ResultCacheAspect;
+import com.example.demo.deadline.Deadline;
+import com.example.demo.support.CallArguments;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Это аспект, который сохраняет доступность методов чтения, помеченных `@StaleOnFailure`, при сбоях базы
+ * данных. Последний удачный результат каждого вызова хранится в ограниченном кэше в памяти
+ * (`app.resilience.stale.max-bytes`). Если вызов завершился сбоем базы данных — нет соединения, тайм-аут,
+ * разрыв — и сохраненный результат есть, выдается он, а страница помечается как устаревшая
+ * (`StaleDataInterceptor`).
+ *
+ * Обращения к базе данных проходят через автоматический выключатель `CircuitBreaker`: после
+ * `app.resilience.failure-threshold` сбоев подряд вызовы на `app.resilience.open-duration` перестают
+ * доходить до базы данных и сразу получают сохраненный результат, так что страницы остаются быстрыми, пока
+ * база данных не отвечает. Затем выполняется один пробный вызов: если для него есть сохраненный
+ * результат, пользователь сразу получает этот результат, а вызов выполняется в фоне и обновляет кэш; если
+ * нет — вызов выполняется в потоке запроса. Если выключатель разомкнут и сохраненного результата нет,
+ * бросается `DatabaseUnavailableException` (страница 503). Тайм-аут запроса, у которого истек его
+ * собственный срок (`Deadline`), сбоем базы данных не считается и выключатель не размыкает.
+ *
+ * Аспект выполняется раньше кэша результатов (`@Order(5)`): результат из кэша результатов свежий и
+ * получается без обращения к базе данных.
+ *
+ * Метрики: `resilience.circuit.state` (0 — замкнут, 1 — разомкнут, 2 — пробный вызов),
+ * `resilience.stale.served` — выданные сохраненные результаты и `resilience.unavailable` — вызовы,
+ * отклоненные без результата.
+ */
+@Aspect
+@Component
+@Order(5)
+@ConditionalOnProperty(prefix = "app.resilience", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class StaleFallbackAspect {
+
+    /** Атрибут запроса с временем самого старого выданного сохраненного результата. */
+    static final String STALE_SINCE = StaleFallbackAspect.class.getName() + ".staleSince";
+
+    /** Журнал сообщений о сбоях и восстановлении. */
+    private static final Logger log = LoggerFactory.getLogger(StaleFallbackAspect.class);
+
+    /**
+     * Это ключ результата.
+     *
+     * @param method Сигнатура метода.
+     * @param args Нормализованные аргументы.
+     */
+    record CallKey(String method, List<Object> args) {
+    }
+
+    /**
+     * Это сохраненный результат.
+     *
+     * @param value Результат метода.
+     * @param time Время получения результата.
+     */
+    record LastGood(Object value, LocalDateTime time) {
+    }
+
+    /** Автоматический выключатель. */
+    private final CircuitBreaker breaker;
+
+    /** Последние удачные результаты. */
+    private final Cache<CallKey, LastGood> lastGood;
+
+    /** Время, отведенное на фоновое обновление результата. */
+    private final Duration refreshTimeout;
+
+    /** Поток фоновых обновлений. */
+    private final ExecutorService refresher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "stale-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /** Признак фонового обновления: вызов в этом потоке идет в базу данных мимо выключателя. */
+    private static final ThreadLocal<Boolean> REFRESHING = new ThreadLocal<>();
+
+    /** Ключи, обновление которых уже выполняется в фоне. */
+    private final Set<CallKey> refreshing = ConcurrentHashMap.newKeySet();
+
+    /** Счетчик выданных сохраненных результатов. */
+    private final Counter staleServed;
+
+    /** Счетчик вызовов, отклоненных без результата. */
+    private final Counter unavailable;
+
+    /**
+     * Конструктор создает выключатель и кэш и регистрирует метрики.
+     *
+     * @param failureThreshold Число сбоев подряд, после которого выключатель размыкается.
+     * @param openDuration Время, на которое выключатель размыкается.
+     * @param refreshTimeout Время, отведенное на фоновое обновление результата.
+     * @param maxBytes Приблизительный наибольший объем сохраненных результатов.
+     * @param registry Реестр метрик Micrometer.
+     */
+    public StaleFallbackAspect(@Value("${app.resilience.failure-threshold:5}") int failureThreshold,
+                               @Value("${app.resilience.open-duration:PT30S}") Duration openDuration,
+                               @Value("${app.resilience.refresh-timeout:PT5S}") Duration refreshTimeout,
+                               @Value("${app.resilience.stale.max-bytes:16777216}") long maxBytes,
+                               MeterRegistry registry) {
+        this.breaker = new CircuitBreaker(failureThreshold, openDuration.toNanos());
+        this.refreshTimeout = refreshTimeout;
+        this.lastGood = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((CallKey key, LastGood value) ->
+                        (int) Math.min(Integer.MAX_VALUE, ResultCacheAspect.estimateBytes(value.value())))
+                .build();
+        this.staleServed = Counter.builder("resilience.stale.served")
+                .description("Reads answered with a last-known-good result").register(registry);
+        this.unavailable = Counter.builder("resilience.unavailable")
+                .description("Reads rejected while the circuit was open and no result was saved").register(registry);
+        Gauge.builder("resilience.circuit.state", breaker, b -> b.state().ordinal())
+                .description("Database circuit breaker state: 0 closed, 1 open, 2 half-open").register(registry);
+    }
+
+    /**
+     * Эта функция выполняет вызов через выключатель и при сбое базы данных выдает сохраненный результат.
+     *
+     * @param joinPoint Перехваченный вызов.
+     * @param staleOnFailure Аннотация метода.
+     *
+     * @return Результат вызова или сохраненный результат.
+     */
+    @Around("@annotation(staleOnFailure)")
+    public Object guarded(ProceedingJoinPoint joinPoint, StaleOnFailure staleOnFailure) throws Throwable {
+        if (REFRESHING.get() != null) {
+            return joinPoint.proceed();
+        }
+        CallKey key = new CallKey(joinPoint.getSignature().toLongString(),
+                CallArguments.normalize(joinPoint.getArgs(), staleOnFailure.firstNonEmpty()));
+        if (!breaker.closed()) {
+            LastGood saved = lastGood.getIfPresent(key);
+            boolean trial = breaker.tryTrial();
+            if (saved != null) {
+                if (trial) {
+                    refreshInBackground(joinPoint, key);
+                }
+                return serve(saved);
+            }
+            if (!trial) {
+                unavailable.increment();
+                throw new DatabaseUnavailableException("Database is unavailable and no saved result exists");
+            }
+        }
+        try {
+            Object result = joinPoint.proceed();
+            succeeded(key, result);
+            return result;
+        } catch (Throwable e) {
+            if (!isDatabaseFailure(e) || deadlineExpired()) {
+                throw e;
+            }
+            failed(e);
+            LastGood saved = lastGood.getIfPresent(key);
+            if (saved == null) {
+                throw e;
+            }
+            return serve(saved);
+        }
+    }
+
+    /**
+     * Эта функция выполняет пробный вызов в фоне, если для этого ключа он еще не выполняется. Метод
+     * вызывается заново через прокси, чтобы остальные аспекты (транзакция, кэш результатов) отработали в
+     * фоновом потоке, а не в потоке запроса. Фоновый вызов ограничен сроком `app.resilience.refresh-timeout`,
+     * чтобы зависшая база данных не задержала его навсегда.
+     *
+     * @param joinPoint Перехваченный вызов.
+     * @param key Ключ результата.
+     */
+    private void refreshInBackground(ProceedingJoinPoint joinPoint, CallKey key) {
+        if (!refreshing.add(key)) {
+            return;
+        }
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        Object proxy = joinPoint.getThis();
+        Object[] args = joinPoint.getArgs().clone();
+        refresher.execute(() -> {
+            REFRESHING.set(Boolean.TRUE);
+            Deadline.start(refreshTimeout);
+            try {
+                succeeded(key, method.invoke(proxy, args));
+            } catch (Throwable thrown) {
+                Throwable e = thrown instanceof InvocationTargetException invocation ? invocation.getCause() : thrown;
+                if (isDatabaseFailure(e)) {
+                    failed(e);
+                } else {
+                    log.warn("Background refresh of {} failed", key.method(), e);
+                }
+            } finally {
+                REFRESHING.remove();
+                Deadline.clear();
+                refreshing.remove(key);
+            }
+        });
+    }
+
+    /**
+     * Эта функция запоминает удачный результат и замыкает выключатель.
+     *
+     * @param key Ключ результата.
+     * @param result Результат.
+     */
+    private void succeeded(CallKey key, Object result) {
+        if (!breaker.closed()) {
+            log.info("Database reads recovered, circuit closed");
+        }
+        breaker.onSuccess();
+        if (result != null) {
+            lastGood.put(key, new LastGood(result, LocalDateTime.now()));
+        }
+    }
+
+    /**
+     * Эта функция отмечает сбой базы данных в выключателе.
+     *
+     * @param e Исключение вызова.
+     */
+    private void failed(Throwable e) {
+        boolean wasClosed = breaker.closed();
+        breaker.onFailure();
+        if (wasClosed && !breaker.closed()) {
+            log.warn("Database reads failing, circuit opened: {}", e.toString());
+        }
+    }
+
+    /**
+     * Эта функция выдает сохраненный результат и отмечает текущий HTTP-запрос как устаревший.
+     *
+     * @param saved Сохраненный результат.
+     *
+     * @return Результат.
+     */
+    private Object serve(LastGood saved) {
+        staleServed.increment();
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null) {
+            Object since = attributes.getAttribute(STALE_SINCE, RequestAttributes.SCOPE_REQUEST);
+            if (!(since instanceof LocalDateTime time) || saved.time().isBefore(time)) {
+                attributes.setAttribute(STALE_SINCE, saved.time(), RequestAttributes.SCOPE_REQUEST);
+            }
+        }
+        return saved.value();
+    }
+
+    /**
+     * Эта функция отличает сбой базы данных от ошибки в самом запросе или в данных.
+     *
+     * @param e Исключение вызова.
+     *
+     * @return true, если причина — недоступность или медленная работа базы данных.
+     */
+    private static boolean isDatabaseFailure(Throwable e) {
+        return e instanceof TransientDataAccessException || e instanceof DataAccessResourceFailureException
+                || e instanceof RecoverableDataAccessException || e instanceof CannotCreateTransactionException
+                || e instanceof jakarta.persistence.QueryTimeoutException;
+    }
+
+    /**
+     * Эта функция сообщает, истек ли срок текущего запроса (`Deadline`). Тайм-аут запроса, исчерпавшего
+     * свой срок, — следствие самого запроса (например, поиска по короткой подстроке), а не сбоя базы
+     * данных: он не учитывается выключателем, иначе несколько таких поисков одного пользователя открыли бы
+     * выключатель для всех. Такой запрос получает ответ 504, а не устаревшие данные. Проверяется только
+     * срок текущего потока, поэтому `SingleFlightAspect` не передает присоединившимся вызовам тайм-аут
+     * чужого срока, а выполняет их заново.
+     *
+     * @return true, если у потока есть срок и он истек.
+     */
+    private static boolean deadlineExpired() {
+        Deadline deadline = Deadline.current();
+        return deadline != null && deadline.expired();
+    }
+
+    /**
+     * Эта функция останавливает поток фоновых обновлений при остановке приложения.
+     */
+    @PreDestroy
+    public void shutdown() {
+        refresher.shutdownNow();
+    }
+}
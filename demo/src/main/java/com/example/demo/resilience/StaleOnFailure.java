@@ -0,0 +1,27 @@
+package com.example.demo.resilience;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Эта аннотация помечает метод чтения, последний удачный результат которого `StaleFallbackAspect`
+ * запоминает и выдает вместо ошибки, когда база данных недоступна или отвечает слишком медленно. Ключ
+ * результата — метод и нормализованные аргументы (см. `CallArguments`).
+ *
+ * Метод должен возвращать неизменяемый результат, который можно отдать нескольким потокам.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface StaleOnFailure {
+
+    /**
+     * Признак того, что метод использует только первый непустой аргумент (см. `Coalesced`).
+     *
+     * @return true, если учитывается только первый непустой аргумент.
+     */
+    boolean firstNonEmpty() default false;
+}
@@ -0,0 +1,122 @@
+package com.example.demo.routing;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Это класс конфигурации, который включается при заданном свойстве `app.datasource.replica.url` и
+ * заменяет единственный источник данных маршрутизирующим: чтение идет в пул реплики, запись — в пул
+ * основной базы данных из `spring.datasource.*`.
+ * 
+ * Настройки пулов задаются свойствами `spring.datasource.hikari.*` и
+ * `app.datasource.replica.hikari.*`, окно «чтения своих записей» — свойством
+ * `app.datasource.replica.sticky-window` (по умолчанию 5 секунд).
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.datasource.replica", name = "url")
+public class DataSourceRoutingConfig {
+
+    /** Пулы соединений, созданные этой конфигурацией и закрываемые при остановке приложения. */
+    private final List<HikariDataSource> pools = new ArrayList<>();
+
+    /**
+     * Эта функция создает объект учета недавних записей пользователей.
+     * 
+     * @param environment Окружение Spring, из которого читается длительность окна закрепления.
+     * 
+     * @return Объект ReplicaStickiness.
+     */
+    @Bean
+    public ReplicaStickiness replicaStickiness(Environment environment) {
+        Duration window = Binder.get(environment)
+                .bind("app.datasource.replica.sticky-window", Duration.class)
+                .orElse(Duration.ofSeconds(5));
+        return new ReplicaStickiness(window);
+    }
+
+    /**
+     * Эта функция подключает к Hibernate обработчик SQL-запросов, который закрепляет пользователя за
+     * основной базой данных после зафиксированного изменения данных.
+     * 
+     * @param stickiness Объект учета недавних записей пользователей.
+     * 
+     * @return Настройка свойств Hibernate.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer writeStatementInspector(ReplicaStickiness stickiness) {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR,
+                new WriteStatementInspector(stickiness));
+    }
+
+    /**
+     * Эта функция создает маршрутизирующий источник данных из двух пулов Hikari и оборачивает его в
+     * `LazyConnectionDataSourceProxy`.
+     * 
+     * @param properties Свойства `spring.datasource.*` основной базы данных.
+     * @param environment Окружение Spring со свойствами реплики.
+     * @param stickiness Объект учета недавних записей пользователей.
+     * 
+     * @return Источник данных, который используется JPA и всеми репозиториями.
+     */
+    @Bean
+    public DataSource dataSource(DataSourceProperties properties, Environment environment,
+                                 ReplicaStickiness stickiness) {
+        Binder binder = Binder.get(environment);
+
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primary.setPoolName("primary");
+        binder.bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+
+        HikariDataSource replica = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(environment.getRequiredProperty("app.datasource.replica.url"))
+                .username(environment.getProperty("app.datasource.replica.username", properties.determineUsername()))
+                .password(environment.getProperty("app.datasource.replica.password", properties.determinePassword()))
+                .build();
+        replica.setPoolName("replica");
+        replica.setReadOnly(true);
+        binder.bind("app.datasource.replica.hikari", Bindable.ofInstance(replica));
+
+        pools.add(primary);
+        pools.add(replica);
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(ReadWriteRoutingDataSource.PRIMARY, primary);
+        targets.put(ReadWriteRoutingDataSource.REPLICA, replica);
+
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(stickiness);
+        routing.setTargetDataSources(targets);
+        routing.setDefaultTargetDataSource(primary);
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    /**
+     * Эта функция закрывает пулы соединений основной базы данных и реплики при остановке приложения.
+     */
+    @PreDestroy
+    public void closePools() {
+        pools.forEach(HikariDataSource::close);
+    }
+}
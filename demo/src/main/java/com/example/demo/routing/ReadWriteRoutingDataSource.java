@@ -0,0 +1,55 @@
+package com.example.demo.routing;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Это источник данных, который выбирает целевой пул соединений для каждой транзакции: транзакции
+ * `@Transactional(readOnly = true)` отправляются на реплику, все остальные — на основную базу данных.
+ * 
+ * Источник данных должен быть обернут в `LazyConnectionDataSourceProxy`, чтобы физическое соединение
+ * запрашивалось только при первом SQL-запросе, когда признак readOnly текущей транзакции уже
+ * установлен.
+ * 
+ * Транзакции без признака readOnly также читают основную базу данных там, где нельзя опираться на
+ * отстающую реплику. Так загружаются данные в памяти — индексы подсказок, нечеткого поиска и столбцовый
+ * индекс ресурсов: после загрузки они поддерживаются событиями записей на основной базе, и загрузка с
+ * реплики потеряла бы изменения, которые до нее еще не дошли. Так же при входе в систему читается только
+ * что зарегистрированный пользователь. Пользователя за основной базой закрепляет не сама такая
+ * транзакция, а зафиксированное ею изменение данных (`WriteStatementInspector`).
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    /** Ключ основной базы данных, принимающей записи. */
+    public static final String PRIMARY = "primary";
+
+    /** Ключ реплики, обслуживающей чтение. */
+    public static final String REPLICA = "replica";
+
+    /** Учет недавних записей пользователей для гарантии «чтения своих записей». */
+    private final ReplicaStickiness stickiness;
+
+    /**
+     * Это конструктор, который сохраняет объект учета недавних записей.
+     * 
+     * @param stickiness Объект, который помнит, какие пользователи недавно выполняли запись.
+     */
+    public ReadWriteRoutingDataSource(ReplicaStickiness stickiness) {
+        this.stickiness = stickiness;
+    }
+
+    /**
+     * Эта функция определяет ключ целевого источника данных для текущего потока. Транзакции только для
+     * чтения уходят на реплику, если текущий пользователь недавно не выполнял запись; остальные
+     * транзакции уходят на основную базу данных.
+     * 
+     * @return Ключ `PRIMARY` или `REPLICA`.
+     */
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return stickiness.isPinnedToPrimary() ? PRIMARY : REPLICA;
+        }
+        return PRIMARY;
+    }
+}
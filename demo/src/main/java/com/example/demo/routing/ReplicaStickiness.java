@@ -0,0 +1,95 @@
+package com.example.demo.routing;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+/**
+ * Это класс, который обеспечивает гарантию «чтения своих записей» при чтении с реплики: после записи
+ * пользователь в течение заданного окна читает с основной базы данных, пока реплика догоняет
+ * основную.
+ */
+public class ReplicaStickiness {
+
+    /** Число отслеживаемых пользователей, после которого устаревшие записи удаляются из словаря. */
+    private static final int SWEEP_THRESHOLD = 1024;
+
+    /** Время последней записи (System.nanoTime) для каждого пользователя. */
+    private final Map<String, Long> lastWrites = new ConcurrentHashMap<>();
+
+    /** Длительность окна, в течение которого чтение пользователя закреплено за основной базой данных. */
+    private final long windowNanos;
+
+    /**
+     * Это конструктор, который задает длительность окна закрепления.
+     * 
+     * @param window Время после записи, в течение которого пользователь читает с основной базы данных.
+     */
+    public ReplicaStickiness(Duration window) {
+        this.windowNanos = window.toNanos();
+    }
+
+    /**
+     * Эта функция отмечает, что текущий пользователь только что выполнил запись.
+     */
+    public void recordWrite() {
+        String user = currentUser();
+        if (user == null || windowNanos <= 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        lastWrites.put(user, now);
+        if (lastWrites.size() > SWEEP_THRESHOLD) {
+            lastWrites.values().removeIf(time -> now - time > windowNanos);
+        }
+    }
+
+    /**
+     * Эта функция проверяет, должен ли текущий пользователь читать с основной базы данных.
+     * 
+     * @return true, если пользователь выполнял запись в пределах окна закрепления.
+     */
+    public boolean isPinnedToPrimary() {
+        String user = currentUser();
+        if (user == null) {
+            return false;
+        }
+        Long lastWrite = lastWrites.get(user);
+        if (lastWrite == null) {
+            return false;
+        }
+        if (System.nanoTime() - lastWrite > windowNanos) {
+            lastWrites.remove(user, lastWrite);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Эта функция возвращает окно закрепления — время, за которое реплика гарантированно догоняет
+     * основную базу данных.
+     * 
+     * @return Окно закрепления в наносекундах.
+     */
+    public long getWindowNanos() {
+        return windowNanos;
+    }
+
+    /**
+     * Эта функция возвращает имя аутентифицированного пользователя текущего потока.
+     * 
+     * @return Имя пользователя или null для анонимного запроса.
+     */
+    private String currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return authentication.getName();
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.demo.routing;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Это обработчик SQL-запросов Hibernate, который отмечает пользователя как недавно писавшего только тогда,
+ * когда транзакция действительно изменила данные. Транзакция на запись сама по себе об этом не говорит:
+ * вход в систему и загрузка индексов в памяти читают основную базу данных в транзакциях без признака
+ * readOnly, и если бы каждая такая транзакция закрепляла пользователя за основной базой, реплика почти
+ * не получала бы чтения.
+ * 
+ * Первый запрос транзакции, который не является выборкой (INSERT, UPDATE, DELETE, MERGE), регистрирует
+ * синхронизацию, и запись учитывается в `ReplicaStickiness` после фиксации транзакции; откаченная
+ * транзакция пользователя не закрепляет. Запросы, выполненные вне транзакции, учитываются сразу.
+ */
+public class WriteStatementInspector implements StatementInspector {
+
+    /** Учет недавних записей пользователей. */
+    private final ReplicaStickiness stickiness;
+
+    /**
+     * Это конструктор, который сохраняет объект учета недавних записей.
+     * 
+     * @param stickiness Объект, который помнит, какие пользователи недавно выполняли запись.
+     */
+    public WriteStatementInspector(ReplicaStickiness stickiness) {
+        this.stickiness = stickiness;
+    }
+
+    /**
+     * Эта функция проверяет SQL-запрос перед его подготовкой и регистрирует запись, если запрос изменяет
+     * данные. Сам запрос не меняется.
+     * 
+     * @param sql SQL-запрос, подготовленный Hibernate.
+     * 
+     * @return Тот же запрос.
+     */
+    @Override
+    public String inspect(String sql) {
+        if (isQuery(sql)) {
+            return sql;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            stickiness.recordWrite();
+        } else if (TransactionSynchronizationManager.getSynchronizations().stream()
+                .noneMatch(RecordWrite.class::isInstance)) {
+            TransactionSynchronizationManager.registerSynchronization(new RecordWrite());
+        }
+        return sql;
+    }
+
+    /**
+     * Эта функция проверяет, является ли запрос выборкой. Комментарий в начале запроса
+     * (`hibernate.use_sql_comments`) пропускается.
+     * 
+     * @param sql SQL-запрос.
+     * 
+     * @return true, если запрос начинается с SELECT или WITH.
+     */
+    static boolean isQuery(String sql) {
+        String statement = sql.stripLeading();
+        if (statement.startsWith("/*")) {
+            int end = statement.indexOf("*/");
+            statement = end < 0 ? "" : statement.substring(end + 2).stripLeading();
+        }
+        return statement.regionMatches(true, 0, "select", 0, 6) || statement.regionMatches(true, 0, "with", 0, 4);
+    }
+
+    /**
+     * Это синхронизация транзакции, которая учитывает запись пользователя после фиксации. Синхронизации
+     * приостановленной внешней транзакции в списке текущей не видны, поэтому вложенная транзакция
+     * (REQUIRES_NEW) регистрирует свою запись отдельно.
+     */
+    private class RecordWrite implements TransactionSynchronization {
+
+        /**
+         * Эта функция отмечает текущего пользователя как недавно писавшего.
+         */
+        @Override
+        public void afterCommit() {
+            stickiness.recordWrite();
+        }
+    }
+}
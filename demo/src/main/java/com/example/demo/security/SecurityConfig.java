@@ -1,18 +1,25 @@
 package com.example.demo.security;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.access.AccessDeniedHandler;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.context.RequestAttributeSecurityContextRepository;
+import org.springframework.security.web.savedrequest.NullRequestCache;
 
 import com.example.demo.CustomAccessDeniedHandler;
+import com.example.demo.ratelimit.RateLimitFilter;
+import com.example.demo.ratelimit.RateLimiter;
 
 /**
  * Это класс, который настраивает параметры безопасности для веб-приложения, включая
@@ -21,11 +28,32 @@ import com.example.demo.CustomAccessDeniedHandler;
  * Аннотация `@Configuration` указывает, что класс является классом конфигурации, который предоставляет
  * определения bean-компонентов. Аннотация `@EnableWebSecurity` включает поддержку веб-безопасности
  * Spring Security и предоставляет необходимые конфигурации для защиты веб-приложения.
+ * 
+ * При `app.security.stateless=true` приложение не использует `HttpSession`: после входа через форму
+ * пользователь получает cookie с подписанным токеном (`TokenService`), который проверяется при каждом
+ * запросе. Это позволяет запускать несколько экземпляров приложения за балансировщиком без привязки
+ * пользователя к узлу.
+ * 
+ * Если включено ограничение частоты запросов (`app.rate-limit.enabled`), фильтр `RateLimitFilter` стоит
+ * после восстановления пользователя из сеанса или токена и перед обработкой формы входа.
+ * 
+ * Проверки `/actuator/health/liveness` и `/actuator/health/readiness` доступны без входа, чтобы их мог
+ * опрашивать балансировщик нагрузки или оркестратор.
  */
 @Configuration
 @EnableWebSecurity
 public class SecurityConfig {
 
+    /** Служба токенов аутентификации. Существует только в режиме без сеансов
+    * (`app.security.stateless=true`); иначе поле остается null и используется вход с `HttpSession`.
+    */
+    @Autowired(required = false)
+    private TokenService tokens;
+
+    /** Ограничитель частоты запросов. Существует только при `app.rate-limit.enabled=true`. */
+    @Autowired(required = false)
+    private RateLimiter rateLimiter;
+
     /**
      * Эта функция возвращает экземпляр класса UserInfoDetailsService как UserDetailsService.
      * 
@@ -72,9 +100,9 @@ public class SecurityConfig {
      */
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception{
-        return http.csrf().disable()
+        http.csrf().disable()
                 .authorizeHttpRequests()
-                .requestMatchers("/reg").permitAll()
+                .requestMatchers("/reg", "/actuator/health/liveness", "/actuator/health/readiness").permitAll()
                 .and()
                 .authorizeHttpRequests().requestMatchers("/**").authenticated()
                 .and().formLogin().loginPage("/login_page").defaultSuccessUrl("/").permitAll()
@@ -85,8 +113,25 @@ public class SecurityConfig {
                 .logout()
                 .logoutSuccessUrl("/login_page")
                 .invalidateHttpSession(true)
-                .deleteCookies("JSESSIONID")
-                .and().build();
+                .deleteCookies("JSESSIONID");
+        if (tokens != null) {
+            http.sessionManagement().sessionCreationPolicy(SessionCreationPolicy.STATELESS)
+                    .and()
+                    .securityContext().securityContextRepository(new RequestAttributeSecurityContextRepository())
+                    .and()
+                    .requestCache().requestCache(new NullRequestCache())
+                    .and()
+                    .formLogin().successHandler(new TokenIssuingSuccessHandler(tokens, "/"))
+                    .and()
+                    .logout().deleteCookies(tokens.getCookieName())
+                    .and()
+                    .addFilterBefore(new TokenAuthenticationFilter(tokens), UsernamePasswordAuthenticationFilter.class);
+        }
+        if (rateLimiter != null) {
+            // добавляется после фильтра токенов, поэтому на той же позиции цепочки выполняется после него
+            http.addFilterBefore(new RateLimitFilter(rateLimiter), UsernamePasswordAuthenticationFilter.class);
+        }
+        return http.build();
     }
 
     /**
@@ -0,0 +1,60 @@
+package com.example.demo.security;
+
+import java.io.IOException;
+
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Класс TokenAuthenticationFilter восстанавливает аутентификацию пользователя из подписанного токена в
+ * cookie при каждом запросе. Проверка выполняется только по подписи и сроку действия токена, без
+ * обращения к базе данных и без `HttpSession`. Если прошла половина срока действия токена, фильтр
+ * выпускает новый токен, чтобы активный пользователь не был выведен из системы.
+ */
+public class TokenAuthenticationFilter extends OncePerRequestFilter {
+
+    /** Служба, которая проверяет и выпускает токены. */
+    private final TokenService tokens;
+
+    /**
+     * Конструктор создает фильтр.
+     * 
+     * @param tokens Служба токенов.
+     */
+    public TokenAuthenticationFilter(TokenService tokens) {
+        this.tokens = tokens;
+    }
+
+    /**
+     * Эта функция проверяет токен запроса и, если он действителен, помещает аутентификацию пользователя в
+     * контекст безопасности на время запроса.
+     * 
+     * @param request HTTP-запрос.
+     * @param response HTTP-ответ.
+     * @param chain Цепочка фильтров.
+     */
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        TokenService.TokenClaims claims = tokens.verify(tokens.read(request));
+        if (claims != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            Authentication authentication = UsernamePasswordAuthenticationToken.authenticated(
+                    claims.name(), null, claims.authorities());
+            SecurityContext context = SecurityContextHolder.createEmptyContext();
+            context.setAuthentication(authentication);
+            SecurityContextHolder.setContext(context);
+            if (tokens.shouldRenew(claims)) {
+                tokens.write(response, authentication);
+            }
+        }
+        chain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.demo.security;
+
+import java.io.IOException;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.web.authentication.SimpleUrlAuthenticationSuccessHandler;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Класс TokenIssuingSuccessHandler после успешного входа через форму записывает в ответ cookie с
+ * подписанным токеном и перенаправляет пользователя на главную страницу, как и обычный вход с сеансом.
+ */
+public class TokenIssuingSuccessHandler extends SimpleUrlAuthenticationSuccessHandler {
+
+    /** Служба, которая выпускает токены. */
+    private final TokenService tokens;
+
+    /**
+     * Конструктор создает обработчик.
+     * 
+     * @param tokens Служба токенов.
+     * @param defaultTargetUrl Адрес, на который пользователь перенаправляется после входа.
+     */
+    public TokenIssuingSuccessHandler(TokenService tokens, String defaultTargetUrl) {
+        super(defaultTargetUrl);
+        this.tokens = tokens;
+    }
+
+    /**
+     * Эта функция выпускает токен для вошедшего пользователя и выполняет перенаправление.
+     * 
+     * @param request HTTP-запрос.
+     * @param response HTTP-ответ.
+     * @param authentication Результат успешной аутентификации.
+     */
+    @Override
+    public void onAuthenticationSuccess(HttpServletRequest request, HttpServletResponse response,
+                                        Authentication authentication) throws IOException, ServletException {
+        tokens.write(response, authentication);
+        super.onAuthenticationSuccess(request, response, authentication);
+    }
+}
@@ -0,0 +1,266 @@
+package com.example.demo.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Класс TokenService выпускает и проверяет подписанные токены аутентификации для режима без сеансов
+ * (`app.security.stateless=true`). Токен содержит имя пользователя, его полномочия и время истечения и
+ * подписан HMAC-SHA256 общим для всех узлов секретом `app.security.token.secret`, поэтому любой узел
+ * может проверить его без обращения к базе данных и без `HttpSession`.
+ * 
+ * Токен передается в cookie с флагом HttpOnly. Формат токена:
+ * `base64url(имя).base64url(полномочия через запятую).время истечения в секундах.base64url(подпись)`.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.security", name = "stateless", havingValue = "true")
+public class TokenService {
+
+    /** Алгоритм подписи токена. */
+    private static final String ALGORITHM = "HmacSHA256";
+
+    /** Кодировщик Base64 для URL без дополнения. */
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    /** Декодер Base64 для URL. */
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    /** Ключ подписи. */
+    private final SecretKeySpec key;
+
+    /** Время жизни токена. */
+    private final Duration ttl;
+
+    /** Имя cookie с токеном. */
+    private final String cookieName;
+
+    /** Признак того, что cookie передается только по HTTPS. */
+    private final boolean secureCookie;
+
+    /**
+     * Конструктор создает службу токенов и проверяет, что секрет задан и достаточно длинный.
+     * 
+     * @param secret Общий секрет подписи, не короче 32 байт.
+     * @param ttl Время жизни токена.
+     * @param cookieName Имя cookie с токеном.
+     * @param secureCookie Признак того, что cookie передается только по HTTPS.
+     */
+    public TokenService(@Value("${app.security.token.secret:}") String secret,
+                        @Value("${app.security.token.ttl:PT8H}") Duration ttl,
+                        @Value("${app.security.token.cookie:AUTH_TOKEN}") String cookieName,
+                        @Value("${app.security.token.secure-cookie:false}") boolean secureCookie) {
+        byte[] secretBytes = secret.getBytes(StandardCharsets.UTF_8);
+        if (secretBytes.length < 32) {
+            throw new IllegalStateException(
+                    "app.security.token.secret must be at least 32 bytes when app.security.stateless=true");
+        }
+        this.key = new SecretKeySpec(secretBytes, ALGORITHM);
+        this.ttl = ttl;
+        this.cookieName = cookieName;
+        this.secureCookie = secureCookie;
+    }
+
+    /**
+     * Эта функция выпускает токен для аутентифицированного пользователя.
+     * 
+     * @param authentication Результат успешной аутентификации.
+     * 
+     * @return Подписанный токен.
+     */
+    public String issue(Authentication authentication) {
+        String authorities = authentication.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .collect(Collectors.joining(","));
+        long expires = Instant.now().plus(ttl).getEpochSecond();
+        String payload = encode(authentication.getName()) + "." + encode(authorities) + "." + expires;
+        return payload + "." + ENCODER.encodeToString(sign(payload));
+    }
+
+    /**
+     * Эта функция проверяет подпись и срок действия токена и извлекает из него данные пользователя.
+     * 
+     * @param token Токен из cookie.
+     * 
+     * @return Данные пользователя или null, если токен поврежден, подделан или истек.
+     */
+    public TokenClaims verify(String token) {
+        if (token == null) {
+            return null;
+        }
+        int signatureStart = token.lastIndexOf('.');
+        String[] parts = token.split("\\.");
+        if (signatureStart < 0 || parts.length != 4) {
+            return null;
+        }
+        try {
+            String payload = token.substring(0, signatureStart);
+            byte[] signature = DECODER.decode(parts[3]);
+            if (!MessageDigest.isEqual(sign(payload), signature)) {
+                return null;
+            }
+            Instant expires = Instant.ofEpochSecond(Long.parseLong(parts[2]));
+            if (!Instant.now().isBefore(expires)) {
+                return null;
+            }
+            String authorities = decode(parts[1]);
+            List<GrantedAuthority> granted = authorities.isEmpty() ? List.of()
+                    : Arrays.stream(authorities.split(","))
+                            .<GrantedAuthority>map(SimpleGrantedAuthority::new)
+                            .toList();
+            return new TokenClaims(decode(parts[0]), granted, expires);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Эта функция возвращает токен из cookie запроса.
+     * 
+     * @param request HTTP-запрос.
+     * 
+     * @return Токен или null, если cookie нет.
+     */
+    public String read(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return null;
+        }
+        for (Cookie cookie : cookies) {
+            if (cookieName.equals(cookie.getName())) {
+                return cookie.getValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Эта функция записывает в ответ cookie с новым токеном пользователя.
+     * 
+     * @param response HTTP-ответ.
+     * @param authentication Результат успешной аутентификации.
+     */
+    public void write(HttpServletResponse response, Authentication authentication) {
+        addCookie(response, issue(authentication), ttl);
+    }
+
+    /**
+     * Эта функция удаляет cookie с токеном, например при выходе из системы.
+     * 
+     * @param response HTTP-ответ.
+     */
+    public void clear(HttpServletResponse response) {
+        addCookie(response, "", Duration.ZERO);
+    }
+
+    /**
+     * Эта функция сообщает, пора ли продлить токен: продление выполняется, когда прошла половина срока
+     * его действия.
+     * 
+     * @param claims Данные проверенного токена.
+     * 
+     * @return true, если до истечения токена осталось меньше половины времени жизни.
+     */
+    public boolean shouldRenew(TokenClaims claims) {
+        return Duration.between(Instant.now(), claims.expires()).compareTo(ttl.dividedBy(2)) < 0;
+    }
+
+    /**
+     * Эта функция возвращает имя cookie с токеном.
+     * 
+     * @return Имя cookie.
+     */
+    public String getCookieName() {
+        return cookieName;
+    }
+
+    /**
+     * Эта функция добавляет в ответ cookie с токеном.
+     * 
+     * @param response HTTP-ответ.
+     * @param value Значение cookie.
+     * @param maxAge Время жизни cookie.
+     */
+    private void addCookie(HttpServletResponse response, String value, Duration maxAge) {
+        ResponseCookie cookie = ResponseCookie.from(cookieName, value)
+                .httpOnly(true)
+                .secure(secureCookie)
+                .sameSite("Lax")
+                .path("/")
+                .maxAge(maxAge)
+                .build();
+        response.addHeader(HttpHeaders.SET_COOKIE, cookie.toString());
+    }
+
+    /**
+     * Эта функция вычисляет подпись HMAC-SHA256 строки.
+     * 
+     * @param payload Подписываемая строка.
+     * 
+     * @return Подпись.
+     */
+    private byte[] sign(String payload) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac.doFinal(payload.getBytes(StandardCharsets.US_ASCII));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot sign authentication token", e);
+        }
+    }
+
+    /**
+     * Эта функция кодирует строку в Base64 для URL.
+     * 
+     * @param value Кодируемая строка.
+     * 
+     * @return Закодированная строка.
+     */
+    private static String encode(String value) {
+        return ENCODER.encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Эта функция декодирует строку из Base64 для URL.
+     * 
+     * @param value Закодированная строка.
+     * 
+     * @return Исходная строка.
+     */
+    private static String decode(String value) {
+        return new String(DECODER.decode(value), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Это данные пользователя, извлеченные из проверенного токена.
+     * 
+     * @param name Имя пользователя.
+     * @param authorities Полномочия пользователя.
+     * @param expires Время истечения токена.
+     */
+    public record TokenClaims(String name, Collection<GrantedAuthority> authorities, Instant expires) {
+    }
+}
@@ -1,6 +1,8 @@
 package com.example.demo.security;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -13,10 +15,13 @@ import lombok.NoArgsConstructor;
  * является сущностью JPA, что означает, что он может быть сохранен в базе данных. Аннотация `@Data`
  * взята из библиотеки Lombok и генерирует шаблонный код для геттеров, сеттеров и других методов.
  * Аннотации `@AllArgsConstructor` и `@NoArgsConstructor` генерируют конструкторы с аргументами и без
- * аргументов соответственно.
+ * аргументов соответственно. Аннотации `@Cacheable` и `@Cache` помещают сущность в регион «users»
+ * кэша второго уровня со стратегией READ_WRITE.
  */
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "users")
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
@@ -1,7 +1,12 @@
 package com.example.demo.security;
 
 
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.QueryHint;
 
 
 import java.util.Optional;
@@ -22,8 +27,14 @@ public interface UserInfoRepository extends JpaRepository<UserInfo,Long> {
      * который может содержать или не содержать информацию о пользователе.
      * 
      * @return Метод возвращает необязательный объект, содержащий экземпляр класса UserInfo, или пустой
-     * необязательный объект, если пользователь с указанным именем пользователя не найден.
+     * необязательный объект, если пользователь с указанным именем пользователя не найден. Результат
+     * запроса кэшируется в кэше запросов Hibernate, а сама сущность — в регионе «users». Метод
+     * выполняется в транзакции на запись, поэтому при включенной реплике вход в систему всегда читает
+     * основную базу данных и не зависит от задержки репликации только что зарегистрированного
+     * пользователя.
      */
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<UserInfo> findByName(String username);
 
 }
@@ -0,0 +1,29 @@
+package com.example.demo.singleflight;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Эта аннотация помечает метод чтения, одинаковые одновременные вызовы которого объединяются
+ * `SingleFlightAspect`: пока выполняется первый вызов, остальные вызовы с тем же нормализованным ключом
+ * ждут его и получают тот же результат, не обращаясь к базе данных.
+ * 
+ * Метод должен возвращать неизменяемый результат, который можно отдать нескольким потокам.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Coalesced {
+
+    /**
+     * Признак того, что метод использует только первый непустой аргумент (как методы поиска по
+     * критериям). Тогда ключ вызова — номер и значение этого аргумента, и вызовы, отличающиеся только
+     * неиспользуемыми аргументами, объединяются.
+     * 
+     * @return true, если учитывается только первый непустой аргумент.
+     */
+    boolean firstNonEmpty() default false;
+}
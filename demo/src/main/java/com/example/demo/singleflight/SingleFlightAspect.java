@@ -0,0 +1,191 @@
+package com.example.demo.singleflight;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.stereotype.Component;
+
+import com.example.demo.cache.DataVersions;
+import com.example.demo.deadline.Deadline;
+import com.example.demo.routing.ReplicaStickiness;
+import com.example.demo.support.CallArguments;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Это аспект, который объединяет одинаковые одновременные вызовы методов, помеченных `@Coalesced`
+ * (single-flight). Первый вызов с данным ключом выполняется, а вызовы с тем же ключом, пришедшие до его
+ * завершения, ждут и получают тот же результат или то же исключение. Завершенные вызовы не
+ * запоминаются: это не кэш, а только слияние запросов, находящихся в работе одновременно.
+ * 
+ * В ключ вызова входят версии данных таблиц (`DataVersions`), поэтому объединение не пересекает
+ * фиксацию записи: вызов, начатый после сохранения, не присоединяется к вызову, который начался до него
+ * и мог прочитать старые данные. Так пользователь после перенаправления видит свое изменение, а кэш
+ * результатов не сохраняет старый список под новой версией.
+ * 
+ * Аспект выполняется раньше транзакционного совета (`@Order(20)` против `Ordered.LOWEST_PRECEDENCE`),
+ * поэтому ожидающие вызовы не открывают транзакций и не занимают соединений с базой данных. Вызовы
+ * пользователя, закрепленного за основной базой после записи, объединяются только между собой, чтобы
+ * он не получил результат, прочитанный с реплики.
+ * 
+ * Срок HTTP-запроса (`Deadline`) у каждого вызова свой. Присоединившийся вызов ждет результат не дольше
+ * своего срока и по его истечении завершается `QueryTimeoutException`, как если бы сам выполнял запрос.
+ * Если же выполнявший вызов прерван по истечении своего срока, ожидающие вызовы не получают его тайм-аут
+ * (для них это не сбой базы данных и не повод показывать устаревшие данные), а выполняют вызов заново.
+ * 
+ * Метрики: `search.coalescing.calls` с тегом `role` (leader — выполненные вызовы, follower —
+ * присоединившиеся) и `search.coalescing.ratio` — доля присоединившихся вызовов.
+ */
+@Aspect
+@Component
+@Order(20)
+public class SingleFlightAspect {
+
+    /**
+     * Это ключ вызова: метод, нормализованные аргументы, версии данных таблиц и признак закрепления за
+     * основной базой.
+     * 
+     * @param method Имя метода.
+     * @param args Нормализованные аргументы.
+     * @param versions Номера версий всех таблиц в момент вызова.
+     * @param primary true, если пользователь читает с основной базы данных.
+     */
+    record CallKey(String method, List<Object> args, List<Long> versions, boolean primary) {
+    }
+
+    /**
+     * Это признак, которым выполнявший вызов завершает ожидающих, если он прерван по истечении своего
+     * срока. Стек не заполняется: исключение не покидает аспект.
+     */
+    private static final Throwable LEADER_DEADLINE_EXPIRED = new Throwable("Leader deadline expired", null, false,
+            false) {
+    };
+
+    /** Выполняющиеся вызовы по ключу. */
+    private final ConcurrentMap<CallKey, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    /** Версии данных таблиц. */
+    @Autowired
+    private DataVersions dataVersions;
+
+    /** Закрепление пользователей за основной базой; существует только при настроенной реплике. */
+    @Autowired(required = false)
+    private ReplicaStickiness stickiness;
+
+    /** Счетчик выполненных вызовов. */
+    private final Counter leaders;
+
+    /** Счетчик вызовов, получивших чужой результат. */
+    private final Counter followers;
+
+    /**
+     * Конструктор регистрирует метрики аспекта.
+     * 
+     * @param registry Реестр метрик Micrometer.
+     */
+    public SingleFlightAspect(MeterRegistry registry) {
+        this.leaders = Counter.builder("search.coalescing.calls").tag("role", "leader")
+                .description("Searches executed against the database").register(registry);
+        this.followers = Counter.builder("search.coalescing.calls").tag("role", "follower")
+                .description("Searches served by joining an identical in-flight call").register(registry);
+        Gauge.builder("search.coalescing.ratio", this, SingleFlightAspect::ratio)
+                .description("Share of searches that joined an in-flight call").register(registry);
+    }
+
+    /**
+     * Эта функция выполняет вызов или присоединяется к уже выполняющемуся вызову с тем же ключом.
+     * 
+     * @param joinPoint Перехваченный вызов.
+     * @param coalesced Аннотация метода.
+     * 
+     * @return Результат вызова.
+     */
+    @Around("@annotation(coalesced)")
+    public Object coalesce(ProceedingJoinPoint joinPoint, Coalesced coalesced) throws Throwable {
+        CallKey key = new CallKey(joinPoint.getSignature().toLongString(),
+                CallArguments.normalize(joinPoint.getArgs(), coalesced.firstNonEmpty()), dataVersions.numbers(),
+                stickiness != null && stickiness.isPinnedToPrimary());
+        CompletableFuture<Object> own = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, own);
+        if (existing != null) {
+            followers.increment();
+            try {
+                return await(existing);
+            } catch (ExecutionException e) {
+                if (e.getCause() == LEADER_DEADLINE_EXPIRED) {
+                    return coalesce(joinPoint, coalesced);
+                }
+                throw e.getCause();
+            }
+        }
+        leaders.increment();
+        Object result;
+        try {
+            result = joinPoint.proceed();
+        } catch (Throwable e) {
+            inFlight.remove(key, own);
+            own.completeExceptionally(deadlineExpired() ? LEADER_DEADLINE_EXPIRED : e);
+            throw e;
+        }
+        inFlight.remove(key, own);
+        own.complete(result);
+        return result;
+    }
+
+    /**
+     * Эта функция ждет результат выполняющегося вызова не дольше срока текущего запроса. Без срока
+     * ожидание не ограничено.
+     * 
+     * @param call Выполняющийся вызов.
+     * 
+     * @return Результат вызова.
+     * 
+     * @throws ExecutionException Вызов завершился исключением.
+     * @throws InterruptedException Поток прерван во время ожидания.
+     * @throws QueryTimeoutException Срок текущего запроса истек раньше, чем вызов завершился.
+     */
+    private static Object await(CompletableFuture<Object> call) throws ExecutionException, InterruptedException {
+        Deadline deadline = Deadline.current();
+        if (deadline == null) {
+            return call.get();
+        }
+        try {
+            return call.get(Math.max(deadline.remainingNanos(), 0), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw new QueryTimeoutException("Request deadline expired while waiting for an identical call");
+        }
+    }
+
+    /**
+     * Эта функция сообщает, истек ли срок текущего запроса.
+     * 
+     * @return true, если у потока есть срок и он истек.
+     */
+    private static boolean deadlineExpired() {
+        Deadline deadline = Deadline.current();
+        return deadline != null && deadline.expired();
+    }
+
+    /**
+     * Эта функция вычисляет долю вызовов, получивших результат чужого вызова.
+     * 
+     * @return Отношение числа присоединившихся вызовов к общему числу вызовов.
+     */
+    private double ratio() {
+        double total = leaders.count() + followers.count();
+        return total == 0 ? 0 : followers.count() / total;
+    }
+}
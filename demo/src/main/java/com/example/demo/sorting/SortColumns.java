@@ -0,0 +1,94 @@
+package com.example.demo.sorting;
+
+import java.util.Locale;
+import java.util.Map;
+
+import org.springframework.data.domain.Sort;
+
+/**
+ * Это класс, который переводит параметры сортировки из запроса (`sort` и `dir`) в порядок сортировки
+ * Spring Data для таблиц ресурсов и поставщиков. Допускаются только перечисленные здесь столбцы, поэтому
+ * значение параметра из адреса страницы никогда не попадает в текст запроса напрямую.
+ * Каждому столбцу соответствует составной индекс (столбец, идентификатор) в `@Table` сущностей: к
+ * порядку по столбцу добавляется порядок по идентификатору, так что строки с одинаковыми значениями
+ * всегда выводятся в одном и том же порядке, а база данных читает строки по индексу вместо сортировки
+ * всего результата. Исключение — тип ресурса: ресурсы упорядочиваются по названию из словаря типов, а
+ * индекс (type_id, resid) хранит идентификаторы, поэтому такой порядок база данных получает сортировкой.
+ */
+public final class SortColumns {
+
+    /**
+     * Столбцы ресурсов: имя параметра и свойство в запросе. Название поставщика берется из
+     * присоединенной сущности поставщика с псевдонимом `s`, название типа — из присоединенной записи
+     * словаря типов с псевдонимом `t`.
+     */
+    private static final Map<String, String> RESOURCE_COLUMNS = Map.of(
+            "name", "name",
+            "type", "t.name",
+            "quantity", "quantity",
+            "cost", "cost",
+            "acdate", "acdate",
+            "supplier", "s.name");
+
+    /** Столбцы поставщиков: имя параметра и свойство в запросе. */
+    private static final Map<String, String> SUPPLIER_COLUMNS = Map.of(
+            "id", "supid",
+            "name", "name",
+            "phone", "phone",
+            "email", "email");
+
+    private SortColumns() {
+    }
+
+    /**
+     * Эта функция возвращает порядок сортировки ресурсов.
+     *
+     * @param column Столбец: name, type, quantity, cost, acdate или supplier; пустое значение означает
+     * порядок, выбранный базой данных.
+     * @param direction Направление: asc или desc; пустое значение означает asc.
+     *
+     * @return Порядок сортировки или null, если столбец или направление не распознаны.
+     */
+    public static Sort resources(String column, String direction) {
+        return sort(RESOURCE_COLUMNS, column, direction, "resid");
+    }
+
+    /**
+     * Эта функция возвращает порядок сортировки поставщиков.
+     *
+     * @param column Столбец: id, name, phone или email; пустое значение означает порядок, выбранный
+     * базой данных.
+     * @param direction Направление: asc или desc; пустое значение означает asc.
+     *
+     * @return Порядок сортировки или null, если столбец или направление не распознаны.
+     */
+    public static Sort suppliers(String column, String direction) {
+        return sort(SUPPLIER_COLUMNS, column, direction, "supid");
+    }
+
+    /**
+     * Эта функция строит порядок сортировки по разрешенному столбцу с идентификатором в качестве
+     * второго ключа.
+     *
+     * @param columns Разрешенные столбцы.
+     * @param column Столбец из запроса.
+     * @param direction Направление из запроса.
+     * @param id Свойство идентификатора.
+     *
+     * @return Порядок сортировки или null, если параметры не распознаны.
+     */
+    private static Sort sort(Map<String, String> columns, String column, String direction, String id) {
+        if (column == null || column.isBlank()) {
+            return Sort.unsorted();
+        }
+        String property = columns.get(column.toLowerCase(Locale.ROOT));
+        Sort.Direction dir = direction == null || direction.isBlank()
+                ? Sort.Direction.ASC
+                : Sort.Direction.fromOptionalString(direction).orElse(null);
+        if (property == null || dir == null) {
+            return null;
+        }
+        Sort sort = Sort.by(dir, property);
+        return property.equals(id) ? sort : sort.and(Sort.by(dir, id));
+    }
+}
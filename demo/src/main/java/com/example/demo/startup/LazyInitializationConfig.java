@@ -0,0 +1,37 @@
+package com.example.demo.startup;
+
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.example.demo.aggregate.InventoryAggregates;
+import com.example.demo.audit.AuditLog;
+import com.example.demo.diagnostics.DiagnosticLog;
+
+/**
+ * Это класс конфигурации, который перечисляет компоненты, создаваемые сразу при запуске даже при
+ * `spring.main.lazy-initialization=true` (профиль `slim`). Остальные компоненты создаются при первом
+ * обращении; индексы в памяти и так создаются и заполняются в момент готовности приложения своими
+ * обработчиками `ApplicationReadyEvent`.
+ * <ul>
+ * <li>`InventoryAggregates` — периодическая сверка `@Scheduled` регистрируется только при создании
+ * компонента;</li>
+ * <li>`DiagnosticLog` — иначе он создавался бы внутри первого SQL-запроса, вместе с потоком журнала;</li>
+ * <li>`AuditLog` — каталог журнала блокируется и проверяется при запуске, а не при первом изменении.</li>
+ * </ul>
+ */
+@Configuration(proxyBeanMethods = false)
+public class LazyInitializationConfig {
+
+    /**
+     * Эта функция создает фильтр компонентов, исключенных из ленивого создания. Метод статический, так как
+     * фильтр нужен на этапе обработки определений компонентов.
+     *
+     * @return Фильтр LazyInitializationExcludeFilter.
+     */
+    @Bean
+    static LazyInitializationExcludeFilter eagerComponents() {
+        return LazyInitializationExcludeFilter.forBeanTypes(InventoryAggregates.class, DiagnosticLog.class,
+                AuditLog.class);
+    }
+}
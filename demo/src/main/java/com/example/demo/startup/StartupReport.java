@@ -0,0 +1,76 @@
+package com.example.demo.startup;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.support.ServletRequestHandledEvent;
+
+/**
+ * Это класс, который записывает в журнал отчет о запуске приложения: через сколько миллисекунд после
+ * старта JVM приложение готово принимать запросы и когда обработан первый запрос, сколько классов
+ * загружено и сколько памяти кучи занято к этим моментам. С профилем `slim` (ленивое создание
+ * компонентов) часть работы переносится с запуска на первый запрос, поэтому оба момента показываются
+ * отдельно; отчеты разных сборок и профилей можно сравнивать между собой.
+ */
+@Component
+public class StartupReport {
+
+    /** Журнал отчета. */
+    private static final Logger log = LoggerFactory.getLogger(StartupReport.class);
+
+    /** Признак того, что первый запрос уже обработан и записан в журнал. */
+    private final AtomicBoolean firstRequestReported = new AtomicBoolean();
+
+    /**
+     * Эта функция записывает в журнал состояние приложения в момент готовности.
+     *
+     * @param event Событие готовности приложения.
+     */
+    @EventListener
+    public void applicationReady(ApplicationReadyEvent event) {
+        log.info("Ready {} ms after JVM start (context {} ms), {}", uptime(), event.getTimeTaken().toMillis(),
+                resources());
+    }
+
+    /**
+     * Эта функция записывает в журнал состояние приложения после первого обработанного запроса.
+     * Последующие запросы только проверяют признак.
+     *
+     * @param event Событие обработки запроса, которое публикует `DispatcherServlet`.
+     */
+    @EventListener
+    public void requestHandled(ServletRequestHandledEvent event) {
+        if (!firstRequestReported.get() && firstRequestReported.compareAndSet(false, true)) {
+            log.info("First request {} {} -> {} took {} ms, finished {} ms after JVM start, {}",
+                    event.getMethod(), event.getRequestUrl(), event.getStatusCode(),
+                    event.getProcessingTimeMillis(), uptime(), resources());
+        }
+    }
+
+    /**
+     * Эта функция возвращает время работы JVM.
+     *
+     * @return Миллисекунды с начала работы JVM.
+     */
+    private static long uptime() {
+        return ManagementFactory.getRuntimeMXBean().getUptime();
+    }
+
+    /**
+     * Эта функция описывает число загруженных классов и занятую память кучи.
+     *
+     * @return Строка для журнала.
+     */
+    private static String resources() {
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        return String.format("%d classes loaded, heap %.1f MiB used of %.1f MiB committed",
+                ManagementFactory.getClassLoadingMXBean().getLoadedClassCount(),
+                heap.getUsed() / 1048576.0, heap.getCommitted() / 1048576.0);
+    }
+}
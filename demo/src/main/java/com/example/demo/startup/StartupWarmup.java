@@ -0,0 +1,660 @@
+package com.example.demo.startup;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.sql.DataSource;
+
+import org.hibernate.type.StandardBasicTypes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.DispatcherServlet;
+import org.thymeleaf.TemplateSpec;
+import org.thymeleaf.cache.ICache;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.templatemode.TemplateMode;
+
+import com.example.demo.ResourceRepository;
+import com.example.demo.SupplierRepository;
+import com.example.demo.deadline.Deadline;
+import com.zaxxer.hikari.HikariDataSource;
+
+import jakarta.persistence.EntityManager;
+import jakarta.servlet.ServletContext;
+
+/**
+ * Это класс, который прогревает приложение после запуска, прежде чем оно объявит себя готовым принимать
+ * трафик: после первого развертывания первые минуты запросы медленные — пул соединений пуст, планы
+ * запросов Hibernate и шаблоны Thymeleaf не разобраны, код поиска не скомпилирован JIT.
+ *
+ * Прогрев начинается, когда Spring Boot переводит приложение в состояние ACCEPTING_TRAFFIC, то есть после
+ * загрузки индексов в памяти, и выполняется по шагам:
+ * <ol>
+ * <li>соединения — из каждого пула Hikari (и основной базы данных, и реплики) одновременно берется
+ * `minimum-idle` соединений (или `app.warmup.connections`), чтобы пул создал их сразу, а не под
+ * нагрузкой;</li>
+ * <li>запросы — каждый запрос чтения `ResourceRepository` и `SupplierRepository` выполняется один раз в
+ * транзакции только для чтения с ограничением в одну запись, так что запрос разобран и его план в кэше,
+ * но таблицы целиком не читаются;</li>
+ * <li>страницы — адреса `app.warmup.pages` запрашиваются через `DispatcherServlet` от имени пользователя
+ * «warmup»: выполняются контроллеры, сервисы и кэши, а страницы полностью отрисовываются;</li>
+ * <li>шаблоны — каждый шаблон из `templates/` разбирается в кэш шаблонов Thymeleaf, в том числе шаблоны,
+ * которые не отрисовываются на предыдущем шаге (формы редактирования, страницы ошибок);</li>
+ * <li>выборка поиска — если задан `app.warmup.replay-file`, записанные в нем запросы GET выполняются так же,
+ * как страницы.</li>
+ * </ol>
+ * Страницы и записанные запросы проходят через `DispatcherServlet` без фильтров безопасности, ограничения
+ * частоты и допуска, поэтому сервлет должен быть создан при запуске (`spring.mvc.servlet.load-on-startup`).
+ * До окончания прогрева `WarmupHealthIndicator` сообщает OUT_OF_SERVICE, поэтому группа
+ * `/actuator/health/readiness` не переходит в UP. Весь прогрев ограничен сроком `app.warmup.timeout`:
+ * по его истечении оставшиеся шаги пропускаются, а приложение все равно объявляется готовым. Ошибка
+ * отдельного запроса или шаблона записывается в журнал и не останавливает прогрев.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.warmup", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class StartupWarmup {
+
+    /** Журнал шагов прогрева. */
+    private static final Logger log = LoggerFactory.getLogger(StartupWarmup.class);
+
+    /**
+     * Строковый аргумент производных методов, который не должен находить записей. Это число, так как
+     * строка может сравниваться с числовым полем.
+     */
+    private static final String PROBE = "9999999999";
+
+    /**
+     * Параметр запроса `@Query` вместе со знаками `%` вокруг него: Spring Data добавляет их к значению
+     * параметра, а JPQL такой записи не понимает.
+     */
+    private static final Pattern LIKE_PARAMETER = Pattern.compile("%?\\?(\\d+)%?");
+
+    /** Источник данных приложения. */
+    @Autowired
+    private DataSource dataSource;
+
+    /** Репозиторий ресурсов. */
+    @Autowired
+    private ResourceRepository repoRes;
+
+    /** Репозиторий поставщиков. */
+    @Autowired
+    private SupplierRepository repoSup;
+
+    /** Менеджер сущностей для запросов прогрева, которые выполняются без репозитория. */
+    @Autowired
+    private EntityManager entityManager;
+
+    /** Менеджер транзакций для запросов прогрева. */
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /** Поиск файлов шаблонов. */
+    @Autowired
+    private ResourcePatternResolver resources;
+
+    /** Контекст сервлетов приложения. */
+    @Autowired
+    private ServletContext servletContext;
+
+    /** Движок шаблонов Thymeleaf; отсутствует, если Thymeleaf отключен. */
+    @Autowired(required = false)
+    private SpringTemplateEngine templateEngine;
+
+    /** Сервлет, через который выполняются страницы и записанные запросы. */
+    @Autowired(required = false)
+    private DispatcherServlet dispatcherServlet;
+
+    /** Число соединений, которые берутся из каждого пула; 0 — по `minimum-idle` пула. */
+    private final int connections;
+
+    /** Каталог шаблонов (`spring.thymeleaf.prefix`). */
+    private final String templatePrefix;
+
+    /** Расширение файлов шаблонов (`spring.thymeleaf.suffix`). */
+    private final String templateSuffix;
+
+    /** Страницы, которые запрашиваются при прогреве. */
+    private final List<String> pages;
+
+    /** Файл с записанными запросами или пустая строка. */
+    private final String replayFile;
+
+    /** Наибольшее число выполняемых записанных запросов. */
+    private final int replayLimit;
+
+    /** Адреса, запросы к которым разрешено выполнять из файла: только чтение. */
+    private final Set<String> replayPaths;
+
+    /** Роли пользователя «warmup». */
+    private final String[] authorities;
+
+    /** Срок всего прогрева. */
+    private final Duration timeout;
+
+    /** Признак того, что прогрев уже начат. */
+    private final AtomicBoolean started = new AtomicBoolean();
+
+    /** Итоги шагов прогрева; null, пока прогрев не закончен. */
+    private volatile Map<String, Object> report;
+
+    /**
+     * Конструктор читает настройки прогрева.
+     *
+     * @param connections Число соединений из каждого пула; 0 — по `minimum-idle` пула.
+     * @param templatePrefix Каталог шаблонов.
+     * @param templateSuffix Расширение файлов шаблонов.
+     * @param pages Страницы, которые запрашиваются при прогреве.
+     * @param replayFile Файл с записанными запросами; пустая строка отключает выборку.
+     * @param replayLimit Наибольшее число выполняемых записанных запросов.
+     * @param replayPaths Адреса, запросы к которым разрешено выполнять из файла.
+     * @param authorities Роли пользователя «warmup».
+     * @param timeout Срок всего прогрева.
+     */
+    public StartupWarmup(@Value("${app.warmup.connections:0}") int connections,
+                         @Value("${spring.thymeleaf.prefix:classpath:/templates/}") String templatePrefix,
+                         @Value("${spring.thymeleaf.suffix:.html}") String templateSuffix,
+                         @Value("${app.warmup.pages:/,/sup,/dashboard,/newRes,/newSup,/about}") String[] pages,
+                         @Value("${app.warmup.replay-file:}") String replayFile,
+                         @Value("${app.warmup.replay-limit:200}") int replayLimit,
+                         @Value("${app.warmup.replay-paths:/,/findRes,/findSup,/sup,/suggest}") String[] replayPaths,
+                         @Value("${app.warmup.authorities:ROLE_USER,ROLE_ADMIN}") String[] authorities,
+                         @Value("${app.warmup.timeout:PT2M}") Duration timeout) {
+        this.connections = connections;
+        this.templatePrefix = templatePrefix;
+        this.templateSuffix = templateSuffix;
+        this.pages = List.of(pages);
+        this.replayFile = replayFile;
+        this.replayLimit = replayLimit;
+        this.replayPaths = Set.of(replayPaths);
+        this.authorities = authorities;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Эта функция запускает прогрев, когда приложение впервые переходит в состояние ACCEPTING_TRAFFIC.
+     * Прогрев выполняется в потоке запуска приложения.
+     *
+     * @param event Событие смены состояния готовности.
+     */
+    @EventListener
+    public void readinessChanged(AvailabilityChangeEvent<ReadinessState> event) {
+        if (event.getState() == ReadinessState.ACCEPTING_TRAFFIC && started.compareAndSet(false, true)) {
+            warmUp();
+        }
+    }
+
+    /**
+     * Эта функция возвращает итоги прогрева.
+     *
+     * @return Итоги шагов по порядку или null, если прогрев еще не закончен.
+     */
+    public Map<String, Object> report() {
+        return report;
+    }
+
+    /**
+     * Эта функция выполняет шаги прогрева по порядку и сохраняет их итоги.
+     */
+    private void warmUp() {
+        Map<String, Object> steps = new LinkedHashMap<>();
+        long begin = System.nanoTime();
+        Deadline deadline = Deadline.start(timeout);
+        try {
+            step(steps, "connections", deadline, this::connections);
+            step(steps, "queries", deadline, this::queries);
+            step(steps, "pages", deadline, this::pages);
+            step(steps, "templates", deadline, this::templates);
+            if (!replayFile.isBlank()) {
+                step(steps, "replay", deadline, this::replay);
+            }
+        } finally {
+            Deadline.clear();
+        }
+        long millis = (System.nanoTime() - begin) / 1_000_000;
+        steps.put("total", millis + " ms");
+        log.info("Warm-up finished in {} ms: {}", millis, steps);
+        report = Collections.unmodifiableMap(steps);
+    }
+
+    /**
+     * Шаг прогрева.
+     */
+    @FunctionalInterface
+    private interface Step {
+
+        /**
+         * Эта функция выполняет шаг.
+         *
+         * @param deadline Срок прогрева.
+         *
+         * @return Краткий итог шага для журнала и проверки готовности.
+         */
+        String run(Deadline deadline) throws Exception;
+    }
+
+    /**
+     * Эта функция выполняет шаг прогрева, если срок еще не истек, и запоминает его итог и длительность.
+     *
+     * @param steps Итоги шагов.
+     * @param name Название шага.
+     * @param deadline Срок прогрева.
+     * @param step Шаг.
+     */
+    private void step(Map<String, Object> steps, String name, Deadline deadline, Step step) {
+        if (deadline.expired()) {
+            steps.put(name, "skipped, warm-up timeout");
+            return;
+        }
+        long begin = System.nanoTime();
+        String result;
+        try {
+            result = step.run(deadline);
+        } catch (Exception e) {
+            log.warn("Warm-up step {} failed", name, e);
+            result = "failed: " + e;
+        }
+        steps.put(name, result + " in " + (System.nanoTime() - begin) / 1_000_000 + " ms");
+    }
+
+    /**
+     * Эта функция заполняет пулы соединений: берет из каждого пула нужное число соединений одновременно,
+     * проверяет их и возвращает в пул.
+     *
+     * @param deadline Срок прогрева.
+     *
+     * @return Итог шага.
+     */
+    private String connections(Deadline deadline) throws SQLException {
+        List<HikariDataSource> pools = pools();
+        if (pools.isEmpty()) {
+            return "no Hikari pool";
+        }
+        List<String> filled = new ArrayList<>();
+        for (HikariDataSource pool : pools) {
+            int count = connections > 0 ? connections : Math.max(pool.getMinimumIdle(), 1);
+            List<Connection> held = new ArrayList<>();
+            try {
+                for (int i = 0; i < count && !deadline.expired(); i++) {
+                    Connection connection = pool.getConnection();
+                    held.add(connection);
+                    connection.isValid(1);
+                }
+            } finally {
+                for (Connection connection : held) {
+                    connection.close();
+                }
+            }
+            filled.add(pool.getPoolName() + "=" + held.size());
+        }
+        return String.join(", ", filled);
+    }
+
+    /**
+     * Эта функция находит пулы Hikari за источником данных приложения, в том числе за маршрутизирующим
+     * источником с репликой.
+     *
+     * @return Пулы соединений.
+     */
+    private List<HikariDataSource> pools() throws SQLException {
+        List<HikariDataSource> pools = new ArrayList<>();
+        if (dataSource.isWrapperFor(AbstractRoutingDataSource.class)) {
+            for (DataSource target : dataSource.unwrap(AbstractRoutingDataSource.class).getResolvedDataSources()
+                    .values()) {
+                if (target.isWrapperFor(HikariDataSource.class)) {
+                    pools.add(target.unwrap(HikariDataSource.class));
+                }
+            }
+        } else if (dataSource.isWrapperFor(HikariDataSource.class)) {
+            pools.add(dataSource.unwrap(HikariDataSource.class));
+        }
+        return pools;
+    }
+
+    /**
+     * Эта функция выполняет по одному разу каждый метод чтения репозиториев ресурсов и поставщиков. Методы
+     * перебираются по интерфейсу репозитория, поэтому новые запросы прогреваются без изменения этого
+     * класса; методы `@Modifying` и методы с аргументами неизвестных типов пропускаются.
+     *
+     * Запрос, не нашедший ни одной записи, просматривает всю таблицу, а поиски по подстроке (`LIKE %?1%`)
+     * и условия вроде `s.id != ?1` не используют индексов. Поэтому JPQL-запросы `@Query` выполняются не
+     * через репозиторий, а через `EntityManager` с ограничением в одну запись и с аргументами, под которые
+     * подходит любая запись (`matchingArguments`): чтение останавливается на первой найденной записи, а
+     * запрос при этом разобран и его план подготовлен. Запросы с `GROUP BY` и собственные SQL-запросы
+     * ограничение не остановит, поэтому они пропускаются, как и производные методы без аргументов
+     * (`findAll`). Производные методы с аргументами ищут по первичному или внешнему ключу и вызываются
+     * через репозиторий.
+     *
+     * @param deadline Срок прогрева.
+     *
+     * @return Итог шага.
+     */
+    private String queries(Deadline deadline) {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        int done = 0;
+        int failed = 0;
+        int skipped = 0;
+        for (Object[] repository : new Object[][] {{ResourceRepository.class, repoRes},
+                {SupplierRepository.class, repoSup}}) {
+            Method[] methods = ((Class<?>) repository[0]).getDeclaredMethods();
+            Arrays.sort(methods, Comparator.comparing(Method::toString));
+            for (Method method : methods) {
+                if (deadline.expired()) {
+                    return done + " run, " + failed + " failed, " + skipped + " skipped, stopped by timeout";
+                }
+                Object[] args = probeArguments(method);
+                if (args == null || method.isDefault() || Modifier.isStatic(method.getModifiers())
+                        || method.isAnnotationPresent(Modifying.class)) {
+                    continue;
+                }
+                Query query = method.getAnnotation(Query.class);
+                Object[] matching = matchingArguments(method);
+                boolean unfiltered = Arrays.stream(method.getParameterTypes()).allMatch(type -> type == Sort.class);
+                if (query == null ? unfiltered : query.nativeQuery() || matching == null
+                        || query.value().toUpperCase(Locale.ROOT).contains("GROUP BY")) {
+                    skipped++;
+                    continue;
+                }
+                try {
+                    readOnly.executeWithoutResult(status -> {
+                        if (query != null) {
+                            firstRow(query.value(), matching);
+                        } else {
+                            invoke(method, repository[1], args);
+                        }
+                    });
+                    done++;
+                } catch (RuntimeException e) {
+                    failed++;
+                    log.warn("Warm-up query {} failed: {}", method.getName(), e.toString());
+                }
+            }
+        }
+        return done + " run, " + failed + " failed, " + skipped + " skipped";
+    }
+
+    /**
+     * Эта функция подбирает аргументы запроса, которые не находят или почти не находят записей.
+     *
+     * @param method Метод репозитория.
+     *
+     * @return Аргументы или null, если тип какого-то параметра не поддерживается.
+     */
+    private static Object[] probeArguments(Method method) {
+        Class<?>[] types = method.getParameterTypes();
+        Object[] args = new Object[types.length];
+        for (int i = 0; i < types.length; i++) {
+            Class<?> type = types[i];
+            if (type == String.class) {
+                args[i] = PROBE;
+            } else if (type == int.class || type == Integer.class) {
+                args[i] = 0;
+            } else if (type == long.class || type == Long.class) {
+                args[i] = 0L;
+            } else if (Collection.class.isAssignableFrom(type)) {
+                args[i] = List.of(0L);
+            } else if (type == Sort.class) {
+                args[i] = Sort.unsorted();
+            } else {
+                return null;
+            }
+        }
+        return args;
+    }
+
+    /**
+     * Эта функция подбирает аргументы запроса `@Query`, под которые подходит любая запись: строка `%` для
+     * сравнений LIKE, 0 для сравнения идентификатора на неравенство и наименьшее и наибольшее число для
+     * границ диапазона. Аргумент `Sort` в запрос не передается и в результат не входит.
+     *
+     * @param method Метод репозитория.
+     *
+     * @return Аргументы по порядку параметров запроса или null, если тип какого-то параметра не
+     * поддерживается.
+     */
+    private static Object[] matchingArguments(Method method) {
+        List<Object> args = new ArrayList<>();
+        int numbers = 0;
+        for (Class<?> type : method.getParameterTypes()) {
+            if (type == String.class) {
+                args.add("%");
+            } else if (type == int.class || type == Integer.class) {
+                args.add(numbers++ % 2 == 0 ? Integer.MIN_VALUE : Integer.MAX_VALUE);
+            } else if (type == long.class || type == Long.class) {
+                args.add(0L);
+            } else if (type != Sort.class) {
+                return null;
+            }
+        }
+        return args.toArray();
+    }
+
+    /**
+     * Эта функция выполняет JPQL-запрос `@Query` с ограничением в одну запись. Знаки `%` вокруг параметров
+     * убираются, так как аргументы уже подходят под любое значение. Строки передаются с явным строковым
+     * типом, так как некоторые запросы сравнивают строку с числовым полем (`SupplierRepository.searchById`).
+     *
+     * @param jpql Текст запроса из аннотации.
+     * @param args Аргументы по порядку параметров.
+     */
+    private void firstRow(String jpql, Object[] args) {
+        Matcher parameter = LIKE_PARAMETER.matcher(jpql);
+        org.hibernate.query.Query<?> query = entityManager.createQuery(parameter.replaceAll("?$1"))
+                .unwrap(org.hibernate.query.Query.class).setMaxResults(1);
+        for (int i = 0; i < args.length; i++) {
+            if (args[i] instanceof String pattern) {
+                query.setParameter(i + 1, pattern, StandardBasicTypes.STRING);
+            } else {
+                query.setParameter(i + 1, args[i]);
+            }
+        }
+        query.getResultList();
+    }
+
+    /**
+     * Эта функция вызывает метод репозитория.
+     *
+     * @param method Метод.
+     * @param target Репозиторий.
+     * @param args Аргументы.
+     */
+    private static void invoke(Method method, Object target, Object[] args) {
+        try {
+            method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause() instanceof RuntimeException runtime ? runtime : new IllegalStateException(e.getCause());
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Эта функция запрашивает страницы `app.warmup.pages`.
+     *
+     * @param deadline Срок прогрева.
+     *
+     * @return Итог шага.
+     */
+    private String pages(Deadline deadline) {
+        return dispatch(pages, deadline, " rendered");
+    }
+
+    /**
+     * Эта функция разбирает каждый шаблон в кэш шаблонов Thymeleaf. Шаблон обрабатывается с пустым
+     * контекстом без HTTP-запроса, поэтому обработка обычно прерывается на первой ссылке или форме, но
+     * шаблон к этому моменту уже разобран и лежит в кэше под тем же ключом, под которым его ищет
+     * отрисовка страницы. Шаблоны обрабатываются через `TemplateManager`, а не через
+     * `TemplateEngine.process`, чтобы ожидаемые прерывания не попадали в журнал как ошибки.
+     *
+     * @param deadline Срок прогрева.
+     *
+     * @return Итог шага.
+     */
+    private String templates(Deadline deadline) throws IOException {
+        if (templateEngine == null) {
+            return "no Thymeleaf template engine";
+        }
+        ICache<?, ?> cache = templateEngine.getConfiguration().getCacheManager() == null ? null
+                : templateEngine.getConfiguration().getCacheManager().getTemplateCache();
+        if (cache == null) {
+            return "template cache disabled";
+        }
+        String root = resources.getResource(templatePrefix).getURI().toString();
+        List<String> names = new ArrayList<>();
+        for (Resource template : resources.getResources(templatePrefix + "**/*" + templateSuffix)) {
+            String uri = template.getURI().toString();
+            if (uri.startsWith(root)) {
+                names.add(uri.substring(root.length(), uri.length() - templateSuffix.length()));
+            }
+        }
+        int parsed = 0;
+        for (String name : names) {
+            if (deadline.expired()) {
+                break;
+            }
+            try {
+                templateEngine.getConfiguration().getTemplateManager().parseAndProcess(
+                        new TemplateSpec(name, (Set<String>) null, (TemplateMode) null, null), new Context(Locale.getDefault()),
+                        Writer.nullWriter());
+            } catch (RuntimeException e) {
+                log.trace("Warm-up processing of {} stopped: {}", name, e.toString());
+            }
+            parsed++;
+        }
+        return parsed + " parsed, " + cache.keySet().size() + " cached";
+    }
+
+    /**
+     * Эта функция выполняет записанные запросы так же, как страницы. Файл содержит по одному запросу на
+     * строку в виде «/findRes?keywordName=болт» или «GET /findRes?...» (так запросы выглядят в журнале
+     * `diagnostics.request`); пустые строки и строки с «#» пропускаются. Выполняются только запросы к
+     * адресам `app.warmup.replay-paths`, так как остальные могут изменять данные.
+     *
+     * @param deadline Срок прогрева.
+     *
+     * @return Итог шага.
+     */
+    private String replay(Deadline deadline) throws IOException {
+        List<String> targets = new ArrayList<>();
+        int rejected = 0;
+        for (String line : Files.readAllLines(Path.of(replayFile), StandardCharsets.UTF_8)) {
+            String target = line.strip();
+            if (target.startsWith("GET ")) {
+                target = target.substring(4).strip();
+            }
+            if (target.isEmpty() || target.startsWith("#") || targets.size() >= replayLimit) {
+                continue;
+            }
+            int question = target.indexOf('?');
+            if (replayPaths.contains(question < 0 ? target : target.substring(0, question))) {
+                targets.add(target);
+            } else {
+                rejected++;
+            }
+        }
+        if (rejected > 0) {
+            log.warn("Warm-up skipped {} recorded requests outside app.warmup.replay-paths", rejected);
+        }
+        return dispatch(targets, deadline, " replayed") + ", " + rejected + " rejected";
+    }
+
+    /**
+     * Эта функция выполняет запросы GET через `DispatcherServlet` от имени пользователя «warmup».
+     *
+     * @param targets Адреса запросов с параметрами.
+     * @param deadline Срок прогрева.
+     * @param done Слово для числа выполненных запросов в итоге шага.
+     *
+     * @return Итог шага.
+     */
+    private String dispatch(List<String> targets, Deadline deadline, String done) {
+        if (dispatcherServlet == null || dispatcherServlet.getServletConfig() == null) {
+            return "skipped, DispatcherServlet is not initialized";
+        }
+        int succeeded = 0;
+        int failed = 0;
+        asWarmupUser(true);
+        try {
+            for (String target : targets) {
+                if (deadline.expired()) {
+                    break;
+                }
+                WarmupExchange exchange = new WarmupExchange(target, servletContext,
+                        SecurityContextHolder.getContext().getAuthentication());
+                try {
+                    dispatcherServlet.service(exchange.request(), exchange.response());
+                    if (exchange.status() < 400) {
+                        succeeded++;
+                    } else {
+                        failed++;
+                        log.debug("Warm-up request {} answered {}", target, exchange.status());
+                    }
+                } catch (Exception e) {
+                    failed++;
+                    log.debug("Warm-up request {} failed: {}", target, e.toString());
+                }
+            }
+        } finally {
+            asWarmupUser(false);
+        }
+        return succeeded + done + ", " + failed + " failed";
+    }
+
+    /**
+     * Эта функция входит в систему от имени пользователя «warmup» в текущем потоке или выходит из нее.
+     *
+     * @param enter true, чтобы войти; false, чтобы выйти.
+     */
+    private void asWarmupUser(boolean enter) {
+        if (enter) {
+            Authentication user = UsernamePasswordAuthenticationToken.authenticated("warmup", null,
+                    AuthorityUtils.createAuthorityList(authorities));
+            SecurityContextHolder.getContext().setAuthentication(user);
+        } else {
+            SecurityContextHolder.clearContext();
+        }
+    }
+}
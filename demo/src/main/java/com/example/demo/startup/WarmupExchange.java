@@ -0,0 +1,339 @@
+package com.example.demo.startup;
+
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletMapping;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.MappingMatch;
+
+/**
+ * Это класс синтетического HTTP-запроса GET и ответа на него, которыми прогрев выполняет страницы приложения
+ * без обращения к сети. Запрос и ответ — динамические прокси: запрос отвечает адресом, параметрами,
+ * атрибутами и заголовком Accept, ответ запоминает код и заголовки, а тело отбрасывает. Остальные методы
+ * возвращают пустые значения, как для запроса без cookie, сессии и тела.
+ */
+final class WarmupExchange {
+
+    /** Адрес запроса без контекста приложения. */
+    private final String path;
+
+    /** Строка параметров или null. */
+    private final String query;
+
+    /** Контекст сервлетов приложения. */
+    private final ServletContext servletContext;
+
+    /** Пользователь, от имени которого выполняется запрос. */
+    private final Principal principal;
+
+    /** Параметры запроса. */
+    private final Map<String, String[]> parameters = new LinkedHashMap<>();
+
+    /** Атрибуты запроса. */
+    private final Map<String, Object> attributes = new LinkedHashMap<>();
+
+    /** Заголовки запроса. */
+    private final Map<String, String> requestHeaders = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+
+    /** Заголовки ответа. */
+    private final Map<String, List<String>> responseHeaders = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+
+    /** Поток, в который пишется и отбрасывается текстовое тело ответа. */
+    private final PrintWriter writer = new PrintWriter(Writer.nullWriter());
+
+    /** Поток, в который пишется и отбрасывается двоичное тело ответа. */
+    private final ServletOutputStream outputStream = new ServletOutputStream() {
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener listener) {
+        }
+
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    };
+
+    /** Код ответа. */
+    private int status = HttpServletResponse.SC_OK;
+
+    /** Тип содержимого ответа. */
+    private String contentType;
+
+    /** Кодировка ответа. */
+    private String characterEncoding = StandardCharsets.UTF_8.name();
+
+    /** Запрос. */
+    private final HttpServletRequest request;
+
+    /** Ответ. */
+    private final HttpServletResponse response;
+
+    /**
+     * Конструктор разбирает адрес и создает запрос и ответ.
+     *
+     * @param target Адрес с параметрами, например «/findRes?keywordName=болт».
+     * @param servletContext Контекст сервлетов приложения.
+     * @param principal Пользователь, от имени которого выполняется запрос.
+     */
+    WarmupExchange(String target, ServletContext servletContext, Principal principal) {
+        int question = target.indexOf('?');
+        this.path = question < 0 ? target : target.substring(0, question);
+        this.query = question < 0 || question == target.length() - 1 ? null : target.substring(question + 1);
+        this.servletContext = servletContext;
+        this.principal = principal;
+        if (query != null) {
+            for (String pair : query.split("&")) {
+                if (pair.isEmpty()) {
+                    continue;
+                }
+                int eq = pair.indexOf('=');
+                String name = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+                String value = eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+                String[] values = parameters.get(name);
+                List<String> all = new ArrayList<>(values == null ? List.of() : List.of(values));
+                all.add(value);
+                parameters.put(name, all.toArray(String[]::new));
+            }
+        }
+        requestHeaders.put("Accept", "text/html,application/xhtml+xml,application/json;q=0.9,*/*;q=0.8");
+        requestHeaders.put("Host", "localhost");
+        ClassLoader loader = WarmupExchange.class.getClassLoader();
+        this.request = (HttpServletRequest) Proxy.newProxyInstance(loader, new Class<?>[] {HttpServletRequest.class},
+                (proxy, method, args) -> onRequest(method, args));
+        this.response = (HttpServletResponse) Proxy.newProxyInstance(loader,
+                new Class<?>[] {HttpServletResponse.class}, (proxy, method, args) -> onResponse(method, args));
+    }
+
+    /**
+     * Эта функция возвращает запрос.
+     *
+     * @return Запрос.
+     */
+    HttpServletRequest request() {
+        return request;
+    }
+
+    /**
+     * Эта функция возвращает ответ.
+     *
+     * @return Ответ.
+     */
+    HttpServletResponse response() {
+        return response;
+    }
+
+    /**
+     * Эта функция возвращает код ответа.
+     *
+     * @return Код ответа.
+     */
+    int status() {
+        return status;
+    }
+
+    /**
+     * Эта функция отвечает на вызов метода запроса.
+     *
+     * @param method Вызванный метод.
+     * @param args Аргументы вызова.
+     *
+     * @return Результат вызова.
+     */
+    private Object onRequest(Method method, Object[] args) {
+        String contextPath = servletContext.getContextPath();
+        return switch (method.getName()) {
+            case "getMethod" -> "GET";
+            case "getRequestURI" -> contextPath + path;
+            case "getRequestURL" -> new StringBuffer("http://localhost").append(contextPath).append(path);
+            case "getContextPath" -> contextPath;
+            case "getServletPath" -> path;
+            case "getQueryString" -> query;
+            case "getHttpServletMapping" -> MAPPING;
+            case "getScheme" -> "http";
+            case "getProtocol" -> "HTTP/1.1";
+            case "getServerName", "getLocalName", "getRemoteHost" -> "localhost";
+            case "getServerPort", "getLocalPort" -> 80;
+            case "getRemoteAddr", "getLocalAddr" -> "127.0.0.1";
+            case "getParameter" -> {
+                String[] values = parameters.get((String) args[0]);
+                yield values == null ? null : values[0];
+            }
+            case "getParameterValues" -> parameters.get((String) args[0]);
+            case "getParameterMap" -> Collections.unmodifiableMap(parameters);
+            case "getParameterNames" -> Collections.enumeration(parameters.keySet());
+            case "getAttribute" -> attributes.get((String) args[0]);
+            case "getAttributeNames" -> Collections.enumeration(new ArrayList<>(attributes.keySet()));
+            case "setAttribute" -> {
+                if (args[1] == null) {
+                    attributes.remove((String) args[0]);
+                } else {
+                    attributes.put((String) args[0], args[1]);
+                }
+                yield null;
+            }
+            case "removeAttribute" -> attributes.remove((String) args[0]);
+            case "getHeader" -> requestHeaders.get((String) args[0]);
+            case "getHeaders" -> {
+                String value = requestHeaders.get((String) args[0]);
+                yield Collections.enumeration(value == null ? List.of() : List.of(value));
+            }
+            case "getHeaderNames" -> Collections.enumeration(requestHeaders.keySet());
+            case "getIntHeader" -> -1;
+            case "getDateHeader", "getContentLengthLong" -> -1L;
+            case "getContentLength" -> -1;
+            case "getLocale" -> Locale.getDefault();
+            case "getLocales" -> Collections.enumeration(List.of(Locale.getDefault()));
+            case "getCharacterEncoding" -> StandardCharsets.UTF_8.name();
+            case "getDispatcherType" -> DispatcherType.REQUEST;
+            case "getServletContext" -> servletContext;
+            case "getUserPrincipal" -> principal;
+            case "getRemoteUser" -> principal == null ? null : principal.getName();
+            case "getCookies" -> new Cookie[0];
+            case "toString" -> "GET " + path + (query == null ? "" : "?" + query) + " (warm-up)";
+            default -> defaultValue(method, args);
+        };
+    }
+
+    /**
+     * Эта функция отвечает на вызов метода ответа.
+     *
+     * @param method Вызванный метод.
+     * @param args Аргументы вызова.
+     *
+     * @return Результат вызова.
+     */
+    private Object onResponse(Method method, Object[] args) {
+        return switch (method.getName()) {
+            case "setStatus", "sendError" -> {
+                status = (Integer) args[0];
+                yield null;
+            }
+            case "sendRedirect" -> {
+                status = HttpServletResponse.SC_FOUND;
+                yield null;
+            }
+            case "getStatus" -> status;
+            case "setHeader", "setIntHeader", "setDateHeader" -> {
+                responseHeaders.put((String) args[0], new ArrayList<>(List.of(String.valueOf(args[1]))));
+                yield null;
+            }
+            case "addHeader", "addIntHeader", "addDateHeader" -> {
+                responseHeaders.computeIfAbsent((String) args[0], name -> new ArrayList<>())
+                        .add(String.valueOf(args[1]));
+                yield null;
+            }
+            case "getHeader" -> {
+                List<String> values = responseHeaders.get((String) args[0]);
+                yield values == null ? null : values.get(0);
+            }
+            case "getHeaders" -> List.copyOf(responseHeaders.getOrDefault((String) args[0], List.of()));
+            case "getHeaderNames" -> List.copyOf(responseHeaders.keySet());
+            case "containsHeader" -> responseHeaders.containsKey((String) args[0]);
+            case "getWriter" -> writer;
+            case "getOutputStream" -> outputStream;
+            case "encodeURL", "encodeRedirectURL" -> args[0];
+            case "setContentType" -> {
+                contentType = (String) args[0];
+                yield null;
+            }
+            case "getContentType" -> contentType;
+            case "setCharacterEncoding" -> {
+                characterEncoding = (String) args[0];
+                yield null;
+            }
+            case "getCharacterEncoding" -> characterEncoding;
+            case "getLocale" -> Locale.getDefault();
+            case "toString" -> "Response " + status + " (warm-up)";
+            default -> defaultValue(method, args);
+        };
+    }
+
+    /** Сопоставление запроса сервлету: `DispatcherServlet` обслуживает все адреса. */
+    private static final HttpServletMapping MAPPING = new HttpServletMapping() {
+        @Override
+        public String getMatchValue() {
+            return "";
+        }
+
+        @Override
+        public String getPattern() {
+            return "/";
+        }
+
+        @Override
+        public String getServletName() {
+            return "dispatcherServlet";
+        }
+
+        @Override
+        public MappingMatch getMappingMatch() {
+            return MappingMatch.DEFAULT;
+        }
+    };
+
+    /**
+     * Эта функция возвращает пустое значение для метода, который запрос или ответ не поддерживает.
+     *
+     * @param method Вызванный метод.
+     * @param args Аргументы вызова.
+     *
+     * @return false, 0, пустое перечисление или коллекция либо null.
+     */
+    private Object defaultValue(Method method, Object[] args) {
+        Class<?> type = method.getReturnType();
+        if (method.getName().equals("hashCode")) {
+            return System.identityHashCode(this);
+        }
+        if (method.getName().equals("equals")) {
+            return args[0] == request || args[0] == response;
+        }
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == int.class) {
+            return 0;
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        if (type == Enumeration.class) {
+            return Collections.emptyEnumeration();
+        }
+        if (type == Map.class) {
+            return Map.of();
+        }
+        if (Collection.class.isAssignableFrom(type)) {
+            return List.of();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.demo.startup;
+
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Это класс проверки состояния «warmup», который входит в группу `/actuator/health/readiness`: пока
+ * `StartupWarmup` не закончил прогрев, проверка сообщает OUT_OF_SERVICE, и балансировщик не направляет на
+ * экземпляр трафик. После прогрева проверка сообщает UP с итогами шагов. Если прогрев отключен
+ * (`app.warmup.enabled=false`), проверка всегда сообщает UP.
+ */
+@Component
+public class WarmupHealthIndicator implements HealthIndicator {
+
+    /** Прогрев; существует только при `app.warmup.enabled=true`. */
+    @Autowired(required = false)
+    private StartupWarmup warmup;
+
+    /**
+     * Эта функция возвращает состояние прогрева.
+     *
+     * @return UP с итогами шагов после прогрева или OUT_OF_SERVICE во время прогрева.
+     */
+    @Override
+    public Health health() {
+        if (warmup == null) {
+            return Health.up().withDetail("warmup", "disabled").build();
+        }
+        Map<String, Object> report = warmup.report();
+        if (report == null) {
+            return Health.outOfService().withDetail("warmup", "in progress").build();
+        }
+        return Health.up().withDetails(report).build();
+    }
+}
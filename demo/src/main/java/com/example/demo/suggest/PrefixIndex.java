@@ -0,0 +1,130 @@
+package com.example.demo.suggest;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Это индекс префиксов строк для подсказок при вводе. Строки хранятся в упорядоченной карте с
+ * пропусками (`ConcurrentSkipListMap`) по нормализованному ключу, поэтому поиск по префиксу — это
+ * двоичный поиск начала диапазона и чтение первых N элементов, без перебора всех строк.
+ * 
+ * Каждая строка индексируется с начала каждого слова, так что «Болт оцинкованный» находится и по «бол»,
+ * и по «оцин». Для каждой строки хранится счетчик ссылок: одно и то же название может принадлежать
+ * многим ресурсам, и строка исчезает из индекса только после удаления последнего из них.
+ */
+public class PrefixIndex {
+
+    /** Разделитель нормализованного ключа и исходной строки в ключе карты. */
+    private static final char SEPARATOR = '\u0000';
+
+    /** Счетчики ссылок по ключу «нормализованный суффикс + разделитель + исходная строка». */
+    private final ConcurrentSkipListMap<String, Integer> entries = new ConcurrentSkipListMap<>();
+
+    /**
+     * Эта функция добавляет одну ссылку на строку.
+     * 
+     * @param value Добавляемая строка.
+     */
+    public void add(String value) {
+        for (String key : keys(value)) {
+            entries.merge(key, 1, Integer::sum);
+        }
+    }
+
+    /**
+     * Эта функция удаляет одну ссылку на строку; строка пропадает из подсказок, когда ссылок не
+     * остается.
+     * 
+     * @param value Удаляемая строка.
+     */
+    public void remove(String value) {
+        for (String key : keys(value)) {
+            entries.computeIfPresent(key, (k, count) -> count > 1 ? count - 1 : null);
+        }
+    }
+
+    /**
+     * Эта функция удаляет из индекса все строки.
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Эта функция возвращает первые по алфавиту строки, одно из слов которых начинается с префикса.
+     * 
+     * @param prefix Введенный пользователем префикс; регистр не учитывается.
+     * @param limit Наибольшее число подсказок.
+     * 
+     * @return Различные исходные строки в порядке нормализованных ключей.
+     */
+    public List<String> find(String prefix, int limit) {
+        String normalized = normalize(prefix);
+        if (normalized.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        NavigableMap<String, Integer> range = entries.subMap(normalized, true, normalized + Character.MAX_VALUE, false);
+        Set<String> result = new LinkedHashSet<>();
+        for (Map.Entry<String, Integer> entry : range.entrySet()) {
+            String key = entry.getKey();
+            result.add(key.substring(key.indexOf(SEPARATOR) + 1));
+            if (result.size() == limit) {
+                break;
+            }
+        }
+        return new ArrayList<>(result);
+    }
+
+    /**
+     * Эта функция возвращает число ключей индекса.
+     * 
+     * @return Число ключей (по одному на каждое слово каждой различной строки).
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Эта функция строит ключи строки: по одному на каждое начало слова в нормализованной строке.
+     * 
+     * @param value Исходная строка.
+     * 
+     * @return Ключи карты; пустой список для пустой строки.
+     */
+    private static List<String> keys(String value) {
+        String normalized = normalize(value);
+        if (normalized.isEmpty()) {
+            return List.of();
+        }
+        String original = value.trim();
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < normalized.length(); i++) {
+            if (i == 0 || normalized.charAt(i - 1) == ' ') {
+                keys.add(normalized.substring(i) + SEPARATOR + original);
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Эта функция приводит строку к виду, в котором она сравнивается: нижний регистр, без крайних
+     * пробелов, с одиночными пробелами между словами.
+     * 
+     * @param value Исходная строка.
+     * 
+     * @return Нормализованная строка; пустая строка для null.
+     */
+    static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        return value.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT)
+                .replace(String.valueOf(SEPARATOR), "");
+    }
+}
@@ -0,0 +1,184 @@
+package com.example.demo.suggest;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.demo.Resource;
+import com.example.demo.ResourceChangedEvent;
+import com.example.demo.ResourceRepository;
+import com.example.demo.ResourceSnapshot;
+import com.example.demo.Supplier;
+import com.example.demo.SupplierChangedEvent;
+import com.example.demo.SupplierRepository;
+import com.example.demo.support.CommitGate;
+
+/**
+ * Это класс, который хранит в памяти индексы префиксов для подсказок при вводе: названия поставщиков,
+ * названия ресурсов и типы ресурсов. Индексы загружаются при запуске приложения и поддерживаются
+ * событиями изменения ресурсов и поставщиков после фиксации транзакций, поэтому подсказки не обращаются
+ * к базе данных и могут запрашиваться при каждом нажатии клавиши.
+ * 
+ * Перезагрузка строит новые индексы в стороне и подменяет ими старые одной записью ссылки, поэтому
+ * подсказки во время перезагрузки выдаются по старым индексам, а не по пустым. Чтение таблиц и подмена
+ * выполняются под защелкой фиксаций (`CommitGate`): изменение, зафиксированное во время чтения, ждет
+ * окончания перезагрузки и применяется к новым индексам.
+ */
+@Component
+public class SuggestionIndex {
+
+    /** Поле, по которому выдаются подсказки. */
+    public enum Field { SUPPLIER, NAME, TYPE }
+
+    /** Логгер для сообщений о загрузке индексов. */
+    private static final Logger log = LoggerFactory.getLogger(SuggestionIndex.class);
+
+    /** Репозиторий ресурсов, из которого загружаются названия и типы. */
+    @Autowired
+    private ResourceRepository repoRes;
+
+    /** Репозиторий поставщиков, из которого загружаются названия поставщиков. */
+    @Autowired
+    private SupplierRepository repoSup;
+
+    /** Наибольшее число подсказок в одном ответе (`app.suggest.max-limit`). */
+    @Value("${app.suggest.max-limit:20}")
+    private int maxLimit;
+
+    /** Индексы по полям. */
+    private volatile Map<Field, PrefixIndex> indexes = emptyIndexes();
+
+    /** Защелка, которая не дает фиксировать изменения ресурсов и поставщиков, пока индексы перезагружаются. */
+    private final CommitGate gate = new CommitGate();
+
+    /**
+     * Эта функция загружает индексы при запуске приложения.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void initialize() {
+        reload();
+    }
+
+    /**
+     * Эта функция заново заполняет индексы из базы данных.
+     * Чтение выполняется на основной базе данных (см. `ReadWriteRoutingDataSource`).
+     */
+    @Transactional
+    public void reload() {
+        String loaded = gate.exclusive(() -> {
+            List<Supplier> suppliers = repoSup.findAll();
+            List<Resource> resources = repoRes.findAll();
+            Map<Field, PrefixIndex> fresh = emptyIndexes();
+            suppliers.forEach(supplier -> fresh.get(Field.SUPPLIER).add(supplier.getName()));
+            resources.forEach(resource -> apply(fresh, ResourceSnapshot.of(resource), true));
+            indexes = fresh;
+            return suppliers.size() + " supplier(s), " + resources.size() + " resource(s)";
+        });
+        log.info("Suggestion index loaded, {}", loaded);
+    }
+
+    /**
+     * Эта функция применяет изменение ресурса к индексам после фиксации транзакции.
+     * 
+     * @param event Событие с состоянием ресурса до и после изменения.
+     */
+    @EventListener
+    public void onResourceChanged(ResourceChangedEvent event) {
+        gate.afterCommit(() -> {
+            Map<Field, PrefixIndex> current = indexes;
+            apply(current, event.before(), false);
+            apply(current, event.after(), true);
+        });
+    }
+
+    /**
+     * Эта функция применяет изменение поставщика и каскадное удаление его ресурсов к индексам после
+     * фиксации транзакции.
+     * 
+     * @param event Событие изменения поставщика.
+     */
+    @EventListener
+    public void onSupplierChanged(SupplierChangedEvent event) {
+        gate.afterCommit(() -> {
+            Map<Field, PrefixIndex> current = indexes;
+            PrefixIndex suppliers = current.get(Field.SUPPLIER);
+            if (event.before() != null) {
+                suppliers.remove(event.before().name());
+            }
+            if (event.after() != null) {
+                suppliers.add(event.after().name());
+            }
+            event.removedResources().forEach(resource -> apply(current, resource, false));
+        });
+    }
+
+    /**
+     * Эта функция возвращает подсказки для введенного префикса.
+     * 
+     * @param field Поле, по которому выдаются подсказки.
+     * @param prefix Введенный пользователем префикс.
+     * @param limit Запрошенное число подсказок; ограничивается `app.suggest.max-limit`.
+     * 
+     * @return Список подсказок в алфавитном порядке.
+     */
+    public List<String> suggest(Field field, String prefix, int limit) {
+        return indexes.get(field).find(prefix, Math.min(limit, maxLimit));
+    }
+
+    /**
+     * Эта функция находит поле по его имени в запросе.
+     * 
+     * @param name Имя поля: supplier, name или type.
+     * 
+     * @return Поле или null, если имя не распознано.
+     */
+    public static Field field(String name) {
+        try {
+            return name == null ? null : Field.valueOf(name.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Эта функция создает пустые индексы всех полей.
+     * 
+     * @return Индексы по полям.
+     */
+    private static Map<Field, PrefixIndex> emptyIndexes() {
+        return Map.of(
+                Field.SUPPLIER, new PrefixIndex(),
+                Field.NAME, new PrefixIndex(),
+                Field.TYPE, new PrefixIndex());
+    }
+
+    /**
+     * Эта функция добавляет в индексы названия и тип ресурса или удаляет их.
+     * 
+     * @param indexes Индексы по полям.
+     * @param resource Снимок ресурса; null игнорируется.
+     * @param add true для добавления, false для удаления.
+     */
+    private static void apply(Map<Field, PrefixIndex> indexes, ResourceSnapshot resource, boolean add) {
+        if (resource == null) {
+            return;
+        }
+        if (add) {
+            indexes.get(Field.NAME).add(resource.name());
+            indexes.get(Field.TYPE).add(resource.type());
+        } else {
+            indexes.get(Field.NAME).remove(resource.name());
+            indexes.get(Field.TYPE).remove(resource.type());
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.demo.support;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Это вспомогательный класс, который нормализует аргументы вызовов методов поиска для построения
+ * ключей: одинаковые по смыслу вызовы должны давать равные ключи, а разные — разные.
+ */
+public final class CallArguments {
+
+    private CallArguments() {
+    }
+
+    /**
+     * Эта функция нормализует аргументы вызова: пустая строка равна null, а для методов поиска по
+     * критериям из строковых аргументов остается только первый непустой и его номер. Остальные
+     * аргументы, например порядок сортировки, сохраняются всегда. Регистр и пробелы не меняются:
+     * смысл LIKE для них зависит от правила сравнения столбца.
+     * 
+     * @param args Аргументы вызова.
+     * @param firstNonEmpty Признак того, что метод использует только первый непустой аргумент.
+     * 
+     * @return Нормализованные аргументы.
+     */
+    public static List<Object> normalize(Object[] args, boolean firstNonEmpty) {
+        Object[] normalized = Arrays.stream(args)
+                .map(arg -> arg instanceof String s && s.isEmpty() ? null : arg)
+                .toArray();
+        if (firstNonEmpty) {
+            List<Object> key = new ArrayList<>();
+            boolean criterionFound = false;
+            for (int i = 0; i < args.length; i++) {
+                if (!(args[i] == null || args[i] instanceof String)) {
+                    key.add(normalized[i]);
+                } else if (!criterionFound && normalized[i] != null) {
+                    key.add(i);
+                    key.add(normalized[i]);
+                    criterionFound = true;
+                }
+            }
+            return key;
+        }
+        return Arrays.asList(normalized);
+    }
+}
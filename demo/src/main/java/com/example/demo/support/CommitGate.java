@@ -0,0 +1,87 @@
+package com.example.demo.support;
+
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Это защелка фиксаций для данных в памяти, которые загружаются из базы данных целиком и дальше
+ * поддерживаются событиями изменений (итоги, индексы подсказок, нечеткого поиска и столбцовый индекс).
+ * 
+ * Транзакция, изменение которой нужно применить к данным в памяти, занимает блокировку чтения защелки от
+ * `beforeCommit` до применения изменения после фиксации, а полная загрузка выполняет и чтение из базы
+ * данных, и замену данных в памяти под блокировкой записи. Поэтому пока идет загрузка, не фиксируется ни
+ * одно из этих изменений: прочитанные данные в точности соответствуют данным в памяти на момент замены,
+ * и изменение, зафиксированное во время чтения, не теряется и не применяется дважды. Цена — фиксации
+ * изменений ждут окончания чтения загрузки.
+ */
+public class CommitGate {
+
+    /** Блокировка: изменения — под блокировкой чтения, загрузка — под блокировкой записи. */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Эта функция применяет изменение после фиксации текущей транзакции. Блокировка чтения берется перед
+     * фиксацией и освобождается после применения изменения, так что загрузка не может прочитать базу
+     * данных между фиксацией и применением. Откаченная транзакция изменение не применяет; вне транзакции
+     * изменение применяется сразу.
+     * 
+     * @param change Изменение данных в памяти.
+     */
+    public void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            lock.readLock().lock();
+            try {
+                change.run();
+            } finally {
+                lock.readLock().unlock();
+            }
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+            /** Признак того, что блокировка взята в `beforeCommit`. */
+            private boolean locked;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                lock.readLock().lock();
+                locked = true;
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (!locked) {
+                    return;
+                }
+                try {
+                    if (status == STATUS_COMMITTED) {
+                        change.run();
+                    }
+                } finally {
+                    lock.readLock().unlock();
+                }
+            }
+        });
+    }
+
+    /**
+     * Эта функция выполняет полную загрузку под блокировкой записи: изменения, которые применяются через
+     * `afterCommit`, не фиксируются, пока загрузка читает базу данных и заменяет данные в памяти.
+     * 
+     * @param load Загрузка; читать базу данных она должна внутри этого вызова.
+     * 
+     * @return Результат загрузки.
+     */
+    public <T> T exclusive(Supplier<T> load) {
+        lock.writeLock().lock();
+        try {
+            return load.get();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
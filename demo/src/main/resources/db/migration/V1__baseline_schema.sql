@@ -0,0 +1,30 @@
+-- Исходная схема: таблицы в том виде, в каком их создавал Hibernate (spring.jpa.hibernate.ddl-auto=update).
+-- На базе данных, где таблицы уже существуют, эта миграция не выполняется: Flyway отмечает ее как
+-- базовую версию (spring.flyway.baseline-on-migrate=true) и применяет только следующие миграции.
+
+create table suppliers (
+    supid bigint not null auto_increment,
+    email varchar(255),
+    name varchar(255),
+    phone varchar(255),
+    primary key (supid)
+) engine=InnoDB;
+
+create table resources (
+    resid bigint not null auto_increment,
+    acdate varchar(255),
+    cost integer not null,
+    name varchar(255),
+    quantity integer not null,
+    supplier bigint,
+    type varchar(255),
+    primary key (resid)
+) engine=InnoDB;
+
+create table user_info (
+    id bigint not null auto_increment,
+    name varchar(255),
+    password varchar(255),
+    roles varchar(255),
+    primary key (id)
+) engine=InnoDB;
@@ -0,0 +1,19 @@
+-- Вторичные индексы для поиска и сортировки.
+-- Индексы ресурсов и поставщиков составные (столбец, идентификатор): идентификатор служит вторым ключом
+-- сортировки страниц (SortColumns), поэтому упорядоченный список читается по индексу. Они совпадают с
+-- индексами в @Table сущностей Resource и Supplier; "if not exists" нужен для баз данных, где Hibernate
+-- уже создал их при ddl-auto=update.
+
+create index if not exists idx_resources_supplier on resources (supplier, resid);
+create index if not exists idx_resources_name on resources (name, resid);
+create index if not exists idx_resources_type on resources (type, resid);
+create index if not exists idx_resources_acdate on resources (acdate, resid);
+create index if not exists idx_resources_quantity on resources (quantity, resid);
+create index if not exists idx_resources_cost on resources (cost, resid);
+
+create index if not exists idx_suppliers_name on suppliers (name, supid);
+create index if not exists idx_suppliers_phone on suppliers (phone, supid);
+create index if not exists idx_suppliers_email on suppliers (email, supid);
+
+-- Пользователь ищется по имени при каждом входе (UserInfoRepository.findByName).
+create index if not exists idx_user_info_name on user_info (name);
@@ -0,0 +1,43 @@
+-- Словарь типов ресурсов.
+-- Тип ресурса вводится свободным текстом, но различных значений немного, и каждое повторяется в тысячах
+-- строк. Вместо строки varchar(255) строка ресурса хранит двухбайтовый идентификатор типа из таблицы
+-- resource_types, а индекс idx_resources_type строится по нему. Названия в словаре сравниваются точно, с
+-- учетом регистра и пробелов в конце (utf8mb4_nopad_bin), как их сравнивает ResourceTypes. Столбец type
+-- создан в V1 с сопоставлением сервера по умолчанию, которое на MariaDB обычно не различает регистр и
+-- пробелы в конце, поэтому «Wood», «wood» и «wood » в нем равны; чтобы не потерять ни одно из написаний,
+-- словарь заполняется из всех строк через insert ignore, и повторы отсекает уникальный ключ словаря, а не
+-- сопоставление столбца type. Перед удалением столбца type миграция проверяет, что тип найден для каждой
+-- строки, и иначе завершается ошибкой, оставляя исходный столбец на месте.
+-- Размеры строк и индексов до и после миграции можно сравнить скриптом scripts/resource-type-sizes.sql.
+
+create table resource_types (
+    id smallint not null auto_increment,
+    name varchar(255) character set utf8mb4 collate utf8mb4_nopad_bin not null,
+    primary key (id),
+    constraint uk_resource_types_name unique (name)
+) engine=InnoDB;
+
+insert ignore into resource_types (name)
+select type from resources where type is not null order by resid;
+
+alter table resources add column type_id smallint;
+
+update resources set type_id = (select t.id from resource_types t where t.name = resources.type);
+
+create table resource_type_migration_check (
+    untyped_rows int not null,
+    constraint every_resource_type_found check (untyped_rows = 0)
+);
+
+insert into resource_type_migration_check (untyped_rows)
+select count(*) from resources where type is not null and type_id is null;
+
+drop table resource_type_migration_check;
+
+drop index if exists idx_resources_type on resources;
+
+alter table resources drop column type;
+
+create index if not exists idx_resources_type on resources (type_id, resid);
+
+alter table resources add constraint fk_resources_type foreign key (type_id) references resource_types (id);
@@ -0,0 +1,186 @@
+package com.example.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.example.demo.deadline.Deadline;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class CoalescedListingTests {
+
+	@Autowired
+	private ResourcesService service;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private MeterRegistry registry;
+
+	@SpyBean
+	private ResourceRepository repoRes;
+
+	@Test
+	void listingStartedAfterCommitDoesNotJoinEarlierCall() throws Exception {
+		Long supplier = newSupplier();
+		CountDownLatch leaderRead = new CountDownLatch(1);
+		CountDownLatch releaseLeader = new CountDownLatch(1);
+		AtomicBoolean first = new AtomicBoolean(true);
+		ResourceRepository database = new JpaRepositoryFactory(entityManager).getRepository(ResourceRepository.class);
+		doAnswer(invocation -> {
+			List<Resource> rows = database.findAllSorted(invocation.getArgument(0));
+			if (first.compareAndSet(true, false)) {
+				leaderRead.countDown();
+				releaseLeader.await(30, TimeUnit.SECONDS);
+			}
+			return rows;
+		}).when(repoRes).findAllSorted(any(Sort.class));
+
+		CompletableFuture<List<Resource>> leader = CompletableFuture.supplyAsync(
+				() -> service.listAllRes(null, Sort.unsorted()));
+		try {
+			assertThat(leaderRead.await(30, TimeUnit.SECONDS)).isTrue();
+			Long saved = newResource(supplier);
+
+			List<Resource> follower = CompletableFuture.supplyAsync(() -> service.listAllRes(null, Sort.unsorted()))
+					.get(10, TimeUnit.SECONDS);
+
+			assertThat(follower).extracting(Resource::getResid).contains(saved);
+			releaseLeader.countDown();
+			assertThat(leader.get(10, TimeUnit.SECONDS)).extracting(Resource::getResid).doesNotContain(saved);
+			assertThat(service.listAllRes(null, Sort.unsorted())).extracting(Resource::getResid).contains(saved);
+		} finally {
+			releaseLeader.countDown();
+		}
+	}
+
+	@Test
+	void followerRerunsCallWhenLeaderDeadlineExpires() throws Exception {
+		Long saved = newResource(newSupplier());
+		CountDownLatch leaderRead = new CountDownLatch(1);
+		CountDownLatch releaseLeader = new CountDownLatch(1);
+		AtomicBoolean first = new AtomicBoolean(true);
+		ResourceRepository database = new JpaRepositoryFactory(entityManager).getRepository(ResourceRepository.class);
+		doAnswer(invocation -> {
+			if (first.compareAndSet(true, false)) {
+				leaderRead.countDown();
+				releaseLeader.await(30, TimeUnit.SECONDS);
+				throw new QueryTimeoutException("Leader deadline expired");
+			}
+			return database.findAllSorted(invocation.getArgument(0));
+		}).when(repoRes).findAllSorted(any(Sort.class));
+
+		CompletableFuture<List<Resource>> leader = CompletableFuture.supplyAsync(() -> {
+			Deadline.start(Duration.ofMillis(200));
+			try {
+				return service.listAllRes(null, Sort.unsorted());
+			} finally {
+				Deadline.clear();
+			}
+		});
+		try {
+			assertThat(leaderRead.await(30, TimeUnit.SECONDS)).isTrue();
+			double joined = followers();
+			CompletableFuture<List<Resource>> follower = CompletableFuture.supplyAsync(
+					() -> service.listAllRes(null, Sort.unsorted()));
+			awaitFollowers(joined + 1);
+			Thread.sleep(300);
+			releaseLeader.countDown();
+
+			assertThatThrownBy(() -> leader.get(10, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class)
+					.hasCauseInstanceOf(QueryTimeoutException.class);
+			assertThat(follower.get(10, TimeUnit.SECONDS)).extracting(Resource::getResid).contains(saved);
+		} finally {
+			releaseLeader.countDown();
+		}
+	}
+
+	@Test
+	void followerWaitsNoLongerThanItsDeadline() throws Exception {
+		newSupplier();
+		CountDownLatch leaderRead = new CountDownLatch(1);
+		CountDownLatch releaseLeader = new CountDownLatch(1);
+		AtomicBoolean first = new AtomicBoolean(true);
+		ResourceRepository database = new JpaRepositoryFactory(entityManager).getRepository(ResourceRepository.class);
+		doAnswer(invocation -> {
+			List<Resource> rows = database.findAllSorted(invocation.getArgument(0));
+			if (first.compareAndSet(true, false)) {
+				leaderRead.countDown();
+				releaseLeader.await(30, TimeUnit.SECONDS);
+			}
+			return rows;
+		}).when(repoRes).findAllSorted(any(Sort.class));
+
+		CompletableFuture<List<Resource>> leader = CompletableFuture.supplyAsync(
+				() -> service.listAllRes(null, Sort.unsorted()));
+		try {
+			assertThat(leaderRead.await(30, TimeUnit.SECONDS)).isTrue();
+			CompletableFuture<List<Resource>> follower = CompletableFuture.supplyAsync(() -> {
+				Deadline.start(Duration.ofMillis(200));
+				try {
+					return service.listAllRes(null, Sort.unsorted());
+				} finally {
+					Deadline.clear();
+				}
+			});
+
+			assertThatThrownBy(() -> follower.get(10, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class)
+					.hasCauseInstanceOf(QueryTimeoutException.class);
+			assertThat(leader).isNotDone();
+			releaseLeader.countDown();
+			assertThat(leader.get(10, TimeUnit.SECONDS)).isNotNull();
+		} finally {
+			releaseLeader.countDown();
+		}
+	}
+
+	private double followers() {
+		return registry.get("search.coalescing.calls").tag("role", "follower").counter().count();
+	}
+
+	private void awaitFollowers(double count) throws InterruptedException {
+		for (int i = 0; i < 300 && followers() < count; i++) {
+			Thread.sleep(10);
+		}
+		assertThat(followers()).isGreaterThanOrEqualTo(count);
+	}
+
+	private Long newSupplier() {
+		Supplier supplier = new Supplier();
+		supplier.setName("Coalescing supplier");
+		supplier.setPhone("+7 000 000-00-02");
+		supplier.setEmail("coalescing@example.com");
+		service.saveSup(supplier);
+		return supplier.getSupid();
+	}
+
+	private Long newResource(Long supplier) {
+		Resource resource = new ResourceSnapshot(null, "Written during listing", "Крепеж", 1, 1, "2023-01-01",
+				supplier).toResource();
+		service.saveRes(resource);
+		return resource.getResid();
+	}
+}
@@ -0,0 +1,76 @@
+package com.example.demo;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.view;
+
+import java.sql.SQLTimeoutException;
+import java.time.Duration;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.example.demo.deadline.Deadline;
+
+@SpringBootTest(properties = "app.deadline.request-timeout=PT0S")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class DeadlineTests {
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private ResourceRepository repoRes;
+
+	@Autowired
+	private MockMvc mvc;
+
+	@AfterEach
+	void clearDeadline() {
+		Deadline.clear();
+	}
+
+	@Test
+	void statementAfterDeadlineFailsWithTimeout() {
+		Deadline.start(Duration.ZERO);
+
+		assertThatThrownBy(() -> jdbcTemplate.queryForObject("SELECT 1", Integer.class))
+				.isInstanceOf(QueryTimeoutException.class)
+				.hasRootCauseInstanceOf(SQLTimeoutException.class);
+	}
+
+	@Test
+	void repositoryQueryAfterDeadlineFailsWithTimeout() {
+		Deadline.start(Duration.ZERO);
+
+		assertThatThrownBy(() -> repoRes.searchByName("deadline", Sort.unsorted()))
+				.isInstanceOf(QueryTimeoutException.class)
+				.hasRootCauseInstanceOf(SQLTimeoutException.class);
+	}
+
+	@Test
+	void statementWithinDeadlineRuns() {
+		Deadline.start(Duration.ofSeconds(10));
+
+		jdbcTemplate.queryForObject("SELECT 1", Integer.class);
+	}
+
+	@Test
+	@WithMockUser(username = "late")
+	void pageOverDeadlineShowsGatewayTimeout() throws Exception {
+		mvc.perform(get("/").param("keyword", "deadline"))
+				.andExpect(status().isGatewayTimeout())
+				.andExpect(view().name("error/504"));
+	}
+}
@@ -0,0 +1,87 @@
+package com.example.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doAnswer;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.example.demo.fuzzy.FuzzySearch;
+import com.example.demo.suggest.SuggestionIndex;
+
+import jakarta.persistence.EntityManager;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class IndexReloadTests {
+
+	@Autowired
+	private ResourcesService service;
+
+	@Autowired
+	private SuggestionIndex suggestions;
+
+	@Autowired
+	private FuzzySearch fuzzy;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@SpyBean
+	private ResourceRepository repoRes;
+
+	@Test
+	void suggestionReloadKeepsResourceSavedDuringRead() throws Exception {
+		reloadWhileSaving(suggestions::reload, "Reloadsuggest");
+
+		assertThat(suggestions.suggest(SuggestionIndex.Field.NAME, "Reloadsuggest", 10))
+				.contains("Reloadsuggest bolt");
+	}
+
+	@Test
+	void fuzzyReloadKeepsResourceSavedDuringRead() throws Exception {
+		Long saved = reloadWhileSaving(fuzzy::reload, "Reloadfuzzy");
+
+		assertThat(fuzzy.matchResources("Reloadfuzzy bolt")).contains(saved);
+	}
+
+	private Long reloadWhileSaving(Runnable reload, String prefix) throws Exception {
+		CountDownLatch read = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicBoolean armed = new AtomicBoolean(true);
+		ResourceRepository database = new JpaRepositoryFactory(entityManager).getRepository(ResourceRepository.class);
+		doAnswer(invocation -> {
+			List<Resource> rows = database.findAll();
+			if (armed.compareAndSet(true, false)) {
+				read.countDown();
+				release.await(30, TimeUnit.SECONDS);
+			}
+			return rows;
+		}).when(repoRes).findAll();
+
+		CompletableFuture<Void> reloading = CompletableFuture.runAsync(reload);
+		try {
+			assertThat(read.await(30, TimeUnit.SECONDS)).isTrue();
+			Resource resource = new ResourceSnapshot(null, prefix + " bolt", "Крепеж", 1, 1, "2023-01-01", null)
+					.toResource();
+			CompletableFuture<Void> saving = CompletableFuture.runAsync(() -> service.saveRes(resource));
+			Thread.sleep(300);
+			release.countDown();
+			reloading.get(30, TimeUnit.SECONDS);
+			saving.get(30, TimeUnit.SECONDS);
+			return resource.getResid();
+		} finally {
+			release.countDown();
+		}
+	}
+}
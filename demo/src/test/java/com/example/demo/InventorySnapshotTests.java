@@ -0,0 +1,132 @@
+package com.example.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.demo.backup.InventorySnapshots;
+import com.example.demo.backup.SnapshotFormatException;
+import com.example.demo.backup.SnapshotReport;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class InventorySnapshotTests {
+
+	@Autowired
+	private InventorySnapshots snapshots;
+
+	@Autowired
+	private ResourcesService service;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private Path directory;
+
+	@BeforeEach
+	void createResource() {
+		directory = (Path) ReflectionTestUtils.getField(snapshots, "directory");
+		Supplier supplier = new Supplier();
+		supplier.setName("Snapshot supplier");
+		supplier.setPhone("+7 000 000-00-05");
+		supplier.setEmail("snapshot@example.com");
+		service.saveSup(supplier);
+		service.saveRes(new ResourceSnapshot(null, "Snapshot bolt", "Снимок", 3, 7, "2023-01-01",
+				supplier.getSupid()).toResource());
+	}
+
+	@Test
+	void restoreReturnsRowsOfSnapshot() throws IOException {
+		List<List<Map<String, Object>>> before = rows();
+		SnapshotReport report = snapshots.snapshot();
+
+		jdbcTemplate.update("UPDATE resources SET quantity = quantity + 1");
+		service.saveRes(new ResourceSnapshot(null, "Added after snapshot", "После снимка", 1, 1, "2023-01-02",
+				null).toResource());
+		assertThat(rows()).isNotEqualTo(before);
+
+		SnapshotReport restored = snapshots.restore(report.file());
+
+		assertThat(rows()).isEqualTo(before);
+		assertThat(restored.tables()).isEqualTo(report.tables());
+	}
+
+	@Test
+	void truncatedSnapshotIsRejectedAndDatabaseIsUnchanged() throws IOException {
+		byte[] data = Files.readAllBytes(directory.resolve(snapshots.snapshot().file()));
+		Files.write(directory.resolve("truncated.snap"), Arrays.copyOf(data, data.length / 2));
+		List<List<Map<String, Object>>> before = rows();
+
+		assertThatThrownBy(() -> snapshots.restore("truncated.snap")).isInstanceOf(SnapshotFormatException.class);
+		assertThat(rows()).isEqualTo(before);
+	}
+
+	@Test
+	void corruptedBlockIsRejectedAndDatabaseIsUnchanged() throws IOException {
+		byte[] content = content(snapshots.snapshot().file());
+		content[content.length - 16] ^= 0x5A;
+		write("corrupted.snap", content);
+		List<List<Map<String, Object>>> before = rows();
+
+		assertThatThrownBy(() -> snapshots.restore("corrupted.snap")).isInstanceOf(SnapshotFormatException.class);
+		assertThat(rows()).isEqualTo(before);
+	}
+
+	@Test
+	void snapshotOfOtherVersionIsRejected() throws IOException {
+		byte[] content = content(snapshots.snapshot().file());
+		ByteBuffer.wrap(content).putInt(Long.BYTES, 99);
+		write("other-version.snap", content);
+
+		assertThatThrownBy(() -> snapshots.restore("other-version.snap"))
+				.isInstanceOf(SnapshotFormatException.class)
+				.hasMessageContaining("version 99");
+	}
+
+	@Test
+	void fileNameOutsideDirectoryIsRejected() {
+		assertThatThrownBy(() -> snapshots.restore("../inventory.snap")).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> snapshots.restore("inventory.sql")).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	private List<List<Map<String, Object>>> rows() {
+		return List.of(
+				jdbcTemplate.queryForList("SELECT * FROM suppliers ORDER BY supid"),
+				jdbcTemplate.queryForList("SELECT * FROM resource_types ORDER BY id"),
+				jdbcTemplate.queryForList("SELECT * FROM resources ORDER BY resid"));
+	}
+
+	private byte[] content(String name) throws IOException {
+		try (InputStream in = new GZIPInputStream(Files.newInputStream(directory.resolve(name)))) {
+			return in.readAllBytes();
+		}
+	}
+
+	private void write(String name, byte[] content) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (OutputStream out = new GZIPOutputStream(bytes)) {
+			out.write(content);
+		}
+		Files.write(directory.resolve(name), bytes.toByteArray());
+	}
+}
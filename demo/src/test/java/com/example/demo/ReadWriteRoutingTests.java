@@ -0,0 +1,111 @@
+package com.example.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.demo.security.UserInfoRepository;
+
+@SpringBootTest
+@ActiveProfiles({"test", "replica"})
+class ReadWriteRoutingTests {
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private ResourcesService service;
+
+	@Autowired
+	private UserInfoRepository userRepo;
+
+	@Test
+	void readOnlyTransactionUsesReplica() {
+		assertThat(databaseName(true)).isEqualTo("REPLICA");
+	}
+
+	@Test
+	void readWriteTransactionUsesPrimary() {
+		assertThat(databaseName(false)).isEqualTo("PRIMARY");
+	}
+
+	@Test
+	@WithMockUser(username = "writer")
+	void readsAfterOwnWriteStayOnPrimary() {
+		Supplier supplier = new Supplier();
+		supplier.setName("Fresh supplier");
+		supplier.setPhone("+7 000 000-00-01");
+		supplier.setEmail("fresh@example.com");
+		service.saveSup(supplier);
+
+		assertThat(databaseName(true)).isEqualTo("PRIMARY");
+		assertThat(service.listAllSup("Fresh supplier", Sort.unsorted())).extracting(Supplier::getName).contains("Fresh supplier");
+	}
+
+	@Test
+	@WithMockUser(username = "primary-reader")
+	void readsOnPrimaryWithoutChangesDoNotPinToPrimary() {
+		TransactionTemplate template = new TransactionTemplate(transactionManager);
+		template.executeWithoutResult(status -> userRepo.findByName("primary-reader"));
+
+		assertThat(databaseName(true)).isEqualTo("REPLICA");
+	}
+
+	@Test
+	@WithMockUser(username = "rolled-back-writer")
+	void rolledBackWritesDoNotPinToPrimary() {
+		TransactionTemplate template = new TransactionTemplate(transactionManager);
+		template.executeWithoutResult(status -> {
+			Supplier supplier = new Supplier();
+			supplier.setName("Rolled back supplier");
+			supplier.setPhone("+7 000 000-00-04");
+			supplier.setEmail("rollback@example.com");
+			service.saveSup(supplier);
+			status.setRollbackOnly();
+		});
+
+		assertThat(databaseName(true)).isEqualTo("REPLICA");
+	}
+
+	@Test
+	@WithMockUser(username = "reader")
+	void readsOfOtherUsersGoToReplica() {
+		assertThat(databaseName(true)).isEqualTo("REPLICA");
+	}
+
+	private String databaseName(boolean readOnly) {
+		TransactionTemplate template = new TransactionTemplate(transactionManager);
+		template.setReadOnly(readOnly);
+		return template.execute(status -> jdbcTemplate.queryForObject("SELECT DATABASE()", String.class));
+	}
+
+	@TestConfiguration
+	@Profile("replica")
+	static class ReplicaSchema {
+
+		@Bean
+		InitializingBean replicaMigration(Environment environment) {
+			return () -> Flyway.configure()
+					.dataSource(environment.getRequiredProperty("app.datasource.replica.url"), "sa", "")
+					.load()
+					.migrate();
+		}
+	}
+}
@@ -0,0 +1,73 @@
+package com.example.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.example.demo.sorting.SortColumns;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ResourceSearchSortTests {
+
+	private static final String KEYWORD = "sortbolt";
+
+	@Autowired
+	private ResourcesService service;
+
+	@Autowired
+	private ResourceRepository repoRes;
+
+	@BeforeEach
+	void createResources() {
+		if (!repoRes.searchByName(KEYWORD, Sort.unsorted()).isEmpty()) {
+			return;
+		}
+		Long zeta = newSupplier("Zeta");
+		Long alpha = newSupplier("Alpha");
+		Long mid = newSupplier("Mid");
+		newResource(KEYWORD + "A", zeta);
+		newResource(KEYWORD + "B", alpha);
+		newResource(KEYWORD + "C", mid);
+		newResource(KEYWORD + "D", null);
+	}
+
+	@Test
+	void searchesSortBySupplierName() {
+		Sort bySupplier = SortColumns.resources("supplier", "asc");
+
+		assertThat(repoRes.findAllSorted(bySupplier)).extracting(Resource::getName)
+				.filteredOn(name -> name.startsWith(KEYWORD))
+				.containsExactly(KEYWORD + "D", KEYWORD + "B", KEYWORD + "C", KEYWORD + "A");
+		assertThat(repoRes.search(KEYWORD, bySupplier)).extracting(Resource::getName)
+				.containsExactly(KEYWORD + "D", KEYWORD + "B", KEYWORD + "C", KEYWORD + "A");
+		assertThat(repoRes.searchByName(KEYWORD, bySupplier)).extracting(Resource::getName)
+				.containsExactly(KEYWORD + "D", KEYWORD + "B", KEYWORD + "C", KEYWORD + "A");
+	}
+
+	@Test
+	void searchesSortBySupplierNameDescending() {
+		Sort bySupplier = SortColumns.resources("supplier", "desc");
+
+		assertThat(repoRes.searchByName(KEYWORD, bySupplier)).extracting(Resource::getName)
+				.containsExactly(KEYWORD + "A", KEYWORD + "C", KEYWORD + "B", KEYWORD + "D");
+	}
+
+	private Long newSupplier(String name) {
+		Supplier supplier = new Supplier();
+		supplier.setName(name);
+		supplier.setPhone("+7 000 000-00-03");
+		supplier.setEmail("sorting@example.com");
+		service.saveSup(supplier);
+		return supplier.getSupid();
+	}
+
+	private void newResource(String name, Long supplier) {
+		service.saveRes(new ResourceSnapshot(null, name, "Крепеж", 1, 1, "2023-01-01", supplier).toResource());
+	}
+}
@@ -0,0 +1,81 @@
+package com.example.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.NoSuchElementException;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import jakarta.persistence.EntityManagerFactory;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class SupplierCacheTests {
+
+	@Autowired
+	private ResourcesService service;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@BeforeEach
+	void clearCache() {
+		entityManagerFactory.getCache().evictAll();
+	}
+
+	@Test
+	void getSupPutsSupplierIntoSecondLevelCache() {
+		Long id = newSupplier("Cached supplier");
+
+		service.getSup(id);
+
+		assertThat(entityManagerFactory.getCache().contains(Supplier.class, id)).isTrue();
+	}
+
+	@Test
+	void saveSupRefreshesCachedEntry() {
+		Long id = newSupplier("Old name");
+		Supplier cached = service.getSup(id);
+		assertThat(entityManagerFactory.getCache().contains(Supplier.class, id)).isTrue();
+
+		cached.setName("New name");
+		service.saveSup(cached);
+
+		assertThat(service.getSup(id).getName()).isEqualTo("New name");
+	}
+
+	@Test
+	void saveSupInvalidatesCachedSupplierList() {
+		int before = service.listAllSups().size();
+
+		newSupplier("Another supplier");
+
+		assertThat(service.listAllSups()).hasSize(before + 1);
+	}
+
+	@Test
+	void deleteSupInvalidatesCachedEntry() {
+		Long id = newSupplier("Removed supplier");
+		service.getSup(id);
+		int before = service.listAllSups().size();
+
+		service.deleteSup(id);
+
+		assertThatThrownBy(() -> service.getSup(id)).isInstanceOf(NoSuchElementException.class);
+		assertThat(service.listAllSups()).hasSize(before - 1);
+	}
+
+	private Long newSupplier(String name) {
+		Supplier supplier = new Supplier();
+		supplier.setName(name);
+		supplier.setPhone("+7 000 000-00-00");
+		supplier.setEmail("supplier@example.com");
+		service.saveSup(supplier);
+		return supplier.getSupid();
+	}
+}
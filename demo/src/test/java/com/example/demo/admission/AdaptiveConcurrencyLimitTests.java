@@ -0,0 +1,98 @@
+package com.example.demo.admission;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class AdaptiveConcurrencyLimitTests {
+
+	private static final long THRESHOLD = TimeUnit.MILLISECONDS.toNanos(500);
+
+	private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+
+	private static final long SLOW = TimeUnit.SECONDS.toNanos(2);
+
+	@Test
+	void slowOrFailedReleaseShrinksLimitByBackoffRatio() {
+		AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(40, 2, 200, THRESHOLD, 0.5);
+
+		limit.release(limit.tryAcquire(), SLOW, false);
+		assertThat(limit.limit()).isEqualTo(20);
+
+		limit.release(limit.tryAcquire(), FAST, true);
+		assertThat(limit.limit()).isEqualTo(10);
+		assertThat(limit.inFlight()).isZero();
+	}
+
+	@Test
+	void limitNeverDropsBelowMinLimit() {
+		AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(20, 3, 200, THRESHOLD, 0.5);
+
+		for (int i = 0; i < 10; i++) {
+			limit.release(limit.tryAcquire(), SLOW, i % 2 == 0);
+		}
+
+		assertThat(limit.limit()).isEqualTo(3);
+	}
+
+	@Test
+	void limitGrowsOnlyWhenUtilisationIsHigh() {
+		AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 2, 200, THRESHOLD, 0.9);
+
+		limit.release(limit.tryAcquire(), FAST, false);
+		assertThat(limit.limit()).isEqualTo(10);
+
+		int[] admitted = acquire(limit, 5);
+		limit.release(admitted[4], FAST, false);
+		assertThat(limit.limit()).isEqualTo(11);
+	}
+
+	@Test
+	void limitNeverExceedsMaxLimit() {
+		AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(4, 2, 6, THRESHOLD, 0.9);
+
+		for (int i = 0; i < 10; i++) {
+			int[] admitted = acquire(limit, limit.limit());
+			for (int before : admitted) {
+				limit.release(before, FAST, false);
+			}
+		}
+
+		assertThat(limit.limit()).isEqualTo(6);
+	}
+
+	@Test
+	void tryAcquireRejectsAtLimit() {
+		AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(2, 1, 10, THRESHOLD, 0.9);
+
+		assertThat(limit.tryAcquire()).isZero();
+		assertThat(limit.tryAcquire()).isEqualTo(1);
+		assertThat(limit.tryAcquire()).isEqualTo(-1);
+		assertThat(limit.inFlight()).isEqualTo(2);
+
+		limit.release(1, SLOW, false);
+
+		assertThat(limit.limit()).isEqualTo(1);
+		assertThat(limit.tryAcquire()).isEqualTo(-1);
+		limit.release(0, FAST, false);
+		assertThat(limit.tryAcquire()).isZero();
+	}
+
+	@Test
+	void initialLimitIsClampedToBounds() {
+		assertThat(new AdaptiveConcurrencyLimit(1, 5, 10, THRESHOLD, 0.9).limit()).isEqualTo(5);
+		assertThat(new AdaptiveConcurrencyLimit(50, 5, 10, THRESHOLD, 0.9).limit()).isEqualTo(10);
+		assertThat(new AdaptiveConcurrencyLimit(0, 0, 0, THRESHOLD, 0.9).limit()).isEqualTo(1);
+	}
+
+	private static int[] acquire(AdaptiveConcurrencyLimit limit, int count) {
+		int[] admitted = new int[count];
+		for (int i = 0; i < count; i++) {
+			admitted[i] = limit.tryAcquire();
+			assertThat(admitted[i]).isEqualTo(i);
+		}
+		return admitted;
+	}
+}
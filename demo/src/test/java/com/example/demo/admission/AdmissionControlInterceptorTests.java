@@ -0,0 +1,75 @@
+package com.example.demo.admission;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class AdmissionControlInterceptorTests {
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+	@Test
+	void requestOverLimitGetsServiceUnavailableWithRetryAfter() throws Exception {
+		AdmissionControlInterceptor interceptor = interceptor(1, Duration.ofSeconds(5));
+		MockHttpServletRequest admitted = new MockHttpServletRequest("GET", "/findRes");
+		assertThat(interceptor.preHandle(admitted, new MockHttpServletResponse(), null)).isTrue();
+
+		MockHttpServletResponse rejected = new MockHttpServletResponse();
+
+		assertThat(interceptor.preHandle(new MockHttpServletRequest("GET", "/findRes"), rejected, null)).isFalse();
+		assertThat(rejected.getStatus()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE.value());
+		assertThat(rejected.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+		assertThat(rejected.getContentType()).startsWith("text/html");
+		assertThat(rejected.getContentAsByteArray()).isEqualTo(page());
+		assertThat(registry.get("admission.rejected").counter().count()).isEqualTo(1);
+		assertThat(registry.get("admission.inflight").gauge().value()).isEqualTo(1);
+	}
+
+	@Test
+	void completedRequestFreesItsPlace() throws Exception {
+		AdmissionControlInterceptor interceptor = interceptor(1, Duration.ofSeconds(5));
+		MockHttpServletRequest first = new MockHttpServletRequest("GET", "/sup");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		interceptor.preHandle(first, response, null);
+
+		interceptor.afterCompletion(first, response, null, null);
+
+		assertThat(registry.get("admission.inflight").gauge().value()).isZero();
+		assertThat(interceptor.preHandle(new MockHttpServletRequest("GET", "/sup"), new MockHttpServletResponse(),
+				null)).isTrue();
+	}
+
+	@Test
+	void failedRequestLowersLimit() throws Exception {
+		AdmissionControlInterceptor interceptor = interceptor(10, Duration.ofSeconds(5));
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		interceptor.preHandle(request, response, null);
+		response.setStatus(HttpStatus.GATEWAY_TIMEOUT.value());
+
+		interceptor.afterCompletion(request, response, null, null);
+
+		assertThat(registry.get("admission.limit").gauge().value()).isEqualTo(5);
+	}
+
+	private AdmissionControlInterceptor interceptor(int limit, Duration threshold) throws IOException {
+		return new AdmissionControlInterceptor(limit, 1, 100, threshold, 0.5, registry);
+	}
+
+	private static byte[] page() throws IOException {
+		try (InputStream in = new ClassPathResource(AdmissionControlInterceptor.PAGE).getInputStream()) {
+			return in.readAllBytes();
+		}
+	}
+}
@@ -0,0 +1,247 @@
+package com.example.demo.audit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.groups.Tuple.tuple;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.example.demo.ResourceChangedEvent;
+import com.example.demo.ResourceSnapshot;
+import com.example.demo.SupplierChangedEvent;
+import com.example.demo.SupplierSnapshot;
+import com.example.demo.UserAddedEvent;
+import com.example.demo.UserSnapshot;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class AuditLogTests {
+
+	private static final Instant TIME = Instant.parse("2026-10-01T12:00:00Z");
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void recordSurvivesEncodeAndDecode() {
+		List<AuditRecord> records = List.of(
+				new AuditRecord(1, TIME, AuditAction.RESOURCE_SAVED, "admin", 7L, 3L,
+						new ResourceSnapshot(7L, "Болт", "Крепеж", 1, 10, "2026-01-01", 3L),
+						new ResourceSnapshot(7L, "Болт М8", "Крепеж", 2, 12, "2026-01-01", null)),
+				new AuditRecord(2, TIME.plusMillis(1), AuditAction.SUPPLIER_DELETED, "system", null, 3L,
+						new SupplierSnapshot(3L, "Поставщик", "+7 000 000-00-00", null), null),
+				new AuditRecord(3, TIME.plusSeconds(1), AuditAction.USER_ADDED, "anonymousUser", null, null, null,
+						new UserSnapshot(5L, "user", "USER")),
+				new AuditRecord(4, TIME, AuditAction.RESOURCE_DELETED, "", null, null, null, null));
+
+		for (AuditRecord record : records) {
+			ByteBuffer body = ByteBuffer.allocate(4096);
+			AuditCodec.encode(record, body);
+
+			assertThat(AuditCodec.decode(body.flip())).isEqualTo(record);
+		}
+	}
+
+	@Test
+	void logWritesSubmittedChangesInOrder() throws IOException {
+		AuditLog log = open(1 << 16, Duration.ofDays(90), 64);
+		log.resourceChanged(new ResourceChangedEvent(null, resource(1)));
+		log.supplierChanged(new SupplierChangedEvent(new SupplierSnapshot(9L, "Поставщик", "", ""), null,
+				List.of(resource(2))));
+		log.userAdded(new UserAddedEvent(new UserSnapshot(4L, "user", "USER")));
+		log.shutdown();
+
+		List<AuditRecord> records = read(new AuditLogReader.Query(null, null, null, null));
+
+		assertThat(records).extracting(AuditRecord::sequence).containsExactly(1L, 2L, 3L, 4L);
+		assertThat(records).extracting(AuditRecord::action).containsExactly(AuditAction.RESOURCE_SAVED,
+				AuditAction.SUPPLIER_DELETED, AuditAction.RESOURCE_DELETED, AuditAction.USER_ADDED);
+		assertThat(records).extracting(AuditRecord::user).containsOnly(AuditLog.SYSTEM_USER);
+		assertThat(records.get(0).after()).isEqualTo(resource(1));
+		assertThat(records.get(2).before()).isEqualTo(resource(2));
+	}
+
+	@Test
+	void reopenedLogContinuesAfterTruncatedTail() throws IOException {
+		write(3);
+		Path segment = AuditSegment.list(directory).get(0);
+		int[] ends = recordEnds(segment);
+		try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+			channel.truncate(ends[1] + 12);
+		}
+
+		write(1);
+
+		assertThat(read(new AuditLogReader.Query(null, null, null, null)))
+				.extracting(AuditRecord::sequence, AuditRecord::resid)
+				.containsExactly(tuple(1L, 1L), tuple(2L, 2L), tuple(3L, 1L));
+	}
+
+	@Test
+	void reopenedLogOverwritesCorruptedTail() throws IOException {
+		write(3);
+		Path segment = AuditSegment.list(directory).get(0);
+		int[] ends = recordEnds(segment);
+		try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			ByteBuffer garbage = ByteBuffer.allocate(1).put((byte) 0x5A).flip();
+			channel.write(garbage, ends[2] - 1);
+		}
+
+		write(2);
+
+		List<String> warnings = new ArrayList<>();
+		List<AuditRecord> records = new ArrayList<>();
+		AuditLogReader.scan(directory, new AuditLogReader.Query(null, null, null, null), records::add, warnings::add);
+		assertThat(records).extracting(AuditRecord::sequence).containsExactly(1L, 2L, 3L, 4L);
+		assertThat(records).extracting(AuditRecord::resid).containsExactly(1L, 2L, 1L, 2L);
+		assertThat(warnings).isEmpty();
+	}
+
+	@Test
+	void corruptedHeaderStartsNewSegmentAtSameSequence() throws IOException {
+		write(2);
+		Path segment = AuditSegment.list(directory).get(0);
+		try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+			channel.write(ByteBuffer.allocate(4), 0);
+		}
+
+		write(1);
+
+		assertThat(Files.exists(segment.resolveSibling(segment.getFileName() + ".corrupt"))).isTrue();
+		assertThat(read(new AuditLogReader.Query(null, null, null, null))).extracting(AuditRecord::sequence)
+				.containsExactly(1L);
+	}
+
+	@Test
+	void segmentIsRotatedWhenFull() throws IOException {
+		AuditLog log = open(1024, Duration.ofDays(90), 64);
+		for (long i = 1; i <= 40; i++) {
+			log.resourceChanged(new ResourceChangedEvent(null, resource(i)));
+		}
+		log.shutdown();
+
+		List<Path> segments = AuditSegment.list(directory);
+		assertThat(segments).hasSizeGreaterThan(2);
+		for (Path segment : segments) {
+			assertThat(Files.size(segment)).isEqualTo(1024);
+		}
+		List<AuditRecord> records = read(new AuditLogReader.Query(null, null, null, null));
+		assertThat(records).extracting(AuditRecord::sequence)
+				.containsExactlyElementsOf(LongStream.rangeClosed(1, 40).boxed().toList());
+		for (Path segment : segments.subList(1, segments.size())) {
+			long base = AuditSegment.header(segment).baseSequence();
+			assertThat(segment.getFileName().toString()).contains(Long.toString(base));
+			assertThat(records.get((int) base - 1).sequence()).isEqualTo(base);
+		}
+	}
+
+	@Test
+	void retentionKeepsAtMostMaxSegments() throws IOException {
+		AuditLog log = open(1024, Duration.ofDays(90), 2);
+		for (long i = 1; i <= 40; i++) {
+			log.resourceChanged(new ResourceChangedEvent(null, resource(i)));
+		}
+		log.shutdown();
+
+		assertThat(AuditSegment.list(directory)).hasSize(2);
+		List<AuditRecord> records = read(new AuditLogReader.Query(null, null, null, null));
+		assertThat(records).isNotEmpty();
+		assertThat(records.get(records.size() - 1).sequence()).isEqualTo(40);
+		assertThat(records.get(0).sequence()).isEqualTo(AuditSegment.header(AuditSegment.list(directory).get(0))
+				.baseSequence());
+	}
+
+	@Test
+	void retentionRemovesSegmentsOlderThanRetention() throws IOException, InterruptedException {
+		AuditLog log = open(1024, Duration.ofDays(90), 64);
+		for (long i = 1; i <= 40; i++) {
+			log.resourceChanged(new ResourceChangedEvent(null, resource(i)));
+		}
+		log.shutdown();
+		List<Path> segments = AuditSegment.list(directory);
+		assertThat(segments).hasSizeGreaterThan(2);
+
+		open(1024, Duration.ofDays(90), 64).shutdown();
+		assertThat(AuditSegment.list(directory)).isEqualTo(segments);
+
+		Thread.sleep(200);
+		open(1024, Duration.ofMillis(100), 64).shutdown();
+		assertThat(AuditSegment.list(directory)).containsExactly(segments.get(segments.size() - 1));
+	}
+
+	@Test
+	void readerFiltersByResourceSupplierAndTime() throws IOException {
+		try (AuditSegment segment = AuditSegment.create(directory, 1, 1 << 16)) {
+			append(segment, new AuditRecord(1, TIME, AuditAction.RESOURCE_SAVED, "a", 1L, 10L, null, null));
+			append(segment, new AuditRecord(2, TIME.plusSeconds(60), AuditAction.RESOURCE_SAVED, "a", 2L, 10L, null,
+					null));
+			append(segment, new AuditRecord(3, TIME.plusSeconds(120), AuditAction.SUPPLIER_SAVED, "a", null, 20L,
+					null, null));
+			append(segment, new AuditRecord(4, TIME.plusSeconds(180), AuditAction.RESOURCE_DELETED, "a", 1L, 10L,
+					null, null));
+			append(segment, new AuditRecord(5, TIME.plusSeconds(240), AuditAction.USER_ADDED, "a", null, null, null,
+					null));
+		}
+
+		assertThat(read(new AuditLogReader.Query(1L, null, null, null))).extracting(AuditRecord::sequence)
+				.containsExactly(1L, 4L);
+		assertThat(read(new AuditLogReader.Query(null, 10L, null, null))).extracting(AuditRecord::sequence)
+				.containsExactly(1L, 2L, 4L);
+		assertThat(read(new AuditLogReader.Query(null, null, TIME.plusSeconds(60), TIME.plusSeconds(180))))
+				.extracting(AuditRecord::sequence).containsExactly(2L, 3L, 4L);
+		assertThat(read(new AuditLogReader.Query(1L, 10L, TIME.plusSeconds(1), null)))
+				.extracting(AuditRecord::sequence).containsExactly(4L);
+		assertThat(read(new AuditLogReader.Query(2L, 20L, null, null))).isEmpty();
+	}
+
+	private AuditLog open(int segmentBytes, Duration retention, int maxSegments) throws IOException {
+		return new AuditLog(directory.toString(), segmentBytes, retention, maxSegments, 64, Duration.ofSeconds(5),
+				new SimpleMeterRegistry());
+	}
+
+	private void write(int count) throws IOException {
+		AuditLog log = open(1 << 16, Duration.ofDays(90), 64);
+		for (long i = 1; i <= count; i++) {
+			log.resourceChanged(new ResourceChangedEvent(null, resource(i)));
+		}
+		log.shutdown();
+	}
+
+	private List<AuditRecord> read(AuditLogReader.Query query) throws IOException {
+		List<AuditRecord> records = new ArrayList<>();
+		AuditLogReader.scan(directory, query, records::add, warning -> {
+		});
+		return records;
+	}
+
+	private static int[] recordEnds(Path segment) throws IOException {
+		AuditSegment.Cursor cursor = new AuditSegment.Cursor(AuditSegment.map(segment));
+		List<Integer> ends = new ArrayList<>();
+		while (cursor.next() != null) {
+			ends.add(cursor.position());
+		}
+		return ends.stream().mapToInt(Integer::intValue).toArray();
+	}
+
+	private static void append(AuditSegment segment, AuditRecord record) {
+		ByteBuffer body = ByteBuffer.allocate(4096);
+		AuditCodec.encode(record, body);
+		assertThat(segment.append(body.flip())).isTrue();
+	}
+
+	private static ResourceSnapshot resource(long resid) {
+		return new ResourceSnapshot(resid, "Resource " + resid, "Крепеж", 1, 1, "2026-01-01", 1L);
+	}
+}
@@ -0,0 +1,49 @@
+package com.example.demo.ratelimit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class RateLimitFilterTests {
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+	private final RateLimitFilter filter = new RateLimitFilter(
+			new RateLimiter(new String[] {"/findRes:2:0.5"}, registry));
+
+	@Test
+	void requestsOverCapacityGetTooManyRequestsWithRetryAfter() throws Exception {
+		assertThat(filter("/findRes", "10.0.0.1").getStatus()).isEqualTo(HttpStatus.OK.value());
+		assertThat(filter("/findRes", "10.0.0.1").getStatus()).isEqualTo(HttpStatus.OK.value());
+
+		MockHttpServletResponse throttled = filter("/findRes", "10.0.0.1");
+
+		assertThat(throttled.getStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS.value());
+		assertThat(throttled.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("2");
+		assertThat(registry.get("ratelimit.throttled").tag("endpoint", "/findRes").counter().count()).isEqualTo(1);
+	}
+
+	@Test
+	void clientsAndEndpointsHaveSeparateBuckets() throws Exception {
+		filter("/findRes", "10.0.0.2");
+		filter("/findRes", "10.0.0.2");
+
+		assertThat(filter("/findRes", "10.0.0.3").getStatus()).isEqualTo(HttpStatus.OK.value());
+		assertThat(filter("/findSup", "10.0.0.2").getStatus()).isEqualTo(HttpStatus.OK.value());
+	}
+
+	private MockHttpServletResponse filter(String path, String address) throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+		request.setRemoteAddr(address);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(request, response, new MockFilterChain());
+		return response;
+	}
+}
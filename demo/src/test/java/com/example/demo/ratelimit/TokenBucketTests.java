@@ -0,0 +1,55 @@
+package com.example.demo.ratelimit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class TokenBucketTests {
+
+	private static final long START = 1_000_000_000L;
+
+	private static final long INTERVAL = TimeUnit.MILLISECONDS.toNanos(200);
+
+	@Test
+	void burstIsLimitedByCapacity() {
+		TokenBucket bucket = new TokenBucket(3, 5, START);
+
+		assertThat(bucket.tryAcquire(START)).isZero();
+		assertThat(bucket.tryAcquire(START)).isZero();
+		assertThat(bucket.tryAcquire(START)).isZero();
+		assertThat(bucket.tryAcquire(START)).isEqualTo(INTERVAL);
+	}
+
+	@Test
+	void tokenIsRefilledAfterInterval() {
+		TokenBucket bucket = new TokenBucket(1, 5, START);
+		assertThat(bucket.tryAcquire(START)).isZero();
+
+		assertThat(bucket.tryAcquire(START + INTERVAL / 2)).isEqualTo(INTERVAL / 2);
+		assertThat(bucket.tryAcquire(START + INTERVAL)).isZero();
+		assertThat(bucket.tryAcquire(START + INTERVAL)).isEqualTo(INTERVAL);
+	}
+
+	@Test
+	void rejectedRequestDoesNotConsumeToken() {
+		TokenBucket bucket = new TokenBucket(1, 5, START);
+		bucket.tryAcquire(START);
+		bucket.tryAcquire(START + INTERVAL / 2);
+
+		assertThat(bucket.tryAcquire(START + INTERVAL)).isZero();
+	}
+
+	@Test
+	void bucketIsIdleOnceFullAgain() {
+		TokenBucket bucket = new TokenBucket(2, 5, START);
+		assertThat(bucket.idle(START)).isTrue();
+
+		bucket.tryAcquire(START);
+		bucket.tryAcquire(START);
+
+		assertThat(bucket.idle(START + INTERVAL)).isFalse();
+		assertThat(bucket.idle(START + 2 * INTERVAL)).isTrue();
+	}
+}
@@ -0,0 +1,204 @@
+package com.example.demo.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import jakarta.servlet.http.Cookie;
+
+class TokenServiceTests {
+
+	private static final String SECRET = "0123456789abcdef0123456789abcdef";
+
+	private static final String COOKIE = "AUTH_TOKEN";
+
+	private final TokenService tokens = service(SECRET, Duration.ofHours(8));
+
+	@AfterEach
+	void clearContext() {
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	void issuedTokenIsVerified() {
+		Instant before = Instant.now();
+		TokenService.TokenClaims claims = tokens.verify(tokens.issue(user("admin", "ROLE_ADMIN", "ROLE_USER")));
+
+		assertThat(claims).isNotNull();
+		assertThat(claims.name()).isEqualTo("admin");
+		assertThat(claims.authorities()).extracting(GrantedAuthority::getAuthority)
+				.containsExactly("ROLE_ADMIN", "ROLE_USER");
+		assertThat(claims.expires()).isBetween(before.plus(Duration.ofHours(8)).minusSeconds(1),
+				Instant.now().plus(Duration.ofHours(8)));
+	}
+
+	@Test
+	void userWithoutAuthoritiesIsVerified() {
+		TokenService.TokenClaims claims = tokens.verify(tokens.issue(user("Пользователь")));
+
+		assertThat(claims.name()).isEqualTo("Пользователь");
+		assertThat(claims.authorities()).isEmpty();
+	}
+
+	@Test
+	void tamperedSignatureIsRejected() {
+		String token = tokens.issue(user("user", "ROLE_USER"));
+		int last = token.length() - 2;
+		char changed = token.charAt(last) == 'A' ? 'B' : 'A';
+
+		assertThat(tokens.verify(token.substring(0, last) + changed + token.substring(last + 1))).isNull();
+	}
+
+	@Test
+	void tamperedPayloadIsRejected() {
+		String[] parts = tokens.issue(user("user", "ROLE_USER")).split("\\.");
+		String admin = encode("ROLE_ADMIN");
+		long later = Long.parseLong(parts[2]) + 3600;
+
+		assertThat(tokens.verify(encode("admin") + "." + parts[1] + "." + parts[2] + "." + parts[3])).isNull();
+		assertThat(tokens.verify(parts[0] + "." + admin + "." + parts[2] + "." + parts[3])).isNull();
+		assertThat(tokens.verify(parts[0] + "." + parts[1] + "." + later + "." + parts[3])).isNull();
+	}
+
+	@Test
+	void expiredTokenIsRejected() {
+		String token = service(SECRET, Duration.ofSeconds(-1)).issue(user("user", "ROLE_USER"));
+
+		assertThat(tokens.verify(token)).isNull();
+	}
+
+	@Test
+	void malformedOrTruncatedTokenIsRejected() {
+		String token = tokens.issue(user("user", "ROLE_USER"));
+		String[] parts = token.split("\\.");
+
+		assertThat(tokens.verify(null)).isNull();
+		assertThat(tokens.verify("")).isNull();
+		assertThat(tokens.verify("not-a-token")).isNull();
+		assertThat(tokens.verify(token.substring(0, token.length() - 1))).isNull();
+		assertThat(tokens.verify(token.substring(0, token.lastIndexOf('.')))).isNull();
+		assertThat(tokens.verify(token + ".extra")).isNull();
+		assertThat(tokens.verify(parts[0] + "." + parts[1] + "." + parts[2] + ".!!!")).isNull();
+		assertThat(tokens.verify(parts[0] + "." + parts[1] + ".soon." + parts[3])).isNull();
+	}
+
+	@Test
+	void tokenSignedWithOtherSecretIsRejected() {
+		String token = service("fedcba9876543210fedcba9876543210", Duration.ofHours(8))
+				.issue(user("user", "ROLE_USER"));
+
+		assertThat(tokens.verify(token)).isNull();
+	}
+
+	@Test
+	void shortSecretIsRejected() {
+		assertThatThrownBy(() -> service("short", Duration.ofHours(8))).isInstanceOf(IllegalStateException.class);
+		assertThatThrownBy(() -> service("", Duration.ofHours(8))).isInstanceOf(IllegalStateException.class);
+	}
+
+	@Test
+	void tokenIsRenewedAfterHalfOfItsLifetime() {
+		TokenService.TokenClaims fresh = tokens.verify(tokens.issue(user("user")));
+		TokenService.TokenClaims aging = tokens.verify(service(SECRET, Duration.ofHours(3)).issue(user("user")));
+
+		assertThat(tokens.shouldRenew(fresh)).isFalse();
+		assertThat(tokens.shouldRenew(aging)).isTrue();
+	}
+
+	@Test
+	void readReturnsValueOfTokenCookie() {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		assertThat(tokens.read(request)).isNull();
+
+		request.setCookies(new Cookie("JSESSIONID", "session"));
+		assertThat(tokens.read(request)).isNull();
+
+		request.setCookies(new Cookie("JSESSIONID", "session"), new Cookie(COOKIE, "token"));
+		assertThat(tokens.read(request)).isEqualTo("token");
+	}
+
+	@Test
+	void writeAndClearSetHttpOnlyCookie() {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		tokens.write(response, user("user", "ROLE_USER"));
+		tokens.clear(response);
+
+		List<String> cookies = response.getHeaders(HttpHeaders.SET_COOKIE);
+		assertThat(cookies).hasSize(2);
+		assertThat(cookies.get(0)).startsWith(COOKIE + "=").contains("HttpOnly", "SameSite=Lax", "Max-Age=28800");
+		assertThat(tokens.verify(value(cookies.get(0))).name()).isEqualTo("user");
+		assertThat(cookies.get(1)).startsWith(COOKIE + "=;").contains("Max-Age=0");
+	}
+
+	@Test
+	void filterAuthenticatesFromCookieAndRenewsAgingToken() throws Exception {
+		String aging = service(SECRET, Duration.ofHours(3)).issue(user("user", "ROLE_USER"));
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.setCookies(new Cookie(COOKIE, aging));
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		MockFilterChain chain = new MockFilterChain();
+
+		new TokenAuthenticationFilter(tokens).doFilter(request, response, chain);
+
+		Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+		assertThat(authentication.getName()).isEqualTo("user");
+		assertThat(authentication.getAuthorities()).extracting(GrantedAuthority::getAuthority)
+				.containsExactly("ROLE_USER");
+		assertThat(chain.getRequest()).isSameAs(request);
+		String renewed = value(response.getHeader(HttpHeaders.SET_COOKIE));
+		assertThat(tokens.verify(renewed).expires()).isAfter(tokens.verify(aging).expires());
+	}
+
+	@Test
+	void filterDoesNotRenewFreshTokenAndIgnoresInvalidOne() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.setCookies(new Cookie(COOKIE, tokens.issue(user("user", "ROLE_USER"))));
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		new TokenAuthenticationFilter(tokens).doFilter(request, response, new MockFilterChain());
+
+		assertThat(SecurityContextHolder.getContext().getAuthentication().getName()).isEqualTo("user");
+		assertThat(response.getHeader(HttpHeaders.SET_COOKIE)).isNull();
+
+		SecurityContextHolder.clearContext();
+		MockHttpServletRequest forged = new MockHttpServletRequest();
+		forged.setCookies(new Cookie(COOKIE, service("fedcba9876543210fedcba9876543210", Duration.ofHours(8))
+				.issue(user("admin", "ROLE_ADMIN"))));
+		new TokenAuthenticationFilter(tokens).doFilter(forged, new MockHttpServletResponse(), new MockFilterChain());
+
+		assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+	}
+
+	private static TokenService service(String secret, Duration ttl) {
+		return new TokenService(secret, ttl, COOKIE, false);
+	}
+
+	private static Authentication user(String name, String... authorities) {
+		return UsernamePasswordAuthenticationToken.authenticated(name, null,
+				AuthorityUtils.createAuthorityList(authorities));
+	}
+
+	private static String encode(String value) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static String value(String setCookie) {
+		return setCookie.substring(COOKIE.length() + 1, setCookie.indexOf(';'));
+	}
+}